@@ -5,22 +5,27 @@ import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.web.filter.OncePerRequestFilter;
+import com.nttdata.bank.auth.service.AuthenticationService;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.JwtException;
 
 /**
- * Filter for handling JWT authentication in HTTP requests.
+ * Filter for handling JWT authentication in HTTP requests. A request with a
+ * valid bearer token continues with a JwtAuthenticationToken in its security
+ * context; a request without one, or with an invalid one, continues
+ * unauthenticated and is rejected by the authorization rules.
  */
-public class JwtAuthenticationFilter extends BasicAuthenticationFilter {
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-	private final String secretKey;
+	private static final String BEARER_PREFIX = "Bearer ";
 
-	public JwtAuthenticationFilter(AuthenticationManager authenticationManager, String secretKey) {
-		super(authenticationManager);
-		this.secretKey = secretKey;
+	private final AuthenticationService authenticationService;
+
+	public JwtAuthenticationFilter(AuthenticationService authenticationService) {
+		this.authenticationService = authenticationService;
 	}
 
 	/**
@@ -36,20 +41,17 @@ public class JwtAuthenticationFilter extends BasicAuthenticationFilter {
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
 			FilterChain chain)
 			throws IOException, ServletException {
-		String header = request.getHeader("Authorization");
-
-		if (header == null || !header.startsWith("Bearer ")) {
-			chain.doFilter(request, response);
-			return;
+		String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+		if (header != null && header.startsWith(BEARER_PREFIX)) {
+			try {
+				Claims claims = authenticationService.verifyJwt(header.substring(BEARER_PREFIX.length()));
+				SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(claims));
+			} catch (JwtException | IllegalArgumentException e) {
+				SecurityContextHolder.clearContext();
+			}
 		}
 
-		String token = header.replace("Bearer ", "");
-		Claims claims = Jwts.parser()
-				.setSigningKey(secretKey)
-				.parseClaimsJws(token)
-				.getBody();
-
-		SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(claims));
 		chain.doFilter(request, response);
 	}
 }
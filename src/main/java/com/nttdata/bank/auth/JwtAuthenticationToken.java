@@ -41,4 +41,14 @@ public class JwtAuthenticationToken extends AbstractAuthenticationToken {
 	public Object getPrincipal() {
 		return claims;
 	}
+
+	/**
+	 * Returns the name of the principal, which is the subject of the JWT.
+	 *
+	 * @return the subject of the JWT claims
+	 */
+	@Override
+	public String getName() {
+		return claims.getSubject();
+	}
 }
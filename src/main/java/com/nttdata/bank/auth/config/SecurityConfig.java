@@ -1,8 +1,8 @@
 package com.nttdata.bank.auth.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -12,16 +12,20 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import com.nttdata.bank.auth.JwtAuthenticationFilter;
+import com.nttdata.bank.auth.service.AuthenticationService;
 
 /**
  * Configuration class for setting up security configurations for the
- * application.
+ * application. The config server brings in Spring MVC, so the application runs
+ * on the servlet stack; requests are authenticated by the JWT filter and no
+ * session is kept between requests.
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
-	private final String secretKey = "secretKey";
+	@Autowired
+	private AuthenticationService authenticationService;
 
 	/**
 	 * Configures HTTP security settings.
@@ -32,36 +36,16 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 	@Override
 	protected void configure(HttpSecurity http) throws Exception {
 		http.csrf().disable()
+				.httpBasic().disable()
+				.formLogin().disable()
 				.authorizeRequests()
 				.antMatchers("/auth/generate-token").permitAll()
 				.anyRequest().authenticated()
 				.and()
 				.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
 
-		http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
-	}
-
-	/**
-	 * Exposes the AuthenticationManager bean.
-	 *
-	 * @return the AuthenticationManager bean
-	 * @throws Exception if an error occurs
-	 */
-	@Override
-	@Bean
-	public AuthenticationManager authenticationManagerBean() throws Exception {
-		return super.authenticationManagerBean();
-	}
-
-	/**
-	 * Creates a JWT authentication filter bean.
-	 *
-	 * @return the JWT authentication filter bean
-	 * @throws Exception if an error occurs
-	 */
-	@Bean
-	public JwtAuthenticationFilter jwtAuthenticationFilter() throws Exception {
-		return new JwtAuthenticationFilter(authenticationManagerBean(), secretKey);
+		http.addFilterBefore(new JwtAuthenticationFilter(authenticationService),
+				UsernamePasswordAuthenticationFilter.class);
 	}
 
 	/**
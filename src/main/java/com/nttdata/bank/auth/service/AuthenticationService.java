@@ -1,5 +1,7 @@
 package com.nttdata.bank.auth.service;
 
+import io.jsonwebtoken.Claims;
+
 /**
  * Service interface for handling authentication-related operations.
  */
@@ -21,4 +23,14 @@ public interface AuthenticationService {
 	 */
 	public boolean validateJwt(String token);
 
+	/**
+	 * Verifies the given JWT token and returns its claims. The returned claims
+	 * belong to the caller and are not shared with other requests.
+	 *
+	 * @param token the JWT token to verify
+	 * @return the claims of the token
+	 * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+	 */
+	public Claims verifyJwt(String token);
+
 }
@@ -1,19 +1,46 @@
 package com.nttdata.bank.auth.service.impl;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.nttdata.bank.auth.service.AuthenticationService;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Service implementation class for handling authentication.
+ * Service implementation class for handling authentication. The claims of the
+ * verified tokens are kept in an LRU cache bounded by size, keyed by the
+ * SHA-256 hash of the token, so that a token sent again is not parsed and its
+ * signature is not verified again. An entry expires with its token; tokens
+ * without an expiration are verified on every request. Every call returns its
+ * own copy of the claims, so a caller changing them does not change what other
+ * requests see.
  */
 @Service
 public class AuthenticationServiceImpl implements AuthenticationService {
 
 	private static final String SECRET_KEY = "secretKey";
 
+	@Value("${bank.jwt.cache.max-size:10000}")
+	private int maxSize = 10000;
+
+	private final Map<String, CachedClaims> verified = new LinkedHashMap<>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedClaims> eldest) {
+			return size() > maxSize;
+		}
+	};
+
 	/**
 	 * Generates a JWT token for the given username.
 	 *
@@ -37,10 +64,87 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 	 */
 	public boolean validateJwt(String token) {
 		try {
-			Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token);
+			verifyJwt(token);
 			return true;
 		} catch (Exception e) {
 			return false;
 		}
 	}
+
+	/**
+	 * Verifies the given JWT token and returns a copy of its claims, from the
+	 * cache when the token was already verified and has not expired.
+	 *
+	 * @param token the JWT token to verify
+	 * @return a copy of the claims of the token
+	 * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+	 */
+	public Claims verifyJwt(String token) {
+		String key = hash(token);
+		long now = System.currentTimeMillis();
+
+		synchronized (verified) {
+			CachedClaims cached = verified.get(key);
+			if (cached != null) {
+				if (now < cached.expiresAt) {
+					return copyOf(cached.claims);
+				}
+				verified.remove(key);
+			}
+		}
+
+		Claims claims = Jwts.parser()
+				.setSigningKey(SECRET_KEY)
+				.parseClaimsJws(token)
+				.getBody();
+
+		if (claims.getExpiration() != null) {
+			synchronized (verified) {
+				verified.put(key, new CachedClaims(copyOf(claims), claims.getExpiration().getTime()));
+			}
+		}
+		return claims;
+	}
+
+	/**
+	 * Copies the claims of a token, so that the cached claims are never handed
+	 * out.
+	 *
+	 * @param claims the claims to copy
+	 * @return a new Claims holding the same values
+	 */
+	private static Claims copyOf(Claims claims) {
+		return Jwts.claims(new LinkedHashMap<>(claims));
+	}
+
+	/**
+	 * Returns the SHA-256 hash of a token, so that the cache does not hold the
+	 * tokens themselves.
+	 *
+	 * @param token the JWT token
+	 * @return the Base64 encoded hash of the token
+	 */
+	private static String hash(String token) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * The verified claims of a token and the time they expire at, in epoch
+	 * milliseconds.
+	 */
+	private static final class CachedClaims {
+
+		private final Claims claims;
+		private final long expiresAt;
+
+		private CachedClaims(Claims claims, long expiresAt) {
+			this.claims = claims;
+			this.expiresAt = expiresAt;
+		}
+	}
 }
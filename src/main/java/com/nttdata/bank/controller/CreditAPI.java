@@ -2,6 +2,7 @@ package com.nttdata.bank.controller;
 
 import java.util.List;
 import javax.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -12,6 +13,7 @@ import com.nttdata.bank.request.CreditRequest;
 import com.nttdata.bank.response.ApiResponse;
 import com.nttdata.bank.response.CreditDebtResponse;
 import com.nttdata.bank.response.CreditResponse;
+import reactor.core.publisher.Flux;
 
 /**
  * CreditAPI defines the RESTful endpoints for credit-related operations. This
@@ -42,11 +44,24 @@ public interface CreditAPI {
 	ApiResponse<CreditDebtResponse> checkDebtCredit(@RequestParam String creditId);
 
 	/**
-	 * Retrieves a list of all credits.
+	 * Retrieves one page of credits, ordered by id. The next page is requested
+	 * with the id of the last credit of the current page.
 	 *
+	 * @param afterId - The id of the last credit read.
+	 * @param size    - The maximum number of credits to return.
 	 * @return ApiResponse containing a list of CreditResponse objects.
 	 */
 	@GetMapping("/all")
-	ApiResponse<List<CreditResponse>> findAllCredits();
+	ApiResponse<List<CreditResponse>> findAllCredits(@RequestParam(required = false) String afterId,
+			@RequestParam(required = false) Integer size);
+
+	/**
+	 * Streams all credits as newline-delimited JSON when the request accepts
+	 * application/x-ndjson. The credits are read as the client consumes them.
+	 *
+	 * @return Flux emitting the CreditResponse objects.
+	 */
+	@GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	Flux<CreditResponse> streamAllCredits();
 
 }
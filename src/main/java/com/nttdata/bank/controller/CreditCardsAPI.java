@@ -2,6 +2,7 @@ package com.nttdata.bank.controller;
 
 import java.util.List;
 import javax.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,6 +18,7 @@ import com.nttdata.bank.response.ApiResponse;
 import com.nttdata.bank.response.ConsumptionResponse;
 import com.nttdata.bank.response.CreditCardDebtResponse;
 import com.nttdata.bank.response.CreditCardResponse;
+import reactor.core.publisher.Flux;
 
 /**
  * CreditCardsAPI defines the RESTful endpoints for credit card-related
@@ -50,12 +52,25 @@ public interface CreditCardsAPI {
 	ApiResponse<CreditCardDebtResponse> checkDebtCreditCard(@RequestParam String creditCardNumber);
 
 	/**
-	 * Retrieves a list of all credit cards.
+	 * Retrieves one page of credit cards, ordered by id. The next page is requested
+	 * with the id of the last credit card of the current page.
 	 *
+	 * @param afterId - The id of the last credit card read.
+	 * @param size    - The maximum number of credit cards to return.
 	 * @return ApiResponse containing a list of CreditCardResponse objects.
 	 */
 	@GetMapping("/all")
-	ApiResponse<List<CreditCardResponse>> findAllCreditCards();
+	ApiResponse<List<CreditCardResponse>> findAllCreditCards(@RequestParam(required = false) String afterId,
+			@RequestParam(required = false) Integer size);
+
+	/**
+	 * Streams all credit cards as newline-delimited JSON when the request accepts
+	 * application/x-ndjson. The credit cards are read as the client consumes them.
+	 *
+	 * @return Flux emitting the CreditCardResponse objects.
+	 */
+	@GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	Flux<CreditCardResponse> streamAllCreditCards();
 
 	/**
 	 * Updates the specified credit card based on the credit card number.
@@ -2,6 +2,7 @@ package com.nttdata.bank.controller;
 
 import java.util.List;
 import javax.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,6 +16,8 @@ import com.nttdata.bank.request.ContactDataRequest;
 import com.nttdata.bank.request.CustomerRequest;
 import com.nttdata.bank.response.ApiResponse;
 import com.nttdata.bank.response.CustomerResponse;
+import com.nttdata.bank.response.NameCacheStatsResponse;
+import reactor.core.publisher.Flux;
 
 /**
  * CustomersAPI defines the RESTful endpoints for customer-related operations.
@@ -46,12 +49,25 @@ public interface CustomersAPI {
 	ApiResponse<CustomerResponse> getCustomerByDocumentNumber(@RequestParam String documentNumber);
 
 	/**
-	 * Retrieves a list of all customers.
+	 * Retrieves one page of customers, ordered by id. The next page is requested
+	 * with the id of the last customer of the current page.
 	 *
+	 * @param afterId - The id of the last customer read.
+	 * @param size    - The maximum number of customers to return.
 	 * @return ApiResponse containing a list of CustomerResponse objects.
 	 */
 	@GetMapping("/all")
-	ApiResponse<List<CustomerResponse>> findAllCustomers();
+	ApiResponse<List<CustomerResponse>> findAllCustomers(@RequestParam(required = false) String afterId,
+			@RequestParam(required = false) Integer size);
+
+	/**
+	 * Streams all customers as newline-delimited JSON when the request accepts
+	 * application/x-ndjson. The customers are read as the client consumes them.
+	 *
+	 * @return Flux emitting the CustomerResponse objects.
+	 */
+	@GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	Flux<CustomerResponse> streamAllCustomers();
 
 	/**
 	 * Updates the details of a specified customer based on their document number.
@@ -74,4 +90,13 @@ public interface CustomersAPI {
 	 */
 	@DeleteMapping("/delete/{documentNumber}")
 	ApiResponse<Void> deleteCustomer(@PathVariable String documentNumber);
+
+	/**
+	 * Retrieves the hit, miss and eviction statistics of the customer name cache
+	 * used when posting transactions.
+	 *
+	 * @return ApiResponse containing the NameCacheStatsResponse.
+	 */
+	@GetMapping("/name-cache/stats")
+	ApiResponse<NameCacheStatsResponse> getNameCacheStats();
 }
@@ -2,6 +2,7 @@ package com.nttdata.bank.controller;
 
 import java.util.List;
 import javax.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -9,11 +10,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.nttdata.bank.request.AssociateAccountRequest;
 import com.nttdata.bank.request.DebitCardRequest;
 import com.nttdata.bank.response.ApiResponse;
 import com.nttdata.bank.response.DebitCardResponse;
+import reactor.core.publisher.Flux;
 
 /**
  * DebitCardAPI defines the RESTful endpoints for debit card-related operations.
@@ -36,12 +39,25 @@ public interface DebitCardAPI {
 	ApiResponse<DebitCardResponse> createDebitCard(@RequestBody @Valid DebitCardRequest debitCardRequest);
 
 	/**
-	 * Retrieves a list of all debit cards.
+	 * Retrieves one page of debit cards, ordered by id. The next page is requested
+	 * with the id of the last debit card of the current page.
 	 *
+	 * @param afterId - The id of the last debit card read.
+	 * @param size    - The maximum number of debit cards to return.
 	 * @return ApiResponse containing a list of DebitCardResponse objects.
 	 */
 	@GetMapping("/all")
-	ApiResponse<List<DebitCardResponse>> findAllDebitCard();
+	ApiResponse<List<DebitCardResponse>> findAllDebitCard(@RequestParam(required = false) String afterId,
+			@RequestParam(required = false) Integer size);
+
+	/**
+	 * Streams all debit cards as newline-delimited JSON when the request accepts
+	 * application/x-ndjson. The debit cards are read as the client consumes them.
+	 *
+	 * @return Flux emitting the DebitCardResponse objects.
+	 */
+	@GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	Flux<DebitCardResponse> streamAllDebitCard();
 
 	/**
 	 * Associates an account with the specified debit card based on the provided
@@ -1,12 +1,20 @@
 package com.nttdata.bank.controller;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import javax.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.nttdata.bank.request.AccountTransferRequest;
 import com.nttdata.bank.request.DepositRequest;
@@ -15,9 +23,12 @@ import com.nttdata.bank.request.PayCreditCardRequest;
 import com.nttdata.bank.request.PayCreditRequest;
 import com.nttdata.bank.request.WithdrawalRequest;
 import com.nttdata.bank.response.ApiResponse;
+import com.nttdata.bank.response.BulkTransferJobResponse;
 import com.nttdata.bank.response.ProductResponse;
 import com.nttdata.bank.response.TransactionResponse;
+import com.nttdata.bank.util.Constants;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -25,7 +36,12 @@ import reactor.core.publisher.Mono;
  * This interface includes methods for making deposits, withdrawals, account
  * transfers, mobile transfers, credit card payments, and credit payments.
  * Additionally, it provides methods for checking transactions and retrieving
- * account-linked products.
+ * account-linked products. Deposits, withdrawals, account transfers and credit
+ * payments accept an optional Idempotency-Key header, scoped to the
+ * authenticated caller; a request that repeats the key of a previous one
+ * receives its response instead of running again, and one that repeats it with
+ * another body is rejected with 422.
+ * Bulk transfers are accepted as a job whose progress is checked separately.
  */
 @RestController
 @RequestMapping("/operation")
@@ -35,22 +51,26 @@ public interface OperationAPI {
 	 * Makes a deposit based on the provided DepositRequest object.
 	 *
 	 * @param depositRequest - The deposit details provided in the request body.
+	 * @param idempotencyKey - The optional idempotency key of the request.
 	 * @return ApiResponse containing the TransactionResponse of the deposit.
 	 */
 	@PostMapping("/deposit")
 	Mono<ApiResponse<TransactionResponse>> makeDeposit(
-			@RequestBody @Valid Mono<DepositRequest> depositRequest);
+			@RequestBody @Valid Mono<DepositRequest> depositRequest,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey);
 
 	/**
 	 * Makes a withdrawal based on the provided WithdrawalRequest object.
 	 *
 	 * @param withdrawalRequest - The withdrawal details provided in the request
 	 *                          body.
+	 * @param idempotencyKey    - The optional idempotency key of the request.
 	 * @return ApiResponse containing the TransactionResponse of the withdrawal.
 	 */
 	@PostMapping("/withdraw")
 	Mono<ApiResponse<TransactionResponse>> makeWithdrawal(
-			@RequestBody @Valid Mono<WithdrawalRequest> withdrawalRequest);
+			@RequestBody @Valid Mono<WithdrawalRequest> withdrawalRequest,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey);
 
 	/**
 	 * Makes an account transfer based on the provided AccountTransferRequest
@@ -58,11 +78,42 @@ public interface OperationAPI {
 	 *
 	 * @param accountTransferRequest - The account transfer details provided in the
 	 *                               request body.
+	 * @param idempotencyKey         - The optional idempotency key of the request.
 	 * @return ApiResponse containing the TransactionResponse of the transfer.
 	 */
 	@PostMapping("/account-transfer")
 	Mono<ApiResponse<TransactionResponse>> makeAccountTransfer(
-			@RequestBody @Valid Mono<AccountTransferRequest> accountTransferRequest);
+			@RequestBody @Valid Mono<AccountTransferRequest> accountTransferRequest,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey);
+
+	/**
+	 * Starts a bulk transfer from a PYME account. The body is a newline-delimited
+	 * JSON or CSV file with one receiving account and amount per row; the source
+	 * account is debited for the total before the job is accepted. The body is
+	 * read as a stream, line by line.
+	 *
+	 * @param accountNumberWithdraws  - The PYME account that pays the transfer.
+	 * @param documentNumberWithdraws - The document number of the holder of the
+	 *                                account.
+	 * @param contentType             - The media type of the file.
+	 * @param body                    - The file.
+	 * @return ApiResponse containing the BulkTransferJobResponse of the job.
+	 */
+	@PostMapping(value = "/bulk-transfer", consumes = { MediaType.APPLICATION_NDJSON_VALUE, Constants.MEDIA_TYPE_CSV })
+	Mono<ApiResponse<BulkTransferJobResponse>> makeBulkTransfer(
+			@RequestParam String accountNumberWithdraws,
+			@RequestParam String documentNumberWithdraws,
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+			InputStream body);
+
+	/**
+	 * Checks the status and progress of a bulk transfer job.
+	 *
+	 * @param jobId - The id of the bulk transfer job.
+	 * @return ApiResponse containing the BulkTransferJobResponse of the job.
+	 */
+	@GetMapping("/bulk-transfer/{jobId}")
+	Mono<ApiResponse<BulkTransferJobResponse>> checkBulkTransfer(@PathVariable String jobId);
 
 	/**
 	 * Makes a mobile transfer based on the provided MobileTransferRequest object.
@@ -90,30 +141,41 @@ public interface OperationAPI {
 	 * Pays a credit bill based on the provided PayCreditRequest object.
 	 *
 	 * @param payCreditRequest - The payment details provided in the request body.
+	 * @param idempotencyKey   - The optional idempotency key of the request.
 	 * @return ApiResponse containing the TransactionResponse of the payment.
 	 */
 	@PostMapping("/pay-credit")
 	Mono<ApiResponse<TransactionResponse>> payCredit(
-			@RequestBody @Valid Mono<PayCreditRequest> payCreditRequest);
+			@RequestBody @Valid Mono<PayCreditRequest> payCreditRequest,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey);
 
 	/**
-	 * Checks all transactions related to the specified document number.
+	 * Checks the newest transactions related to the specified document number.
+	 * The next page is requested with the transactionDate and transactionId of
+	 * the last transaction of the current page.
 	 *
 	 * @param documentNumber - The document number of the customer to check
 	 *                       transactions for.
+	 * @param beforeDate     - The transaction date of the last transaction read.
+	 * @param beforeId       - The transaction id of the last transaction read.
+	 * @param size           - The maximum number of transactions to return.
 	 * @return ApiResponse containing a list of TransactionResponse objects.
 	 */
 	@GetMapping("check/{documentNumber}")
-	ApiResponse<List<TransactionResponse>> checkTransactions(
-			@PathVariable String documentNumber);
+	Mono<ApiResponse<List<TransactionResponse>>> checkTransactions(
+			@PathVariable String documentNumber,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime beforeDate,
+			@RequestParam(required = false) String beforeId,
+			@RequestParam(required = false) Integer size);
 
 	/**
-	 * Retrieves products linked to the specified document number.
+	 * Streams the products linked to the specified document number as
+	 * newline-delimited JSON, each product as soon as its lookup returns it.
 	 *
 	 * @param documentNumber - The document number of the customer to retrieve
 	 *                       products for.
-	 * @return ApiResponse containing a list of ProductResponse objects.
+	 * @return Flux of ProductResponse objects.
 	 */
-	@GetMapping("products/{documentNumber}")
-	ApiResponse<List<ProductResponse>> getProducts(@PathVariable String documentNumber);
+	@GetMapping(value = "products/{documentNumber}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	Flux<ProductResponse> getProducts(@PathVariable String documentNumber);
 }
@@ -2,6 +2,7 @@ package com.nttdata.bank.controller;
 
 import java.util.List;
 import javax.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -9,11 +10,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.nttdata.bank.request.YankiRequest;
 import com.nttdata.bank.request.YankiUpdateRequest;
 import com.nttdata.bank.response.ApiResponse;
 import com.nttdata.bank.response.YankiResponse;
+import reactor.core.publisher.Flux;
 
 /**
  * YankiAPI defines the RESTful endpoints for Yanki-related operations. This
@@ -35,12 +38,25 @@ public interface YankiAPI {
 	ApiResponse<YankiResponse> createYanki(@RequestBody @Valid YankiRequest yankiRequest);
 
 	/**
-	 * Retrieves a list of all Yankis.
+	 * Retrieves one page of Yanki entities, ordered by id. The next page is requested
+	 * with the id of the last Yanki entity of the current page.
 	 *
+	 * @param afterId - The id of the last Yanki entity read.
+	 * @param size    - The maximum number of Yanki entities to return.
 	 * @return ApiResponse containing a list of YankiResponse objects.
 	 */
 	@GetMapping("/all")
-	ApiResponse<List<YankiResponse>> findAllYanki();
+	ApiResponse<List<YankiResponse>> findAllYanki(@RequestParam(required = false) String afterId,
+			@RequestParam(required = false) Integer size);
+
+	/**
+	 * Streams all Yanki entities as newline-delimited JSON when the request accepts
+	 * application/x-ndjson. The Yanki entities are read as the client consumes them.
+	 *
+	 * @return Flux emitting the YankiResponse objects.
+	 */
+	@GetMapping(value = "/all", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	Flux<YankiResponse> streamAllYanki();
 
 	/**
 	 * Updates the specified Yanki based on the phone number and the provided
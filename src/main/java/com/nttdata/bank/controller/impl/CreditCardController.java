@@ -17,6 +17,7 @@ import com.nttdata.bank.response.CreditCardResponse;
 import com.nttdata.bank.service.CreditCardService;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import reactor.core.publisher.Flux;
 
 /**
  * CreditCardController is a REST controller that implements the CreditCardsAPI
@@ -82,18 +83,20 @@ public class CreditCardController implements CreditCardsAPI {
 	}
 
 	/**
-	 * Retrieves a list of all credit cards. Utilizes CircuitBreaker and TimeLimiter
-	 * to handle resilience.
+	 * Retrieves one page of credit cards, ordered by id. Utilizes CircuitBreaker and
+	 * TimeLimiter to handle resilience.
 	 *
+	 * @param afterId - The id of the last credit card read.
+	 * @param size    - The maximum number of credit cards to return.
 	 * @return ApiResponse containing a list of CreditCardResponse objects.
 	 */
 	@Override
 	@CircuitBreaker(name = "creditCardService", fallbackMethod = "fallbackFindAllCreditCards")
 	@TimeLimiter(name = "creditCardService")
-	public ApiResponse<List<CreditCardResponse>> findAllCreditCards() {
+	public ApiResponse<List<CreditCardResponse>> findAllCreditCards(String afterId, Integer size) {
 		logger.debug("Received request to find all credit cards.");
 		ApiResponse<List<CreditCardResponse>> response = new ApiResponse<>();
-		List<CreditCardResponse> creditCards = creditCardsService.findAllCreditCards();
+		List<CreditCardResponse> creditCards = creditCardsService.findAllCreditCards(afterId, size);
 		response.setStatusCode(HttpStatus.OK.value());
 		response.setMessage("Credit cards retrieved successfully.");
 		response.setData(creditCards);
@@ -101,6 +104,18 @@ public class CreditCardController implements CreditCardsAPI {
 		return response;
 	}
 
+	/**
+	 * Streams all credit cards as newline-delimited JSON. The stream is not wrapped
+	 * by the TimeLimiter, since it lasts as long as the client keeps reading.
+	 *
+	 * @return Flux emitting the CreditCardResponse objects.
+	 */
+	@Override
+	public Flux<CreditCardResponse> streamAllCreditCards() {
+		logger.debug("Received request to stream all credit cards.");
+		return creditCardsService.streamAllCreditCards();
+	}
+
 	/**
 	 * Updates the specified credit card based on the credit card number. Utilizes
 	 * CircuitBreaker and TimeLimiter to handle resilience.
@@ -200,10 +215,13 @@ public class CreditCardController implements CreditCardsAPI {
 	/**
 	 * Fallback method for findAllCreditCards in case of failure or timeout.
 	 *
+	 * @param afterId   - The id of the last credit card read.
+	 * @param size      - The maximum number of credit cards requested.
 	 * @param throwable - The exception that caused the fallback to be triggered.
 	 * @return ApiResponse indicating failure to retrieve credit cards.
 	 */
-	public ApiResponse<List<CreditCardResponse>> fallbackFindAllCreditCards(Throwable throwable) {
+	public ApiResponse<List<CreditCardResponse>> fallbackFindAllCreditCards(String afterId, Integer size,
+			Throwable throwable) {
 		logger.error("Fallback method for findAllCreditCards due to: {}", throwable.getMessage());
 		ApiResponse<List<CreditCardResponse>> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
@@ -14,6 +14,7 @@ import com.nttdata.bank.response.CreditResponse;
 import com.nttdata.bank.service.CreditService;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import reactor.core.publisher.Flux;
 
 /**
  * CreditController is a REST controller that implements the CreditAPI
@@ -76,18 +77,20 @@ public class CreditController implements CreditAPI {
 	}
 
 	/**
-	 * Retrieves a list of all credits. Utilizes CircuitBreaker and TimeLimiter to
-	 * handle resilience.
+	 * Retrieves one page of credits, ordered by id. Utilizes CircuitBreaker and
+	 * TimeLimiter to handle resilience.
 	 *
+	 * @param afterId - The id of the last credit read.
+	 * @param size    - The maximum number of credits to return.
 	 * @return ApiResponse containing a list of CreditResponse objects.
 	 */
 	@Override
 	@CircuitBreaker(name = "creditService", fallbackMethod = "fallbackFindAllCredits")
 	@TimeLimiter(name = "creditService")
-	public ApiResponse<List<CreditResponse>> findAllCredits() {
+	public ApiResponse<List<CreditResponse>> findAllCredits(String afterId, Integer size) {
 		logger.debug("Received request to find all credits.");
 		ApiResponse<List<CreditResponse>> response = new ApiResponse<>();
-		List<CreditResponse> creditResponses = creditService.findAllCredits();
+		List<CreditResponse> creditResponses = creditService.findAllCredits(afterId, size);
 		response.setStatusCode(HttpStatus.OK.value());
 		response.setMessage("Credits retrieved successfully.");
 		response.setData(creditResponses);
@@ -95,6 +98,18 @@ public class CreditController implements CreditAPI {
 		return response;
 	}
 
+	/**
+	 * Streams all credits as newline-delimited JSON. The stream is not wrapped
+	 * by the TimeLimiter, since it lasts as long as the client keeps reading.
+	 *
+	 * @return Flux emitting the CreditResponse objects.
+	 */
+	@Override
+	public Flux<CreditResponse> streamAllCredits() {
+		logger.debug("Received request to stream all credits.");
+		return creditService.streamAllCredits();
+	}
+
 	/**
 	 * Fallback method for grantCredit in case of failure or timeout.
 	 *
@@ -129,10 +144,13 @@ public class CreditController implements CreditAPI {
 	/**
 	 * Fallback method for findAllCredits in case of failure or timeout.
 	 *
+	 * @param afterId   - The id of the last credit read.
+	 * @param size      - The maximum number of credits requested.
 	 * @param throwable - The exception that caused the fallback to be triggered.
 	 * @return ApiResponse indicating failure to retrieve credits.
 	 */
-	public ApiResponse<List<CreditResponse>> fallbackFindAllCredits(Throwable throwable) {
+	public ApiResponse<List<CreditResponse>> fallbackFindAllCredits(String afterId, Integer size,
+			Throwable throwable) {
 		logger.error("Fallback method for findAllCredits due to: {}", throwable.getMessage());
 		ApiResponse<List<CreditResponse>> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
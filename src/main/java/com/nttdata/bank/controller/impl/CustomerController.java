@@ -11,9 +11,12 @@ import com.nttdata.bank.request.ContactDataRequest;
 import com.nttdata.bank.request.CustomerRequest;
 import com.nttdata.bank.response.ApiResponse;
 import com.nttdata.bank.response.CustomerResponse;
+import com.nttdata.bank.response.NameCacheStatsResponse;
+import com.nttdata.bank.service.CustomerNameService;
 import com.nttdata.bank.service.CustomerService;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import reactor.core.publisher.Flux;
 
 /**
  * CustomerController is a REST controller that implements the CustomersAPI
@@ -34,6 +37,9 @@ public class CustomerController implements CustomersAPI {
 	@Autowired
 	private CustomerService customerService;
 
+	@Autowired
+	private CustomerNameService customerNameService;
+
 	/**
 	 * Registers a new customer based on the provided CustomerRequest object.
 	 * Utilizes CircuitBreaker and TimeLimiter to handle resilience.
@@ -77,18 +83,20 @@ public class CustomerController implements CustomersAPI {
 	}
 
 	/**
-	 * Retrieves a list of all customers. Utilizes CircuitBreaker and TimeLimiter to
-	 * handle resilience.
+	 * Retrieves one page of customers, ordered by id. Utilizes CircuitBreaker and
+	 * TimeLimiter to handle resilience.
 	 *
+	 * @param afterId - The id of the last customer read.
+	 * @param size    - The maximum number of customers to return.
 	 * @return ApiResponse containing a list of CustomerResponse objects.
 	 */
 	@Override
 	@CircuitBreaker(name = "customerService", fallbackMethod = "fallbackFindAllCustomers")
 	@TimeLimiter(name = "customerService")
-	public ApiResponse<List<CustomerResponse>> findAllCustomers() {
+	public ApiResponse<List<CustomerResponse>> findAllCustomers(String afterId, Integer size) {
 		logger.debug("Received request to retrieve all customers.");
 		ApiResponse<List<CustomerResponse>> response = new ApiResponse<>();
-		List<CustomerResponse> customers = customerService.findAllCustomers();
+		List<CustomerResponse> customers = customerService.findAllCustomers(afterId, size);
 		response.setStatusCode(HttpStatus.OK.value());
 		response.setMessage("Customers retrieved successfully.");
 		response.setData(customers);
@@ -96,6 +104,18 @@ public class CustomerController implements CustomersAPI {
 		return response;
 	}
 
+	/**
+	 * Streams all customers as newline-delimited JSON. The stream is not wrapped
+	 * by the TimeLimiter, since it lasts as long as the client keeps reading.
+	 *
+	 * @return Flux emitting the CustomerResponse objects.
+	 */
+	@Override
+	public Flux<CustomerResponse> streamAllCustomers() {
+		logger.debug("Received request to stream all customers.");
+		return customerService.streamAllCustomers();
+	}
+
 	/**
 	 * Updates the specified customer based on their document number. Utilizes
 	 * CircuitBreaker and TimeLimiter to handle resilience.
@@ -140,6 +160,22 @@ public class CustomerController implements CustomersAPI {
 		return response;
 	}
 
+	/**
+	 * Retrieves the statistics of the customer name cache. The statistics are kept
+	 * in memory, so no CircuitBreaker or TimeLimiter is applied.
+	 *
+	 * @return ApiResponse containing the NameCacheStatsResponse.
+	 */
+	@Override
+	public ApiResponse<NameCacheStatsResponse> getNameCacheStats() {
+		logger.debug("Received request to retrieve the customer name cache statistics.");
+		ApiResponse<NameCacheStatsResponse> response = new ApiResponse<>();
+		response.setStatusCode(HttpStatus.OK.value());
+		response.setMessage("Customer name cache statistics retrieved successfully.");
+		response.setData(customerNameService.getStats());
+		return response;
+	}
+
 	/**
 	 * Fallback method for createCustomer in case of failure or timeout.
 	 *
@@ -177,10 +213,13 @@ public class CustomerController implements CustomersAPI {
 	/**
 	 * Fallback method for findAllCustomers in case of failure or timeout.
 	 *
+	 * @param afterId   - The id of the last customer read.
+	 * @param size      - The maximum number of customers requested.
 	 * @param throwable - The exception that caused the fallback to be triggered.
 	 * @return ApiResponse indicating failure to retrieve customers.
 	 */
-	public ApiResponse<List<CustomerResponse>> fallbackFindAllCustomers(Throwable throwable) {
+	public ApiResponse<List<CustomerResponse>> fallbackFindAllCustomers(String afterId, Integer size,
+			Throwable throwable) {
 		logger.error("Fallback method for findAllCustomers due to: {}", throwable.getMessage());
 		ApiResponse<List<CustomerResponse>> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
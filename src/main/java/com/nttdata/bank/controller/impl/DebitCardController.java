@@ -15,6 +15,7 @@ import com.nttdata.bank.response.DebitCardResponse;
 import com.nttdata.bank.service.DebitCardService;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import reactor.core.publisher.Flux;
 
 /**
  * DebitCardController is a REST controller that implements the DebitCardAPI
@@ -58,18 +59,20 @@ public class DebitCardController implements DebitCardAPI {
 	}
 
 	/**
-	 * Retrieves a list of all debit cards. Utilizes CircuitBreaker and TimeLimiter
-	 * to handle resilience.
+	 * Retrieves one page of debit cards, ordered by id. Utilizes CircuitBreaker and
+	 * TimeLimiter to handle resilience.
 	 *
+	 * @param afterId - The id of the last debit card read.
+	 * @param size    - The maximum number of debit cards to return.
 	 * @return ApiResponse containing a list of DebitCardResponse objects.
 	 */
 	@Override
 	@CircuitBreaker(name = "debitCardService", fallbackMethod = "fallbackFindAllDebitCard")
 	@TimeLimiter(name = "debitCardService")
-	public ApiResponse<List<DebitCardResponse>> findAllDebitCard() {
+	public ApiResponse<List<DebitCardResponse>> findAllDebitCard(String afterId, Integer size) {
 		logger.debug("Received request to find all debit cards.");
 		ApiResponse<List<DebitCardResponse>> response = new ApiResponse<>();
-		List<DebitCardResponse> debitCards = debitCardService.findAllDebitCard();
+		List<DebitCardResponse> debitCards = debitCardService.findAllDebitCard(afterId, size);
 		response.setStatusCode(HttpStatus.OK.value());
 		response.setMessage("Debit cards retrieved successfully.");
 		response.setData(debitCards);
@@ -77,6 +80,18 @@ public class DebitCardController implements DebitCardAPI {
 		return response;
 	}
 
+	/**
+	 * Streams all debit cards as newline-delimited JSON. The stream is not wrapped
+	 * by the TimeLimiter, since it lasts as long as the client keeps reading.
+	 *
+	 * @return Flux emitting the DebitCardResponse objects.
+	 */
+	@Override
+	public Flux<DebitCardResponse> streamAllDebitCard() {
+		logger.debug("Received request to stream all debit cards.");
+		return debitCardService.streamAllDebitCard();
+	}
+
 	/**
 	 * Associates an account with the specified debit card based on the provided
 	 * AssociateAccountRequest object. Utilizes CircuitBreaker and TimeLimiter to
@@ -144,10 +159,13 @@ public class DebitCardController implements DebitCardAPI {
 	/**
 	 * Fallback method for findAllDebitCard in case of failure or timeout.
 	 *
+	 * @param afterId   - The id of the last debit card read.
+	 * @param size      - The maximum number of debit cards requested.
 	 * @param throwable - The exception that caused the fallback to be triggered.
 	 * @return ApiResponse indicating failure to retrieve debit cards.
 	 */
-	public ApiResponse<List<DebitCardResponse>> fallbackFindAllDebitCard(Throwable throwable) {
+	public ApiResponse<List<DebitCardResponse>> fallbackFindAllDebitCard(String afterId, Integer size,
+			Throwable throwable) {
 		logger.error("Fallback method for findAllDebitCard due to: {}", throwable.getMessage());
 		ApiResponse<List<DebitCardResponse>> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
@@ -1,12 +1,18 @@
 package com.nttdata.bank.controller.impl;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import com.nttdata.bank.controller.OperationAPI;
 import com.nttdata.bank.request.AccountTransferRequest;
 import com.nttdata.bank.request.DepositRequest;
@@ -15,11 +21,18 @@ import com.nttdata.bank.request.PayCreditCardRequest;
 import com.nttdata.bank.request.PayCreditRequest;
 import com.nttdata.bank.request.WithdrawalRequest;
 import com.nttdata.bank.response.ApiResponse;
+import com.nttdata.bank.response.BulkTransferJobResponse;
 import com.nttdata.bank.response.ProductResponse;
 import com.nttdata.bank.response.TransactionResponse;
+import com.nttdata.bank.service.BulkTransferService;
+import com.nttdata.bank.service.IdempotencyService;
 import com.nttdata.bank.service.OperationService;
+import com.nttdata.bank.service.ProductService;
+import com.nttdata.bank.util.BulkTransferParser;
+import com.nttdata.bank.util.Constants;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -41,21 +54,34 @@ public class OperationController implements OperationAPI {
 	@Autowired
 	OperationService transactionService;
 
+	@Autowired
+	ProductService productService;
+
+	@Autowired
+	IdempotencyService idempotencyService;
+
+	@Autowired
+	BulkTransferService bulkTransferService;
+
 	/**
 	 * Makes a deposit. Utilizes CircuitBreaker and TimeLimiter to handle
 	 * resilience.
 	 *
 	 * @param depositRequest The deposit request payload
+	 * @param idempotencyKey The optional idempotency key of the request
 	 * @return ApiResponse containing the transaction response
 	 */
 	@Override
 	@CircuitBreaker(name = "operationService", fallbackMethod = "fallbackMakeDeposit")
 	@TimeLimiter(name = "operationService")
 	public Mono<ApiResponse<TransactionResponse>> makeDeposit(
-			@Valid Mono<DepositRequest> depositRequest) {
+			@Valid Mono<DepositRequest> depositRequest, String idempotencyKey) {
 		logger.debug("Received request to make a deposit: {}", depositRequest);
+		String principal = currentPrincipal();
 		return depositRequest
-				.flatMap(request -> transactionService.makeDeposit(request))
+				.flatMap(request -> idempotencyService.execute(
+						Constants.IDEMPOTENCY_OPERATION_DEPOSIT, principal, idempotencyKey, request,
+						() -> transactionService.makeDeposit(request)))
 				.map(transactionResponse -> {
 					ApiResponse<TransactionResponse> response = new ApiResponse<>();
 					response.setStatusCode(HttpStatus.OK.value());
@@ -71,16 +97,20 @@ public class OperationController implements OperationAPI {
 	 * resilience.
 	 *
 	 * @param withdrawalRequest The withdrawal request payload
+	 * @param idempotencyKey    The optional idempotency key of the request
 	 * @return ApiResponse containing the transaction response
 	 */
 	@Override
 	@CircuitBreaker(name = "operationService", fallbackMethod = "fallbackMakeWithdrawal")
 	@TimeLimiter(name = "operationService")
 	public Mono<ApiResponse<TransactionResponse>> makeWithdrawal(
-			@Valid Mono<WithdrawalRequest> withdrawalRequest) {
+			@Valid Mono<WithdrawalRequest> withdrawalRequest, String idempotencyKey) {
 		logger.debug("Received request to make a withdrawal: {}", withdrawalRequest);
+		String principal = currentPrincipal();
 		return withdrawalRequest
-				.flatMap(request -> transactionService.makeWithdrawal(request))
+				.flatMap(request -> idempotencyService.execute(
+						Constants.IDEMPOTENCY_OPERATION_WITHDRAWAL, principal, idempotencyKey, request,
+						() -> transactionService.makeWithdrawal(request)))
 				.map(transactionResponse -> {
 					ApiResponse<TransactionResponse> response = new ApiResponse<>();
 					response.setStatusCode(HttpStatus.OK.value());
@@ -96,16 +126,20 @@ public class OperationController implements OperationAPI {
 	 * resilience.
 	 *
 	 * @param accountTransferRequest The account transfer request payload
+	 * @param idempotencyKey         The optional idempotency key of the request
 	 * @return ApiResponse containing the transaction response
 	 */
 	@Override
 	@CircuitBreaker(name = "operationService", fallbackMethod = "fallbackMakeAccountTransfer")
 	@TimeLimiter(name = "operationService")
 	public Mono<ApiResponse<TransactionResponse>> makeAccountTransfer(
-			@Valid Mono<AccountTransferRequest> accountTransferRequest) {
+			@Valid Mono<AccountTransferRequest> accountTransferRequest, String idempotencyKey) {
 		logger.debug("Received request to make an account transfer: {}", accountTransferRequest);
+		String principal = currentPrincipal();
 		return accountTransferRequest
-				.flatMap(request -> transactionService.makeAccountTransfer(request))
+				.flatMap(request -> idempotencyService.execute(
+						Constants.IDEMPOTENCY_OPERATION_ACCOUNT_TRANSFER, principal, idempotencyKey, request,
+						() -> transactionService.makeAccountTransfer(request)))
 				.map(transactionResponse -> {
 					ApiResponse<TransactionResponse> response = new ApiResponse<>();
 					response.setStatusCode(HttpStatus.OK.value());
@@ -116,6 +150,61 @@ public class OperationController implements OperationAPI {
 				});
 	}
 
+	/**
+	 * Starts a bulk transfer. Utilizes CircuitBreaker to handle resilience; no
+	 * TimeLimiter is applied because the whole file is read before the job is
+	 * accepted. The file is streamed from the request body, so its size is only
+	 * bounded by the row limit of the bulk transfers and the line length limit.
+	 *
+	 * @param accountNumberWithdraws  The PYME account that pays the transfer
+	 * @param documentNumberWithdraws The document number of the holder of the
+	 *                                account
+	 * @param contentType             The media type of the file
+	 * @param body                    The file
+	 * @return ApiResponse containing the started job
+	 */
+	@Override
+	@CircuitBreaker(name = "operationService", fallbackMethod = "fallbackMakeBulkTransfer")
+	public Mono<ApiResponse<BulkTransferJobResponse>> makeBulkTransfer(String accountNumberWithdraws,
+			String documentNumberWithdraws, String contentType, InputStream body) {
+		logger.debug("Received request to make a bulk transfer from account: {}", accountNumberWithdraws);
+		boolean csv = MediaType.parseMediaType(contentType)
+				.isCompatibleWith(MediaType.parseMediaType(Constants.MEDIA_TYPE_CSV));
+		return bulkTransferService
+				.startBulkTransfer(accountNumberWithdraws, documentNumberWithdraws,
+						BulkTransferParser.parse(BulkTransferParser.lines(body), csv))
+				.map(job -> {
+					ApiResponse<BulkTransferJobResponse> response = new ApiResponse<>();
+					response.setStatusCode(HttpStatus.ACCEPTED.value());
+					response.setMessage("Bulk transfer accepted");
+					response.setData(job);
+					logger.info("Bulk transfer accepted: {}", job.getJobId());
+					return response;
+				});
+	}
+
+	/**
+	 * Checks a bulk transfer job. Utilizes CircuitBreaker and TimeLimiter to
+	 * handle resilience.
+	 *
+	 * @param jobId The id of the bulk transfer job
+	 * @return ApiResponse containing the job
+	 */
+	@Override
+	@CircuitBreaker(name = "operationService", fallbackMethod = "fallbackCheckBulkTransfer")
+	@TimeLimiter(name = "operationService")
+	public Mono<ApiResponse<BulkTransferJobResponse>> checkBulkTransfer(String jobId) {
+		logger.debug("Received request to check bulk transfer: {}", jobId);
+		return bulkTransferService.getBulkTransfer(jobId)
+				.map(job -> {
+					ApiResponse<BulkTransferJobResponse> response = new ApiResponse<>();
+					response.setStatusCode(HttpStatus.OK.value());
+					response.setMessage("Bulk transfer retrieved successfully");
+					response.setData(job);
+					return response;
+				});
+	}
+
 	/**
 	 * Makes a mobile transfer. Utilizes CircuitBreaker and TimeLimiter to handle
 	 * resilience.
@@ -171,16 +260,20 @@ public class OperationController implements OperationAPI {
 	 * resilience.
 	 *
 	 * @param payCreditRequest The credit payment request payload
+	 * @param idempotencyKey   The optional idempotency key of the request
 	 * @return ApiResponse containing the transaction response
 	 */
 	@Override
 	@CircuitBreaker(name = "operationService", fallbackMethod = "fallbackPayCredit")
 	@TimeLimiter(name = "operationService")
 	public Mono<ApiResponse<TransactionResponse>> payCredit(
-			@Valid Mono<PayCreditRequest> payCreditRequest) {
+			@Valid Mono<PayCreditRequest> payCreditRequest, String idempotencyKey) {
 		logger.debug("Received request to pay credit: {}", payCreditRequest);
+		String principal = currentPrincipal();
 		return payCreditRequest
-				.flatMap(request -> transactionService.payCredit(request))
+				.flatMap(request -> idempotencyService.execute(
+						Constants.IDEMPOTENCY_OPERATION_PAY_CREDIT, principal, idempotencyKey, request,
+						() -> transactionService.payCredit(request)))
 				.map(transactionResponse -> {
 					ApiResponse<TransactionResponse> response = new ApiResponse<>();
 					response.setStatusCode(HttpStatus.OK.value());
@@ -196,55 +289,64 @@ public class OperationController implements OperationAPI {
 	 * resilience.
 	 *
 	 * @param documentNumber The document number
+	 * @param beforeDate     The transaction date of the last transaction read
+	 * @param beforeId       The transaction id of the last transaction read
+	 * @param size           The maximum number of transactions to return
 	 * @return ApiResponse containing the list of transaction responses
 	 */
 	@Override
 	@CircuitBreaker(name = "operationService", fallbackMethod = "fallbackCheckTransactions")
 	@TimeLimiter(name = "operationService")
-	public ApiResponse<List<TransactionResponse>> checkTransactions(String documentNumber) {
+	public Mono<ApiResponse<List<TransactionResponse>>> checkTransactions(
+			String documentNumber, LocalDateTime beforeDate, String beforeId, Integer size) {
 		logger.debug("Received request to check transactions for document number: {}",
 				documentNumber);
-		ApiResponse<List<TransactionResponse>> response = new ApiResponse<>();
-		List<TransactionResponse> transactions = transactionService
-				.checkTransactions(documentNumber);
-		response.setStatusCode(HttpStatus.OK.value());
-		response.setMessage("Transactions retrieved successfully");
-		response.setData(transactions);
-		logger.info("Transactions retrieved successfully for document number: {}", documentNumber);
-		return response;
+		return transactionService.checkTransactions(documentNumber, beforeDate, beforeId, size)
+				.collectList()
+				.map(transactions -> {
+					ApiResponse<List<TransactionResponse>> response = new ApiResponse<>();
+					response.setStatusCode(HttpStatus.OK.value());
+					response.setMessage("Transactions retrieved successfully");
+					response.setData(transactions);
+					logger.info("Transactions retrieved successfully for document number: {}",
+							documentNumber);
+					return response;
+				});
 	}
 
 	/**
-	 * Gets the products. Utilizes CircuitBreaker and TimeLimiter to handle
+	 * Streams the products. Utilizes CircuitBreaker and TimeLimiter to handle
 	 * resilience.
 	 *
 	 * @param documentNumber The document number
-	 * @return ApiResponse containing the list of product responses
+	 * @return Flux of product responses
 	 */
 	@Override
 	@CircuitBreaker(name = "operationService", fallbackMethod = "fallbackGetProducts")
 	@TimeLimiter(name = "operationService")
-	public ApiResponse<List<ProductResponse>> getProducts(String documentNumber) {
+	public Flux<ProductResponse> getProducts(String documentNumber) {
 		logger.debug("Received request to get products for document number: {}", documentNumber);
-		ApiResponse<List<ProductResponse>> response = new ApiResponse<>();
-		List<ProductResponse> products = transactionService.getProducts(documentNumber);
-		response.setStatusCode(HttpStatus.OK.value());
-		response.setMessage("Products retrieved successfully");
-		response.setData(products);
-		logger.info("Products retrieved successfully for document number: {}", documentNumber);
-		return response;
+		return productService.getProducts(documentNumber)
+				.doOnComplete(() -> logger.info(
+						"Products retrieved successfully for document number: {}", documentNumber));
 	}
 
 	/**
 	 * Fallback method for makeDeposit in case of failure or timeout.
 	 *
 	 * @param depositRequest - The original deposit request.
+	 * @param idempotencyKey - The idempotency key of the original request.
 	 * @param throwable      - The exception that caused the fallback to be
 	 *                       triggered.
-	 * @return ApiResponse indicating failure to make deposit.
+	 * @return ApiResponse indicating failure to make deposit, or the error of an
+	 *         idempotency key reused with another request.
 	 */
 	public Mono<ApiResponse<TransactionResponse>> fallbackMakeDeposit(
-			Mono<DepositRequest> depositRequest, Throwable throwable) {
+			Mono<DepositRequest> depositRequest, String idempotencyKey,
+			Throwable throwable) {
+		if (throwable instanceof ResponseStatusException) {
+			return Mono.error(throwable);
+		}
 		logger.error("Fallback method for makeDeposit due to: {}", throwable.getMessage());
 		ApiResponse<TransactionResponse> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
@@ -256,12 +358,18 @@ public class OperationController implements OperationAPI {
 	 * Fallback method for makeWithdrawal in case of failure or timeout.
 	 *
 	 * @param withdrawalRequest - The original withdrawal request.
+	 * @param idempotencyKey    - The idempotency key of the original request.
 	 * @param throwable         - The exception that caused the fallback to be
 	 *                          triggered.
-	 * @return ApiResponse indicating failure to make withdrawal.
+	 * @return ApiResponse indicating failure to make withdrawal, or the error of an
+	 *         idempotency key reused with another request.
 	 */
 	public Mono<ApiResponse<TransactionResponse>> fallbackMakeWithdrawal(
-			Mono<WithdrawalRequest> withdrawalRequest, Throwable throwable) {
+			Mono<WithdrawalRequest> withdrawalRequest, String idempotencyKey,
+			Throwable throwable) {
+		if (throwable instanceof ResponseStatusException) {
+			return Mono.error(throwable);
+		}
 		logger.error("Fallback method for makeWithdrawal due to: {}", throwable.getMessage());
 		ApiResponse<TransactionResponse> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
@@ -273,12 +381,18 @@ public class OperationController implements OperationAPI {
 	 * Fallback method for makeAccountTransfer in case of failure or timeout.
 	 *
 	 * @param accountTransferRequest - The original account transfer request.
+	 * @param idempotencyKey         - The idempotency key of the original request.
 	 * @param throwable              - The exception that caused the fallback to be
 	 *                               triggered.
-	 * @return ApiResponse indicating failure to make account transfer.
+	 * @return ApiResponse indicating failure to make account transfer, or the error of an
+	 *         idempotency key reused with another request.
 	 */
 	public Mono<ApiResponse<TransactionResponse>> fallbackMakeAccountTransfer(
-			Mono<AccountTransferRequest> accountTransferRequest, Throwable throwable) {
+			Mono<AccountTransferRequest> accountTransferRequest, String idempotencyKey,
+			Throwable throwable) {
+		if (throwable instanceof ResponseStatusException) {
+			return Mono.error(throwable);
+		}
 		logger.error("Fallback method for makeAccountTransfer due to: {}", throwable.getMessage());
 		ApiResponse<TransactionResponse> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
@@ -287,6 +401,43 @@ public class OperationController implements OperationAPI {
 		return Mono.just(response);
 	}
 
+	/**
+	 * Fallback method for makeBulkTransfer in case of failure.
+	 *
+	 * @param accountNumberWithdraws  - The source account of the original request.
+	 * @param documentNumberWithdraws - The document number of the original
+	 *                                request.
+	 * @param contentType             - The media type of the original request.
+	 * @param rows                    - The lines of the original request.
+	 * @param throwable               - The exception that caused the fallback to be
+	 *                                triggered.
+	 * @return ApiResponse indicating failure to make the bulk transfer.
+	 */
+	public Mono<ApiResponse<BulkTransferJobResponse>> fallbackMakeBulkTransfer(String accountNumberWithdraws,
+			String documentNumberWithdraws, String contentType, Flux<String> rows, Throwable throwable) {
+		logger.error("Fallback method for makeBulkTransfer due to: {}", throwable.getMessage());
+		ApiResponse<BulkTransferJobResponse> response = new ApiResponse<>();
+		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
+		response.setMessage("Unable to make bulk transfer at the moment. Please try again later.");
+		return Mono.just(response);
+	}
+
+	/**
+	 * Fallback method for checkBulkTransfer in case of failure or timeout.
+	 *
+	 * @param jobId     - The id of the job of the original request.
+	 * @param throwable - The exception that caused the fallback to be triggered.
+	 * @return ApiResponse indicating failure to check the bulk transfer.
+	 */
+	public Mono<ApiResponse<BulkTransferJobResponse>> fallbackCheckBulkTransfer(String jobId,
+			Throwable throwable) {
+		logger.error("Fallback method for checkBulkTransfer due to: {}", throwable.getMessage());
+		ApiResponse<BulkTransferJobResponse> response = new ApiResponse<>();
+		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
+		response.setMessage("Unable to check bulk transfer at the moment. Please try again later.");
+		return Mono.just(response);
+	}
+
 	/**
 	 * Fallback method for makeMobileTransfer in case of failure or timeout.
 	 *
@@ -326,12 +477,18 @@ public class OperationController implements OperationAPI {
 	 * Fallback method for payCredit in case of failure or timeout.
 	 *
 	 * @param payCreditRequest - The original credit payment request.
+	 * @param idempotencyKey   - The idempotency key of the original request.
 	 * @param throwable        - The exception that caused the fallback to be
 	 *                         triggered.
-	 * @return ApiResponse indicating failure to pay credit.
+	 * @return ApiResponse indicating failure to pay credit, or the error of an
+	 *         idempotency key reused with another request.
 	 */
 	public Mono<ApiResponse<TransactionResponse>> fallbackPayCredit(
-			Mono<PayCreditRequest> payCreditRequest, Throwable throwable) {
+			Mono<PayCreditRequest> payCreditRequest, String idempotencyKey,
+			Throwable throwable) {
+		if (throwable instanceof ResponseStatusException) {
+			return Mono.error(throwable);
+		}
 		logger.error("Fallback method for payCredit due to: {}", throwable.getMessage());
 		ApiResponse<TransactionResponse> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
@@ -344,18 +501,21 @@ public class OperationController implements OperationAPI {
 	 *
 	 * @param documentNumber - The document number for the transactions being
 	 *                       checked.
+	 * @param beforeDate     - The transaction date of the last transaction read.
+	 * @param beforeId       - The transaction id of the last transaction read.
+	 * @param size           - The maximum number of transactions requested.
 	 * @param throwable      - The exception that caused the fallback to be
 	 *                       triggered.
 	 * @return ApiResponse indicating failure to check transactions.
 	 */
-	public ApiResponse<List<TransactionResponse>> fallbackCheckTransactions(
-			String documentNumber,
+	public Mono<ApiResponse<List<TransactionResponse>>> fallbackCheckTransactions(
+			String documentNumber, LocalDateTime beforeDate, String beforeId, Integer size,
 			Throwable throwable) {
 		logger.error("Fallback method for checkTransactions due to: {}", throwable.getMessage());
 		ApiResponse<List<TransactionResponse>> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
 		response.setMessage("Unable to check transactions at the moment. Please try again later.");
-		return response;
+		return Mono.just(response);
 	}
 
 	/**
@@ -364,14 +524,25 @@ public class OperationController implements OperationAPI {
 	 * @param documentNumber - The document number for the products being retrieved.
 	 * @param throwable      - The exception that caused the fallback to be
 	 *                       triggered.
-	 * @return ApiResponse indicating failure to get products.
+	 * @return Flux signalling the failure to get products, rendered by the global
+	 *         exception handler.
 	 */
-	public ApiResponse<List<ProductResponse>> fallbackGetProducts(String documentNumber,
+	public Flux<ProductResponse> fallbackGetProducts(String documentNumber,
 			Throwable throwable) {
 		logger.error("Fallback method for getProducts due to: {}", throwable.getMessage());
-		ApiResponse<List<ProductResponse>> response = new ApiResponse<>();
-		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
-		response.setMessage("Unable to retrieve products at the moment. Please try again later.");
-		return response;
+		return Flux.error(new IllegalStateException(
+				"Unable to retrieve products at the moment. Please try again later."));
+	}
+
+	/**
+	 * Returns the name of the authenticated principal of the current request,
+	 * which scopes its idempotency key.
+	 *
+	 * @return the name of the principal, or null if the request is not
+	 *         authenticated
+	 */
+	private String currentPrincipal() {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication == null ? null : authentication.getName();
 	}
 }
@@ -15,6 +15,7 @@ import com.nttdata.bank.response.YankiResponse;
 import com.nttdata.bank.service.YankiService;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
+import reactor.core.publisher.Flux;
 
 /**
  * YankiController is a REST controller that implements the YankiAPI interface.
@@ -76,18 +77,20 @@ public class YankiController implements YankiAPI {
 	}
 
 	/**
-	 * Retrieves a list of all Yanki entities. Utilizes CircuitBreaker and
+	 * Retrieves one page of Yanki entities, ordered by id. Utilizes CircuitBreaker and
 	 * TimeLimiter to handle resilience.
 	 *
+	 * @param afterId - The id of the last Yanki entity read.
+	 * @param size    - The maximum number of Yanki entities to return.
 	 * @return ApiResponse containing a list of YankiResponse objects.
 	 */
 	@Override
 	@CircuitBreaker(name = "yankiService", fallbackMethod = "fallbackFindAllYanki")
 	@TimeLimiter(name = "yankiService")
-	public ApiResponse<List<YankiResponse>> findAllYanki() {
+	public ApiResponse<List<YankiResponse>> findAllYanki(String afterId, Integer size) {
 		logger.debug("Received request to find all Yanki entities.");
 		ApiResponse<List<YankiResponse>> response = new ApiResponse<>();
-		List<YankiResponse> yankis = yankiService.findAllYanki();
+		List<YankiResponse> yankis = yankiService.findAllYanki(afterId, size);
 		response.setStatusCode(HttpStatus.OK.value());
 		response.setMessage("Yanki entities retrieved successfully.");
 		response.setData(yankis);
@@ -95,6 +98,18 @@ public class YankiController implements YankiAPI {
 		return response;
 	}
 
+	/**
+	 * Streams all Yanki entities as newline-delimited JSON. The stream is not wrapped
+	 * by the TimeLimiter, since it lasts as long as the client keeps reading.
+	 *
+	 * @return Flux emitting the YankiResponse objects.
+	 */
+	@Override
+	public Flux<YankiResponse> streamAllYanki() {
+		logger.debug("Received request to stream all Yanki entities.");
+		return yankiService.streamAllYanki();
+	}
+
 	/**
 	 * Updates the specified Yanki entity based on its phone number. Utilizes
 	 * CircuitBreaker and TimeLimiter to handle resilience.
@@ -152,10 +167,13 @@ public class YankiController implements YankiAPI {
 	/**
 	 * Fallback method for findAllYanki in case of failure or timeout.
 	 *
+	 * @param afterId   - The id of the last Yanki entity read.
+	 * @param size      - The maximum number of Yanki entities requested.
 	 * @param throwable - The exception that caused the fallback to be triggered.
 	 * @return ApiResponse indicating failure to retrieve Yanki entities.
 	 */
-	public ApiResponse<List<YankiResponse>> fallbackFindAllYanki(Throwable throwable) {
+	public ApiResponse<List<YankiResponse>> fallbackFindAllYanki(String afterId, Integer size,
+			Throwable throwable) {
 		logger.error("Fallback method for findAllYanki due to: {}", throwable.getMessage());
 		ApiResponse<List<YankiResponse>> response = new ApiResponse<>();
 		response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
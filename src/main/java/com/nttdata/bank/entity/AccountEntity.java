@@ -3,6 +3,8 @@ package com.nttdata.bank.entity;
 import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
@@ -12,15 +14,19 @@ import lombok.Data;
  * the bank account, such as account number, transaction limits, commission, 
  * balance, associated customers, and status details. 
  * It uses Lombok annotations for getters and setters, and Jackson 
- * for JSON inclusion.
+ * for JSON inclusion. The last movement date is kept by every balance change,
+ * and the compound index serves the inactivity sweep of active accounts. The
+ * unique index on the account number guarantees that no number is given twice.
  */
 
 @Data
 @Document(collection = "accounts")
+@CompoundIndex(name = "active_last_movement_idx", def = "{'isActive': 1, 'lastMovementDate': 1}")
 public class AccountEntity {
 
     @Id
     private String id;
+    @Indexed(unique = true)
     private String accountNumber;
     private Integer monthlyTransactionLimit;
     private Double maintenanceCommission;
@@ -28,11 +34,14 @@ public class AccountEntity {
     private String currency;
     private Double amount;
     private Double commissionPending;
+    @Indexed
     private List<String> holderDoc;
     private List<String> authorizedSignatoryDoc;
     private String accountType;
     private LocalDateTime createDate;
     private LocalDateTime updateDate;
     private LocalDateTime deleteDate;
+    private LocalDateTime lastMovementDate;
+    private List<String> appliedJournal;
     private Boolean isActive;
 }
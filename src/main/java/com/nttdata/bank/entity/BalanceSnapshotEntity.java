@@ -0,0 +1,32 @@
+package com.nttdata.bank.entity;
+
+import java.time.LocalDateTime;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+/**
+ * BalanceSnapshotEntity represents the daily balance document stored in the
+ * MongoDB collection "balance_snapshots". There is one document per account and
+ * month, identified by "accountNumber:yyyy-MM", holding the balance of the
+ * account when the month opened and its end-of-day balance for every day of the
+ * month in a single array. The array always has 31 slots, and only the first
+ * "days" of them belong to the month.
+ */
+
+@Data
+@Document(collection = "balance_snapshots")
+@CompoundIndex(name = "account_period_idx", def = "{'accountNumber': 1, 'period': 1}")
+public class BalanceSnapshotEntity {
+
+	@Id
+	private String id;
+	private String accountNumber;
+	private String period;
+	private Integer days;
+	private Double openingBalance;
+	private double[] balances;
+	private LocalDateTime createDate;
+	private LocalDateTime updateDate;
+}
@@ -0,0 +1,34 @@
+package com.nttdata.bank.entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+/**
+ * BulkTransferChunkEntity represents the chunk document stored in the MongoDB
+ * collection "bulk_transfer_chunks". The rows of a bulk transfer are stored in
+ * chunks, identified by "jobId:index", as the file is read, so the credits of a
+ * job can be resumed from its progress after a restart. The first operation
+ * number is set once the operation numbers of the chunk are reserved, so a
+ * resumed chunk records its transactions with the same numbers. The chunks are
+ * removed when the job finishes. It uses Lombok annotations for getters and
+ * setters.
+ */
+
+@Data
+@Document(collection = "bulk_transfer_chunks")
+@CompoundIndex(name = "job_index_idx", def = "{'jobId': 1, 'index': 1}")
+public class BulkTransferChunkEntity {
+
+	@Id
+	private String id;
+	private String jobId;
+	private Integer index;
+	private List<BulkTransferRow> rows;
+	private Double amount;
+	private Long firstOperationNumber;
+	private LocalDateTime createDate;
+}
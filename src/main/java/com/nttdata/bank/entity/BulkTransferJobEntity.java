@@ -0,0 +1,48 @@
+package com.nttdata.bank.entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+/**
+ * BulkTransferJobEntity represents the bulk transfer job document stored in the
+ * MongoDB collection "bulk_transfer_jobs". A job records the source account of
+ * a bulk transfer, the total it debited and the progress of the credits, which
+ * are applied in chunks after the job is accepted. A job is RECEIVING while its
+ * rows are stored, RUNNING once the total is debited, and COMPLETED or FAILED
+ * at the end. The errors keep the rows that could not be credited, up to a
+ * bounded number. The chunks of a finished job, and the tags its debit, credits
+ * and refunds left on the accounts, are kept for a grace period and then
+ * released, which tagsReleased records. It uses Lombok annotations for getters
+ * and setters.
+ */
+
+@Data
+@Document(collection = "bulk_transfer_jobs")
+@CompoundIndex(name = "status_update_idx", def = "{'status': 1, 'updateDate': 1}")
+@CompoundIndex(name = "released_complete_idx", def = "{'tagsReleased': 1, 'completeDate': 1}")
+public class BulkTransferJobEntity {
+
+	@Id
+	private String id;
+	private String accountNumberWithdraws;
+	private String documentNumberWithdraws;
+	private String nameWithdraws;
+	private String status;
+	private Integer chunkSize;
+	private Integer totalRows;
+	private Integer processedRows;
+	private Integer creditedRows;
+	private Integer failedRows;
+	private Double totalAmount;
+	private Double creditedAmount;
+	private Double refundedAmount;
+	private List<String> errors;
+	private LocalDateTime createDate;
+	private LocalDateTime updateDate;
+	private LocalDateTime completeDate;
+	private Boolean tagsReleased;
+}
@@ -0,0 +1,19 @@
+package com.nttdata.bank.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * BulkTransferRow represents one row of a bulk transfer kept in a chunk: the
+ * account that receives the transfer and the amount credited to it.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkTransferRow {
+
+	private String accountNumberReceive;
+	private Double amount;
+}
@@ -1,7 +1,9 @@
 package com.nttdata.bank.entity;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
@@ -9,7 +11,11 @@ import lombok.Data;
  * CreditCardEntity represents the credit card document stored in the MongoDB
  * collection "credit_cards". This class includes attributes related to the
  * credit card, such as available credit, interest rates, payment day, and
- * status. It uses Lombok annotations for getters and setters.
+ * status. It uses Lombok annotations for getters and setters. The unique index
+ * on the credit card number guarantees that no number is given twice. The
+ * payments in progress that released credit are kept in appliedPayments, so the
+ * credit of a payment is released and reversed at most once; a payment is
+ * pulled once it completes.
  */
 
 @Data
@@ -18,7 +24,9 @@ public class CreditCardEntity {
 
 	@Id
 	private String id;
+	@Indexed(unique = true)
 	private String creditCardNumber;
+	@Indexed
 	private String documentNumber;
 	private Double availableCredit;
 	private Double annualInterestRate;
@@ -28,5 +36,6 @@ public class CreditCardEntity {
 	private LocalDateTime createDate;
 	private LocalDateTime updateDate;
 	private LocalDateTime deleteDate;
+	private List<String> appliedPayments;
 	private Boolean isActive;
 }
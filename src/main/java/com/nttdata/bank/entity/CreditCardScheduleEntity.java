@@ -3,6 +3,8 @@ package com.nttdata.bank.entity;
 import java.time.LocalDate;
 import java.util.List;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
@@ -11,11 +13,24 @@ import lombok.Data;
  * in the MongoDB collection "credit_schedules". This class includes attributes
  * related to the credit card schedule, such as payment dates, interest amounts,
  * principal amounts, current debt, and the list of consumptions associated with
- * each quota. It uses Lombok annotations for getters and setters.
+ * each quota. It uses Lombok annotations for getters and setters. The compound
+ * indexes serve the late-interest accrual, which reads the overdue schedules
+ * grouped by credit card, and the monthly billing, which looks schedules up by
+ * payment date and credit card number. That index is unique, so the upserts
+ * keyed on credit card number and payment date never create a second schedule
+ * for the same month, and partial on the credit card number, since the credit
+ * schedules share the collection without one. The operation numbers of the
+ * payments applied to a schedule are kept in appliedPayments, so a payment is
+ * applied and reversed at most once.
  */
 
 @Data
 @Document(collection = "credit_schedules")
+@CompoundIndexes({
+	@CompoundIndex(name = "unpaid_credit_card_idx", def = "{'paid': 1, 'creditCardNumber': 1, 'paymentDate': 1}"),
+	@CompoundIndex(name = "payment_date_credit_card_uidx", def = "{'paymentDate': 1, 'creditCardNumber': 1}",
+			unique = true, partialFilter = "{'creditCardNumber': {'$exists': true}}")
+})
 public class CreditCardScheduleEntity {
 
 	@Id
@@ -28,5 +43,6 @@ public class CreditCardScheduleEntity {
 	private Double currentDebt;
 	private Boolean paid;
 	private List<Consumption> consumptionQuota;
+	private List<String> appliedPayments;
 
 }
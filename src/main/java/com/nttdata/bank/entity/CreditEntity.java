@@ -2,6 +2,7 @@ package com.nttdata.bank.entity;
 
 import java.time.LocalDateTime;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
@@ -18,6 +19,7 @@ public class CreditEntity {
 
 	@Id
 	private String id;
+	@Indexed
 	private String documentNumber;
 	private Double amount;
 	private String accountNumber;
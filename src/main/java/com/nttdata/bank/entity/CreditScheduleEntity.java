@@ -1,7 +1,9 @@
 package com.nttdata.bank.entity;
 
 import java.time.LocalDate;
+import java.util.List;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
@@ -10,11 +12,15 @@ import lombok.Data;
  * MongoDB collection "credit_schedules". This class includes attributes related
  * to the credit schedule, such as payment date, interest amount, late amount,
  * principal amount, current debt, total debt, payment status, and credit ID. It
- * uses Lombok annotations for getters and setters.
+ * uses Lombok annotations for getters and setters. The compound index serves
+ * the late-interest accrual, which reads the unpaid schedules grouped by credit.
+ * The operation numbers of the payments applied to a schedule are kept in
+ * appliedPayments, so a payment is applied and reversed at most once.
  */
 
 @Data
 @Document(collection = "credit_schedules")
+@CompoundIndex(name = "unpaid_credit_idx", def = "{'paid': 1, 'creditId': 1, 'paymentDate': 1}")
 public class CreditScheduleEntity {
 
 	@Id
@@ -27,4 +33,5 @@ public class CreditScheduleEntity {
 	private Double currentDebt;
 	private Double balance;
 	private Boolean paid;
+	private List<String> appliedPayments;
 }
@@ -3,6 +3,7 @@ package com.nttdata.bank.entity;
 import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
@@ -10,7 +11,8 @@ import lombok.Data;
  * DebitCardEntity represents the debit card document stored in the MongoDB
  * collection "debit_cards". This class includes attributes related to the debit
  * card, such as card details, associated accounts, status, and timestamps. It
- * uses Lombok annotations for getters and setters.
+ * uses Lombok annotations for getters and setters. The unique index on the
+ * debit card number guarantees that no number is given twice.
  */
 
 @Data
@@ -19,6 +21,7 @@ public class DebitCardEntity {
 
 	@Id
 	private String debitCardId;
+	@Indexed(unique = true)
 	private String debitCardNumber;
 	private String documentNumber;
 	private List<String> associatedAccounts;
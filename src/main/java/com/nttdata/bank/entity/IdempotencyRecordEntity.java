@@ -0,0 +1,32 @@
+package com.nttdata.bank.entity;
+
+import java.time.LocalDateTime;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import com.nttdata.bank.response.TransactionResponse;
+import lombok.Data;
+
+/**
+ * IdempotencyRecordEntity represents the idempotency record stored in the
+ * MongoDB collection "idempotency_keys". The id is the idempotency key scoped
+ * by the operation it was sent to and the principal that sent it, so inserting
+ * the record claims the key. The record keeps the hash of the request body the
+ * key was first sent with and the response of the completed operation to
+ * replay it to retries, and expires one day after it was created. It uses
+ * Lombok annotations for getters and setters.
+ */
+
+@Data
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecordEntity {
+
+	@Id
+	private String id;
+	private String status;
+	private String requestHash;
+	private TransactionResponse response;
+	@Indexed(name = "create_date_ttl_idx", expireAfter = "1d")
+	private LocalDateTime createDate;
+	private LocalDateTime completeDate;
+}
@@ -0,0 +1,41 @@
+package com.nttdata.bank.entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+/**
+ * JournalEntryEntity represents the journal entry document stored in the
+ * MongoDB collection "journal_entries". A journal entry records every debit and
+ * credit leg of one operation in a single document, so an operation is either
+ * fully recorded or not recorded at all. Debit legs are applied when the
+ * operation is posted and credit legs are applied later by the ledger applier.
+ * The accounts hold the entry id in their applied journal until the entry is
+ * closed as applied or rejected and the grace period has passed; tagsReleased
+ * records that the tags were then pulled. It uses Lombok annotations for
+ * getters and setters.
+ */
+
+@Data
+@Document(collection = "journal_entries")
+@CompoundIndex(name = "status_debits_create_idx", def = "{'status': 1, 'debitsApplied': 1, 'createDate': 1}")
+@CompoundIndex(name = "released_close_idx", def = "{'tagsReleased': 1, 'closeDate': 1}")
+public class JournalEntryEntity {
+
+	@Id
+	private String id;
+	@Indexed(unique = true)
+	private String operationNumber;
+	private List<JournalLeg> legs;
+	private String status;
+	private Boolean debitsApplied;
+	private Integer attempts;
+	private LocalDateTime createDate;
+	private LocalDateTime appliedDate;
+	private LocalDateTime closeDate;
+	private Boolean tagsReleased;
+}
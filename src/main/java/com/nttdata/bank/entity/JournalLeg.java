@@ -0,0 +1,20 @@
+package com.nttdata.bank.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * JournalLeg represents one side of a journal entry: the account whose balance
+ * changes and the signed amount of the change, negative for a debit and
+ * positive for a credit.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JournalLeg {
+
+	private String accountNumber;
+	private Double amount;
+}
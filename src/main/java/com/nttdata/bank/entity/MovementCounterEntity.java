@@ -0,0 +1,26 @@
+package com.nttdata.bank.entity;
+
+import java.time.LocalDateTime;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+/**
+ * MovementCounterEntity represents the monthly movement counter document stored
+ * in the MongoDB collection "movement_counters". There is one document per
+ * account and month, identified by "accountNumber:yyyy-MM", holding the number
+ * of deposits and withdrawals registered for that account in the month.
+ */
+
+@Data
+@Document(collection = "movement_counters")
+public class MovementCounterEntity {
+
+	@Id
+	private String id;
+	private String accountNumber;
+	private String period;
+	private Long deposits;
+	private Long withdrawals;
+	private LocalDateTime updateDate;
+}
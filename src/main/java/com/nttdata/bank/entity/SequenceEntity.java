@@ -0,0 +1,24 @@
+package com.nttdata.bank.entity;
+
+import java.time.LocalDateTime;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import lombok.Data;
+
+/**
+ * SequenceEntity represents a named counter document stored in the MongoDB
+ * collection "sequences". The id is the sequence name and the value is the last
+ * number handed out to any node, so every node leases its blocks from the same
+ * document.
+ */
+
+@Data
+@Document(collection = "sequences")
+public class SequenceEntity {
+
+	@Id
+	private String id;
+	private Long value;
+	private LocalDateTime createDate;
+	private LocalDateTime updateDate;
+}
@@ -2,6 +2,9 @@ package com.nttdata.bank.entity;
 
 import java.time.LocalDateTime;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
@@ -10,15 +13,21 @@ import lombok.Data;
  * collection "transactions". This class includes attributes related to the
  * transaction, such as operation number, account details, credit card details,
  * amount, commission, transaction type, and status. It uses Lombok annotations
- * for getters and setters.
+ * for getters and setters. The compound indexes serve the newest-first lookup
+ * of an account's transactions from either side of the movement.
  */
 
 @Data
 @Document(collection = "transactions")
+@CompoundIndexes({
+	@CompoundIndex(name = "receive_recent_idx", def = "{'accountNumberReceive': 1, 'createDate': -1, '_id': -1}"),
+	@CompoundIndex(name = "withdraws_recent_idx", def = "{'accountNumberWithdraws': 1, 'createDate': -1, '_id': -1}")
+})
 public class TransactionEntity {
 
 	@Id
 	private String id;
+	@Indexed
 	private String operationNumber;
 	private String accountNumberWithdraws;
 	private String accountNumberReceive;
@@ -30,6 +39,7 @@ public class TransactionEntity {
 	private Double commission;
 	private String transactionType;
 	private Integer numberOfInstallments;
+	@Indexed
 	private LocalDateTime createDate;
 	private LocalDateTime updateDate;
 	private LocalDateTime deleteDate;
@@ -2,6 +2,7 @@ package com.nttdata.bank.entity;
 
 import java.time.LocalDateTime;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
@@ -9,7 +10,10 @@ import lombok.Data;
  * YankiEntity represents the Yanki document stored in the MongoDB collection
  * "yanki". This class includes attributes such as document number, name, phone
  * number, account number, and status. It uses Lombok annotations for getters
- * and setters.
+ * and setters. The phone number is indexed, since mobile transfers look their
+ * wallets up by phone number, and the update date is indexed, since every write
+ * sets it and the phone directories read the wallets changed since their last
+ * sync.
  */
 
 @Data
@@ -20,9 +24,11 @@ public class YankiEntity {
 	private String id;
 	private String name;
 	private String documentNumber;
+	@Indexed
 	private String phoneNumber;
 	private String accountNumber;
 	private LocalDateTime createDate;
+	@Indexed
 	private LocalDateTime updateDate;
 	private LocalDateTime deleteDate;
 	private Boolean isActive;
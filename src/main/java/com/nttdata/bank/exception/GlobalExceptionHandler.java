@@ -11,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
 import com.nttdata.bank.response.ApiResponse;
 
 /**
@@ -48,6 +49,23 @@ public class GlobalExceptionHandler {
 		return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
 	}
 
+	/**
+	 * Handles exceptions that carry their own status (ResponseStatusException),
+	 * such as an idempotency key reused with another request.
+	 *
+	 * @param ex The ResponseStatusException instance
+	 * @return ResponseEntity containing the ApiResponse with the reason
+	 */
+	@ExceptionHandler(ResponseStatusException.class)
+	public ResponseEntity<ApiResponse<Object>> handleResponseStatusException(ResponseStatusException ex) {
+		logger.error("Request rejected: {}", ex.getMessage());
+		ApiResponse<Object> response = new ApiResponse<>();
+		response.setStatusCode(ex.getStatus().value());
+		response.setMessage(ex.getReason());
+
+		return new ResponseEntity<>(response, ex.getStatus());
+	}
+
 	/**
 	 * Handles general exceptions (Exception).
 	 *
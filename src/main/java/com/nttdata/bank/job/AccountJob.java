@@ -1,15 +1,27 @@
 package com.nttdata.bank.job;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.job.bean.InactivitySweepResult;
 import com.nttdata.bank.repository.AccountRepository;
-import com.nttdata.bank.repository.TransactionRepository;
+import com.nttdata.bank.service.AccountsService;
+import com.nttdata.bank.service.BalanceSnapshotService;
 import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * AccountJob class is responsible for handling scheduled tasks related to
@@ -19,68 +31,86 @@ import com.nttdata.bank.util.Constants;
 @Component
 public class AccountJob {
 
+	private static final Logger logger = LoggerFactory.getLogger(AccountJob.class);
+
 	@Autowired
 	private AccountRepository accountRepository;
 
 	@Autowired
-	private TransactionRepository transactionRepository;
+	private AccountsService accountsService;
+
+	@Autowired
+	private BalanceSnapshotService balanceSnapshotService;
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
 
 	/**
 	 * Scheduled job to check and handle inactive accounts. This method is scheduled
 	 * to run on the first day of every six months at midnight.
+	 * Accounts without any movement in the last six months are deactivated.
 	 */
 	@Scheduled(cron = "0 0 0 1 */6 ?")
 	public void checkAndHandleInactiveAccounts() {
 		LocalDateTime sixMonthsAgo = LocalDateTime.now().minus(6, ChronoUnit.MONTHS);
 
-		accountRepository.findAllByIsActiveTrue().collectList().toFuture().join().stream()
-				.filter(account -> transactionRepository.findAllByIsActiveTrue().collectList().block().stream()
-						.anyMatch(transaction -> (transaction.getAccountNumberReceive()
-								.equalsIgnoreCase(account.getAccountNumber())
-								|| transaction.getAccountNumberWithdraws()
-								.equalsIgnoreCase(account.getAccountNumber()))
-								&& transaction.getCreateDate().isAfter(sixMonthsAgo)))
-				.forEach(account -> {
-					account.setIsActive(false);
-					account.setDeleteDate(LocalDateTime.now());
-					accountRepository.save(account);
-				});
+		InactivitySweepResult result = accountsService.deactivateInactiveAccounts(sixMonthsAgo).block();
+		logger.info("Inactive accounts sweep: scanned={}, deactivated={}", result.getScanned(),
+				result.getDeactivated());
 	}
 
 	/**
 	 * Scheduled job to review VIP accounts and charge commission if necessary. This
 	 * method is scheduled to run on the first day of every month at midnight.
+	 * The commission is charged to the VIP accounts whose daily average balance
+	 * in the last month is below the minimum. The averages are read from the
+	 * balance snapshots in batches of accounts.
 	 */
 	@Scheduled(cron = "0 0 0 1 * ?")
 	public void reviewVipAccountsAndChargeCommission() {
-		LocalDateTime oneMonthAgo = LocalDateTime.now().minus(1, ChronoUnit.MONTHS);
+		YearMonth lastMonth = YearMonth.now().minusMonths(1);
 
-		accountRepository.findAllByIsActiveTrue().collectList().toFuture().join().stream()
+		Long charged = accountRepository.findAllByIsActiveTrue()
 				.filter(account -> Constants.ACCOUNT_TYPE_VIP.equalsIgnoreCase(account.getAccountType()))
-				.collect(Collectors.toList()).forEach(accountEntity -> {
-					Double averageAmount = transactionRepository.findAllByIsActiveTrue().collectList().block().stream()
-							.filter(transaction -> (accountEntity.getAccountNumber()
-									.equalsIgnoreCase(transaction.getAccountNumberReceive())
-									|| accountEntity.getAccountNumber()
-									.equalsIgnoreCase(transaction.getAccountNumberWithdraws()))
-									&& Constants.TRANSACTION_TYPE_DEPOSIT
-									.equalsIgnoreCase(transaction.getTransactionType())
-									&& transaction.getCreateDate().isAfter(oneMonthAgo))
-							.mapToDouble(TransactionEntity::getAmount).average().orElse(0.0);
-
-					Double commission = averageAmount >= 1.00 ? 0.00
-							: Constants.COMMISSION_ADD + accountEntity.getCommissionPending();
-					
-					double currentAmount = accountEntity.getAmount();
+				.buffer(Constants.AVERAGE_BALANCE_BATCH_SIZE)
+				.concatMap(accounts -> balanceSnapshotService
+						.averageDailyBalances(accounts.stream().map(AccountEntity::getAccountNumber)
+								.collect(Collectors.toList()), lastMonth)
+						.flatMapMany(averages -> Flux.fromIterable(accounts)
+								.filter(accountEntity -> averages.getOrDefault(accountEntity.getAccountNumber(),
+										0.0) < Constants.VIP_MINIMUM_AVERAGE_BALANCE)))
+				.concatMap(this::chargeCommission)
+				.count()
+				.block();
+		logger.info("VIP accounts review: {} accounts charged", charged);
+	}
 
-					if (currentAmount >= commission) {
-						accountEntity.setAmount(currentAmount - commission);
-					} else {
-						accountEntity.setCommissionPending(commission);
-					}
+	/**
+	 * Charges the commission to a VIP account, together with its pending
+	 * commission. The commission is debited with the guarded balance update, so
+	 * it is recorded in the daily balances of the account. Once charged, the
+	 * pending commission is cleared; when the balance does not cover it, it is
+	 * kept as pending. Only the pending commission field is written, so the
+	 * balance of the account read by the review is never saved back.
+	 *
+	 * @param accountEntity the account
+	 * @return a Mono emitting the account once the commission is charged or kept
+	 *         as pending
+	 */
+	private Mono<AccountEntity> chargeCommission(AccountEntity accountEntity) {
+		Double pending = Optional.ofNullable(accountEntity.getCommissionPending()).orElse(0.00);
+		Double commission = Constants.COMMISSION_ADD + pending;
+		Query account = Query.query(Criteria.where("accountNumber").is(accountEntity.getAccountNumber()));
 
-					accountRepository.save(accountEntity);
-				});
+		return accountsService.updateBalance(accountEntity.getAccountNumber(), -commission)
+				.flatMap(balance -> pending <= 0 ? Mono.just(accountEntity)
+						: mongoTemplate.updateFirst(Query.query(Criteria.where("accountNumber")
+								.is(accountEntity.getAccountNumber()).and("commissionPending").is(pending)),
+								new Update().unset("commissionPending"), AccountEntity.class)
+								.thenReturn(accountEntity))
+				.onErrorResume(IllegalArgumentException.class, e -> mongoTemplate
+						.updateFirst(account, new Update().set("commissionPending", commission), AccountEntity.class)
+						.thenReturn(accountEntity));
 	}
 
 }
@@ -0,0 +1,54 @@
+package com.nttdata.bank.job;
+
+import java.time.LocalDateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.nttdata.bank.service.BulkTransferService;
+
+/**
+ * BulkTransferJob resumes the bulk transfers whose progress stopped, such as
+ * those interrupted by a restart, so their rows are neither left uncredited nor
+ * left unrefunded, and releases the bulk transfers that finished.
+ */
+@Component
+public class BulkTransferJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(BulkTransferJob.class);
+
+	@Autowired
+	private BulkTransferService bulkTransferService;
+
+	@Value("${bank.bulk-transfer.recovery-grace-seconds:600}")
+	private long recoveryGraceSeconds;
+
+	/**
+	 * Scheduled job to resume the bulk transfers that have not recorded any
+	 * progress within the grace period. Each run starts the configured delay
+	 * after the previous one finishes.
+	 */
+	@Scheduled(fixedDelayString = "${bank.bulk-transfer.recovery-interval:60000}")
+	public void resumeStaleJobs() {
+		Long resumed = bulkTransferService
+				.resumeStaleJobs(LocalDateTime.now().minusSeconds(recoveryGraceSeconds)).block();
+		if (resumed != null && resumed > 0) {
+			logger.warn("Resumed {} interrupted bulk transfers", resumed);
+		}
+	}
+
+	/**
+	 * Scheduled job to release the bulk transfers that finished longer ago than
+	 * the grace period.
+	 */
+	@Scheduled(fixedDelayString = "${bank.bulk-transfer.recovery-interval:60000}")
+	public void releaseFinishedJobs() {
+		Long released = bulkTransferService
+				.releaseFinishedJobs(LocalDateTime.now().minusSeconds(recoveryGraceSeconds)).block();
+		if (released != null && released > 0) {
+			logger.debug("Released {} finished bulk transfers", released);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.nttdata.bank.job;
+
+import java.time.LocalDateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.nttdata.bank.service.LedgerService;
+
+/**
+ * LedgerJob applies the pending journal entries to the account balances,
+ * resolves the entries whose posting was interrupted and releases the tags of
+ * the closed entries from their accounts.
+ */
+@Component
+public class LedgerJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(LedgerJob.class);
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Value("${bank.ledger.recovery-grace-seconds:300}")
+	private long recoveryGraceSeconds;
+
+	/**
+	 * Scheduled job to apply the credit legs of the pending journal entries. Each
+	 * run starts the configured delay after the previous one finishes, and keeps
+	 * going while full batches are found.
+	 */
+	@Scheduled(fixedDelayString = "${bank.ledger.apply-interval:1000}")
+	public void applyPendingEntries() {
+		Long applied;
+		do {
+			applied = ledgerService.applyPendingEntries().block();
+			if (applied != null && applied > 0) {
+				logger.debug("Applied {} journal entries", applied);
+			}
+		} while (applied != null && applied > 0);
+	}
+
+	/**
+	 * Scheduled job to resolve the journal entries whose posting stopped before
+	 * their debits were marked as applied, once they are older than the grace
+	 * period.
+	 */
+	@Scheduled(fixedDelayString = "${bank.ledger.recovery-interval:60000}")
+	public void recoverStaleEntries() {
+		Long recovered = ledgerService
+				.recoverStaleEntries(LocalDateTime.now().minusSeconds(recoveryGraceSeconds)).block();
+		if (recovered != null && recovered > 0) {
+			logger.warn("Recovered {} interrupted journal entries", recovered);
+		}
+	}
+
+	/**
+	 * Scheduled job to release the tags of the journal entries closed longer ago
+	 * than the grace period, one batch after another.
+	 */
+	@Scheduled(fixedDelayString = "${bank.ledger.recovery-interval:60000}")
+	public void releaseClosedEntries() {
+		LocalDateTime closedBefore = LocalDateTime.now().minusSeconds(recoveryGraceSeconds);
+		Long released;
+		do {
+			released = ledgerService.releaseClosedEntries(closedBefore).block();
+			if (released != null && released > 0) {
+				logger.debug("Released {} closed journal entries", released);
+			}
+		} while (released != null && released > 0);
+	}
+}
@@ -0,0 +1,64 @@
+package com.nttdata.bank.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import com.nttdata.bank.service.MovementCounterService;
+
+/**
+ * MovementCounterRebuildCommand is an offline command that rebuilds the monthly
+ * movement counters from the stored transactions and then stops the
+ * application. It is only created when the application is started with
+ * {@code --bank.movement-counters.rebuild=true
+ * --spring.main.web-application-type=none}, which also leaves the scheduled
+ * jobs disabled. It must run quiesced: every other instance stopped, so no
+ * deposit or withdrawal is posted while it runs, since a movement posted during
+ * the rebuild can be lost when its counter is overwritten.
+ */
+@Component
+@ConditionalOnProperty(name = "bank.movement-counters.rebuild", havingValue = "true")
+public class MovementCounterRebuildCommand implements ApplicationRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(MovementCounterRebuildCommand.class);
+
+	@Autowired
+	private MovementCounterService movementCounterService;
+
+	@Autowired
+	private ConfigurableApplicationContext context;
+
+	/**
+	 * Rebuilds the movement counters and stops the application, exiting with 0 on
+	 * success and 1 on failure.
+	 *
+	 * @param args the application arguments
+	 * @throws IllegalStateException if the application serves HTTP requests
+	 */
+	@Override
+	public void run(ApplicationArguments args) {
+		if (context instanceof WebServerApplicationContext) {
+			throw new IllegalStateException("The movement counter rebuild must run with "
+					+ "spring.main.web-application-type=none");
+		}
+
+		logger.warn("Rebuilding movement counters; no other instance may be running");
+		int exitCode = 0;
+		try {
+			Long written = movementCounterService.rebuildCounters().block();
+			logger.info("Movement counters rebuilt successfully: {}", written);
+		} catch (RuntimeException e) {
+			logger.error("Unable to rebuild the movement counters: {}", e.getMessage());
+			exitCode = 1;
+		}
+
+		int status = exitCode;
+		System.exit(SpringApplication.exit(context, () -> status));
+	}
+}
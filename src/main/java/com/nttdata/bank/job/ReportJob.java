@@ -1,124 +1,54 @@
 package com.nttdata.bank.job;
 
-import java.io.File;
-import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
-import com.nttdata.bank.entity.TransactionEntity;
 import com.nttdata.bank.job.bean.ProductBalance;
-import com.nttdata.bank.mapper.TransactionMapper;
-import com.nttdata.bank.repository.AccountRepository;
-import com.nttdata.bank.repository.CreditCardRepository;
-import com.nttdata.bank.repository.CreditRepository;
-import com.nttdata.bank.repository.TransactionRepository;
-import com.nttdata.bank.response.CustomerResponse;
 import com.nttdata.bank.response.TransactionResponse;
-import com.nttdata.bank.service.CustomerService;
-import com.nttdata.bank.util.Constants;
+import com.nttdata.bank.service.ReportAggregationService;
+import com.nttdata.bank.service.ReportWriterService;
+import reactor.core.publisher.Flux;
 
 @Component
 public class ReportJob {
 
-	@Autowired
-	private AccountRepository accountRepository;
+	private static final Logger logger = LoggerFactory.getLogger(ReportJob.class);
 
-	@Autowired
-	private TransactionRepository transactionRepository;
+	private static final String SEPARATOR = "----------------------------------------";
 
 	@Autowired
-	private CreditRepository creditRepository;
+	private ReportAggregationService reportAggregationService;
 
 	@Autowired
-	private CreditCardRepository creditCardRepository;
-
-	@Autowired
-	private CustomerService customerService;
+	private ReportWriterService reportWriterService;
 
 	/**
 	 * Scheduled method that generates a daily average balance summary for all
 	 * customers. This method is triggered on the first day of every month at
-	 * midnight (00:00). It retrieves all active credits, credit cards, and accounts
-	 * for each customer, calculates the average balance for each product, and
-	 * generates a PDF summary report.
+	 * midnight (00:00). It summarizes every active credit, credit card and account
+	 * over last month's transactions and generates a PDF summary report.
 	 * 
 	 * The cron expression "0 0 0 1 * ?" indicates the method runs at midnight on
 	 * the first day of every month.
 	 */
 	@Scheduled(cron = "0 0 0 1 * ?")
 	public void generateDailyAverageBalanceSummary() {
-		List<ProductBalance> products = new ArrayList<>();
-		List<CustomerResponse> customers = customerService.findAllCustomers();
-
-		customers.forEach(customerResponse -> {
-			String documentNumber = customerResponse.getDocumentNumber();
-
-			Optional.ofNullable(
-					creditRepository.findAllByDocumentNumberAndIsActiveTrue(documentNumber).collectList().block())
-					.ifPresent(credits -> credits.forEach(creditEntity -> {
-						ProductBalance product = new ProductBalance();
-						product.setCreditId(creditEntity.getId());
-						product.setProductType(Constants.PRODUCT_CREDIT);
-
-						product.setAverageBalance(getTransactions().stream()
-								.filter(transaction -> creditEntity.getId()
-										.equalsIgnoreCase(transaction.getCreditId())
-										&& Constants.TRANSACTION_TYPE_PAY_CREDIT
-										.equalsIgnoreCase(transaction.getTransactionType()))
-								.mapToDouble(TransactionEntity::getAmount).average().orElse(0.0));
-
-						products.add(product);
-					}));
-
-			Optional.ofNullable(
-					creditCardRepository.findAllByDocumentNumberAndIsActiveTrue(documentNumber).collectList().block())
-					.ifPresent(creditCards -> creditCards.forEach(creditCardEntity -> {
-						ProductBalance product = new ProductBalance();
-						product.setCreditCardNumber(creditCardEntity.getCreditCardNumber());
-						product.setProductType(Constants.PRODUCT_CREDIT_CARD);
-
-						product.setAverageBalance(getTransactions().stream()
-								.filter(transaction -> creditCardEntity.getCreditCardNumber()
-										.equalsIgnoreCase(transaction.getCreditId())
-										&& Constants.TRANSACTION_TYPE_PAY_CREDIT_CARD
-										.equalsIgnoreCase(transaction.getTransactionType()))
-								.mapToDouble(TransactionEntity::getAmount).average().orElse(0.0));
-
-						products.add(product);
-					}));
-
-			Optional.ofNullable(
-					accountRepository.findByHolderDocContainingAndIsActiveTrue(documentNumber).collectList().block())
-					.ifPresent(accounts -> accounts.forEach(accountEntity -> {
-						ProductBalance product = new ProductBalance();
-						product.setAccountNumber(accountEntity.getAccountNumber());
-						product.setProductType(accountEntity.getAccountType());
-
-						product.setAverageBalance(
-								calculateAverageAmount(accountEntity.getAccountNumber(), getTransactions()));
-
-						products.add(product);
-					}));
-		});
-
-		generatePdfDailyAverageBalanceSummary(products);
+		writeReport("daily_average_balance_summary.pdf", "Daily Average Balance Summary",
+				this::balanceLines);
 	}
 
 	/**
 	 * Scheduled method that generates a monthly commission report for all
 	 * customers. This method is triggered on the first day of every month at
-	 * midnight (00:00). It retrieves all active credits, credit cards, and accounts
-	 * for each customer, calculates the average commission for each product, and
+	 * midnight (00:00). It summarizes the average commission of every active
+	 * credit, credit card and account over last month's transactions and
 	 * generates a PDF report.
 	 * 
 	 * The cron expression "0 0 0 1 1/1 ?" indicates the method runs at midnight on
@@ -126,390 +56,138 @@ public class ReportJob {
 	 */
 	@Scheduled(cron = "0 0 0 1 1/1 ?")
 	public void generateCommissionReport() {
-		List<ProductBalance> products = new ArrayList<>();
-		List<CustomerResponse> customers = customerService.findAllCustomers();
-
-		customers.forEach(customerResponse -> {
-			String documentNumber = customerResponse.getDocumentNumber();
-
-			Optional.ofNullable(
-					creditRepository.findAllByDocumentNumberAndIsActiveTrue(documentNumber).collectList().block())
-					.ifPresent(credits -> credits.forEach(creditEntity -> {
-						ProductBalance product = new ProductBalance();
-						product.setCreditId(creditEntity.getId());
-						product.setProductType(Constants.PRODUCT_CREDIT);
-
-						product.setAverageCommission(getTransactions().stream()
-								.filter(transaction -> creditEntity.getId().
-										equalsIgnoreCase(transaction.getCreditId())
-										&& Constants.TRANSACTION_TYPE_PAY_CREDIT
-										.equalsIgnoreCase(transaction.getTransactionType()))
-								.mapToDouble(TransactionEntity::getCommission).average().orElse(0.0));
-
-						products.add(product);
-					}));
-
-			Optional.ofNullable(
-					creditCardRepository.findAllByDocumentNumberAndIsActiveTrue(documentNumber).collectList().block())
-					.ifPresent(creditCards -> creditCards.forEach(creditCardEntity -> {
-						ProductBalance product = new ProductBalance();
-						product.setCreditCardNumber(creditCardEntity.getCreditCardNumber());
-						product.setProductType(Constants.PRODUCT_CREDIT_CARD);
-
-						product.setAverageCommission(getTransactions().stream()
-								.filter(transaction -> creditCardEntity.getCreditCardNumber()
-										.equalsIgnoreCase(transaction.getCreditId())
-										&& Constants.TRANSACTION_TYPE_PAY_CREDIT_CARD
-										.equalsIgnoreCase(transaction.getTransactionType()))
-								.mapToDouble(TransactionEntity::getCommission).average().orElse(0.0));
-
-						products.add(product);
-					}));
-
-			Optional.ofNullable(
-					accountRepository.findByHolderDocContainingAndIsActiveTrue(documentNumber).collectList().block())
-					.ifPresent(accounts -> accounts.forEach(accountEntity -> {
-						ProductBalance product = new ProductBalance();
-						product.setAccountNumber(accountEntity.getAccountNumber());
-						product.setProductType(accountEntity.getAccountType());
-
-						product.setAverageCommission(
-								calculateAverageCommission(accountEntity.getAccountNumber(), getTransactions()));
-
-						products.add(product);
-					}));
-		});
-
-		generatePdfDailyAverageCommissionSummary(products);
+		writeReport("daily_average_commission_summary.pdf", "Daily Average Commission Summary",
+				this::commissionLines);
 	}
 
 	/**
 	 * Scheduled method that generates a consolidated summary report for all
 	 * customers. This method is triggered on the first day of every year at noon
-	 * (12:00). It retrieves all active credits, credit cards, and accounts for each
-	 * customer, calculates various metrics, and generates a consolidated PDF
-	 * summary report.
+	 * (12:00). It summarizes the amounts, averages and commissions of every active
+	 * credit, credit card and account over last month's transactions and
+	 * generates a consolidated PDF summary report.
 	 * 
 	 * The cron expression "0 0 12 1 1 ?" indicates the method runs at noon on the
 	 * first day of every year.
 	 */
 	@Scheduled(cron = "0 0 12 1 1 ?")
 	public void generateConsolidatedSummary() {
-		List<ProductBalance> products = new ArrayList<>();
-		List<CustomerResponse> customers = customerService.findAllCustomers();
-
-		customers.forEach(customerResponse -> {
-			String documentNumber = customerResponse.getDocumentNumber();
-
-			Optional.ofNullable(
-					creditRepository.findAllByDocumentNumberAndIsActiveTrue(documentNumber).collectList().block())
-					.ifPresent(credits -> credits.forEach(creditEntity -> {
-						ProductBalance product = new ProductBalance();
-						product.setCreditId(creditEntity.getId());
-						product.setProductType(Constants.PRODUCT_CREDIT);
-						product.setCreditAmount(creditEntity.getAmount());
-
-						Stream<TransactionEntity> streamTransaction = getTransactions().stream()
-								.filter(transaction -> creditEntity.getId()
-										.equalsIgnoreCase(transaction.getCreditId())
-										&& Constants.TRANSACTION_TYPE_PAY_CREDIT
-										.equalsIgnoreCase(transaction.getTransactionType()));
-
-						product.setTransactions(streamTransaction.map(TransactionMapper::mapperToResponse)
-								.collect(Collectors.toList()));
-
-						product.setAverageBalance(
-								streamTransaction.mapToDouble(TransactionEntity::getAmount)
-								.average().orElse(0.0));
-
-						product.setAverageCommission(
-								streamTransaction.mapToDouble(TransactionEntity::getCommission)
-								.average().orElse(0.0));
-
-						products.add(product);
-					}));
-
-			Optional.ofNullable(
-					creditCardRepository.findAllByDocumentNumberAndIsActiveTrue(documentNumber).collectList().block())
-					.ifPresent(creditCards -> creditCards.forEach(creditCardEntity -> {
-						ProductBalance product = new ProductBalance();
-						product.setCreditCardNumber(creditCardEntity.getCreditCardNumber());
-						product.setProductType(Constants.PRODUCT_CREDIT_CARD);
-						product.setCreditCardAmount(creditCardEntity.getAvailableCredit());
-
-						Stream<TransactionEntity> streamTransaction = getTransactions().stream()
-								.filter(transaction -> creditCardEntity.getId()
-										.equalsIgnoreCase(transaction.getCreditCardNumber())
-										&& Constants.TRANSACTION_TYPE_PAY_CREDIT_CARD
-										.equalsIgnoreCase(transaction.getTransactionType()));
-
-						product.setTransactions(streamTransaction.map(TransactionMapper::mapperToResponse)
-								.collect(Collectors.toList()));
-
-						product.setAverageBalance(
-								streamTransaction.mapToDouble(TransactionEntity::getAmount)
-								.average().orElse(0.0));
-
-						product.setAverageCommission(
-								streamTransaction.mapToDouble(TransactionEntity::getCommission)
-								.average().orElse(0.0));
-
-						products.add(product);
-					}));
-
-			Optional.ofNullable(
-					accountRepository.findByHolderDocContainingAndIsActiveTrue(documentNumber).collectList().block())
-					.ifPresent(accounts -> accounts.forEach(accountEntity -> {
-						ProductBalance product = new ProductBalance();
-						product.setAccountNumber(accountEntity.getAccountNumber());
-						product.setProductType(accountEntity.getAccountType());
-						product.setAmountBalance(accountEntity.getAmount());
-
-						List<TransactionEntity> streamTransaction = getTransactions();
-
-						product.setTransactions(streamTransaction.stream().map(TransactionMapper::mapperToResponse)
-								.collect(Collectors.toList()));
-
-						product.setAverageBalance(
-								calculateAverageAmount(accountEntity.getAccountNumber(), streamTransaction));
-
-						product.setAverageCommission(
-								calculateAverageCommission(accountEntity.getAccountNumber(), streamTransaction));
-
-						products.add(product);
-					}));
-		});
-
-		generatePdfConsolidatedSummary(products);
+		writeReport("consolidated_summary.pdf", "Consolidated Summary", this::consolidatedLines);
 	}
 
 	/**
-	 * Generates a PDF summary of the daily average balance for a list of product
-	 * balances. This method creates the PDF file in the directory "C:\report". If
-	 * the directory does not exist, it will be created. Only non-null values are
-	 * included in the PDF.
+	 * Streams the summary of every active product over last month's transactions
+	 * into a PDF report. Products are written as they are summarized, so the
+	 * report is never held in memory as a whole.
 	 *
-	 * @param products a list of ProductBalance objects containing the average
-	 *                 balance information
+	 * @param fileName      the name of the report file
+	 * @param title         the title of the report
+	 * @param lineFormatter the function that renders the lines of a product
 	 */
-	private void generatePdfDailyAverageBalanceSummary(List<ProductBalance> products) {
+	private void writeReport(String fileName, String title,
+			Function<ProductBalance, List<String>> lineFormatter) {
 		try {
-			createReportDirectory();
-
-			String dest = "C:\\report\\daily_average_balance_summary.pdf";
-			PdfWriter writer = new PdfWriter(dest);
-			PdfDocument pdfDoc = new PdfDocument(writer);
-			Document document = new Document(pdfDoc);
-
-			document.add(new Paragraph("Daily Average Balance Summary"));
-
-			for (ProductBalance product : products) {
-				if (product.getCreditId() != null) {
-					document.add(new Paragraph("Credit ID: " + product.getCreditId()));
-				}
-				if (product.getCreditCardNumber() != null) {
-					document.add(new Paragraph("Credit Card Number: " + product.getCreditCardNumber()));
-				}
-				if (product.getAccountNumber() != null) {
-					document.add(new Paragraph("Account Number: " + product.getAccountNumber()));
-				}
-				if (product.getProductType() != null) {
-					document.add(new Paragraph("Product Type: " + product.getProductType()));
-				}
-				if (product.getAverageBalance() != null) {
-					document.add(new Paragraph("Average Balance: " + product.getAverageBalance()));
-				}
-				document.add(new Paragraph("----------------------------------------"));
-			}
-
-			document.close();
-			System.out.println("PDF created successfully.");
-		} catch (Exception e) {
-			e.printStackTrace();
+			reportWriterService.writeReport(fileName, title, summarizeLastMonth(), lineFormatter)
+					.block();
+		} catch (RuntimeException e) {
+			logger.error("Unable to generate report {}: {}", fileName, e.getMessage(), e);
 		}
 	}
 
 	/**
-	 * Generates a PDF summary of the daily average commission for a list of product
-	 * balances. This method creates the PDF file in the directory "C:\report". If
-	 * the directory does not exist, it will be created. Only non-null values are
-	 * included in the PDF.
+	 * Summarizes every active product over the transactions of last month. The
+	 * ledger is read once for the whole report.
 	 *
-	 * @param products a list of ProductBalance objects containing the average
-	 *                 commission information
+	 * @return a Flux of ProductBalance objects, one per active product
 	 */
-	private void generatePdfDailyAverageCommissionSummary(List<ProductBalance> products) {
-		try {
-			createReportDirectory();
-
-			String dest = "C:\\report\\daily_average_commission_summary.pdf";
-			PdfWriter writer = new PdfWriter(dest);
-			PdfDocument pdfDoc = new PdfDocument(writer);
-			Document document = new Document(pdfDoc);
-
-			document.add(new Paragraph("Daily Average Commission Summary"));
-
-			for (ProductBalance product : products) {
-				if (product.getCreditId() != null) {
-					document.add(new Paragraph("Credit ID: " + product.getCreditId()));
-				}
-				if (product.getCreditCardNumber() != null) {
-					document.add(new Paragraph("Credit Card Number: " + product.getCreditCardNumber()));
-				}
-				if (product.getAccountNumber() != null) {
-					document.add(new Paragraph("Account Number: " + product.getAccountNumber()));
-				}
-				if (product.getProductType() != null) {
-					document.add(new Paragraph("Product Type: " + product.getProductType()));
-				}
-				if (product.getAverageCommission() != null) {
-					document.add(new Paragraph("Average Commission: " + product.getAverageCommission()));
-				}
-				document.add(new Paragraph("----------------------------------------"));
-			}
-
-			document.close();
-			System.out.println("PDF created successfully.");
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+	private Flux<ProductBalance> summarizeLastMonth() {
+		YearMonth lastMonth = YearMonth.now().minusMonths(1);
+		LocalDateTime from = lastMonth.atDay(1).atStartOfDay();
+		LocalDateTime to = lastMonth.plusMonths(1).atDay(1).atStartOfDay();
+		return reportAggregationService.summarizeProducts(from, to);
 	}
 
 	/**
-	 * Generates a consolidated PDF summary report for a list of product balances.
-	 * This method creates the PDF file in the directory "C:\report". If the
-	 * directory does not exist, it will be created. Only non-null values are
-	 * included in the PDF.
+	 * Renders the lines of the daily average balance summary for a product. Only
+	 * non-null values are included.
 	 *
-	 * @param products a list of ProductBalance objects containing consolidated
-	 *                 summary information
+	 * @param product the product balance
+	 * @return the lines of the product
 	 */
-	private void generatePdfConsolidatedSummary(List<ProductBalance> products) {
-		try {
-			createReportDirectory();
-
-			String dest = "C:\\report\\consolidated_summary.pdf";
-			PdfWriter writer = new PdfWriter(dest);
-			PdfDocument pdfDoc = new PdfDocument(writer);
-			Document document = new Document(pdfDoc);
-
-			document.add(new Paragraph("Consolidated Summary"));
-
-			for (ProductBalance product : products) {
-				if (product.getCreditId() != null) {
-					document.add(new Paragraph("Credit ID: " + product.getCreditId()));
-				}
-				if (product.getCreditCardNumber() != null) {
-					document.add(new Paragraph("Credit Card Number: " + product.getCreditCardNumber()));
-				}
-				if (product.getAccountNumber() != null) {
-					document.add(new Paragraph("Account Number: " + product.getAccountNumber()));
-				}
-				if (product.getProductType() != null) {
-					document.add(new Paragraph("Product Type: " + product.getProductType()));
-				}
-				if (product.getCreditAmount() != null) {
-					document.add(new Paragraph("Credit Amount: " + product.getCreditAmount()));
-				}
-				if (product.getCreditCardAmount() != null) {
-					document.add(new Paragraph("Credit Card Amount: " + product.getCreditCardAmount()));
-				}
-				if (product.getAmountBalance() != null) {
-					document.add(new Paragraph("Amount Balance: " + product.getAmountBalance()));
-				}
-				if (product.getAverageBalance() != null) {
-					document.add(new Paragraph("Average Balance: " + product.getAverageBalance()));
-				}
-				if (product.getAverageCommission() != null) {
-					document.add(new Paragraph("Average Commission: " + product.getAverageCommission()));
-				}
-				if (product.getTransactions() != null && !product.getTransactions().isEmpty()) {
-					document.add(new Paragraph("Transactions:"));
-					for (TransactionResponse transaction : product.getTransactions()) {
-						if (transaction.getOperationNumber() != null) {
-							document.add(new Paragraph("Operation Number: " + transaction.getOperationNumber()));
-						}
-						if (transaction.getAmount() != null) {
-							document.add(new Paragraph("Amount: " + transaction.getAmount()));
-						}
-						if (transaction.getCommission() != null) {
-							document.add(new Paragraph("Commission: " + transaction.getCommission()));
-						}
-						if (transaction.getTransactionDate() != null) {
-							document.add(new Paragraph("Transaction Date: " + transaction.getTransactionDate()));
-						}
-						if (transaction.getTransactionType() != null) {
-							document.add(new Paragraph("Transaction Type: " + transaction.getTransactionType()));
-						}
-						document.add(new Paragraph("----------------------------------------"));
-					}
-				}
-			}
-
-			document.close();
-			System.out.println("PDF created successfully.");
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+	private List<String> balanceLines(ProductBalance product) {
+		List<String> lines = productLines(product);
+		addLine(lines, "Average Balance: ", product.getAverageBalance());
+		return lines;
 	}
 
 	/**
-	 * Creates the report directory "C:\report" if it does not exist.
+	 * Renders the lines of the daily average commission summary for a product.
+	 * Only non-null values are included.
 	 *
-	 * @throws IOException if an I/O error occurs
+	 * @param product the product balance
+	 * @return the lines of the product
 	 */
-	private void createReportDirectory() throws IOException {
-		File directory = new File("C:\\report");
-		if (!directory.exists()) {
-			directory.mkdirs();
-		}
+	private List<String> commissionLines(ProductBalance product) {
+		List<String> lines = productLines(product);
+		addLine(lines, "Average Commission: ", product.getAverageCommission());
+		return lines;
 	}
 
 	/**
-	 * Retrieves a list of active transactions within the last month.
+	 * Renders the lines of the consolidated summary for a product, including its
+	 * transactions when present. Only non-null values are included.
 	 *
-	 * @return a list of active TransactionEntity objects
+	 * @param product the product balance
+	 * @return the lines of the product
 	 */
-	private List<TransactionEntity> getTransactions() {
-		return transactionRepository.findAllByIsActiveTrue().collectList().block().stream()
-				.filter(transaction -> transaction.getCreateDate()
-						.isAfter(LocalDateTime.now().minusMonths(1).withDayOfMonth(1).minusDays(1))
-						&& transaction.getCreateDate().isBefore(LocalDateTime.now().withDayOfMonth(1)))
-				.collect(Collectors.toList());
+	private List<String> consolidatedLines(ProductBalance product) {
+		List<String> lines = productLines(product);
+		addLine(lines, "Credit Amount: ", product.getCreditAmount());
+		addLine(lines, "Credit Card Amount: ", product.getCreditCardAmount());
+		addLine(lines, "Amount Balance: ", product.getAmountBalance());
+		addLine(lines, "Average Balance: ", product.getAverageBalance());
+		addLine(lines, "Average Commission: ", product.getAverageCommission());
+
+		if (product.getTransactions() != null && !product.getTransactions().isEmpty()) {
+			lines.add("Transactions:");
+			for (TransactionResponse transaction : product.getTransactions()) {
+				addLine(lines, "Operation Number: ", transaction.getOperationNumber());
+				addLine(lines, "Amount: ", transaction.getAmount());
+				addLine(lines, "Commission: ", transaction.getCommission());
+				addLine(lines, "Transaction Date: ", transaction.getTransactionDate());
+				addLine(lines, "Transaction Type: ", transaction.getTransactionType());
+				lines.add(SEPARATOR);
+			}
+		}
+		return lines;
 	}
 
 	/**
-	 * Calculates the average amount for a given account number from a list of
-	 * transactions.
+	 * Renders the identification lines shared by every report.
 	 *
-	 * @param accountNumber the account number to filter transactions
-	 * @param transactions  a list of TransactionEntity objects
-	 * @return the calculated average amount
+	 * @param product the product balance
+	 * @return a mutable list with the identification lines of the product
 	 */
-	private double calculateAverageAmount(String accountNumber, List<TransactionEntity> transactions) {
-		return transactions.stream()
-				.filter(transaction -> accountNumber.equalsIgnoreCase(transaction.getAccountNumberReceive()))
-				.mapToDouble(TransactionEntity::getAmount).sum()
-				- transactions.stream()
-						.filter(transaction -> accountNumber.equalsIgnoreCase(transaction.getAccountNumberWithdraws()))
-						.mapToDouble(TransactionEntity::getAmount).sum();
+	private List<String> productLines(ProductBalance product) {
+		List<String> lines = new ArrayList<>();
+		addLine(lines, "Credit ID: ", product.getCreditId());
+		addLine(lines, "Credit Card Number: ", product.getCreditCardNumber());
+		addLine(lines, "Account Number: ", product.getAccountNumber());
+		addLine(lines, "Product Type: ", product.getProductType());
+		return lines;
 	}
 
 	/**
-	 * Calculates the average commission for a given account number from a list of
-	 * transactions.
+	 * Adds a labelled line when the value is present.
 	 *
-	 * @param accountNumber the account number to filter transactions
-	 * @param transactions  a list of TransactionEntity objects
-	 * @return the calculated average commission
+	 * @param lines the lines being rendered
+	 * @param label the label of the value
+	 * @param value the value, skipped when null
 	 */
-	private double calculateAverageCommission(String accountNumber, List<TransactionEntity> transactions) {
-		return transactions.stream()
-				.filter(transaction -> accountNumber.equalsIgnoreCase(transaction.getAccountNumberReceive()))
-				.mapToDouble(TransactionEntity::getCommission).sum()
-				- transactions.stream()
-						.filter(transaction -> accountNumber.equalsIgnoreCase(transaction.getAccountNumberWithdraws()))
-						.mapToDouble(TransactionEntity::getCommission).sum();
+	private void addLine(List<String> lines, String label, Object value) {
+		if (value != null) {
+			lines.add(label + value);
+		}
 	}
 
 }
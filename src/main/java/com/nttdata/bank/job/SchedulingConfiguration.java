@@ -0,0 +1,16 @@
+package com.nttdata.bank.job;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * SchedulingConfiguration enables the scheduled jobs. They are left disabled
+ * when the application is started to run the movement counter rebuild, so that
+ * the command runs with nothing else posting movements.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "bank.movement-counters.rebuild", havingValue = "false", matchIfMissing = true)
+public class SchedulingConfiguration {
+}
@@ -0,0 +1,69 @@
+package com.nttdata.bank.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.nttdata.bank.service.YankiDirectoryService;
+
+/**
+ * YankiDirectoryJob loads the phone directory of the Yanki wallets when the
+ * application starts, syncs it with the wallets changed by any instance every
+ * sync interval, and rebuilds it from scratch every refresh interval to pick up
+ * wallets written without an update date.
+ */
+@Component
+public class YankiDirectoryJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(YankiDirectoryJob.class);
+
+	@Autowired
+	private YankiDirectoryService yankiDirectoryService;
+
+	/**
+	 * Loads the directory once the application is ready. A failure is logged and
+	 * the lookups fall back to the database until the next refresh.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		rebuild();
+	}
+
+	/**
+	 * Scheduled job to apply the wallets changed since the last sync. A failure is
+	 * logged and the changes are read again by the next sync.
+	 */
+	@Scheduled(fixedDelayString = "${bank.yanki.directory.sync-interval:1000}")
+	public void sync() {
+		try {
+			Long changed = yankiDirectoryService.sync().block();
+			logger.debug("Yanki directory synced with {} changed wallets", changed);
+		} catch (RuntimeException e) {
+			logger.error("Unable to sync the Yanki directory: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Scheduled job to rebuild the directory from the active wallets.
+	 */
+	@Scheduled(fixedDelayString = "${bank.yanki.directory.refresh-interval:3600000}",
+			initialDelayString = "${bank.yanki.directory.refresh-interval:3600000}")
+	public void refresh() {
+		rebuild();
+	}
+
+	/**
+	 * Rebuilds the directory, logging the failure if it cannot be loaded.
+	 */
+	private void rebuild() {
+		try {
+			Long size = yankiDirectoryService.rebuild().block();
+			logger.debug("Yanki directory loaded with {} wallets", size);
+		} catch (RuntimeException e) {
+			logger.error("Unable to load the Yanki directory: {}", e.getMessage());
+		}
+	}
+}
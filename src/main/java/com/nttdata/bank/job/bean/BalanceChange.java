@@ -0,0 +1,22 @@
+package com.nttdata.bank.job.bean;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * BalanceChange describes one change applied to the balance of an account: the
+ * amount added, negative for a debit, the balance of the account right after
+ * the change and the moment it was applied.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceChange {
+
+	private String accountNumber;
+	private Double amount;
+	private Double balance;
+	private LocalDateTime changeDate;
+}
@@ -0,0 +1,19 @@
+package com.nttdata.bank.job.bean;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * InactivitySweepResult holds the outcome of an inactivity sweep: the number of
+ * active accounts that were scanned and the number of them that were
+ * deactivated for lack of movements.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InactivitySweepResult {
+
+	private long scanned;
+	private long deactivated;
+}
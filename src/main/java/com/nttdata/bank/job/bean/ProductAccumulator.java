@@ -0,0 +1,84 @@
+package com.nttdata.bank.job.bean;
+
+/**
+ * ProductAccumulator keeps the running totals of the transactions of one
+ * product while a report streams the ledger. Only primitive sums and counts
+ * are kept, so its size does not depend on the number of transactions folded
+ * into it.
+ */
+public class ProductAccumulator {
+
+	private long paymentCount;
+	private double paymentAmount;
+	private double paymentCommission;
+	private double receivedCommission;
+	private double withdrawnCommission;
+
+	/**
+	 * Adds a payment made to a credit or credit card.
+	 *
+	 * @param amount     the amount of the payment
+	 * @param commission the commission of the payment
+	 */
+	public void addPayment(Double amount, Double commission) {
+		paymentCount++;
+		paymentAmount += valueOf(amount);
+		paymentCommission += valueOf(commission);
+	}
+
+	/**
+	 * Adds a movement that credited the account.
+	 *
+	 * @param commission the commission of the movement
+	 */
+	public void addReceived(Double commission) {
+		receivedCommission += valueOf(commission);
+	}
+
+	/**
+	 * Adds a movement that debited the account.
+	 *
+	 * @param commission the commission of the movement
+	 */
+	public void addWithdrawn(Double commission) {
+		withdrawnCommission += valueOf(commission);
+	}
+
+	/**
+	 * Returns the average amount of the payments.
+	 *
+	 * @return the average amount, 0.0 when there are no payments
+	 */
+	public double getAveragePaymentAmount() {
+		return paymentCount == 0 ? 0.0 : paymentAmount / paymentCount;
+	}
+
+	/**
+	 * Returns the average commission of the payments.
+	 *
+	 * @return the average commission, 0.0 when there are no payments
+	 */
+	public double getAveragePaymentCommission() {
+		return paymentCount == 0 ? 0.0 : paymentCommission / paymentCount;
+	}
+
+	/**
+	 * Returns the commission of the movements that credited the account minus the
+	 * commission of the movements that debited it.
+	 *
+	 * @return the net commission of the account movements
+	 */
+	public double getNetCommission() {
+		return receivedCommission - withdrawnCommission;
+	}
+
+	/**
+	 * Unboxes an optional transaction value.
+	 *
+	 * @param value the value, possibly null
+	 * @return the value, or 0.0 when it is null
+	 */
+	private static double valueOf(Double value) {
+		return value == null ? 0.0 : value;
+	}
+}
@@ -0,0 +1,37 @@
+package com.nttdata.bank.mapper;
+
+import com.nttdata.bank.entity.BulkTransferJobEntity;
+import com.nttdata.bank.response.BulkTransferJobResponse;
+
+/**
+ * BulkTransferJobMapper provides methods to convert a BulkTransferJobEntity
+ * into a BulkTransferJobResponse object.
+ */
+
+public class BulkTransferJobMapper {
+
+	/**
+	 * Maps a BulkTransferJobEntity object to a BulkTransferJobResponse object.
+	 *
+	 * @param bulkTransferJobEntity The bulk transfer job entity to map
+	 * @return The mapped BulkTransferJobResponse
+	 */
+	public static BulkTransferJobResponse mapperToResponse(BulkTransferJobEntity bulkTransferJobEntity) {
+		BulkTransferJobResponse bulkTransferJobResponse = new BulkTransferJobResponse();
+		bulkTransferJobResponse.setJobId(bulkTransferJobEntity.getId());
+		bulkTransferJobResponse.setAccountNumberWithdraws(bulkTransferJobEntity.getAccountNumberWithdraws());
+		bulkTransferJobResponse.setStatus(bulkTransferJobEntity.getStatus());
+		bulkTransferJobResponse.setTotalRows(bulkTransferJobEntity.getTotalRows());
+		bulkTransferJobResponse.setProcessedRows(bulkTransferJobEntity.getProcessedRows());
+		bulkTransferJobResponse.setCreditedRows(bulkTransferJobEntity.getCreditedRows());
+		bulkTransferJobResponse.setFailedRows(bulkTransferJobEntity.getFailedRows());
+		bulkTransferJobResponse.setTotalAmount(bulkTransferJobEntity.getTotalAmount());
+		bulkTransferJobResponse.setCreditedAmount(bulkTransferJobEntity.getCreditedAmount());
+		bulkTransferJobResponse.setRefundedAmount(bulkTransferJobEntity.getRefundedAmount());
+		bulkTransferJobResponse.setErrors(bulkTransferJobEntity.getErrors());
+		bulkTransferJobResponse.setCreateDate(bulkTransferJobEntity.getCreateDate());
+		bulkTransferJobResponse.setCompleteDate(bulkTransferJobEntity.getCompleteDate());
+		return bulkTransferJobResponse;
+	}
+
+}
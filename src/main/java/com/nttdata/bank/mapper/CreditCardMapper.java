@@ -37,6 +37,7 @@ public class CreditCardMapper {
 	 */
 	public static CreditCardResponse mapperToResponse(CreditCardEntity creditCardEntity) {
 		CreditCardResponse creditCardResponse = new CreditCardResponse();
+		creditCardResponse.setCreditCardId(creditCardEntity.getId());
 		creditCardResponse.setCreditCardNumber(creditCardEntity.getCreditCardNumber());
 		creditCardResponse.setAvailableCredit(creditCardEntity.getAvailableCredit());
 		creditCardResponse.setAnnualInterestRate(creditCardEntity.getAnnualInterestRate());
@@ -34,6 +34,7 @@ public class DebitCardMapper {
 	 */
 	public static DebitCardResponse mapperToResponse(DebitCardEntity debitCardEntity) {
 		DebitCardResponse debitCardResponse = new DebitCardResponse();
+		debitCardResponse.setDebitCardId(debitCardEntity.getDebitCardId());
 		debitCardResponse.setDebitCardNumber(debitCardEntity.getDebitCardNumber());
 		debitCardResponse.setAssociatedAccounts(debitCardEntity.getAssociatedAccounts());
 		debitCardResponse.setPrimaryAccount(debitCardEntity.getPrimaryAccount());
@@ -61,6 +61,7 @@ public class TransactionMapper {
 	 */
 	public static TransactionResponse mapperToResponse(TransactionEntity transactionEntity) {
 		TransactionResponse transactionResponse = new TransactionResponse();
+		transactionResponse.setTransactionId(transactionEntity.getId());
 		transactionResponse.setOperationNumber(transactionEntity.getOperationNumber());
 		transactionResponse.setAccountNumberWithdraws(transactionEntity.getAccountNumberWithdraws());
 		transactionResponse.setNameWithdraws(transactionEntity.getNameWithdraws());
@@ -34,6 +34,7 @@ public class YankiMapper {
 	 */
 	public static YankiResponse mapperToResponse(YankiEntity yankiEntity) {
 		YankiResponse yankiResponse = new YankiResponse();
+		yankiResponse.setYankiId(yankiEntity.getId());
 		yankiResponse.setName(yankiEntity.getName());
 		yankiResponse.setPhoneNumber(yankiEntity.getPhoneNumber());
 		return yankiResponse;
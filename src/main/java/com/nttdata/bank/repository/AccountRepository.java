@@ -1,5 +1,7 @@
 package com.nttdata.bank.repository;
 
+import java.util.Collection;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import com.nttdata.bank.entity.AccountEntity;
 import reactor.core.publisher.Flux;
@@ -51,17 +53,51 @@ public interface AccountRepository extends ReactiveMongoRepository<AccountEntity
 	Mono<Boolean> existsByAccountNumberAndAmountGreaterThanEqual(String accountNumber, Double amount);
 
 	/**
-	 * Checks if an account exists by its account number.
+	 * Retrieves all active accounts.
 	 *
-	 * @param accountNumber The account number to search for.
-	 * @return A Mono emitting a boolean indicating if the account exists.
+	 * @return A Flux emitting the list of active AccountEntity objects.
 	 */
-	Mono<Boolean> existsByAccountNumber(String accountNumber);
+	Flux<AccountEntity> findAllByIsActiveTrue();
 
 	/**
-	 * Retrieves all active accounts.
+	 * Retrieves the active accounts that have no last movement date yet, reading
+	 * only their numbers and creation dates.
 	 *
-	 * @return A Flux emitting the list of active AccountEntity objects.
+	 * @return A Flux emitting AccountEntity objects with only the id, account
+	 *         number and creation date populated.
 	 */
-	Flux<AccountEntity> findAllByIsActiveTrue();
+	@Query(value = "{ 'isActive': true, 'lastMovementDate': null }",
+			fields = "{ 'accountNumber': 1, 'createDate': 1 }")
+	Flux<AccountEntity> findActiveWithoutLastMovementDate();
+
+	/**
+	 * Counts the active accounts.
+	 *
+	 * @return A Mono emitting the number of active accounts.
+	 */
+	Mono<Long> countByIsActiveTrue();
+
+	/**
+	 * Finds the active accounts held by a customer, reading only their numbers and
+	 * types.
+	 *
+	 * @param holderDoc The document number to search for in the holder documents.
+	 * @return A Flux emitting AccountEntity objects with only the id, account
+	 *         number and account type populated.
+	 */
+	@Query(value = "{ 'holderDoc': ?0, 'isActive': true }",
+			fields = "{ 'accountNumber': 1, 'accountType': 1 }")
+	Flux<AccountEntity> findProductsByHolderDoc(String holderDoc);
+
+	/**
+	 * Finds the active accounts among the given account numbers, reading only
+	 * their numbers and balances.
+	 *
+	 * @param accountNumbers The account numbers to search for.
+	 * @return A Flux emitting AccountEntity objects with only the id, account
+	 *         number and amount populated.
+	 */
+	@Query(value = "{ 'accountNumber': { '$in': ?0 }, 'isActive': true }",
+			fields = "{ 'accountNumber': 1, 'amount': 1 }")
+	Flux<AccountEntity> findBalancesByAccountNumbers(Collection<String> accountNumbers);
 }
@@ -0,0 +1,22 @@
+package com.nttdata.bank.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import com.nttdata.bank.entity.BulkTransferChunkEntity;
+import reactor.core.publisher.Flux;
+
+/**
+ * BulkTransferChunkRepository provides CRUD operations for
+ * BulkTransferChunkEntity. This interface extends ReactiveMongoRepository and
+ * defines the query that reads the chunks of a job in order.
+ */
+public interface BulkTransferChunkRepository extends ReactiveMongoRepository<BulkTransferChunkEntity, String> {
+
+	/**
+	 * Finds the chunks of a job from the given one onwards, in order.
+	 *
+	 * @param jobId The id of the job.
+	 * @param index The number of the first chunk to read.
+	 * @return A Flux emitting the BulkTransferChunkEntity objects.
+	 */
+	Flux<BulkTransferChunkEntity> findByJobIdAndIndexGreaterThanEqualOrderByIndexAsc(String jobId, Integer index);
+}
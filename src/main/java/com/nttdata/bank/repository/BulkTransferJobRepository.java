@@ -0,0 +1,36 @@
+package com.nttdata.bank.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import com.nttdata.bank.entity.BulkTransferJobEntity;
+import reactor.core.publisher.Flux;
+
+/**
+ * BulkTransferJobRepository provides CRUD operations for BulkTransferJobEntity.
+ * This interface extends ReactiveMongoRepository; the jobs are read by their id
+ * or, to be resumed, by their status, and their progress is written with atomic
+ * updates.
+ */
+public interface BulkTransferJobRepository extends ReactiveMongoRepository<BulkTransferJobEntity, String> {
+
+	/**
+	 * Finds the jobs in any of the given statuses that were last updated before
+	 * the given date.
+	 *
+	 * @param statuses   The statuses of the jobs.
+	 * @param updateDate The date before which the jobs were last updated.
+	 * @return A Flux emitting the stale BulkTransferJobEntity objects.
+	 */
+	Flux<BulkTransferJobEntity> findByStatusInAndUpdateDateBefore(Collection<String> statuses,
+			LocalDateTime updateDate);
+
+	/**
+	 * Finds the finished jobs whose tags are still held by their accounts and that
+	 * finished before the given date.
+	 *
+	 * @param completeDate The date before which the jobs finished.
+	 * @return A Flux emitting the finished BulkTransferJobEntity objects.
+	 */
+	Flux<BulkTransferJobEntity> findByTagsReleasedFalseAndCompleteDateBefore(LocalDateTime completeDate);
+}
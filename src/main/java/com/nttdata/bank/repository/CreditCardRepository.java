@@ -1,5 +1,8 @@
 package com.nttdata.bank.repository;
 
+import java.util.Collection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import com.nttdata.bank.entity.CreditCardEntity;
 import reactor.core.publisher.Flux;
@@ -29,6 +32,14 @@ public interface CreditCardRepository extends ReactiveMongoRepository<CreditCard
 	 */
 	Mono<CreditCardEntity> findByCreditCardNumberAndIsActiveTrue(String creditCardNumber);
 
+	/**
+	 * Finds the active credit cards with any of the given numbers.
+	 *
+	 * @param creditCardNumbers The credit card numbers to search for.
+	 * @return A Flux emitting the active CreditCardEntity objects.
+	 */
+	Flux<CreditCardEntity> findByCreditCardNumberInAndIsActiveTrue(Collection<String> creditCardNumbers);
+
 	/**
 	 * Finds an active credit card by document number.
 	 *
@@ -45,12 +56,24 @@ public interface CreditCardRepository extends ReactiveMongoRepository<CreditCard
 	Flux<CreditCardEntity> findByIsActiveTrue();
 
 	/**
-	 * Checks if a credit card exists by its credit card number.
+	 * Finds the first page of active credit cards, ordered by id.
 	 *
-	 * @param creditCardNumber The credit card number to search for.
-	 * @return A Mono emitting a boolean indicating if the credit card exists.
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of CreditCardEntity objects.
 	 */
-	Mono<Boolean> existsByCreditCardNumber(String creditCardNumber);
+	@Query(value = "{ 'isActive': true }", sort = "{ '_id': 1 }")
+	Flux<CreditCardEntity> findActivePage(Pageable pageable);
+
+	/**
+	 * Finds the next page of active credit cards, ordered by id, continuing after
+	 * the credit card with the given id.
+	 *
+	 * @param id       The id of the last credit card already read.
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of CreditCardEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true, '_id': { '$gt': ?0 } }", sort = "{ '_id': 1 }")
+	Flux<CreditCardEntity> findActivePageAfter(String id, Pageable pageable);
 
 	/**
 	 * Finds all active credit cards by document number.
@@ -69,4 +92,14 @@ public interface CreditCardRepository extends ReactiveMongoRepository<CreditCard
 	 */
 	Mono<Boolean> existsByCreditCardNumberAndIsActiveTrue(String creditCardNumber);
 
+	/**
+	 * Finds the active credit cards of a customer, reading only their numbers.
+	 *
+	 * @param documentNumber The document number to search for.
+	 * @return A Flux emitting CreditCardEntity objects with only the id and credit
+	 *         card number populated.
+	 */
+	@Query(value = "{ 'documentNumber': ?0, 'isActive': true }",
+			fields = "{ 'creditCardNumber': 1 }")
+	Flux<CreditCardEntity> findProductsByDocumentNumber(String documentNumber);
 }
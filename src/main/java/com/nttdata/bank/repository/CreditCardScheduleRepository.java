@@ -2,6 +2,7 @@ package com.nttdata.bank.repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import com.nttdata.bank.entity.CreditCardScheduleEntity;
 import reactor.core.publisher.Flux;
@@ -45,13 +46,24 @@ public interface CreditCardScheduleRepository extends ReactiveMongoRepository<Cr
 	 */
 	Mono<CreditCardScheduleEntity> findByCreditCardNumberAndPaymentDate(String creditCardNumber, LocalDate paymentDate);
 
+	/**
+	 * Finds pending payments for a specific credit card that are due before the
+	 * specified date.
+	 *
+	 * @param creditCardNumber The credit card number to search for.
+	 * @param paymentDate      The payment date to search for.
+	 * @return A Flux emitting the pending CreditCardScheduleEntity objects.
+	 */
+	Flux<CreditCardScheduleEntity> findByCreditCardNumberAndPaidFalseAndPaymentDateBefore(
+			String creditCardNumber, LocalDate paymentDate);
+
 	/**
 	 * Finds scheduled payments for a specific date.
 	 *
-	 * @param now The specific date and time to search for.
+	 * @param paymentDate The payment date to search for.
 	 * @return A Flux emitting the found CreditCardScheduleEntity objects.
 	 */
-	Flux<CreditCardScheduleEntity> findByPaymentDate(LocalDateTime now);
+	Flux<CreditCardScheduleEntity> findByPaymentDate(LocalDate paymentDate);
 
 	/**
 	 * Finds pending payments that are due on or before the specified date and time.
@@ -61,4 +73,19 @@ public interface CreditCardScheduleRepository extends ReactiveMongoRepository<Cr
 	 */
 	Flux<CreditCardScheduleEntity> findByPaidFalseAndPaymentDateLessThanEqual(LocalDateTime now);
 
+	/**
+	 * Streams the unpaid credit card schedules that are due on or before the
+	 * specified date ordered by credit card number and payment date, reading only
+	 * the fields needed to accrue late interest.
+	 *
+	 * @param now The date and time to search for.
+	 * @return A Flux emitting the overdue CreditCardScheduleEntity objects grouped
+	 *         by credit card.
+	 */
+	@Query(value = "{ 'paid': false, 'creditCardNumber': { '$ne': null }, 'paymentDate': { '$lte': ?0 } }",
+			fields = "{ 'creditCardNumber': 1, 'paymentDate': 1, 'interestAmount': 1, 'lateAmount': 1,"
+					+ " 'principalAmount': 1, 'currentDebt': 1 }",
+			sort = "{ 'creditCardNumber': 1, 'paymentDate': 1 }")
+	Flux<CreditCardScheduleEntity> findOverdueOrderByCreditCardNumberAndPaymentDate(LocalDateTime now);
+
 }
@@ -1,5 +1,8 @@
 package com.nttdata.bank.repository;
 
+import java.util.Collection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import com.nttdata.bank.entity.CreditEntity;
 import reactor.core.publisher.Flux;
@@ -36,6 +39,26 @@ public interface CreditRepository extends ReactiveMongoRepository<CreditEntity,
 	 */
 	Flux<CreditEntity> findByIsActiveTrue();
 
+	/**
+	 * Finds the first page of active credits, ordered by id.
+	 *
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of CreditEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true }", sort = "{ '_id': 1 }")
+	Flux<CreditEntity> findActivePage(Pageable pageable);
+
+	/**
+	 * Finds the next page of active credits, ordered by id, continuing after
+	 * the credit with the given id.
+	 *
+	 * @param id       The id of the last credit already read.
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of CreditEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true, '_id': { '$gt': ?0 } }", sort = "{ '_id': 1 }")
+	Flux<CreditEntity> findActivePageAfter(String id, Pageable pageable);
+
 	/**
 	 * Checks if an active credit exists by credit ID.
 	 *
@@ -52,6 +75,14 @@ public interface CreditRepository extends ReactiveMongoRepository<CreditEntity,
 	 */
 	Mono<CreditEntity> findByIdAndIsActiveTrue(String creditId);
 
+	/**
+	 * Finds the active credits with any of the given IDs.
+	 *
+	 * @param creditIds The credit IDs to search for.
+	 * @return A Flux emitting the active CreditEntity objects.
+	 */
+	Flux<CreditEntity> findByIdInAndIsActiveTrue(Collection<String> creditIds);
+
 	/**
 	 * Finds all active credits by document number.
 	 *
@@ -59,4 +90,13 @@ public interface CreditRepository extends ReactiveMongoRepository<CreditEntity,
 	 * @return A Flux emitting active CreditEntity objects.
 	 */
 	Flux<CreditEntity> findAllByDocumentNumberAndIsActiveTrue(String documentNumber);
+
+	/**
+	 * Finds the active credits of a customer, reading only their ids.
+	 *
+	 * @param documentNumber The document number to search for.
+	 * @return A Flux emitting CreditEntity objects with only the id populated.
+	 */
+	@Query(value = "{ 'documentNumber': ?0, 'isActive': true }", fields = "{ '_id': 1 }")
+	Flux<CreditEntity> findProductsByDocumentNumber(String documentNumber);
 }
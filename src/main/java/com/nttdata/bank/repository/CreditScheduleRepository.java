@@ -1,6 +1,7 @@
 package com.nttdata.bank.repository;
 
 import java.time.LocalDateTime;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import com.nttdata.bank.entity.CreditScheduleEntity;
 import reactor.core.publisher.Flux;
@@ -37,6 +38,15 @@ public interface CreditScheduleRepository extends ReactiveMongoRepository<Credit
 	Flux<CreditScheduleEntity> findByCreditIdAndPaidFalseAndPaymentDateAfter(String creditId,
 			LocalDateTime paymentDate);
 
+	/**
+	 * Finds the unpaid payment schedules of a credit ordered by payment date.
+	 *
+	 * @param creditId The credit ID to search for.
+	 * @return A Flux emitting the unpaid CreditScheduleEntity objects, oldest
+	 *         first.
+	 */
+	Flux<CreditScheduleEntity> findByCreditIdAndPaidFalseOrderByPaymentDateAsc(String creditId);
+
 	/**
 	 * Finds unpaid payment schedules that are due on or before the specified date.
 	 *
@@ -52,6 +62,19 @@ public interface CreditScheduleRepository extends ReactiveMongoRepository<Credit
 	 * @return A Mono emitting true if an unpaid payment schedule exists, false
 	 *         otherwise.
 	 */
-	Mono<Boolean> existsByIdAndPaidFalse(String creditId);
+	Mono<Boolean> existsByCreditIdAndPaidFalse(String creditId);
+
+	/**
+	 * Streams every unpaid credit schedule ordered by credit ID and payment date,
+	 * reading only the fields needed to accrue late interest.
+	 *
+	 * @return A Flux emitting the unpaid CreditScheduleEntity objects grouped by
+	 *         credit.
+	 */
+	@Query(value = "{ 'paid': false, 'creditId': { '$ne': null } }",
+			fields = "{ 'creditId': 1, 'paymentDate': 1, 'interestAmount': 1, 'lateAmount': 1,"
+					+ " 'principalAmount': 1, 'currentDebt': 1 }",
+			sort = "{ 'creditId': 1, 'paymentDate': 1 }")
+	Flux<CreditScheduleEntity> findUnpaidOrderByCreditIdAndPaymentDate();
 
 }
@@ -1,5 +1,7 @@
 package com.nttdata.bank.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 import com.nttdata.bank.entity.CustomerEntity;
@@ -41,6 +43,18 @@ public interface CustomerRepository extends ReactiveMongoRepository<CustomerEnti
 	 */
 	Mono<CustomerEntity> findByDocumentNumberAndIsActiveTrue(String documentNumber);
 
+	/**
+	 * Finds the name fields of an active customer by document number. Only the
+	 * full name, company name and person type are read.
+	 *
+	 * @param documentNumber The document number to search for.
+	 * @return A Mono emitting the active CustomerEntity object with only its name
+	 *         fields set.
+	 */
+	@Query(value = "{ 'documentNumber': ?0, 'isActive': true }",
+			fields = "{ 'fullName': 1, 'companyName': 1, 'personType': 1 }")
+	Mono<CustomerEntity> findNameByDocumentNumber(String documentNumber);
+
 	/**
 	 * Finds all active customers.
 	 *
@@ -48,4 +62,24 @@ public interface CustomerRepository extends ReactiveMongoRepository<CustomerEnti
 	 */
 	Flux<CustomerEntity> findByIsActiveTrue();
 
+	/**
+	 * Finds the first page of active customers, ordered by id.
+	 *
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of CustomerEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true }", sort = "{ '_id': 1 }")
+	Flux<CustomerEntity> findActivePage(Pageable pageable);
+
+	/**
+	 * Finds the next page of active customers, ordered by id, continuing after
+	 * the customer with the given id.
+	 *
+	 * @param id       The id of the last customer already read.
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of CustomerEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true, '_id': { '$gt': ?0 } }", sort = "{ '_id': 1 }")
+	Flux<CustomerEntity> findActivePageAfter(String id, Pageable pageable);
+
 }
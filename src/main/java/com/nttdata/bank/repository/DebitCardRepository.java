@@ -1,5 +1,7 @@
 package com.nttdata.bank.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import com.nttdata.bank.entity.DebitCardEntity;
 import reactor.core.publisher.Flux;
@@ -27,6 +29,26 @@ public interface DebitCardRepository extends ReactiveMongoRepository<DebitCardEn
 	 */
 	Flux<DebitCardEntity> findByIsActiveTrue();
 
+	/**
+	 * Finds the first page of active debit cards, ordered by id.
+	 *
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of DebitCardEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true }", sort = "{ '_id': 1 }")
+	Flux<DebitCardEntity> findActivePage(Pageable pageable);
+
+	/**
+	 * Finds the next page of active debit cards, ordered by id, continuing after
+	 * the debit card with the given id.
+	 *
+	 * @param id       The id of the last debit card already read.
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of DebitCardEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true, '_id': { '$gt': ?0 } }", sort = "{ '_id': 1 }")
+	Flux<DebitCardEntity> findActivePageAfter(String id, Pageable pageable);
+
 	/**
 	 * Finds an active debit card by debit card number.
 	 *
@@ -42,12 +64,4 @@ public interface DebitCardRepository extends ReactiveMongoRepository<DebitCardEn
 	 * @return A Mono emitting true if an active debit card exists, false otherwise.
 	 */
 	Mono<Boolean> existsByPrimaryAccountAndIsActiveTrue(String primaryAccount);
-
-	/**
-	 * Checks if a debit card exists by its debit card number.
-	 *
-	 * @param debitCardNumber The debit card number to search for.
-	 * @return A Mono emitting a boolean indicating if the debit card exists.
-	 */
-	Mono<Boolean> existsByDebitCardNumber(String debitCardNumber);
 }
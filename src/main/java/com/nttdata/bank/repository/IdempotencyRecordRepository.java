@@ -0,0 +1,13 @@
+package com.nttdata.bank.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import com.nttdata.bank.entity.IdempotencyRecordEntity;
+
+/**
+ * IdempotencyRecordRepository provides CRUD operations for
+ * IdempotencyRecordEntity. This interface extends ReactiveMongoRepository; the
+ * records are only read and written by their id.
+ */
+public interface IdempotencyRecordRepository extends ReactiveMongoRepository<IdempotencyRecordEntity, String> {
+
+}
@@ -0,0 +1,52 @@
+package com.nttdata.bank.repository;
+
+import java.time.LocalDateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import com.nttdata.bank.entity.JournalEntryEntity;
+import reactor.core.publisher.Flux;
+
+/**
+ * JournalEntryRepository provides CRUD operations for JournalEntryEntity. This
+ * interface extends ReactiveMongoRepository and defines the queries used by the
+ * ledger applier and its recovery.
+ */
+public interface JournalEntryRepository extends ReactiveMongoRepository<JournalEntryEntity, String> {
+
+	/**
+	 * Finds the oldest entries in the given status whose debit legs are applied
+	 * and whose credit legs have been attempted fewer than the given times.
+	 *
+	 * @param status      The status of the entries.
+	 * @param maxAttempts The number of attempts after which an entry is left for
+	 *                    manual review.
+	 * @param pageable    The page size of the result.
+	 * @return A Flux emitting at most one page of JournalEntryEntity objects.
+	 */
+	@Query(value = "{ 'status': ?0, 'debitsApplied': true, 'attempts': { '$lt': ?1 } }",
+			sort = "{ 'createDate': 1 }")
+	Flux<JournalEntryEntity> findApplicableEntries(String status, Integer maxAttempts, Pageable pageable);
+
+	/**
+	 * Finds the entries in the given status whose debit legs were never marked as
+	 * applied and that were created before the given date.
+	 *
+	 * @param status     The status of the entries.
+	 * @param createDate The date before which the entries were created.
+	 * @return A Flux emitting the stale JournalEntryEntity objects.
+	 */
+	Flux<JournalEntryEntity> findByStatusAndDebitsAppliedFalseAndCreateDateBefore(String status,
+			LocalDateTime createDate);
+
+	/**
+	 * Finds the oldest final entries whose tags are still held by their accounts
+	 * and that were closed before the given date.
+	 *
+	 * @param closeDate The date before which the entries were closed.
+	 * @param pageable  The page size of the result.
+	 * @return A Flux emitting at most one page of JournalEntryEntity objects.
+	 */
+	@Query(value = "{ 'tagsReleased': false, 'closeDate': { '$lt': ?0 } }", sort = "{ 'closeDate': 1 }")
+	Flux<JournalEntryEntity> findUnreleasedEntries(LocalDateTime closeDate, Pageable pageable);
+}
@@ -1,5 +1,9 @@
 package com.nttdata.bank.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import com.nttdata.bank.entity.TransactionEntity;
 import reactor.core.publisher.Flux;
@@ -19,10 +23,72 @@ public interface TransactionRepository extends ReactiveMongoRepository<Transacti
 	 */
 	Mono<TransactionEntity> findFirstByOrderByOperationNumberDesc();
 
+	/**
+	 * Checks if a transaction with the given operation number was recorded.
+	 *
+	 * @param operationNumber The operation number to check.
+	 * @return A Mono emitting true if the transaction exists.
+	 */
+	Mono<Boolean> existsByOperationNumber(String operationNumber);
+
 	/**
 	 * Finds all active transactions involving.
 	 * 
 	 * @return A Flux emitting active TransactionEntity.
 	 */
 	Flux<TransactionEntity> findAllByIsActiveTrue();
+
+	/**
+	 * Finds all active transactions of the given types.
+	 *
+	 * @param transactionTypes The transaction types to search for.
+	 * @return A Flux emitting the active TransactionEntity objects of those types.
+	 */
+	Flux<TransactionEntity> findByTransactionTypeInAndIsActiveTrue(List<String> transactionTypes);
+
+	/**
+	 * Finds the newest active transactions that received into or withdrew from
+	 * any of the given accounts, ordered by creation date and id descending. Each
+	 * side of the $or is served by its account/createDate index and the server
+	 * merges both ordered streams.
+	 *
+	 * @param accountNumbers The account numbers to search for.
+	 * @param pageable       The page size of the result.
+	 * @return A Flux emitting at most one page of TransactionEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true, '$or': [ { 'accountNumberReceive': { '$in': ?0 } },"
+			+ " { 'accountNumberWithdraws': { '$in': ?0 } } ] }",
+			sort = "{ 'createDate': -1, '_id': -1 }")
+	Flux<TransactionEntity> findRecentByAccountNumbers(List<String> accountNumbers,
+			Pageable pageable);
+
+	/**
+	 * Finds the next page of the newest active transactions of the given accounts,
+	 * continuing after the transaction identified by the (createDate, id) keyset.
+	 *
+	 * @param accountNumbers The account numbers to search for.
+	 * @param createDate     The creation date of the last transaction already read.
+	 * @param id             The id of the last transaction already read.
+	 * @param pageable       The page size of the result.
+	 * @return A Flux emitting at most one page of TransactionEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true, '$and': ["
+			+ " { '$or': [ { 'accountNumberReceive': { '$in': ?0 } },"
+			+ " { 'accountNumberWithdraws': { '$in': ?0 } } ] },"
+			+ " { '$or': [ { 'createDate': { '$lt': ?1 } },"
+			+ " { 'createDate': ?1, '_id': { '$lt': ?2 } } ] } ] }",
+			sort = "{ 'createDate': -1, '_id': -1 }")
+	Flux<TransactionEntity> findRecentByAccountNumbersBefore(List<String> accountNumbers,
+			LocalDateTime createDate, String id, Pageable pageable);
+
+	/**
+	 * Finds the active transactions created in the half-open range [from, to),
+	 * served by the createDate index.
+	 *
+	 * @param from The first instant of the range, inclusive.
+	 * @param to   The end of the range, exclusive.
+	 * @return A Flux emitting the active TransactionEntity objects of the range.
+	 */
+	@Query("{ 'isActive': true, 'createDate': { '$gte': ?0, '$lt': ?1 } }")
+	Flux<TransactionEntity> findActiveByCreateDateRange(LocalDateTime from, LocalDateTime to);
 }
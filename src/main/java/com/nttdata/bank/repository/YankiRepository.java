@@ -1,5 +1,8 @@
 package com.nttdata.bank.repository;
 
+import java.time.LocalDateTime;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import com.nttdata.bank.entity.YankiEntity;
 import reactor.core.publisher.Flux;
@@ -45,4 +48,48 @@ public interface YankiRepository extends ReactiveMongoRepository<YankiEntity, St
 	 * @return A Flux emitting all active YankiEntity objects.
 	 */
 	Flux<YankiEntity> findAllByIsActiveTrue();
+
+	/**
+	 * Finds the first page of active Yanki entities, ordered by id.
+	 *
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of YankiEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true }", sort = "{ '_id': 1 }")
+	Flux<YankiEntity> findActivePage(Pageable pageable);
+
+	/**
+	 * Finds the next page of active Yanki entities, ordered by id, continuing after
+	 * the Yanki entity with the given id.
+	 *
+	 * @param id       The id of the last Yanki entity already read.
+	 * @param pageable The page size of the result.
+	 * @return A Flux emitting at most one page of YankiEntity objects.
+	 */
+	@Query(value = "{ 'isActive': true, '_id': { '$gt': ?0 } }", sort = "{ '_id': 1 }")
+	Flux<YankiEntity> findActivePageAfter(String id, Pageable pageable);
+
+	/**
+	 * Finds all active Yanki entities, reading only the fields kept by the phone
+	 * directory.
+	 *
+	 * @return A Flux emitting YankiEntity objects with only the id, phone number,
+	 *         account number and document number populated.
+	 */
+	@Query(value = "{ 'isActive': true }",
+			fields = "{ 'phoneNumber': 1, 'accountNumber': 1, 'documentNumber': 1 }")
+	Flux<YankiEntity> findDirectoryEntries();
+
+	/**
+	 * Finds the Yanki entities changed since the given date, active or not,
+	 * ordered by update date and reading only the fields kept by the phone
+	 * directory.
+	 *
+	 * @param updatedSince The date from which the changes are read.
+	 * @return A Flux emitting YankiEntity objects with only the id, phone number,
+	 *         account number, document number, status and update date populated.
+	 */
+	@Query(value = "{ 'updateDate': { '$gte': ?0 } }", sort = "{ 'updateDate': 1 }",
+			fields = "{ 'phoneNumber': 1, 'accountNumber': 1, 'documentNumber': 1, 'isActive': 1, 'updateDate': 1 }")
+	Flux<YankiEntity> findDirectoryChanges(LocalDateTime updatedSince);
 }
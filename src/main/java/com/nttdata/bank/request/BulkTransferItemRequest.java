@@ -0,0 +1,21 @@
+package com.nttdata.bank.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * BulkTransferItemRequest is a data transfer object that represents one row of
+ * a bulk transfer file: the account that receives the transfer and the amount
+ * to be transferred. The rows are validated as the file is parsed. It uses
+ * Lombok annotations for getters, setters and constructors.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkTransferItemRequest {
+
+	private String accountNumberReceive;
+	private Double amount;
+}
@@ -0,0 +1,34 @@
+package com.nttdata.bank.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * BulkTransferJobResponse is a data transfer object representing the status of
+ * a bulk transfer job. This class includes attributes such as the job id, the
+ * source account, the status, the number of rows processed, credited and
+ * failed, and the amounts debited, credited and refunded. It uses Jackson
+ * annotations for JSON inclusion and Lombok annotations for getters and
+ * setters.
+ */
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkTransferJobResponse {
+
+	private String jobId;
+	private String accountNumberWithdraws;
+	private String status;
+	private Integer totalRows;
+	private Integer processedRows;
+	private Integer creditedRows;
+	private Integer failedRows;
+	private Double totalAmount;
+	private Double creditedAmount;
+	private Double refundedAmount;
+	private List<String> errors;
+	private LocalDateTime createDate;
+	private LocalDateTime completeDate;
+}
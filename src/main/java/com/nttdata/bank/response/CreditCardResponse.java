@@ -6,7 +6,7 @@ import lombok.Data;
 /**
  * CreditCardResponse is a data transfer object that represents the response
  * payload for a credit card. This class includes attributes such as credit card
- * number, available credit, interest rates, payment day, and whether
+ * id and number, available credit, interest rates, payment day, and whether
  * consumption is allowed. It uses Jackson annotations for JSON inclusion and
  * Lombok annotations for getters and setters.
  */
@@ -15,6 +15,7 @@ import lombok.Data;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class CreditCardResponse {
 
+	private String creditCardId;
 	private String creditCardNumber;
 	private Double availableCredit;
 	private Double annualInterestRate;
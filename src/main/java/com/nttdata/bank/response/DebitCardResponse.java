@@ -6,8 +6,8 @@ import lombok.Data;
 
 /**
  * DebitCardResponse is a data transfer object representing the response payload
- * for a debit card. This class includes attributes such as debit card number,
- * associated accounts, primary account, and status details like whether the
+ * for a debit card. This class includes attributes such as debit card id and
+ * number, associated accounts, primary account, and status details like whether the
  * card is blocked or active. It uses Lombok annotations for getters and
  * setters, and Jackson annotations for JSON inclusion.
  */
@@ -16,6 +16,7 @@ import lombok.Data;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class DebitCardResponse {
 
+	private String debitCardId;
 	private String debitCardNumber;
 	private List<String> associatedAccounts;
 	private String primaryAccount;
@@ -0,0 +1,25 @@
+package com.nttdata.bank.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * NameCacheStatsResponse is a data transfer object representing the statistics
+ * of the customer display-name cache. This class includes the number of hits,
+ * misses, evictions and invalidations since startup, the current size of the
+ * cache and its hit ratio. It uses Jackson annotations for JSON inclusion and
+ * Lombok annotations for getters and setters.
+ */
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NameCacheStatsResponse {
+
+	private Long hits;
+	private Long misses;
+	private Long evictions;
+	private Long invalidations;
+	private Integer size;
+	private Double hitRatio;
+
+}
@@ -17,6 +17,7 @@ import lombok.Data;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class TransactionResponse {
 
+	private String transactionId;
 	private String operationNumber;
 	private String accountNumberWithdraws;
 	private String nameWithdraws;
@@ -5,15 +5,16 @@ import lombok.Data;
 
 /**
  * YankiResponse is a data transfer object representing the response payload for
- * a Yanki entity. This class includes attributes such as name and phone number.
- * It uses Lombok annotations for getters and setters, and Jackson annotations
- * for JSON inclusion.
+ * a Yanki entity. This class includes attributes such as id, name and phone
+ * number. It uses Lombok annotations for getters and setters, and Jackson
+ * annotations for JSON inclusion.
  */
 
 @Data
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class YankiResponse {
 
+	private String yankiId;
 	private String name;
 	private String phoneNumber;
 }
@@ -0,0 +1,21 @@
+package com.nttdata.bank.service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * AccountNumberService allocates the numbers of new accounts. The numbers are
+ * unique across every node that shares the database without querying the
+ * accounts already stored.
+ */
+public interface AccountNumberService {
+
+	/**
+	 * Allocates the next account number for an account type. The number is the
+	 * bank code, the account type code, a 9-digit body and a Luhn check digit.
+	 *
+	 * @param accountType The type of the account
+	 * @return A Mono emitting the allocated account number
+	 * @throws IllegalArgumentException if the account type is unknown
+	 */
+	Mono<String> nextAccountNumber(String accountType);
+}
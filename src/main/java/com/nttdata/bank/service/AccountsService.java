@@ -1,10 +1,14 @@
 package com.nttdata.bank.service;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import com.nttdata.bank.job.bean.InactivitySweepResult;
 import com.nttdata.bank.request.AccountRequest;
 import com.nttdata.bank.request.UpdateAccountRequest;
 import com.nttdata.bank.response.AccountResponse;
 import com.nttdata.bank.response.BalanceResponse;
+import reactor.core.publisher.Mono;
 
 /**
  * AccountsService provides the service layer for handling account-related
@@ -47,6 +51,48 @@ public interface AccountsService {
 	 */
 	AccountResponse updateAccount(UpdateAccountRequest updateAccountRequest);
 
+	/**
+	 * Atomically adds the given amount to the balance of an active account. A
+	 * negative amount is only applied when the balance covers it.
+	 *
+	 * @param accountNumber The account number
+	 * @param amount        The amount to add, negative for a debit
+	 * @return A Mono emitting the new balance of the account
+	 */
+	Mono<Double> updateBalance(String accountNumber, Double amount);
+
+	/**
+	 * Atomically adds the amount of a group of journal entries to the balance of
+	 * an active account. The entries are remembered on the account until they are
+	 * released, so applying the same entries again leaves the balance unchanged.
+	 *
+	 * @param accountNumber The account number
+	 * @param amount        The total amount of the entries, negative for a debit
+	 * @param entryIds      The ids of the journal entries
+	 * @return A Mono emitting the balance of the account
+	 */
+	Mono<Double> applyJournalEntries(String accountNumber, Double amount, List<String> entryIds);
+
+	/**
+	 * Forgets journal entries on the given accounts. An entry may only be
+	 * forgotten once it is final and can no longer be retried, since applying it
+	 * again would then change the balance.
+	 *
+	 * @param accountNumbers The account numbers
+	 * @param entryIds       The ids of the journal entries
+	 * @return A Mono that completes when the entries are forgotten
+	 */
+	Mono<Void> releaseJournalEntries(Collection<String> accountNumbers, Collection<String> entryIds);
+
+	/**
+	 * Deactivates every active account without movements since the given date.
+	 *
+	 * @param inactiveSince The date since which an account must have moved to
+	 *                      stay active
+	 * @return A Mono emitting how many accounts were scanned and deactivated
+	 */
+	Mono<InactivitySweepResult> deactivateInactiveAccounts(LocalDateTime inactiveSince);
+
 	/**
 	 * Deletes an account.
 	 *
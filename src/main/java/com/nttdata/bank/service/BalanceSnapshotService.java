@@ -0,0 +1,48 @@
+package com.nttdata.bank.service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import com.nttdata.bank.job.bean.BalanceChange;
+import reactor.core.publisher.Mono;
+
+/**
+ * BalanceSnapshotService keeps the end-of-day balance of every account, one
+ * document per account and month, updated as balance changes are applied. The
+ * time-weighted daily average balance of a month is read from a single document
+ * instead of replaying the transactions collection.
+ */
+public interface BalanceSnapshotService {
+
+	/**
+	 * Adds applied balance changes to the daily balances of their accounts.
+	 *
+	 * @param changes The changes that have been applied to the accounts
+	 * @return A Mono that completes when the daily balances have been updated
+	 */
+	Mono<Void> recordBalanceChanges(List<BalanceChange> changes);
+
+	/**
+	 * Creates the first document of a new account, so the later months open with
+	 * the closing balance of an earlier one.
+	 *
+	 * @param accountNumber The account number
+	 * @param balance       The balance of the account when it is opened
+	 * @param openDate      The date the account is opened
+	 * @return A Mono that completes when the document exists
+	 */
+	Mono<Void> openSnapshot(String accountNumber, Double balance, LocalDateTime openDate);
+
+	/**
+	 * Computes the daily average balance of several accounts in the given month.
+	 * For the current month, only the days elapsed so far are averaged.
+	 *
+	 * @param accountNumbers The account numbers
+	 * @param period         The month to average
+	 * @return A Mono emitting the average balance keyed by account number;
+	 *         accounts that do not exist are not in the map
+	 */
+	Mono<Map<String, Double>> averageDailyBalances(Collection<String> accountNumbers, YearMonth period);
+}
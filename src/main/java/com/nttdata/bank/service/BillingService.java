@@ -0,0 +1,20 @@
+package com.nttdata.bank.service;
+
+import java.time.LocalDate;
+import reactor.core.publisher.Mono;
+
+/**
+ * BillingService closes the monthly credit card schedules, spreading the
+ * installments of their consumptions over the following schedules and
+ * computing the amounts due.
+ */
+public interface BillingService {
+
+	/**
+	 * Bills every credit card schedule due on the given payment date.
+	 *
+	 * @param paymentDate The payment date of the schedules to bill
+	 * @return A Mono emitting the number of schedules billed
+	 */
+	Mono<Long> billCreditCardSchedules(LocalDate paymentDate);
+}
@@ -0,0 +1,64 @@
+package com.nttdata.bank.service;
+
+import java.time.LocalDateTime;
+import com.nttdata.bank.request.BulkTransferItemRequest;
+import com.nttdata.bank.response.BulkTransferJobResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * BulkTransferService pays many accounts from one PYME account, such as a
+ * payroll. The source account is debited once for the total of the transfer,
+ * and the credits are applied afterwards in chunks by a job whose progress can
+ * be checked. A job interrupted by a restart is resumed from its progress.
+ */
+public interface BulkTransferService {
+
+	/**
+	 * Starts a bulk transfer. The rows are stored in chunks as they are read, the
+	 * source account is debited for their total and the job that credits them is
+	 * started; the job is returned as soon as the debit is applied.
+	 *
+	 * @param accountNumberWithdraws  The PYME account that pays the transfer
+	 * @param documentNumberWithdraws The document number of the holder of the
+	 *                                account
+	 * @param rows                    The receiving accounts and amounts
+	 * @return A Mono emitting the started job
+	 * @throws IllegalArgumentException if a row is invalid, the account is not an
+	 *                                  active PYME account of the customer or its
+	 *                                  balance does not cover the total
+	 */
+	Mono<BulkTransferJobResponse> startBulkTransfer(String accountNumberWithdraws, String documentNumberWithdraws,
+			Flux<BulkTransferItemRequest> rows);
+
+	/**
+	 * Retrieves the status and progress of a bulk transfer job.
+	 *
+	 * @param jobId The id of the job
+	 * @return A Mono emitting the job
+	 * @throws IllegalArgumentException if the job does not exist
+	 */
+	Mono<BulkTransferJobResponse> getBulkTransfer(String jobId);
+
+	/**
+	 * Resumes the jobs whose progress stopped before the given date. A running
+	 * job continues crediting from its last recorded chunk. A job still
+	 * receiving its rows is resumed if its total was debited, and failed
+	 * otherwise.
+	 *
+	 * @param updatedBefore The date before which an unfinished job is stale
+	 * @return A Mono emitting the number of jobs resumed
+	 */
+	Mono<Long> resumeStaleJobs(LocalDateTime updatedBefore);
+
+	/**
+	 * Releases the jobs that finished before the given date: the tags of their
+	 * debit, credits and refunds are pulled from the accounts and their chunks
+	 * are removed. The grace period lets any node still working on a job finish
+	 * before its tags are forgotten.
+	 *
+	 * @param completedBefore The date before which a finished job can be released
+	 * @return A Mono emitting the number of jobs released
+	 */
+	Mono<Long> releaseFinishedJobs(LocalDateTime completedBefore);
+}
@@ -0,0 +1,53 @@
+package com.nttdata.bank.service;
+
+import java.util.List;
+import java.util.Map;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * CardNumberService issues the numbers of new credit and debit cards. Each card
+ * type and document number has its own counter, incremented atomically, so the
+ * numbers are unique across every node without querying the cards already
+ * stored.
+ */
+public interface CardNumberService {
+
+	/**
+	 * Issues the next card number of a customer. The number is the card type, the
+	 * bank code, the document number, a 3-digit counter and a Luhn check digit.
+	 *
+	 * @param cardType       The card type, credit or debit
+	 * @param documentNumber The document number of the customer
+	 * @return A Mono emitting the issued card number
+	 * @throws IllegalArgumentException if the card type is unknown or the document
+	 *                                  number is not numeric
+	 * @throws IllegalStateException    if the counter of the customer is exhausted
+	 */
+	Mono<String> nextCardNumber(String cardType, String documentNumber);
+
+	/**
+	 * Issues several card numbers of a customer with a single increment of the
+	 * counter.
+	 *
+	 * @param cardType       The card type, credit or debit
+	 * @param documentNumber The document number of the customer
+	 * @param count          The number of card numbers to issue
+	 * @return A Flux emitting the issued card numbers in ascending order
+	 * @throws IllegalArgumentException if the card type is unknown, the document
+	 *                                  number is not numeric or the count is not
+	 *                                  positive
+	 * @throws IllegalStateException    if the counter of the customer is exhausted
+	 */
+	Flux<String> nextCardNumbers(String cardType, String documentNumber, int count);
+
+	/**
+	 * Issues the card numbers of a renewal batch. Each distinct document number is
+	 * incremented once by the number of times it appears in the batch.
+	 *
+	 * @param cardType        The card type, credit or debit
+	 * @param documentNumbers The document numbers of the renewed cards
+	 * @return A Mono emitting the issued card numbers by document number
+	 */
+	Mono<Map<String, List<String>>> issueCardNumbers(String cardType, List<String> documentNumbers);
+}
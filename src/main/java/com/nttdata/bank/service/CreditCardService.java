@@ -8,6 +8,8 @@ import com.nttdata.bank.request.CreditCardRequest;
 import com.nttdata.bank.response.ConsumptionResponse;
 import com.nttdata.bank.response.CreditCardDebtResponse;
 import com.nttdata.bank.response.CreditCardResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * CreditCardService provides the service layer for handling credit card-related
@@ -38,12 +40,24 @@ public interface CreditCardService {
 	CreditCardDebtResponse checkDebtCreditCard(String creditCardNumber);
 
 	/**
-	 * Finds all credit cards.
+	 * Finds one page of active credit cards, ordered by id. The next page is
+	 * requested with the id of the last credit card of the current page.
 	 *
-	 * @return A list of responses containing detailed information about all credit
+	 * @param afterId The id of the last credit card read, or null for the first
+	 *                page
+	 * @param size    The page size, or null for the default of 100
+	 * @return A list of responses containing detailed information about the credit
 	 *         cards
 	 */
-	List<CreditCardResponse> findAllCreditCards();
+	List<CreditCardResponse> findAllCreditCards(String afterId, Integer size);
+
+	/**
+	 * Streams all active credit cards, reading them as they are consumed.
+	 *
+	 * @return A Flux emitting responses containing detailed information about the
+	 *         credit cards
+	 */
+	Flux<CreditCardResponse> streamAllCreditCards();
 
 	/**
 	 * Updates an existing credit card.
@@ -70,7 +84,14 @@ public interface CreditCardService {
 	 */
 	ConsumptionResponse chargeConsumption(@Valid ConsumptionRequest consumptionRequest);
 
-	CreditCardEntity updateBalance(String creditCardNumber,
+	/**
+	 * Returns an amount to the available credit of a credit card.
+	 *
+	 * @param creditCardNumber The number of the credit card
+	 * @param balanceReturned  The amount to add to the available credit
+	 * @return A Mono emitting the updated credit card
+	 */
+	Mono<CreditCardEntity> updateBalance(String creditCardNumber,
 			Double balanceReturned);
 
 }
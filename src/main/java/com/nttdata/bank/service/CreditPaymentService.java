@@ -0,0 +1,72 @@
+package com.nttdata.bank.service;
+
+import java.util.List;
+import com.nttdata.bank.util.CardPaymentWaterfall;
+import com.nttdata.bank.util.PaymentWaterfall;
+import reactor.core.publisher.Mono;
+
+/**
+ * CreditPaymentService persists the allocation of a credit or credit card
+ * payment to the schedules.
+ */
+public interface CreditPaymentService {
+
+	/**
+	 * Applies the changes of a payment to the credit schedules with a single bulk
+	 * write. The payment fails, leaving the schedules as they were, if a schedule
+	 * changed since it was read.
+	 *
+	 * @param paymentId The operation number of the payment
+	 * @param deltas    The changes of the schedules the payment reaches
+	 * @return A Mono emitting the number of schedules updated
+	 * @throws IllegalStateException if a schedule changed since it was read
+	 */
+	Mono<Long> applyPayment(String paymentId, List<PaymentWaterfall.Delta> deltas);
+
+	/**
+	 * Restores the credit schedules updated by a payment.
+	 *
+	 * @param paymentId The operation number of the payment
+	 * @param deltas    The changes of the schedules the payment reaches
+	 * @return A Mono that completes when the schedules are restored
+	 */
+	Mono<Void> reversePayment(String paymentId, List<PaymentWaterfall.Delta> deltas);
+
+	/**
+	 * Applies the allocation of a credit card payment to the card schedules with a
+	 * single bulk write, then returns the credit released to the available credit
+	 * of the card. The payment fails, leaving the card and its schedules as they
+	 * were, if a schedule changed since it was read.
+	 *
+	 * @param paymentId        The operation number of the payment
+	 * @param creditCardNumber The number of the credit card
+	 * @param allocation       The allocation of the payment
+	 * @return A Mono emitting the credit released
+	 * @throws IllegalArgumentException if the credit card does not exist
+	 * @throws IllegalStateException    if a schedule changed since it was read
+	 */
+	Mono<Double> applyCardPayment(String paymentId, String creditCardNumber,
+			CardPaymentWaterfall.Allocation allocation);
+
+	/**
+	 * Restores the card schedules and the available credit updated by a credit
+	 * card payment.
+	 *
+	 * @param paymentId        The operation number of the payment
+	 * @param creditCardNumber The number of the credit card
+	 * @param allocation       The allocation of the payment
+	 * @return A Mono that completes when the card and its schedules are restored
+	 */
+	Mono<Void> reverseCardPayment(String paymentId, String creditCardNumber,
+			CardPaymentWaterfall.Allocation allocation);
+
+	/**
+	 * Forgets a completed credit card payment on its card, once it can no longer
+	 * be reversed.
+	 *
+	 * @param paymentId        The operation number of the payment
+	 * @param creditCardNumber The number of the credit card
+	 * @return A Mono that completes when the payment is forgotten
+	 */
+	Mono<Void> completeCardPayment(String paymentId, String creditCardNumber);
+}
@@ -4,6 +4,8 @@ import java.util.List;
 import com.nttdata.bank.request.CreditRequest;
 import com.nttdata.bank.response.CreditResponse;
 import com.nttdata.bank.response.CreditDebtResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * CreditService provides the service layer for handling credit-related
@@ -32,16 +34,27 @@ public interface CreditService {
 	CreditDebtResponse checkDebtCredit(String creditId);
 
 	/**
-	 * Finds all credits.
+	 * Finds one page of active credits, ordered by id. The next page is
+	 * requested with the id of the last credit of the current page.
 	 *
-	 * @return A list of responses containing detailed information about all credits
+	 * @param afterId The id of the last credit read, or null for the first page
+	 * @param size    The page size, or null for the default of 100
+	 * @return A list of responses containing detailed information about the credits
 	 */
-	List<CreditResponse> findAllCredits();
+	List<CreditResponse> findAllCredits(String afterId, Integer size);
+
+	/**
+	 * Streams all active credits, reading them as they are consumed.
+	 *
+	 * @return A Flux emitting responses containing detailed information about the credits
+	 */
+	Flux<CreditResponse> streamAllCredits();
 
 	/**
 	 * Deactivates a credit.
 	 *
 	 * @param creditId The ID of the credit to deactivate
+	 * @return A Mono that completes once the credit has been deactivated
 	 */
-	void desactivateCredit(String creditId);
+	Mono<Void> desactivateCredit(String creditId);
 }
@@ -0,0 +1,35 @@
+package com.nttdata.bank.service;
+
+import com.nttdata.bank.response.NameCacheStatsResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * CustomerNameService resolves the name shown on transactions for a customer,
+ * keeping the names recently resolved in a bounded cache.
+ */
+public interface CustomerNameService {
+
+	/**
+	 * Retrieves the display name of an active customer: the full name if the
+	 * person type is personal, or the company name otherwise.
+	 *
+	 * @param documentNumber The document number of the customer
+	 * @return A Mono emitting the display name of the customer
+	 * @throws IllegalArgumentException if the customer does not exist
+	 */
+	Mono<String> getName(String documentNumber);
+
+	/**
+	 * Removes the cached name of a customer, so the next lookup reads it again.
+	 *
+	 * @param documentNumber The document number of the customer
+	 */
+	void invalidate(String documentNumber);
+
+	/**
+	 * Retrieves the statistics of the name cache.
+	 *
+	 * @return The hits, misses, evictions and hit ratio of the cache
+	 */
+	NameCacheStatsResponse getStats();
+}
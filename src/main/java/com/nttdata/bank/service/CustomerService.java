@@ -4,6 +4,7 @@ import java.util.List;
 import com.nttdata.bank.request.ContactDataRequest;
 import com.nttdata.bank.request.CustomerRequest;
 import com.nttdata.bank.response.CustomerResponse;
+import reactor.core.publisher.Flux;
 
 /**
  * CustomerService provides the service layer for handling customer-related
@@ -31,11 +32,22 @@ public interface CustomerService {
 	CustomerResponse getCustomerByDocumentNumber(String documentNumber);
 
 	/**
-	 * Finds all customers.
+	 * Finds one page of active customers, ordered by id. The next page is
+	 * requested with the id of the last customer of the current page.
 	 *
+	 * @param afterId The id of the last customer read, or null for the first
+	 *                page
+	 * @param size    The page size, or null for the default of 100
 	 * @return A list of responses containing customer details
 	 */
-	List<CustomerResponse> findAllCustomers();
+	List<CustomerResponse> findAllCustomers(String afterId, Integer size);
+
+	/**
+	 * Streams all active customers, reading them as they are consumed.
+	 *
+	 * @return A Flux emitting responses containing customer details
+	 */
+	Flux<CustomerResponse> streamAllCustomers();
 
 	/**
 	 * Updates an existing customer.
@@ -4,6 +4,7 @@ import java.util.List;
 import com.nttdata.bank.request.AssociateAccountRequest;
 import com.nttdata.bank.request.DebitCardRequest;
 import com.nttdata.bank.response.DebitCardResponse;
+import reactor.core.publisher.Flux;
 
 /**
  * DebitCardService is the interface that provides methods for handling debit
@@ -23,11 +24,23 @@ public interface DebitCardService {
 	DebitCardResponse createDebitCard(DebitCardRequest debitCardRequest);
 
 	/**
-	 * Retrieves all debit cards.
+	 * Retrieves one page of active debit cards, ordered by id. The next page is
+	 * requested with the id of the last debit card of the current page.
 	 *
-	 * @return List of DebitCardResponse containing details of all debit cards
+	 * @param afterId The id of the last debit card read, or null for the first
+	 *                page
+	 * @param size    The page size, or null for the default of 100
+	 * @return List of DebitCardResponse containing details of the debit cards
 	 */
-	List<DebitCardResponse> findAllDebitCard();
+	List<DebitCardResponse> findAllDebitCard(String afterId, Integer size);
+
+	/**
+	 * Streams all active debit cards, reading them as they are consumed.
+	 *
+	 * @return A Flux emitting DebitCardResponse objects containing details of the
+	 *         debit cards
+	 */
+	Flux<DebitCardResponse> streamAllDebitCard();
 
 	/**
 	 * Associates an account with a debit card based on the provided request.
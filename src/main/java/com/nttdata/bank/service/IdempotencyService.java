@@ -0,0 +1,32 @@
+package com.nttdata.bank.service;
+
+import java.util.function.Supplier;
+import com.nttdata.bank.response.TransactionResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * IdempotencyService runs write operations at most once per idempotency key,
+ * replaying the stored response to the requests that repeat the key. A key is
+ * scoped to the operation and the authenticated principal, and bound to the
+ * request body it was first sent with.
+ */
+public interface IdempotencyService {
+
+	/**
+	 * Executes an operation under an idempotency key. The first request with the
+	 * key runs the operation; the repeated requests wait for it if it is still
+	 * running and receive its response once it completed. A request that repeats
+	 * the key with another body fails with a 422 ResponseStatusException. A
+	 * request without key always runs the operation.
+	 *
+	 * @param operation      The name of the operation the key is scoped to
+	 * @param principal      The name of the authenticated principal the key is
+	 *                       scoped to
+	 * @param idempotencyKey The idempotency key sent by the client, may be null
+	 * @param request        The request body the key is bound to
+	 * @param action         The operation to run
+	 * @return A Mono emitting the response of the operation
+	 */
+	Mono<TransactionResponse> execute(String operation, String principal, String idempotencyKey,
+			Object request, Supplier<Mono<TransactionResponse>> action);
+}
@@ -0,0 +1,27 @@
+package com.nttdata.bank.service;
+
+import java.time.LocalDateTime;
+import reactor.core.publisher.Mono;
+
+/**
+ * LateInterestService accrues the daily late interest of overdue credit and
+ * credit card payment schedules.
+ */
+public interface LateInterestService {
+
+	/**
+	 * Accrues one day of late interest on every overdue credit schedule.
+	 *
+	 * @param now The date and time the accrual runs at
+	 * @return A Mono emitting the number of schedules updated
+	 */
+	Mono<Long> accrueCreditSchedules(LocalDateTime now);
+
+	/**
+	 * Accrues one day of late interest on every overdue credit card schedule.
+	 *
+	 * @param now The date and time the accrual runs at
+	 * @return A Mono emitting the number of schedules updated
+	 */
+	Mono<Long> accrueCreditCardSchedules(LocalDateTime now);
+}
@@ -0,0 +1,59 @@
+package com.nttdata.bank.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import com.nttdata.bank.entity.JournalLeg;
+import com.nttdata.bank.entity.TransactionEntity;
+import reactor.core.publisher.Mono;
+
+/**
+ * LedgerService posts multi-leg operations as single journal entries and
+ * applies them to the account balances exactly once.
+ */
+public interface LedgerService {
+
+	/**
+	 * Posts an operation. The journal entry with all of its legs is written
+	 * first, then the debit legs are applied and the transaction is recorded. The
+	 * credit legs are applied later by {@link #applyPendingEntries()}.
+	 *
+	 * @param operationNumber The operation number of the entry
+	 * @param legs            The debit and credit legs of the operation
+	 * @param transaction     The recording of the operation's transaction,
+	 *                        subscribed once the debits are applied
+	 * @return A Mono emitting the recorded transaction
+	 */
+	Mono<TransactionEntity> post(String operationNumber, List<JournalLeg> legs,
+			Mono<TransactionEntity> transaction);
+
+	/**
+	 * Applies the credit legs of a batch of pending entries, grouping the legs of
+	 * every account into a single balance change. An entry whose credit fails on
+	 * its last attempt, for example because the receiving account was closed, is
+	 * refunded and rejected.
+	 *
+	 * @return A Mono emitting the number of entries applied
+	 */
+	Mono<Long> applyPendingEntries();
+
+	/**
+	 * Resolves the entries whose posting stopped before their debit legs were
+	 * marked as applied. Entries whose debits reached every account and whose
+	 * transaction was recorded are completed, the others are reversed and
+	 * rejected.
+	 *
+	 * @param createdBefore The date before which an unfinished posting is stale
+	 * @return A Mono emitting the number of entries resolved
+	 */
+	Mono<Long> recoverStaleEntries(LocalDateTime createdBefore);
+
+	/**
+	 * Pulls the tags of a batch of entries closed before the given date from their
+	 * accounts. A closed entry is never applied again, and the grace period lets
+	 * any attempt that read it while it was pending finish first.
+	 *
+	 * @param closedBefore The date before which a closed entry can be released
+	 * @return A Mono emitting the number of entries released
+	 */
+	Mono<Long> releaseClosedEntries(LocalDateTime closedBefore);
+}
@@ -0,0 +1,51 @@
+package com.nttdata.bank.service;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
+import com.nttdata.bank.entity.TransactionEntity;
+import reactor.core.publisher.Mono;
+
+/**
+ * MovementCounterService keeps a per-account, per-month count of deposits and
+ * withdrawals, so the monthly movement limit can be checked with a single keyed
+ * lookup instead of scanning the transactions collection.
+ */
+public interface MovementCounterService {
+
+	/**
+	 * Registers a written transaction in the counter of its account and month.
+	 * Transactions that are not deposits or withdrawals are ignored.
+	 *
+	 * @param transactionEntity The transaction that has been written
+	 * @return A Mono that completes when the counter has been incremented
+	 */
+	Mono<Void> registerMovement(TransactionEntity transactionEntity);
+
+	/**
+	 * Counts the deposits and withdrawals of an account in the given month.
+	 *
+	 * @param accountNumber The account number
+	 * @param period        The month to count
+	 * @return A Mono emitting the number of movements, zero when there are none
+	 */
+	Mono<Long> countMovements(String accountNumber, YearMonth period);
+
+	/**
+	 * Counts the deposits and withdrawals of several accounts in the given month
+	 * with a single lookup.
+	 *
+	 * @param accountNumbers The account numbers
+	 * @param period         The month to count
+	 * @return A Mono emitting the number of movements keyed by account number;
+	 *         accounts without movements are not in the map
+	 */
+	Mono<Map<String, Long>> countMovementsByAccount(Collection<String> accountNumbers, YearMonth period);
+
+	/**
+	 * Recomputes every counter from the transactions collection.
+	 *
+	 * @return A Mono emitting the number of counters written
+	 */
+	Mono<Long> rebuildCounters();
+}
@@ -1,15 +1,14 @@
 package com.nttdata.bank.service;
 
-import java.util.List;
-import org.springframework.web.bind.annotation.PathVariable;
+import java.time.LocalDateTime;
 import com.nttdata.bank.request.AccountTransferRequest;
 import com.nttdata.bank.request.DepositRequest;
 import com.nttdata.bank.request.MobileTransferRequest;
 import com.nttdata.bank.request.PayCreditCardRequest;
 import com.nttdata.bank.request.PayCreditRequest;
 import com.nttdata.bank.request.WithdrawalRequest;
-import com.nttdata.bank.response.ProductResponse;
 import com.nttdata.bank.response.TransactionResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -80,18 +79,19 @@ public interface OperationService {
 	Mono<TransactionResponse> payCredit(PayCreditRequest payCreditRequest);
 
 	/**
-	 * Retrieves transactions for a customer based on their document number.
+	 * Retrieves the newest transactions for a customer based on their document
+	 * number. Pages after the first one are requested with the transaction date
+	 * and transaction id of the last transaction already received.
 	 *
 	 * @param documentNumber The document number of the customer
-	 * @return A list of TransactionResponse containing details of the transactions
+	 * @param beforeDate     The transaction date of the last transaction read, or
+	 *                       null for the first page
+	 * @param beforeId       The transaction id of the last transaction read, or
+	 *                       null for the first page
+	 * @param size           The maximum number of transactions to return, or null
+	 *                       for the default page size
+	 * @return A Flux of TransactionResponse containing details of the transactions
 	 */
-	List<TransactionResponse> checkTransactions(String documentNumber);
-
-	/**
-	 * Retrieves products for a customer based on their document number.
-	 *
-	 * @param documentNumber The document number of the customer
-	 * @return A list of ProductResponse containing details of the products
-	 */
-	List<ProductResponse> getProducts(@PathVariable String documentNumber);
+	Flux<TransactionResponse> checkTransactions(String documentNumber, LocalDateTime beforeDate,
+			String beforeId, Integer size);
 }
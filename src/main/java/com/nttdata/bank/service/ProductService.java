@@ -0,0 +1,21 @@
+package com.nttdata.bank.service;
+
+import com.nttdata.bank.response.ProductResponse;
+import reactor.core.publisher.Flux;
+
+/**
+ * ProductService aggregates the products a customer holds in the bank: credits,
+ * credit cards and accounts.
+ */
+public interface ProductService {
+
+	/**
+	 * Retrieves the products of a customer based on their document number. The
+	 * credits, credit cards and accounts are looked up concurrently and emitted as
+	 * soon as each lookup returns them.
+	 *
+	 * @param documentNumber The document number of the customer
+	 * @return A Flux of ProductResponse containing details of the products
+	 */
+	Flux<ProductResponse> getProducts(String documentNumber);
+}
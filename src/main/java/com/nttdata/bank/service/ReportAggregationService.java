@@ -0,0 +1,23 @@
+package com.nttdata.bank.service;
+
+import java.time.LocalDateTime;
+import com.nttdata.bank.job.bean.ProductBalance;
+import reactor.core.publisher.Flux;
+
+/**
+ * ReportAggregationService computes the per-product figures shown in the
+ * periodic reports from a single pass over the ledger.
+ */
+public interface ReportAggregationService {
+
+	/**
+	 * Summarizes every active credit, credit card and account over the
+	 * transactions created in the half-open range [from, to).
+	 *
+	 * @param from The first instant of the period, inclusive
+	 * @param to   The end of the period, exclusive
+	 * @return A Flux of ProductBalance with the balances, averages and
+	 *         commissions of each product
+	 */
+	Flux<ProductBalance> summarizeProducts(LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,29 @@
+package com.nttdata.bank.service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+import com.nttdata.bank.job.bean.ProductBalance;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ReportWriterService writes the periodic product reports as PDF files in the
+ * configured report directory.
+ */
+public interface ReportWriterService {
+
+	/**
+	 * Writes a report with one block of lines per product. Products are written
+	 * as they arrive, and the report only appears under its final name once it
+	 * has been written completely.
+	 *
+	 * @param fileName      The name of the report file inside the report directory
+	 * @param title         The title printed at the top of the report
+	 * @param products      The products to write
+	 * @param lineFormatter The function that renders the lines of a product
+	 * @return A Mono emitting the path of the written report
+	 */
+	Mono<Path> writeReport(String fileName, String title, Flux<ProductBalance> products,
+			Function<ProductBalance, List<String>> lineFormatter);
+}
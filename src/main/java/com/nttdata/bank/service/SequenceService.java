@@ -0,0 +1,35 @@
+package com.nttdata.bank.service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * SequenceService provides unique, monotonically increasing numbers backed by a
+ * counter document per sequence name. Numbers are unique across every node that
+ * shares the database.
+ */
+public interface SequenceService {
+
+	/**
+	 * Returns the next value of the sequence. Values are served from a block
+	 * leased in memory and a new block is only leased from the database when the
+	 * current one is exhausted.
+	 *
+	 * @param sequenceName The name of the sequence
+	 * @param initialValue The value to seed the counter with when it does not
+	 *                     exist yet
+	 * @return A Mono emitting the next value of the sequence
+	 */
+	Mono<Long> nextValue(String sequenceName, Mono<Long> initialValue);
+
+	/**
+	 * Atomically increments the counter of the sequence and returns the new
+	 * value. The range (newValue - delta, newValue] belongs to the caller.
+	 *
+	 * @param sequenceName The name of the sequence
+	 * @param delta        The amount to add to the counter
+	 * @param initialValue The value to seed the counter with when it does not
+	 *                     exist yet
+	 * @return A Mono emitting the value of the counter after the increment
+	 */
+	Mono<Long> increment(String sequenceName, long delta, Mono<Long> initialValue);
+}
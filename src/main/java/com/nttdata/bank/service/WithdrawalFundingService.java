@@ -0,0 +1,25 @@
+package com.nttdata.bank.service;
+
+import com.nttdata.bank.entity.DebitCardEntity;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+/**
+ * WithdrawalFundingService chooses and debits the account that funds a debit
+ * card withdrawal among the accounts linked to the card.
+ */
+public interface WithdrawalFundingService {
+
+	/**
+	 * Debits the withdrawal and its commission from the first account of the
+	 * debit card, in card order, whose balance covers them: the primary account
+	 * first, then the associated accounts.
+	 *
+	 * @param debitCardEntity The debit card used for the withdrawal
+	 * @param amount          The amount to withdraw
+	 * @return A Mono emitting the number of the debited account and the
+	 *         commission charged to it
+	 * @throws IllegalArgumentException if none of the accounts has enough balance
+	 */
+	Mono<Tuple2<String, Double>> debitFundingAccount(DebitCardEntity debitCardEntity, Double amount);
+}
@@ -0,0 +1,52 @@
+package com.nttdata.bank.service;
+
+import com.nttdata.bank.entity.YankiEntity;
+import reactor.core.publisher.Mono;
+
+/**
+ * YankiDirectoryService keeps an in-memory directory from the phone number of
+ * every active Yanki wallet to its account number and document number, so
+ * mobile transfers resolve their wallets without querying the database. Wallets
+ * changed by other instances are picked up by the next sync.
+ */
+public interface YankiDirectoryService {
+
+	/**
+	 * Finds the active wallet of a phone number. Phone numbers missing from the
+	 * directory are looked up in the database and added to it.
+	 *
+	 * @param phoneNumber The phone number of the wallet
+	 * @return A Mono emitting a YankiEntity with the phone number, account number
+	 *         and document number of the wallet, or empty if there is none
+	 */
+	Mono<YankiEntity> findByPhoneNumber(String phoneNumber);
+
+	/**
+	 * Applies the wallets changed by any instance since the last sync.
+	 *
+	 * @return A Mono emitting the number of changed wallets applied
+	 */
+	Mono<Long> sync();
+
+	/**
+	 * Adds or replaces the entry of an active wallet.
+	 *
+	 * @param yankiEntity The wallet
+	 */
+	void put(YankiEntity yankiEntity);
+
+	/**
+	 * Removes the entry of a phone number.
+	 *
+	 * @param phoneNumber The phone number of the wallet
+	 */
+	void remove(String phoneNumber);
+
+	/**
+	 * Rebuilds the directory by streaming every active wallet. The current
+	 * directory keeps serving lookups until the new one replaces it.
+	 *
+	 * @return A Mono emitting the number of entries in the new directory
+	 */
+	Mono<Long> rebuild();
+}
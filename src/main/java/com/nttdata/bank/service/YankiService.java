@@ -4,6 +4,7 @@ import java.util.List;
 import com.nttdata.bank.request.YankiRequest;
 import com.nttdata.bank.request.YankiUpdateRequest;
 import com.nttdata.bank.response.YankiResponse;
+import reactor.core.publisher.Flux;
 
 /**
  * YankiService is the interface that provides methods for handling
@@ -22,11 +23,23 @@ public interface YankiService {
 	YankiResponse createYanki(YankiRequest yankiRequest);
 
 	/**
-	 * Retrieves all Yanki entities.
+	 * Retrieves one page of active Yanki entities, ordered by id. The next page is
+	 * requested with the id of the last Yanki entity of the current page.
 	 *
-	 * @return List of YankiResponse containing details of all Yanki entities
+	 * @param afterId The id of the last Yanki entity read, or null for the first
+	 *                page
+	 * @param size    The page size, or null for the default of 100
+	 * @return List of YankiResponse containing details of the Yanki entities
 	 */
-	List<YankiResponse> findAllYanki();
+	List<YankiResponse> findAllYanki(String afterId, Integer size);
+
+	/**
+	 * Streams all active Yanki entities, reading them as they are consumed.
+	 *
+	 * @return A Flux emitting YankiResponse objects containing details of the
+	 *         Yanki entities
+	 */
+	Flux<YankiResponse> streamAllYanki();
 
 	/**
 	 * Updates a Yanki entity based on the provided phone number and request.
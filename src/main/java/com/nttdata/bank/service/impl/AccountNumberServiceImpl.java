@@ -0,0 +1,124 @@
+package com.nttdata.bank.service.impl;
+
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.service.AccountNumberService;
+import com.nttdata.bank.service.SequenceService;
+import com.nttdata.bank.util.CheckDigit;
+import com.nttdata.bank.util.Constants;
+import com.nttdata.bank.util.NumberPermutation;
+import reactor.core.publisher.Mono;
+
+/**
+ * AccountNumberServiceImpl is the implementation class for the
+ * AccountNumberService interface. Each account type has its own sequence, whose
+ * values are handed out from blocks leased by the SequenceService, so a number
+ * is never given twice on any node. When a permutation key is configured the
+ * sequence value goes through a keyed reversible permutation, built once at
+ * startup, so consecutive accounts do not get consecutive numbers. Without a key
+ * the sequence value is used as is, unless the permutation is explicitly
+ * enabled, in which case the application does not start. A deployment must not
+ * switch between the two once it has issued numbers, since the permuted numbers
+ * of earlier accounts would collide with the plain numbers of later ones.
+ */
+@Service
+public class AccountNumberServiceImpl implements AccountNumberService {
+
+	private static final long BODY_CAPACITY = 1_000_000_000L;
+
+	@Autowired
+	private SequenceService sequenceService;
+
+	@Value("${bank.account-number.permute:#{null}}")
+	private Boolean permute;
+
+	@Value("${bank.account-number.permutation-key:#{null}}")
+	private Long permutationKey;
+
+	private NumberPermutation permutation;
+
+	/**
+	 * Builds the permutation of the account numbers. It is used when a key is
+	 * configured and the permutation is not explicitly disabled.
+	 *
+	 * @throws IllegalStateException if the permutation is enabled without a key
+	 */
+	@PostConstruct
+	public void initPermutation() {
+		if (Boolean.TRUE.equals(permute) && permutationKey == null) {
+			throw new IllegalStateException("bank.account-number.permutation-key is required when "
+					+ "bank.account-number.permute is enabled");
+		}
+
+		permutation = !Boolean.FALSE.equals(permute) && permutationKey != null
+				? new NumberPermutation(BODY_CAPACITY, permutationKey)
+				: null;
+	}
+
+	/**
+	 * Allocates the next account number for an account type.
+	 *
+	 * @param accountType The type of the account
+	 * @return A Mono emitting the allocated account number
+	 * @throws IllegalArgumentException if the account type is unknown
+	 */
+	@Override
+	public Mono<String> nextAccountNumber(String accountType) {
+		return Mono.defer(() -> {
+			String typeCode = getTypeCode(accountType);
+			return sequenceService.nextValue(Constants.SEQUENCE_ACCOUNT_NUMBER_PREFIX + typeCode, Mono.just(0L))
+					.map(value -> format(typeCode, value));
+		});
+	}
+
+	/**
+	 * Formats a sequence value as an account number.
+	 *
+	 * @param typeCode The code of the account type
+	 * @param value    The sequence value
+	 * @return The account number
+	 * @throws IllegalStateException if the sequence of the account type is
+	 *                               exhausted
+	 */
+	private String format(String typeCode, long value) {
+		if (value >= BODY_CAPACITY) {
+			throw new IllegalStateException("The account numbers of type " + typeCode + " are exhausted");
+		}
+
+		long body = permutation != null ? permutation.permute(value) : value;
+		String accountNumber = Constants.BANK_CODE + typeCode + String.format("%09d", body);
+		return accountNumber + CheckDigit.luhn(accountNumber);
+	}
+
+	/**
+	 * Returns the code of an account type.
+	 *
+	 * @param accountType The type of the account
+	 * @return The code of the account type
+	 * @throws IllegalArgumentException if the account type is unknown
+	 */
+	private String getTypeCode(String accountType) {
+		if (accountType == null) {
+			throw new IllegalArgumentException("Invalid account type");
+		}
+
+		switch (accountType) {
+		case Constants.ACCOUNT_TYPE_SAVINGS:
+			return Constants.ACCOUNT_TYPE_CODE_SAVINGS;
+		case Constants.ACCOUNT_TYPE_CHECKING:
+			return Constants.ACCOUNT_TYPE_CODE_CHECKING;
+		case Constants.ACCOUNT_TYPE_FIXED_TERM:
+			return Constants.ACCOUNT_TYPE_CODE_FIXED_TERM;
+		case Constants.ACCOUNT_TYPE_VIP:
+			return Constants.ACCOUNT_TYPE_CODE_VIP;
+		case Constants.ACCOUNT_TYPE_PYME:
+			return Constants.ACCOUNT_TYPE_CODE_PYME;
+		case Constants.ACCOUNT_TYPE_YANKI:
+			return Constants.ACCOUNT_TYPE_CODE_YANKI;
+		default:
+			throw new IllegalArgumentException("Invalid account type");
+		}
+	}
+}
@@ -3,29 +3,44 @@ package com.nttdata.bank.service.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import com.nttdata.bank.entity.AccountEntity;
 import com.nttdata.bank.entity.CustomerEntity;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.job.bean.BalanceChange;
+import com.nttdata.bank.job.bean.InactivitySweepResult;
 import com.nttdata.bank.mapper.AccountMapper;
 import com.nttdata.bank.repository.AccountRepository;
 import com.nttdata.bank.repository.CreditCardRepository;
 import com.nttdata.bank.repository.CreditRepository;
 import com.nttdata.bank.repository.CustomerRepository;
 import com.nttdata.bank.repository.DebitCardRepository;
+import com.nttdata.bank.repository.TransactionRepository;
 import com.nttdata.bank.repository.YankiRepository;
 import com.nttdata.bank.request.AccountRequest;
 import com.nttdata.bank.request.DepositRequest;
 import com.nttdata.bank.request.UpdateAccountRequest;
 import com.nttdata.bank.response.AccountResponse;
 import com.nttdata.bank.response.BalanceResponse;
+import com.nttdata.bank.service.AccountNumberService;
 import com.nttdata.bank.service.AccountsService;
+import com.nttdata.bank.service.BalanceSnapshotService;
 import com.nttdata.bank.service.OperationService;
 import com.nttdata.bank.util.Constants;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
 
 /**
  * AccountsServiceImpl is the implementation class for the AccountsService
@@ -60,6 +75,18 @@ public class AccountsServiceImpl implements AccountsService {
 	@Autowired
 	private YankiRepository yankiRepository;
 
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Autowired
+	private AccountNumberService accountNumberService;
+
+	@Autowired
+	private BalanceSnapshotService balanceSnapshotService;
+
 	/**
 	 * Registers a new account.
 	 *
@@ -72,10 +99,10 @@ public class AccountsServiceImpl implements AccountsService {
 		logger.debug("Registering account: {}", accountRequest);
 		validateAccountRequest(accountRequest);
 		AccountEntity accountEntity = AccountMapper.mapperToEntity(accountRequest);
-		accountEntity
-				.setAccountNumber(generateUniqueAccountNumber(accountRequest.getAccountType()));
 		setAccountDetails(accountRequest, accountEntity);
-		accountEntity = accountRepository.save(accountEntity).block();
+		accountEntity = saveWithAccountNumber(accountEntity, accountRequest.getAccountType()).block();
+		balanceSnapshotService.openSnapshot(accountEntity.getAccountNumber(), accountEntity.getAmount(),
+				accountEntity.getCreateDate()).block();
 		makeFirstDeposit(accountRequest, accountEntity, accountRequest.getHolderDoc().get(0));
 		AccountResponse response = AccountMapper.mapperToResponse(accountEntity);
 		logger.info("Account registered successfully: {}", response);
@@ -123,19 +150,88 @@ public class AccountsServiceImpl implements AccountsService {
 	 */
 	@Override
 	public AccountResponse updateAccount(UpdateAccountRequest updateAccountRequest) {
-		return accountRepository
-				.findByAccountNumberAndIsActiveTrue(updateAccountRequest.getAccountNumber())
-				.flatMap(accountEntity -> {
-					accountEntity.setUpdateDate(LocalDateTime.now());
-					accountEntity.setAmount(
-							accountEntity.getAmount() + updateAccountRequest.getAmount());
-					return accountRepository.save(accountEntity).map(savedEntity -> {
-						AccountResponse response = AccountMapper.mapperToResponse(savedEntity);
-						logger.info("Account updated successfully: {}", response);
-						return response;
-					});
-				}).switchIfEmpty(Mono.error(new RuntimeException("Account not found"))).toFuture()
-				.join();
+		return applyBalanceChange(updateAccountRequest.getAccountNumber(),
+				updateAccountRequest.getAmount(), Collections.emptyList())
+				.map(accountEntity -> {
+					AccountResponse response = AccountMapper.mapperToResponse(accountEntity);
+					logger.info("Account updated successfully: {}", response);
+					return response;
+				}).toFuture().join();
+	}
+
+	/**
+	 * Atomically adds the given amount to the balance of an active account.
+	 *
+	 * @param accountNumber The account number
+	 * @param amount        The amount to add, negative for a debit
+	 * @return A Mono emitting the new balance of the account
+	 */
+	@Override
+	public Mono<Double> updateBalance(String accountNumber, Double amount) {
+		return applyBalanceChange(accountNumber, amount, Collections.emptyList())
+				.map(AccountEntity::getAmount);
+	}
+
+	/**
+	 * Atomically adds the amount of a group of journal entries to the balance of
+	 * an active account. The update only matches while none of the entries is in
+	 * the account's applied journal, and pushes them into it in the same write.
+	 * When every entry is already there the balance is returned unchanged; when
+	 * only some are, the group must be applied entry by entry. The entries stay in
+	 * the applied journal until their owner releases them, so the guard does not
+	 * depend on how many other entries the account receives meanwhile.
+	 *
+	 * @param accountNumber The account number
+	 * @param amount        The total amount of the entries, negative for a debit
+	 * @param entryIds      The ids of the journal entries
+	 * @return A Mono emitting the balance of the account
+	 */
+	@Override
+	public Mono<Double> applyJournalEntries(String accountNumber, Double amount, List<String> entryIds) {
+		return applyBalanceChange(accountNumber, amount, entryIds).map(AccountEntity::getAmount);
+	}
+
+	/**
+	 * Pulls journal entries from the applied journal of the given accounts with a
+	 * single multi-document update, whether the accounts are active or not.
+	 *
+	 * @param accountNumbers The account numbers
+	 * @param entryIds       The ids of the journal entries
+	 * @return A Mono that completes when the entries are pulled
+	 */
+	@Override
+	public Mono<Void> releaseJournalEntries(Collection<String> accountNumbers, Collection<String> entryIds) {
+		if (accountNumbers.isEmpty() || entryIds.isEmpty()) {
+			return Mono.empty();
+		}
+
+		return mongoTemplate.updateMulti(
+				Query.query(Criteria.where("accountNumber").in(accountNumbers).and("appliedJournal").in(entryIds)),
+				new Update().pullAll("appliedJournal", entryIds.toArray()), AccountEntity.class).then();
+	}
+
+	/**
+	 * Deactivates every active account without movements since the given date.
+	 * Accounts that predate the last movement date are backfilled first from
+	 * their newest transaction. The stale accounts are then found by one range
+	 * query on the active/last movement index and deactivated by a single
+	 * multi-document update.
+	 *
+	 * @param inactiveSince The date since which an account must have moved to
+	 *                      stay active
+	 * @return A Mono emitting how many accounts were scanned and deactivated
+	 */
+	@Override
+	public Mono<InactivitySweepResult> deactivateInactiveAccounts(LocalDateTime inactiveSince) {
+		Query staleAccounts = Query.query(Criteria.where("isActive").is(true)
+				.and("lastMovementDate").lt(inactiveSince));
+		Update deactivate = new Update().set("isActive", false).set("deleteDate", LocalDateTime.now());
+
+		return backfillLastMovementDates()
+				.then(accountRepository.countByIsActiveTrue())
+				.flatMap(scanned -> mongoTemplate
+						.updateMulti(staleAccounts, deactivate, AccountEntity.class)
+						.map(result -> new InactivitySweepResult(scanned, result.getModifiedCount())));
 	}
 
 	/**
@@ -170,6 +266,97 @@ public class AccountsServiceImpl implements AccountsService {
 				.block();
 	}
 
+	/**
+	 * Applies a balance change with a single find-and-modify $inc on the account
+	 * document, so concurrent changes are never lost. Debits carry a guard on the
+	 * current balance and are rejected when the balance does not cover them. An
+	 * applied change is added to the daily balance snapshots of the account.
+	 *
+	 * @param accountNumber The account number
+	 * @param amount        The amount to add, negative for a debit
+	 * @param entryIds      The journal entries the change applies, if any
+	 * @return A Mono emitting the updated account
+	 */
+	private Mono<AccountEntity> applyBalanceChange(String accountNumber, Double amount,
+			List<String> entryIds) {
+		Criteria criteria = Criteria.where("accountNumber").is(accountNumber).and("isActive")
+				.is(true);
+
+		if (amount < 0) {
+			criteria = criteria.and("amount").gte(-amount);
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		Update update = new Update().inc("amount", amount).set("updateDate", now)
+				.set("lastMovementDate", now);
+
+		if (!entryIds.isEmpty()) {
+			criteria = criteria.and("appliedJournal").nin(entryIds);
+			update.push("appliedJournal").each(entryIds.toArray());
+		}
+
+		return mongoTemplate
+				.findAndModify(Query.query(criteria), update,
+						FindAndModifyOptions.options().returnNew(true), AccountEntity.class)
+				.flatMap(accountEntity -> balanceSnapshotService
+						.recordBalanceChanges(Collections.singletonList(
+								new BalanceChange(accountNumber, amount, accountEntity.getAmount(), now)))
+						.thenReturn(accountEntity))
+				.switchIfEmpty(Mono.defer(() -> accountRepository
+						.findByAccountNumberAndIsActiveTrue(accountNumber)
+						.flatMap(accountEntity -> rejectBalanceChange(accountEntity, entryIds))
+						.switchIfEmpty(Mono.error(new RuntimeException("Account not found")))));
+	}
+
+	/**
+	 * Explains why a balance change did not match an active account.
+	 *
+	 * @param accountEntity The account
+	 * @param entryIds      The journal entries the change applies, if any
+	 * @return A Mono emitting the account when all the entries were already
+	 *         applied, or the error of the change otherwise
+	 */
+	private Mono<AccountEntity> rejectBalanceChange(AccountEntity accountEntity, List<String> entryIds) {
+		List<String> appliedJournal = Optional.ofNullable(accountEntity.getAppliedJournal())
+				.orElseGet(Collections::emptyList);
+
+		if (!entryIds.isEmpty() && appliedJournal.containsAll(entryIds)) {
+			return Mono.just(accountEntity);
+		}
+
+		if (entryIds.stream().anyMatch(appliedJournal::contains)) {
+			return Mono.error(new IllegalStateException(
+					"The journal entries are partially applied to the account."));
+		}
+
+		return Mono.error(new IllegalArgumentException("The account does not have sufficient balance."));
+	}
+
+	/**
+	 * Sets the last movement date of the active accounts created before the field
+	 * existed, using the date of their newest transaction or, without one, their
+	 * creation date. Each lookup reads a single entry of the account's
+	 * newest-first transaction index.
+	 *
+	 * @return A Mono completing once every account has been backfilled
+	 */
+	private Mono<Void> backfillLastMovementDates() {
+		return accountRepository.findActiveWithoutLastMovementDate()
+				.flatMap(account -> transactionRepository
+						.findRecentByAccountNumbers(Collections.singletonList(account.getAccountNumber()),
+								PageRequest.of(0, 1))
+						.next()
+						.map(TransactionEntity::getCreateDate)
+						.defaultIfEmpty(Optional.ofNullable(account.getCreateDate())
+								.orElseGet(LocalDateTime::now))
+						.flatMap(lastMovementDate -> mongoTemplate.updateFirst(
+								Query.query(Criteria.where("_id").is(account.getId())
+										.and("lastMovementDate").is(null)),
+								new Update().set("lastMovementDate", lastMovementDate),
+								AccountEntity.class)), Constants.BACKFILL_CONCURRENCY)
+				.then();
+	}
+
 	/**
 	 * Registers the first deposit transaction for a newly created account.
 	 *
@@ -190,7 +377,7 @@ public class AccountsServiceImpl implements AccountsService {
 		depositRequest.setAccountNumber(accountEntity.getAccountNumber());
 		depositRequest.setDocumentNumber(documentNumber);
 		depositRequest.setAmount(accountRequest.getOpeningAmount());
-		operationService.makeDeposit(depositRequest);
+		operationService.makeDeposit(depositRequest).toFuture().join();
 	}
 
 	/**
@@ -314,57 +501,22 @@ public class AccountsServiceImpl implements AccountsService {
 	}
 
 	/**
-	 * Generates a unique account number.
+	 * Saves a new account with the next allocated account number. The unique
+	 * index on the account number rejects a number already held by an account
+	 * created before the allocator, in which case the next number is allocated.
 	 *
-	 * @param accountType The type of the account
-	 * @return The generated unique account number
+	 * @param accountEntity The account to save
+	 * @param accountType   The type of the account
+	 * @return A Mono emitting the saved account
 	 */
-	private String generateUniqueAccountNumber(String accountType) {
-		String accountNumber;
-		boolean exists;
-		do {
-			accountNumber = generateAccountNumber(accountType);
-			exists = accountRepository.existsByAccountNumber(accountNumber).block();
-		} while (exists);
-		return accountNumber;
-	}
-
-	/**
-	 * Generates an account number based on the account type.
-	 *
-	 * @param accountType The type of the account
-	 * @return The generated account number
-	 */
-	private String generateAccountNumber(String accountType) {
-		Random random = new Random();
-		StringBuilder accountNumber = new StringBuilder(Constants.BANK_CODE);
-
-		switch (accountType) {
-		case Constants.ACCOUNT_TYPE_SAVINGS:
-			accountNumber.append(Constants.ACCOUNT_TYPE_CODE_SAVINGS);
-			break;
-		case Constants.ACCOUNT_TYPE_CHECKING:
-			accountNumber.append(Constants.ACCOUNT_TYPE_CODE_CHECKING);
-			break;
-		case Constants.ACCOUNT_TYPE_FIXED_TERM:
-			accountNumber.append(Constants.ACCOUNT_TYPE_CODE_FIXED_TERM);
-			break;
-		case Constants.ACCOUNT_TYPE_VIP:
-			accountNumber.append(Constants.ACCOUNT_TYPE_CODE_VIP);
-			break;
-		case Constants.ACCOUNT_TYPE_PYME:
-			accountNumber.append(Constants.ACCOUNT_TYPE_CODE_PYME);
-			break;
-		case Constants.ACCOUNT_TYPE_YANKI:
-			accountNumber.append(Constants.ACCOUNT_TYPE_CODE_YANKI);
-			break;
-		}
-
-		for (int i = 0; i < 10; i++) {
-			accountNumber.append(random.nextInt(10));
-		}
-
-		return accountNumber.toString();
+	private Mono<AccountEntity> saveWithAccountNumber(AccountEntity accountEntity, String accountType) {
+		return Mono.defer(() -> accountNumberService.nextAccountNumber(accountType)
+				.flatMap(accountNumber -> {
+					accountEntity.setAccountNumber(accountNumber);
+					return accountRepository.save(accountEntity);
+				}))
+				.retryWhen(Retry.max(Constants.ACCOUNT_NUMBER_ATTEMPTS - 1)
+						.filter(DuplicateKeyException.class::isInstance));
 	}
 
 	/**
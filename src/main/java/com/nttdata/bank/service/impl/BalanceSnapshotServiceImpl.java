@@ -0,0 +1,327 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.BalanceSnapshotEntity;
+import com.nttdata.bank.job.bean.BalanceChange;
+import com.nttdata.bank.service.BalanceSnapshotService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+/**
+ * BalanceSnapshotServiceImpl is the implementation class for the
+ * BalanceSnapshotService interface. A change applied on day d of a month is
+ * added with one $inc to the end-of-day balances of day d and every later day
+ * of the month, so changes can be recorded in any order. The first document of
+ * an account is created when the account is opened, with its opening balance.
+ * The document of a later month is created on the first change of the month,
+ * opening with the closing balance of the latest earlier month, which does not
+ * depend on which change creates it. A change on the last day of a month is
+ * also carried into the later months of the account, which only exist when a
+ * change of the next month was recorded first.
+ */
+@Service
+public class BalanceSnapshotServiceImpl implements BalanceSnapshotService {
+
+	private static final Logger logger = LoggerFactory.getLogger(BalanceSnapshotServiceImpl.class);
+
+	private static final DateTimeFormatter PERIOD_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+	private static final int SLOTS = 31;
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Value("${bank.balance-snapshot.concurrency:16}")
+	private int concurrency = 16;
+
+	/**
+	 * Adds applied balance changes to the daily balances of their accounts. The
+	 * documents of the months touched for the first time are created, and the
+	 * changes are then written with one unordered bulk write. The balance changes
+	 * are already applied when this is called, so a failure is logged instead of
+	 * being returned.
+	 *
+	 * @param changes The changes that have been applied to the accounts
+	 * @return A Mono that completes when the daily balances have been updated
+	 */
+	@Override
+	public Mono<Void> recordBalanceChanges(List<BalanceChange> changes) {
+		if (changes.isEmpty()) {
+			return Mono.empty();
+		}
+
+		Map<String, BalanceChange> firstChanges = new LinkedHashMap<>();
+		changes.forEach(change -> firstChanges.putIfAbsent(getSnapshotId(change.getAccountNumber(),
+				YearMonth.from(change.getChangeDate())), change));
+
+		return findExistingSnapshots(firstChanges.keySet())
+				.flatMapMany(existing -> Flux.fromIterable(firstChanges.entrySet())
+						.filter(firstChange -> !existing.contains(firstChange.getKey())))
+				.flatMap(firstChange -> createSnapshot(firstChange.getKey(), firstChange.getValue()), concurrency)
+				.then(applyChanges(changes))
+				.onErrorResume(e -> {
+					logger.error("Unable to record {} balance changes: {}", changes.size(), e.getMessage(), e);
+					return Mono.empty();
+				});
+	}
+
+	/**
+	 * Creates the first document of a new account, before any change is applied
+	 * to it.
+	 *
+	 * @param accountNumber The account number
+	 * @param balance       The balance of the account when it is opened
+	 * @param openDate      The date the account is opened
+	 * @return A Mono that completes when the document exists
+	 */
+	@Override
+	public Mono<Void> openSnapshot(String accountNumber, Double balance, LocalDateTime openDate) {
+		YearMonth period = YearMonth.from(openDate);
+		return insertSnapshot(getSnapshotId(accountNumber, period), accountNumber, period, balance);
+	}
+
+	/**
+	 * Computes the daily average balance of several accounts in the given month.
+	 * The documents of the month are read with one $in query on their id. An
+	 * account without a document had no changes in the month, so its balance was
+	 * the closing balance of its latest earlier month, the opening balance of its
+	 * next month or, without any document, its current balance.
+	 *
+	 * @param accountNumbers The account numbers
+	 * @param period         The month to average
+	 * @return A Mono emitting the average balance keyed by account number
+	 */
+	@Override
+	public Mono<Map<String, Double>> averageDailyBalances(Collection<String> accountNumbers, YearMonth period) {
+		Query query = Query.query(Criteria.where("id").in(accountNumbers.stream()
+				.map(accountNumber -> getSnapshotId(accountNumber, period))
+				.collect(Collectors.toList())));
+
+		return mongoTemplate.find(query, BalanceSnapshotEntity.class)
+				.collectMap(BalanceSnapshotEntity::getAccountNumber, snapshot -> averageOf(snapshot, period))
+				.flatMap(averages -> Flux.fromIterable(accountNumbers)
+						.filter(accountNumber -> !averages.containsKey(accountNumber))
+						.flatMap(accountNumber -> findUnchangedBalance(accountNumber, period)
+								.map(balance -> Tuples.of(accountNumber, balance)), concurrency)
+						.doOnNext(average -> averages.put(average.getT1(), average.getT2()))
+						.then(Mono.just(averages)));
+	}
+
+	/**
+	 * Finds which of the given snapshot documents exist.
+	 *
+	 * @param ids The snapshot ids
+	 * @return A Mono emitting the ids of the existing documents
+	 */
+	private Mono<Set<String>> findExistingSnapshots(Collection<String> ids) {
+		Query query = Query.query(Criteria.where("id").in(ids));
+		query.fields().include("id");
+
+		return mongoTemplate.find(query, BalanceSnapshotEntity.class)
+				.map(BalanceSnapshotEntity::getId)
+				.collect(Collectors.toSet());
+	}
+
+	/**
+	 * Creates the document of a month opening with the closing balance of the
+	 * latest earlier month. Only an account opened before its first document was
+	 * created with it has no earlier month; its balance before the change is used
+	 * then, which is exact unless two of its changes create the document at the
+	 * same time.
+	 *
+	 * @param id     The snapshot id
+	 * @param change The first change of the month
+	 * @return A Mono that completes when the document exists
+	 */
+	private Mono<Void> createSnapshot(String id, BalanceChange change) {
+		YearMonth period = YearMonth.from(change.getChangeDate());
+
+		return findPreviousSnapshot(change.getAccountNumber(), period)
+				.map(this::closingBalanceOf)
+				.defaultIfEmpty(change.getBalance() - change.getAmount())
+				.flatMap(openingBalance -> insertSnapshot(id, change.getAccountNumber(), period, openingBalance));
+	}
+
+	/**
+	 * Inserts the document of a month with every day holding the opening balance.
+	 * A document created concurrently is kept.
+	 *
+	 * @param id             The snapshot id
+	 * @param accountNumber  The account number
+	 * @param period         The month
+	 * @param openingBalance The balance of the account when the month opened
+	 * @return A Mono that completes when the document exists
+	 */
+	private Mono<Void> insertSnapshot(String id, String accountNumber, YearMonth period, Double openingBalance) {
+		double[] balances = new double[SLOTS];
+		Arrays.fill(balances, openingBalance);
+		BalanceSnapshotEntity snapshot = new BalanceSnapshotEntity();
+		snapshot.setId(id);
+		snapshot.setAccountNumber(accountNumber);
+		snapshot.setPeriod(period.format(PERIOD_FORMAT));
+		snapshot.setDays(period.lengthOfMonth());
+		snapshot.setOpeningBalance(openingBalance);
+		snapshot.setBalances(balances);
+		snapshot.setCreateDate(LocalDateTime.now());
+		snapshot.setUpdateDate(snapshot.getCreateDate());
+
+		return mongoTemplate.insert(snapshot)
+				.onErrorResume(DuplicateKeyException.class, e -> Mono.empty())
+				.then();
+	}
+
+	/**
+	 * Writes the balance changes with one unordered bulk write of $inc updates.
+	 *
+	 * @param changes The balance changes
+	 * @return A Mono that completes when the bulk write is acknowledged
+	 */
+	private Mono<Void> applyChanges(List<BalanceChange> changes) {
+		Date now = Date.from(LocalDateTime.now().atZone(ZoneId.systemDefault()).toInstant());
+		List<WriteModel<Document>> updates = new ArrayList<>();
+
+		for (BalanceChange change : changes) {
+			YearMonth period = YearMonth.from(change.getChangeDate());
+			int day = change.getChangeDate().getDayOfMonth();
+			updates.add(new UpdateOneModel<>(
+					new Document("_id", getSnapshotId(change.getAccountNumber(), period)),
+					new Document("$inc", increments(day - 1, change.getAmount()))
+							.append("$set", new Document("updateDate", now))));
+
+			if (day == period.lengthOfMonth()) {
+				updates.add(new UpdateManyModel<>(
+						new Document("accountNumber", change.getAccountNumber())
+								.append("period", new Document("$gt", period.format(PERIOD_FORMAT))),
+						new Document("$inc", increments(0, change.getAmount()).append("openingBalance",
+								change.getAmount())).append("$set", new Document("updateDate", now))));
+			}
+		}
+
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(BalanceSnapshotEntity.class))
+				.flatMap(collection -> Mono.from(collection.bulkWrite(updates,
+						new BulkWriteOptions().ordered(false))))
+				.then();
+	}
+
+	/**
+	 * Builds the $inc of an amount on the daily balances from a given slot to the
+	 * last one.
+	 *
+	 * @param fromSlot The first slot to increment, zero for the first day
+	 * @param amount   The amount to add
+	 * @return The increments keyed by field path
+	 */
+	private Document increments(int fromSlot, Double amount) {
+		Document increments = new Document();
+		for (int slot = fromSlot; slot < SLOTS; slot++) {
+			increments.append("balances." + slot, amount);
+		}
+		return increments;
+	}
+
+	/**
+	 * Finds the balance of an account in a month without changes.
+	 *
+	 * @param accountNumber The account number
+	 * @param period        The month
+	 * @return A Mono emitting the balance, or empty when the account does not
+	 *         exist
+	 */
+	private Mono<Double> findUnchangedBalance(String accountNumber, YearMonth period) {
+		Query nextSnapshot = Query.query(Criteria.where("accountNumber").is(accountNumber)
+				.and("period").gt(period.format(PERIOD_FORMAT))).with(Sort.by(Sort.Direction.ASC, "period"));
+		Query account = Query.query(Criteria.where("accountNumber").is(accountNumber));
+		account.fields().include("amount");
+
+		return findPreviousSnapshot(accountNumber, period)
+				.map(this::closingBalanceOf)
+				.switchIfEmpty(Mono.defer(() -> mongoTemplate.findOne(nextSnapshot, BalanceSnapshotEntity.class)
+						.map(BalanceSnapshotEntity::getOpeningBalance)))
+				.switchIfEmpty(Mono.defer(() -> mongoTemplate.findOne(account, AccountEntity.class)
+						.map(AccountEntity::getAmount)));
+	}
+
+	/**
+	 * Finds the document of the latest month of an account before the given one.
+	 *
+	 * @param accountNumber The account number
+	 * @param period        The month
+	 * @return A Mono emitting the document, or empty when there is none
+	 */
+	private Mono<BalanceSnapshotEntity> findPreviousSnapshot(String accountNumber, YearMonth period) {
+		return mongoTemplate.findOne(Query.query(Criteria.where("accountNumber").is(accountNumber)
+				.and("period").lt(period.format(PERIOD_FORMAT))).with(Sort.by(Sort.Direction.DESC, "period")),
+				BalanceSnapshotEntity.class);
+	}
+
+	/**
+	 * Averages the end-of-day balances of a month. For the current month, only
+	 * the days elapsed so far are averaged.
+	 *
+	 * @param snapshot The document of the month
+	 * @param period   The month
+	 * @return The daily average balance
+	 */
+	private Double averageOf(BalanceSnapshotEntity snapshot, YearMonth period) {
+		LocalDate today = LocalDate.now();
+		int days = YearMonth.from(today).equals(period) ? today.getDayOfMonth() : snapshot.getDays();
+		double total = 0.0;
+
+		for (int slot = 0; slot < days; slot++) {
+			total += snapshot.getBalances()[slot];
+		}
+		return total / days;
+	}
+
+	/**
+	 * Returns the balance of an account at the end of the month of a document.
+	 *
+	 * @param snapshot The document of the month
+	 * @return The closing balance
+	 */
+	private Double closingBalanceOf(BalanceSnapshotEntity snapshot) {
+		return snapshot.getBalances()[snapshot.getDays() - 1];
+	}
+
+	/**
+	 * Builds the id of the document of an account and month.
+	 *
+	 * @param accountNumber The account number
+	 * @param period        The month
+	 * @return The snapshot id
+	 */
+	private String getSnapshotId(String accountNumber, YearMonth period) {
+		return accountNumber + ":" + period.format(PERIOD_FORMAT);
+	}
+
+}
@@ -0,0 +1,227 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Service;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.nttdata.bank.entity.Consumption;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.entity.CreditCardScheduleEntity;
+import com.nttdata.bank.repository.CreditCardRepository;
+import com.nttdata.bank.repository.CreditCardScheduleRepository;
+import com.nttdata.bank.service.BillingService;
+import com.nttdata.bank.util.Constants;
+import com.nttdata.bank.util.Utility;
+import reactor.core.publisher.Mono;
+
+/**
+ * BillingServiceImpl is the implementation class for the BillingService
+ * interface. Each card is billed in memory from its due schedule, its rates and
+ * its overdue debt. The due schedule is updated by id with a guarded update of
+ * only the installments being split and the totals, then the installments are
+ * pushed into the following schedules with a single unordered bulk write of
+ * upserts keyed on credit card number and payment date. Cards are billed in
+ * parallel up to the configured level.
+ */
+@Service
+public class BillingServiceImpl implements BillingService {
+
+	@Autowired
+	private CreditCardScheduleRepository creditCardScheduleRepository;
+
+	@Autowired
+	private CreditCardRepository creditCardRepository;
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Value("${bank.schedule.billing-parallelism:8}")
+	private int parallelism = 8;
+
+	/**
+	 * Bills every credit card schedule due on the given payment date.
+	 *
+	 * @param paymentDate the payment date of the schedules to bill
+	 * @return a Mono emitting the number of schedules billed
+	 */
+	@Override
+	public Mono<Long> billCreditCardSchedules(LocalDate paymentDate) {
+		return creditCardScheduleRepository.findByPaymentDate(paymentDate)
+				.filter(schedule -> schedule.getCreditCardNumber() != null)
+				.flatMap(this::billSchedule, parallelism)
+				.count();
+	}
+
+	/**
+	 * Bills a single credit card schedule. Inactive cards are skipped.
+	 *
+	 * @param schedule the schedule to bill
+	 * @return a Mono emitting the billed schedule
+	 */
+	private Mono<CreditCardScheduleEntity> billSchedule(CreditCardScheduleEntity schedule) {
+		String creditCardNumber = schedule.getCreditCardNumber();
+
+		return Mono.zip(creditCardRepository.findByCreditCardNumberAndIsActiveTrue(creditCardNumber),
+				creditCardScheduleRepository
+						.findByCreditCardNumberAndPaidFalseAndPaymentDateBefore(creditCardNumber,
+								schedule.getPaymentDate())
+						.map(overdue -> Optional.ofNullable(overdue.getCurrentDebt()).orElse(0.00))
+						.reduce(0.00, Double::sum))
+				.flatMap(tuple -> bill(schedule, tuple.getT1(), tuple.getT2(), 1));
+	}
+
+	/**
+	 * Bills a schedule as it was read. Every consumption in several installments
+	 * keeps one installment in the billed schedule and moves the others, one per
+	 * month, to the following schedules. The interest is charged on the billed
+	 * principal plus the overdue debt of the card. Only the installments being
+	 * split and the totals are set, guarded on the consumptions as they were
+	 * read, so a consumption charged or paid meanwhile is never overwritten; the
+	 * schedule is then read again and billed once more. The installments are
+	 * pushed into the following schedules once the billed schedule is updated.
+	 *
+	 * @param schedule    the schedule to bill
+	 * @param card        the credit card of the schedule
+	 * @param overdueDebt the unpaid debt of the card's earlier schedules
+	 * @param attempt     the number of the attempt, starting at 1
+	 * @return a Mono emitting the billed schedule
+	 */
+	private Mono<CreditCardScheduleEntity> bill(CreditCardScheduleEntity schedule, CreditCardEntity card,
+			Double overdueDebt, int attempt) {
+		List<Consumption> consumptions = Optional.ofNullable(schedule.getConsumptionQuota())
+				.orElseGet(ArrayList::new);
+		Map<LocalDate, List<Consumption>> installments = new TreeMap<>();
+		Document filter = new Document("_id", documentId(schedule.getId()))
+				.append("consumptionQuota", new Document("$size", consumptions.size()));
+		Document set = new Document();
+		double principalAmount = 0.00;
+
+		for (int index = 0; index < consumptions.size(); index++) {
+			Consumption consumption = consumptions.get(index);
+			String path = "consumptionQuota." + index;
+			int numberOfInstallments = Optional.ofNullable(consumption.getNumberOfInstallments()).orElse(1);
+			filter.append(path + ".amount", consumption.getAmount());
+
+			if (numberOfInstallments <= 1) {
+				principalAmount += consumption.getAmount();
+				continue;
+			}
+
+			double installmentAmount = consumption.getAmount() / numberOfInstallments;
+			filter.append(path + ".numberOfInstallments", numberOfInstallments);
+			set.append(path + ".numberOfInstallments", 1).append(path + ".amount", installmentAmount);
+			principalAmount += installmentAmount;
+
+			for (int month = 1; month < numberOfInstallments; month++) {
+				installments.computeIfAbsent(schedule.getPaymentDate().plusMonths(month),
+						paymentDate -> new ArrayList<>()).add(installment(consumption, installmentAmount));
+			}
+		}
+
+		double interestAmount = Utility.getMonthlyInterestRate(card.getAnnualInterestRate())
+				* (principalAmount + overdueDebt);
+		set.append("principalAmount", principalAmount)
+				.append("interestAmount", interestAmount)
+				.append("lateAmount", 0.00)
+				.append("currentDebt", principalAmount + interestAmount);
+
+		return getCollection()
+				.flatMap(collection -> Mono.from(collection.updateOne(filter, new Document("$set", set))))
+				.flatMap(result -> {
+					if (result.getMatchedCount() > 0) {
+						return installments.isEmpty() ? Mono.just(schedule)
+								: writeUnordered(spread(card, installments)).thenReturn(schedule);
+					}
+					if (attempt >= Constants.BILLING_MAX_ATTEMPTS) {
+						return Mono.error(new IllegalStateException(
+								"Credit card schedule " + schedule.getId() + " kept changing while it was billed"));
+					}
+					return creditCardScheduleRepository.findById(schedule.getId())
+							.flatMap(current -> bill(current, card, overdueDebt, attempt + 1));
+				});
+	}
+
+	/**
+	 * Creates the upserts that push the installments into the following
+	 * schedules, keyed on credit card number and payment date.
+	 *
+	 * @param card         the credit card of the billed schedule
+	 * @param installments the installments of each following payment date
+	 * @return the write models of the following schedules
+	 */
+	private List<WriteModel<Document>> spread(CreditCardEntity card,
+			Map<LocalDate, List<Consumption>> installments) {
+		MongoConverter converter = mongoTemplate.getConverter();
+		List<WriteModel<Document>> writes = new ArrayList<>();
+
+		installments.forEach((paymentDate, consumptions) -> writes.add(new UpdateOneModel<>(
+				new Document("creditCardNumber", card.getCreditCardNumber())
+						.append("paymentDate", converter.convertToMongoType(paymentDate)),
+				new Document("$push", new Document("consumptionQuota",
+						new Document("$each", converter.convertToMongoType(consumptions))))
+						.append("$setOnInsert", new Document("paid", false)),
+				new UpdateOptions().upsert(true))));
+		return writes;
+	}
+
+	/**
+	 * Creates a single installment of a consumption.
+	 *
+	 * @param consumption the consumption in several installments
+	 * @param amount      the amount of one installment
+	 * @return the installment
+	 */
+	private Consumption installment(Consumption consumption, Double amount) {
+		Consumption installment = new Consumption();
+		installment.setNumberOfInstallments(1);
+		installment.setAmount(amount);
+		installment.setProductOrServiceName(consumption.getProductOrServiceName());
+		installment.setConsumptionDate(consumption.getConsumptionDate());
+		return installment;
+	}
+
+	/**
+	 * Converts a schedule id to the stored _id value.
+	 *
+	 * @param id the id of the schedule
+	 * @return the ObjectId of the schedule, or the id itself when it is not one
+	 */
+	private Object documentId(String id) {
+		return ObjectId.isValid(id) ? new ObjectId(id) : id;
+	}
+
+	/**
+	 * Writes the changes of a card as one unordered bulk write.
+	 *
+	 * @param writes the write models of the card
+	 * @return a Mono emitting the result of the bulk write
+	 */
+	private Mono<BulkWriteResult> writeUnordered(List<WriteModel<Document>> writes) {
+		return getCollection()
+				.flatMap(collection -> Mono.from(collection.bulkWrite(writes, new BulkWriteOptions().ordered(false))));
+	}
+
+	/**
+	 * Returns the collection of the credit card schedules.
+	 *
+	 * @return a Mono emitting the collection
+	 */
+	private Mono<MongoCollection<Document>> getCollection() {
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(CreditCardScheduleEntity.class));
+	}
+}
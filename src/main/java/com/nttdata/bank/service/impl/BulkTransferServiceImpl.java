@@ -0,0 +1,905 @@
+package com.nttdata.bank.service.impl;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.BulkTransferChunkEntity;
+import com.nttdata.bank.entity.BulkTransferJobEntity;
+import com.nttdata.bank.entity.BulkTransferRow;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.job.bean.BalanceChange;
+import com.nttdata.bank.mapper.BulkTransferJobMapper;
+import com.nttdata.bank.mapper.TransactionMapper;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.repository.BulkTransferChunkRepository;
+import com.nttdata.bank.repository.BulkTransferJobRepository;
+import com.nttdata.bank.repository.TransactionRepository;
+import com.nttdata.bank.request.BulkTransferItemRequest;
+import com.nttdata.bank.response.BulkTransferJobResponse;
+import com.nttdata.bank.service.AccountsService;
+import com.nttdata.bank.service.BalanceSnapshotService;
+import com.nttdata.bank.service.BulkTransferService;
+import com.nttdata.bank.service.CustomerNameService;
+import com.nttdata.bank.service.SequenceService;
+import com.nttdata.bank.util.Constants;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * BulkTransferServiceImpl is the implementation class for the
+ * BulkTransferService interface. The rows of a transfer are stored in chunks as
+ * the file is read, so only one chunk is held in memory. The total is then
+ * debited from the source account with the account's guarded $inc, tagged with
+ * the job id, so the balance is checked once for every row. The rows are
+ * credited chunk by chunk: each chunk credits its accounts with one unordered
+ * bulk write of $inc updates, tagged with the job id and chunk number so a
+ * retried chunk is never credited twice, reserves its operation numbers with a
+ * single increment of the sequence and records its transactions with a single
+ * insert. The amounts of rows whose account is missing are refunded to the
+ * source account, and the credits are added to the daily balance snapshots of
+ * their accounts. Every step of a chunk can be repeated, so a job interrupted
+ * by a restart is resumed from its last recorded chunk. The tags stay on the
+ * accounts until the job has been finished for the grace period; the chunks are
+ * kept until then to know which accounts hold them.
+ */
+@Service
+public class BulkTransferServiceImpl implements BulkTransferService {
+
+	private static final Logger logger = LoggerFactory.getLogger(BulkTransferServiceImpl.class);
+
+	@Autowired
+	private BulkTransferJobRepository bulkTransferJobRepository;
+
+	@Autowired
+	private BulkTransferChunkRepository bulkTransferChunkRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@Autowired
+	private CustomerNameService customerNameService;
+
+	@Autowired
+	private SequenceService sequenceService;
+
+	@Autowired
+	private BalanceSnapshotService balanceSnapshotService;
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Value("${bank.bulk-transfer.chunk-size:1000}")
+	private int chunkSize = 1000;
+
+	@Value("${bank.bulk-transfer.max-rows:100000}")
+	private int maxRows = 100000;
+
+	@Value("${bank.bulk-transfer.credit-threads:4}")
+	private int creditThreads = 4;
+
+	private final Disposable.Composite running = Disposables.composite();
+
+	private Scheduler creditScheduler;
+
+	/**
+	 * Creates the scheduler the jobs are credited on.
+	 */
+	@PostConstruct
+	public void startScheduler() {
+		creditScheduler = Schedulers.newBoundedElastic(creditThreads, Integer.MAX_VALUE, "bulk-transfer-credits");
+	}
+
+	/**
+	 * Disposes the jobs being credited and their scheduler. The interrupted jobs
+	 * are left running and are resumed from their last recorded chunk.
+	 */
+	@PreDestroy
+	public void stopScheduler() {
+		running.dispose();
+		creditScheduler.dispose();
+	}
+
+	/**
+	 * Starts a bulk transfer. If a row is invalid or the debit of the total is
+	 * rejected, the job is marked as failed and the error is returned.
+	 *
+	 * @param accountNumberWithdraws  the PYME account that pays the transfer
+	 * @param documentNumberWithdraws the document number of the holder of the
+	 *                                account
+	 * @param rows                    the receiving accounts and amounts
+	 * @return a Mono emitting the started job
+	 */
+	@Override
+	public Mono<BulkTransferJobResponse> startBulkTransfer(String accountNumberWithdraws,
+			String documentNumberWithdraws, Flux<BulkTransferItemRequest> rows) {
+		return validateSourceAccount(accountNumberWithdraws, documentNumberWithdraws)
+				.then(customerNameService.getName(documentNumberWithdraws))
+				.flatMap(nameWithdraws -> createJob(accountNumberWithdraws, documentNumberWithdraws, nameWithdraws))
+				.flatMap(job -> receiveRows(job, rows)
+						.then(Mono.defer(() -> debitTotal(job)))
+						.onErrorResume(error -> finish(job, Constants.BULK_TRANSFER_STATUS_RECEIVING,
+								Constants.BULK_TRANSFER_STATUS_FAILED, error.getMessage())
+								.then(Mono.<BulkTransferJobEntity>error(error)))
+						.flatMap(this::startCredits))
+				.map(BulkTransferJobMapper::mapperToResponse);
+	}
+
+	/**
+	 * Retrieves the status and progress of a bulk transfer job.
+	 *
+	 * @param jobId the id of the job
+	 * @return a Mono emitting the job
+	 */
+	@Override
+	public Mono<BulkTransferJobResponse> getBulkTransfer(String jobId) {
+		return bulkTransferJobRepository.findById(jobId)
+				.switchIfEmpty(Mono.error(new IllegalArgumentException("Bulk transfer job not found")))
+				.map(BulkTransferJobMapper::mapperToResponse);
+	}
+
+	/**
+	 * Resumes the jobs whose progress stopped before the given date. Each job is
+	 * claimed by moving its update date forward, so a job is resumed by a single
+	 * node.
+	 *
+	 * @param updatedBefore the date before which an unfinished job is stale
+	 * @return a Mono emitting the number of jobs resumed
+	 */
+	@Override
+	public Mono<Long> resumeStaleJobs(LocalDateTime updatedBefore) {
+		return bulkTransferJobRepository
+				.findByStatusInAndUpdateDateBefore(Arrays.asList(Constants.BULK_TRANSFER_STATUS_RECEIVING,
+						Constants.BULK_TRANSFER_STATUS_RUNNING), updatedBefore)
+				.concatMap(job -> claim(job, updatedBefore))
+				.concatMap(job -> {
+					logger.warn("Resuming bulk transfer {} left {}", job.getId(), job.getStatus());
+					return (Constants.BULK_TRANSFER_STATUS_RECEIVING.equals(job.getStatus())
+							? recoverReceiving(job)
+							: resume(job)).thenReturn(job);
+				})
+				.count();
+	}
+
+	/**
+	 * Releases the finished jobs one by one. The tags of each chunk are pulled
+	 * from its accounts and the source account, then the tags of the job are
+	 * pulled from the source account, its chunks are removed and it is marked as
+	 * released.
+	 *
+	 * @param completedBefore the date before which a finished job can be released
+	 * @return a Mono emitting the number of jobs released
+	 */
+	@Override
+	public Mono<Long> releaseFinishedJobs(LocalDateTime completedBefore) {
+		return bulkTransferJobRepository.findByTagsReleasedFalseAndCompleteDateBefore(completedBefore)
+				.concatMap(job -> bulkTransferChunkRepository
+						.findByJobIdAndIndexGreaterThanEqualOrderByIndexAsc(job.getId(), 0)
+						.concatMap(chunk -> {
+							Set<String> accountNumbers = new HashSet<>(creditsOf(chunk).keySet());
+							accountNumbers.add(job.getAccountNumberWithdraws());
+							return accountsService.releaseJournalEntries(accountNumbers, Arrays.asList(chunk.getId(),
+									chunk.getId() + Constants.JOURNAL_REVERSAL_SUFFIX));
+						})
+						.then(accountsService.releaseJournalEntries(
+								Collections.singletonList(job.getAccountNumberWithdraws()),
+								Arrays.asList(job.getId(), job.getId() + Constants.JOURNAL_REVERSAL_SUFFIX)))
+						.then(mongoTemplate.remove(Query.query(Criteria.where("jobId").is(job.getId())),
+								BulkTransferChunkEntity.class))
+						.then(mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())),
+								new Update().set("tagsReleased", true), BulkTransferJobEntity.class))
+						.thenReturn(job))
+				.count();
+	}
+
+	/**
+	 * Checks that the source account is an active PYME account held by the
+	 * customer.
+	 *
+	 * @param accountNumber  the source account number
+	 * @param documentNumber the document number of the customer
+	 * @return a Mono completing when the account is valid
+	 * @throws IllegalArgumentException if the account is not valid, signalled
+	 *                                  through the Mono
+	 */
+	private Mono<Void> validateSourceAccount(String accountNumber, String documentNumber) {
+		return accountRepository.findByAccountNumberAndIsActiveTrue(accountNumber)
+				.switchIfEmpty(Mono.error(new IllegalArgumentException("The account does not exist")))
+				.flatMap(accountEntity -> {
+					if (!Constants.ACCOUNT_TYPE_PYME.equals(accountEntity.getAccountType())) {
+						return Mono.error(new IllegalArgumentException(
+								"Bulk transfers can only be made from PYME accounts"));
+					}
+					if (accountEntity.getHolderDoc() == null || !accountEntity.getHolderDoc().contains(documentNumber)) {
+						return Mono.error(new IllegalArgumentException("The account does not belong to the customer"));
+					}
+					return Mono.empty();
+				});
+	}
+
+	/**
+	 * Saves a new job that is receiving its rows.
+	 *
+	 * @param accountNumber  the source account number
+	 * @param documentNumber the document number of the holder of the account
+	 * @param nameWithdraws  the name of the holder of the account
+	 * @return a Mono emitting the saved job
+	 */
+	private Mono<BulkTransferJobEntity> createJob(String accountNumber, String documentNumber,
+			String nameWithdraws) {
+		BulkTransferJobEntity job = new BulkTransferJobEntity();
+		job.setAccountNumberWithdraws(accountNumber);
+		job.setDocumentNumberWithdraws(documentNumber);
+		job.setNameWithdraws(nameWithdraws);
+		job.setStatus(Constants.BULK_TRANSFER_STATUS_RECEIVING);
+		job.setChunkSize(chunkSize);
+		job.setTotalRows(0);
+		job.setProcessedRows(0);
+		job.setCreditedRows(0);
+		job.setFailedRows(0);
+		job.setTotalAmount(0.0);
+		job.setCreditedAmount(0.0);
+		job.setRefundedAmount(0.0);
+		job.setErrors(new ArrayList<>());
+		job.setCreateDate(LocalDateTime.now());
+		job.setUpdateDate(job.getCreateDate());
+		job.setTagsReleased(false);
+		return bulkTransferJobRepository.save(job);
+	}
+
+	/**
+	 * Stores the rows of a job in chunks as they are read, adding each chunk to
+	 * the totals of the job.
+	 *
+	 * @param job  the job
+	 * @param rows the receiving accounts and amounts
+	 * @return a Mono completing when every row is stored
+	 * @throws IllegalArgumentException if there are no rows or too many, signalled
+	 *                                  through the Mono
+	 */
+	private Mono<Void> receiveRows(BulkTransferJobEntity job, Flux<BulkTransferItemRequest> rows) {
+		return rows.buffer(job.getChunkSize())
+				.index()
+				.concatMap(chunk -> {
+					int index = chunk.getT1().intValue();
+					if ((long) index * job.getChunkSize() + chunk.getT2().size() > maxRows) {
+						return Mono.error(new IllegalArgumentException(
+								"The bulk transfer exceeds the limit of " + maxRows + " rows"));
+					}
+					return saveChunk(job, index, chunk.getT2());
+				})
+				.then(Mono.defer(() -> job.getTotalRows() == 0
+						? Mono.error(new IllegalArgumentException("The bulk transfer has no rows"))
+						: Mono.empty()));
+	}
+
+	/**
+	 * Stores one chunk of rows and adds it to the totals of its job.
+	 *
+	 * @param job   the job
+	 * @param index the number of the chunk
+	 * @param items the rows of the chunk
+	 * @return a Mono completing when the chunk is stored
+	 */
+	private Mono<Void> saveChunk(BulkTransferJobEntity job, int index, List<BulkTransferItemRequest> items) {
+		BulkTransferChunkEntity chunk = new BulkTransferChunkEntity();
+		chunk.setId(job.getId() + ":" + index);
+		chunk.setJobId(job.getId());
+		chunk.setIndex(index);
+		chunk.setRows(items.stream()
+				.map(item -> new BulkTransferRow(item.getAccountNumberReceive(), item.getAmount()))
+				.collect(Collectors.toList()));
+		chunk.setAmount(sum(chunk.getRows()));
+		chunk.setCreateDate(LocalDateTime.now());
+
+		return bulkTransferChunkRepository.save(chunk)
+				.then(mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())),
+						new Update().inc("totalRows", items.size()).inc("totalAmount", chunk.getAmount())
+								.set("updateDate", LocalDateTime.now()),
+						BulkTransferJobEntity.class))
+				.doOnSuccess(result -> {
+					job.setTotalRows(job.getTotalRows() + items.size());
+					job.setTotalAmount(job.getTotalAmount() + chunk.getAmount());
+				})
+				.then();
+	}
+
+	/**
+	 * Debits the total of a job from its source account.
+	 *
+	 * @param job the job
+	 * @return a Mono emitting the job once the total is debited
+	 */
+	private Mono<BulkTransferJobEntity> debitTotal(BulkTransferJobEntity job) {
+		return accountsService
+				.applyJournalEntries(job.getAccountNumberWithdraws(), -job.getTotalAmount(),
+						Collections.singletonList(job.getId()))
+				.thenReturn(job);
+	}
+
+	/**
+	 * Marks a debited job as running and starts crediting its rows in the
+	 * background. If the job was resumed meanwhile, it is left to the node that
+	 * resumed it; if it was failed meanwhile, the debit is refunded.
+	 *
+	 * @param job the debited job
+	 * @return a Mono emitting the running job
+	 */
+	private Mono<BulkTransferJobEntity> startCredits(BulkTransferJobEntity job) {
+		return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())
+				.and("status").is(Constants.BULK_TRANSFER_STATUS_RECEIVING)),
+				new Update().set("status", Constants.BULK_TRANSFER_STATUS_RUNNING).set("updateDate", LocalDateTime.now()),
+				BulkTransferJobEntity.class)
+				.flatMap(result -> {
+					if (result.getModifiedCount() > 0) {
+						job.setStatus(Constants.BULK_TRANSFER_STATUS_RUNNING);
+						launchCredits(job);
+						return Mono.just(job);
+					}
+					return bulkTransferJobRepository.findById(job.getId())
+							.filter(current -> Constants.BULK_TRANSFER_STATUS_RUNNING.equals(current.getStatus()))
+							.switchIfEmpty(Mono.defer(() -> refundExpired(job)));
+				});
+	}
+
+	/**
+	 * Credits the rows of a running job on the credit scheduler, keeping the
+	 * subscription until it ends so that it is disposed on shutdown. An error
+	 * that escapes the crediting is logged; the job is then left running and is
+	 * resumed once it becomes stale.
+	 *
+	 * @param job the running job
+	 */
+	private void launchCredits(BulkTransferJobEntity job) {
+		AtomicReference<Disposable> subscription = new AtomicReference<>();
+		Disposable credits = creditRows(job)
+				.subscribeOn(creditScheduler)
+				.doFinally(signal -> Optional.ofNullable(subscription.get()).ifPresent(running::remove))
+				.subscribe(null, error -> logger.error("Bulk transfer {} stopped crediting: {}", job.getId(),
+						error.getMessage()));
+
+		subscription.set(credits);
+		running.add(credits);
+		if (credits.isDisposed()) {
+			running.remove(credits);
+		}
+	}
+
+	/**
+	 * Refunds the debit of a job that was failed while its total was being
+	 * debited.
+	 *
+	 * @param job the failed job
+	 * @return a Mono signalling that the job expired once the debit is refunded
+	 */
+	private Mono<BulkTransferJobEntity> refundExpired(BulkTransferJobEntity job) {
+		return refund(job, job.getTotalAmount(), job.getId() + Constants.JOURNAL_REVERSAL_SUFFIX)
+				.then(mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())),
+						new Update().set("refundedAmount", job.getTotalAmount()), BulkTransferJobEntity.class))
+				.then(Mono.error(new IllegalStateException("The bulk transfer expired before its total was debited")));
+	}
+
+	/**
+	 * Claims a stale job by moving its update date forward, unless another node
+	 * claimed it first.
+	 *
+	 * @param job           the stale job
+	 * @param updatedBefore the date before which the job is stale
+	 * @return a Mono emitting the claimed job, or empty if it was claimed first
+	 */
+	private Mono<BulkTransferJobEntity> claim(BulkTransferJobEntity job, LocalDateTime updatedBefore) {
+		return mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(job.getId())
+				.and("status").is(job.getStatus())
+				.and("updateDate").lt(updatedBefore)),
+				new Update().set("updateDate", LocalDateTime.now()),
+				FindAndModifyOptions.options().returnNew(true), BulkTransferJobEntity.class);
+	}
+
+	/**
+	 * Recovers a job that stopped while receiving its rows. If its total reached
+	 * the source account, every row was stored, so the job is marked as running
+	 * and resumed; otherwise it is failed without moving any money.
+	 *
+	 * @param job the stale job
+	 * @return a Mono completing when the job is resumed or failed
+	 */
+	private Mono<Void> recoverReceiving(BulkTransferJobEntity job) {
+		return isApplied(job.getAccountNumberWithdraws(), job.getId())
+				.flatMap(debited -> {
+					if (!debited) {
+						return finish(job, Constants.BULK_TRANSFER_STATUS_RECEIVING,
+								Constants.BULK_TRANSFER_STATUS_FAILED,
+								"The upload of the bulk transfer was interrupted");
+					}
+					return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())
+							.and("status").is(Constants.BULK_TRANSFER_STATUS_RECEIVING)),
+							new Update().set("status", Constants.BULK_TRANSFER_STATUS_RUNNING)
+									.set("updateDate", LocalDateTime.now()),
+							BulkTransferJobEntity.class)
+							.filter(result -> result.getModifiedCount() > 0)
+							.flatMap(result -> {
+								job.setStatus(Constants.BULK_TRANSFER_STATUS_RUNNING);
+								return resume(job);
+							});
+				});
+	}
+
+	/**
+	 * Resumes a running job from its last recorded chunk. A job whose remaining
+	 * amount was already refunded was failing, so it is failed again instead.
+	 *
+	 * @param job the running job
+	 * @return a Mono completing when the job is finished
+	 */
+	private Mono<Void> resume(BulkTransferJobEntity job) {
+		return isApplied(job.getAccountNumberWithdraws(), job.getId() + Constants.JOURNAL_REVERSAL_SUFFIX)
+				.flatMap(refunded -> refunded
+						? failRemaining(job, "The bulk transfer was interrupted while failing")
+						: creditRows(job));
+	}
+
+	/**
+	 * Credits the stored rows of a job chunk by chunk, from its last recorded
+	 * chunk. If a chunk fails, it is settled with the credits that did reach their
+	 * accounts, the amount of the chunks not yet credited is refunded and the job
+	 * is marked as failed. If the failure cannot be settled either, the job is
+	 * left running, to be resumed later.
+	 *
+	 * @param job the running job
+	 * @return a Mono completing when the job is finished
+	 */
+	private Mono<Void> creditRows(BulkTransferJobEntity job) {
+		AtomicReference<BulkTransferChunkEntity> current = new AtomicReference<>();
+
+		return bulkTransferChunkRepository
+				.findByJobIdAndIndexGreaterThanEqualOrderByIndexAsc(job.getId(),
+						job.getProcessedRows() / job.getChunkSize())
+				.concatMap(chunk -> {
+					current.set(chunk);
+					return creditChunk(job, chunk);
+				}, 1)
+				.then(finish(job, Constants.BULK_TRANSFER_STATUS_RUNNING, Constants.BULK_TRANSFER_STATUS_COMPLETED,
+						null))
+				.doOnSuccess(done -> logger.info("Bulk transfer {} completed", job.getId()))
+				.onErrorResume(error -> {
+					BulkTransferChunkEntity failedChunk = current.get();
+					logger.error("Bulk transfer {} failed at chunk {}: {}", job.getId(),
+							failedChunk == null ? null : failedChunk.getIndex(), error.getMessage());
+					if (failedChunk == null) {
+						return Mono.empty();
+					}
+					return settleChunk(job, failedChunk)
+							.then(failRemaining(job,
+									"Chunk " + failedChunk.getId() + " failed: " + error.getMessage()))
+							.onErrorResume(settleError -> {
+								logger.error("Bulk transfer {} is left running to be resumed: {}", job.getId(),
+										settleError.getMessage());
+								return Mono.empty();
+							});
+				});
+	}
+
+	/**
+	 * Credits one chunk of rows with one bulk write, retried on failure, and
+	 * settles it.
+	 *
+	 * @param job   the job
+	 * @param chunk the chunk
+	 * @return a Mono completing when the progress of the chunk is recorded
+	 */
+	private Mono<Void> creditChunk(BulkTransferJobEntity job, BulkTransferChunkEntity chunk) {
+		return creditAccounts(chunk.getId(), creditsOf(chunk), LocalDateTime.now())
+				.retryWhen(Retry.backoff(Constants.BULK_TRANSFER_CREDIT_ATTEMPTS - 1, Duration.ofMillis(100)))
+				.then(settleChunk(job, chunk));
+	}
+
+	/**
+	 * Settles a chunk from the accounts that hold its tag: the rows of the
+	 * accounts that were not credited are refunded, the transactions of the
+	 * credited rows not recorded yet are recorded and added to the daily balances
+	 * of their accounts, and the outcome is added to the progress of the job.
+	 * Every step can be repeated without effect, so a chunk settled twice is only
+	 * counted once.
+	 *
+	 * @param job   the job
+	 * @param chunk the chunk
+	 * @return a Mono completing when the progress of the chunk is recorded
+	 */
+	private Mono<Void> settleChunk(BulkTransferJobEntity job, BulkTransferChunkEntity chunk) {
+		Map<String, Double> credits = creditsOf(chunk);
+		LocalDateTime creditDate = LocalDateTime.now();
+
+		return findCreditedAccounts(chunk.getId(), credits.keySet())
+				.flatMap(creditedAccounts -> {
+					List<Integer> credited = new ArrayList<>();
+					List<String> errors = new ArrayList<>();
+					double creditedAmount = 0.0;
+					double failedAmount = 0.0;
+
+					for (int i = 0; i < chunk.getRows().size(); i++) {
+						BulkTransferRow row = chunk.getRows().get(i);
+						if (creditedAccounts.containsKey(row.getAccountNumberReceive())) {
+							credited.add(i);
+							creditedAmount += row.getAmount();
+						} else {
+							failedAmount += row.getAmount();
+							errors.add("Row " + (chunk.getIndex() * job.getChunkSize() + i + 1) + ": the account "
+									+ row.getAccountNumberReceive() + " does not exist or is not active");
+						}
+					}
+
+					double settledCredits = creditedAmount;
+					double settledRefunds = failedAmount;
+					return refund(job, failedAmount, chunk.getId() + Constants.JOURNAL_REVERSAL_SUFFIX)
+							.then(recordTransactions(job, chunk, credited))
+							.flatMap(recorded -> recordBalanceChanges(recorded, creditedAccounts, creditDate))
+							.then(recordProgress(job, chunk, credited.size(), settledCredits, settledRefunds,
+									errors));
+				});
+	}
+
+	/**
+	 * Adds the credits of the given rows to the daily balances of their accounts.
+	 *
+	 * @param rows             the credited rows
+	 * @param creditedAccounts the balance of each credited account
+	 * @param creditDate       the date of the credits
+	 * @return a Mono completing when the daily balances are updated
+	 */
+	private Mono<Void> recordBalanceChanges(List<BulkTransferRow> rows, Map<String, Double> creditedAccounts,
+			LocalDateTime creditDate) {
+		return balanceSnapshotService.recordBalanceChanges(rows.stream()
+				.collect(Collectors.groupingBy(BulkTransferRow::getAccountNumberReceive, LinkedHashMap::new,
+						Collectors.summingDouble(BulkTransferRow::getAmount)))
+				.entrySet().stream()
+				.map(account -> new BalanceChange(account.getKey(), account.getValue(),
+						creditedAccounts.get(account.getKey()), creditDate))
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Credits the accounts of a chunk with one unordered bulk write. Each update
+	 * only matches an active account that does not hold the tag of the chunk yet,
+	 * and pushes the tag in the same write.
+	 *
+	 * @param tag        the tag of the chunk
+	 * @param credits    the amount credited to each account
+	 * @param creditDate the date of the credits
+	 * @return a Mono completing when the bulk write is acknowledged
+	 */
+	private Mono<Void> creditAccounts(String tag, Map<String, Double> credits, LocalDateTime creditDate) {
+		Date now = Date.from(creditDate.atZone(ZoneId.systemDefault()).toInstant());
+		Document pushTag = new Document("appliedJournal", tag);
+		List<UpdateOneModel<Document>> updates = credits.entrySet().stream()
+				.map(credit -> new UpdateOneModel<Document>(
+						new Document("accountNumber", credit.getKey())
+								.append("isActive", true)
+								.append("appliedJournal", new Document("$ne", tag)),
+						new Document("$inc", new Document("amount", credit.getValue()))
+								.append("$set", new Document("updateDate", now).append("lastMovementDate", now))
+								.append("$push", pushTag)))
+				.collect(Collectors.toList());
+
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(AccountEntity.class))
+				.flatMap(collection -> Mono.from(collection.bulkWrite(updates,
+						new BulkWriteOptions().ordered(false))))
+				.then();
+	}
+
+	/**
+	 * Finds the accounts of a chunk that hold its tag, which are the accounts the
+	 * chunk credited, with their balances.
+	 *
+	 * @param tag            the tag of the chunk
+	 * @param accountNumbers the account numbers of the chunk
+	 * @return a Mono emitting the balance of each credited account
+	 */
+	private Mono<Map<String, Double>> findCreditedAccounts(String tag, Set<String> accountNumbers) {
+		Query query = Query.query(Criteria.where("accountNumber").in(accountNumbers).and("appliedJournal").is(tag));
+		query.fields().include("accountNumber").include("amount");
+
+		return mongoTemplate.find(query, AccountEntity.class)
+				.collectMap(AccountEntity::getAccountNumber, AccountEntity::getAmount);
+	}
+
+	/**
+	 * Records the transactions of the credited rows of a chunk with one insert.
+	 * The transaction of the row at position i of the chunk takes the i-th
+	 * operation number reserved for the chunk, so the rows whose transaction was
+	 * recorded by an earlier attempt are found by their operation numbers and
+	 * skipped.
+	 *
+	 * @param job      the job
+	 * @param chunk    the chunk
+	 * @param credited the positions of the credited rows in the chunk
+	 * @return a Mono emitting the rows whose transactions were recorded now
+	 */
+	private Mono<List<BulkTransferRow>> recordTransactions(BulkTransferJobEntity job, BulkTransferChunkEntity chunk,
+			List<Integer> credited) {
+		if (credited.isEmpty()) {
+			return Mono.just(Collections.emptyList());
+		}
+
+		return reserveOperationNumbers(chunk)
+				.flatMap(first -> {
+					Map<String, BulkTransferRow> rows = new LinkedHashMap<>();
+					credited.forEach(i -> rows.put(String.format("%012d", first + i), chunk.getRows().get(i)));
+					Query query = Query.query(Criteria.where("operationNumber").in(rows.keySet()));
+					query.fields().include("operationNumber");
+
+					return mongoTemplate.find(query, TransactionEntity.class)
+							.map(TransactionEntity::getOperationNumber)
+							.collect(Collectors.toSet())
+							.flatMap(recorded -> insertTransactions(job, rows, recorded));
+				});
+	}
+
+	/**
+	 * Inserts the transactions of the rows whose operation number was not
+	 * recorded yet.
+	 *
+	 * @param job      the job
+	 * @param rows     the credited rows keyed by operation number
+	 * @param recorded the operation numbers already recorded
+	 * @return a Mono emitting the rows whose transactions were inserted
+	 */
+	private Mono<List<BulkTransferRow>> insertTransactions(BulkTransferJobEntity job,
+			Map<String, BulkTransferRow> rows, Set<String> recorded) {
+		LocalDateTime transactionDate = LocalDateTime.now();
+		List<TransactionEntity> transactions = new ArrayList<>();
+		List<BulkTransferRow> inserted = new ArrayList<>();
+
+		rows.forEach((operationNumber, row) -> {
+			if (!recorded.contains(operationNumber)) {
+				inserted.add(row);
+				transactions.add(toTransaction(job, row, operationNumber, transactionDate));
+			}
+		});
+
+		if (transactions.isEmpty()) {
+			return Mono.just(inserted);
+		}
+		return mongoTemplate.insert(transactions, TransactionEntity.class).then(Mono.just(inserted));
+	}
+
+	/**
+	 * Builds the transaction of a credited row.
+	 *
+	 * @param job             the job
+	 * @param row             the credited row
+	 * @param operationNumber the operation number of the transaction
+	 * @param transactionDate the date of the transaction
+	 * @return the transaction
+	 */
+	private TransactionEntity toTransaction(BulkTransferJobEntity job, BulkTransferRow row, String operationNumber,
+			LocalDateTime transactionDate) {
+		return TransactionMapper.mapperToEntity(transactionDate, 0.00, Constants.TRANSACTION_TYPE_BANK_TRANSFER,
+				row.getAmount(), row.getAccountNumberReceive(), operationNumber, null, job.getAccountNumberWithdraws(),
+				null, job.getNameWithdraws(), null);
+	}
+
+	/**
+	 * Reserves one operation number for every row of a chunk with a single
+	 * increment of the operation number sequence, unless they were reserved by
+	 * an earlier attempt. The numbers of rows that are not credited are left
+	 * unused.
+	 *
+	 * @param chunk the chunk
+	 * @return a Mono emitting the first operation number of the chunk
+	 */
+	private Mono<Long> reserveOperationNumbers(BulkTransferChunkEntity chunk) {
+		if (chunk.getFirstOperationNumber() != null) {
+			return Mono.just(chunk.getFirstOperationNumber());
+		}
+
+		return sequenceService.increment(Constants.SEQUENCE_OPERATION_NUMBER, chunk.getRows().size(),
+				transactionRepository.findFirstByOrderByOperationNumberDesc()
+						.map(transaction -> Long.parseLong(transaction.getOperationNumber())))
+				.flatMap(last -> {
+					long first = last - chunk.getRows().size() + 1;
+					chunk.setFirstOperationNumber(first);
+					return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(chunk.getId())),
+							new Update().set("firstOperationNumber", first), BulkTransferChunkEntity.class)
+							.thenReturn(first);
+				});
+	}
+
+	/**
+	 * Refunds an amount to the source account of a job. The refund is tagged, so
+	 * it is applied at most once; the refunded amount of the job is recorded by
+	 * the caller.
+	 *
+	 * @param job    the job
+	 * @param amount the amount to refund
+	 * @param tag    the tag of the refund
+	 * @return a Mono completing when the refund is applied
+	 */
+	private Mono<Void> refund(BulkTransferJobEntity job, double amount, String tag) {
+		if (amount <= 0) {
+			return Mono.empty();
+		}
+
+		return accountsService.applyJournalEntries(job.getAccountNumberWithdraws(), amount,
+				Collections.singletonList(tag))
+				.then();
+	}
+
+	/**
+	 * Refunds the amount of a job that was neither credited nor refunded yet and
+	 * marks the job as failed.
+	 *
+	 * @param job     the job
+	 * @param failure the error that failed the job
+	 * @return a Mono completing when the job is failed
+	 */
+	private Mono<Void> failRemaining(BulkTransferJobEntity job, String failure) {
+		return bulkTransferJobRepository.findById(job.getId())
+				.flatMap(current -> {
+					double remaining = roundToCents(current.getTotalAmount() - current.getCreditedAmount()
+							- current.getRefundedAmount());
+					Update update = new Update().inc("failedRows", current.getTotalRows() - current.getProcessedRows());
+					if (remaining > 0) {
+						update.inc("refundedAmount", remaining);
+					}
+					return refund(current, remaining, current.getId() + Constants.JOURNAL_REVERSAL_SUFFIX)
+							.then(finish(current, Constants.BULK_TRANSFER_STATUS_RUNNING,
+									Constants.BULK_TRANSFER_STATUS_FAILED, failure, update));
+				});
+	}
+
+	/**
+	 * Adds the outcome of a chunk to the progress of a job. The update only
+	 * matches while the job's progress stops right before the chunk, so the
+	 * outcome of a chunk is added once.
+	 *
+	 * @param job            the job
+	 * @param chunk          the chunk
+	 * @param credited       the number of rows credited
+	 * @param creditedAmount the amount credited
+	 * @param refundedAmount the amount of the rows that could not be credited
+	 * @param errors         the errors of the rows that could not be credited
+	 * @return a Mono completing when the progress is recorded
+	 */
+	private Mono<Void> recordProgress(BulkTransferJobEntity job, BulkTransferChunkEntity chunk, int credited,
+			double creditedAmount, double refundedAmount, List<String> errors) {
+		int processed = chunk.getRows().size();
+		Update update = new Update().inc("processedRows", processed)
+				.inc("creditedRows", credited)
+				.inc("failedRows", processed - credited)
+				.inc("creditedAmount", creditedAmount)
+				.inc("refundedAmount", refundedAmount)
+				.set("updateDate", LocalDateTime.now());
+
+		if (!errors.isEmpty()) {
+			update.push("errors").slice(Constants.BULK_TRANSFER_MAX_ERRORS).each(errors.toArray());
+		}
+
+		return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())
+				.and("processedRows").is(chunk.getIndex() * job.getChunkSize())), update,
+				BulkTransferJobEntity.class).then();
+	}
+
+	/**
+	 * Marks a job in the given status as finished.
+	 *
+	 * @param job        the job
+	 * @param fromStatus the status the job must be in
+	 * @param status     the final status of the job
+	 * @param error      the error that finished the job, or null
+	 * @return a Mono completing when the job is updated
+	 */
+	private Mono<Void> finish(BulkTransferJobEntity job, String fromStatus, String status, String error) {
+		return finish(job, fromStatus, status, error, new Update());
+	}
+
+	/**
+	 * Marks a job in the given status as finished, together with the given
+	 * update. Its chunks are kept until the job is released.
+	 *
+	 * @param job        the job
+	 * @param fromStatus the status the job must be in
+	 * @param status     the final status of the job
+	 * @param error      the error that finished the job, or null
+	 * @param update     the other changes to the job
+	 * @return a Mono completing when the job is updated
+	 */
+	private Mono<Void> finish(BulkTransferJobEntity job, String fromStatus, String status, String error,
+			Update update) {
+		LocalDateTime now = LocalDateTime.now();
+		update.set("status", status).set("updateDate", now).set("completeDate", now);
+
+		if (error != null) {
+			update.push("errors").slice(Constants.BULK_TRANSFER_MAX_ERRORS).each(error);
+		}
+
+		return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(job.getId())
+				.and("status").is(fromStatus)), update, BulkTransferJobEntity.class)
+				.then();
+	}
+
+	/**
+	 * Checks whether a tagged balance change was applied to an account.
+	 *
+	 * @param accountNumber the account number
+	 * @param tag           the tag of the change
+	 * @return a Mono emitting true if the account's applied journal holds the tag
+	 */
+	private Mono<Boolean> isApplied(String accountNumber, String tag) {
+		return accountRepository.findByAccountNumberAndIsActiveTrue(accountNumber)
+				.map(accountEntity -> accountEntity.getAppliedJournal() != null
+						&& accountEntity.getAppliedJournal().contains(tag))
+				.defaultIfEmpty(false);
+	}
+
+	/**
+	 * Sums the amount credited to each account by a chunk.
+	 *
+	 * @param chunk the chunk
+	 * @return the amount of each account, in the order of the rows
+	 */
+	private static Map<String, Double> creditsOf(BulkTransferChunkEntity chunk) {
+		return chunk.getRows().stream()
+				.collect(Collectors.groupingBy(BulkTransferRow::getAccountNumberReceive,
+						LinkedHashMap::new, Collectors.summingDouble(BulkTransferRow::getAmount)));
+	}
+
+	/**
+	 * Sums the amounts of a list of rows.
+	 *
+	 * @param rows the rows
+	 * @return the total amount of the rows
+	 */
+	private static double sum(List<BulkTransferRow> rows) {
+		return rows.stream().mapToDouble(BulkTransferRow::getAmount).sum();
+	}
+
+	/**
+	 * Rounds an amount to cents, dropping the error of adding many amounts.
+	 *
+	 * @param amount the amount
+	 * @return the amount rounded to two decimals
+	 */
+	private static double roundToCents(double amount) {
+		return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).doubleValue();
+	}
+}
@@ -0,0 +1,128 @@
+package com.nttdata.bank.service.impl;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.service.CardNumberService;
+import com.nttdata.bank.service.SequenceService;
+import com.nttdata.bank.util.CheckDigit;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * CardNumberServiceImpl is the implementation class for the CardNumberService
+ * interface. The counter of each card type and document number is incremented
+ * with the atomic increment of the SequenceService, so a number is reserved in
+ * a single round trip and never given twice. Card numbers keep their 16 digits
+ * for an 8-digit document: the last four digits, formerly random, are now the
+ * counter and the check digit.
+ */
+@Service
+public class CardNumberServiceImpl implements CardNumberService {
+
+	private static final long COUNTER_CAPACITY = 1000L;
+
+	@Autowired
+	private SequenceService sequenceService;
+
+	@Value("${bank.card-number.batch-concurrency:16}")
+	private int batchConcurrency = 16;
+
+	/**
+	 * Issues the next card number of a customer.
+	 *
+	 * @param cardType       The card type, credit or debit
+	 * @param documentNumber The document number of the customer
+	 * @return A Mono emitting the issued card number
+	 */
+	@Override
+	public Mono<String> nextCardNumber(String cardType, String documentNumber) {
+		return nextCardNumbers(cardType, documentNumber, 1).next();
+	}
+
+	/**
+	 * Issues several card numbers of a customer with a single increment of the
+	 * counter. The range (last - count, last] belongs to the caller.
+	 *
+	 * @param cardType       The card type, credit or debit
+	 * @param documentNumber The document number of the customer
+	 * @param count          The number of card numbers to issue
+	 * @return A Flux emitting the issued card numbers in ascending order
+	 */
+	@Override
+	public Flux<String> nextCardNumbers(String cardType, String documentNumber, int count) {
+		return Flux.defer(() -> {
+			String prefix = getPrefix(cardType, documentNumber);
+			if (count <= 0) {
+				throw new IllegalArgumentException("The number of cards must be positive");
+			}
+
+			return sequenceService.increment(Constants.SEQUENCE_CARD_NUMBER_PREFIX + prefix, count, Mono.just(0L))
+					.flatMapMany(last -> {
+						if (last >= COUNTER_CAPACITY) {
+							return Flux.error(new IllegalStateException("The card numbers of the customer "
+									+ documentNumber + " are exhausted"));
+						}
+						return Flux.range(0, count).map(i -> format(prefix, last - count + 1 + i));
+					});
+		});
+	}
+
+	/**
+	 * Issues the card numbers of a renewal batch. The counters of the distinct
+	 * document numbers are incremented concurrently, up to the configured batch
+	 * concurrency.
+	 *
+	 * @param cardType        The card type, credit or debit
+	 * @param documentNumbers The document numbers of the renewed cards
+	 * @return A Mono emitting the issued card numbers by document number
+	 */
+	@Override
+	public Mono<Map<String, List<String>>> issueCardNumbers(String cardType, List<String> documentNumbers) {
+		Map<String, Long> counts = documentNumbers.stream()
+				.collect(Collectors.groupingBy(Function.identity(), LinkedHashMap::new, Collectors.counting()));
+
+		return Flux.fromIterable(counts.entrySet())
+				.flatMap(entry -> nextCardNumbers(cardType, entry.getKey(), entry.getValue().intValue())
+						.collectList()
+						.map(cardNumbers -> Map.entry(entry.getKey(), cardNumbers)), batchConcurrency)
+				.collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+	}
+
+	/**
+	 * Formats a counter value as a card number.
+	 *
+	 * @param prefix  The card type, bank code and document number
+	 * @param counter The counter value
+	 * @return The card number
+	 */
+	private String format(String prefix, long counter) {
+		String cardNumber = prefix + String.format("%03d", counter);
+		return cardNumber + CheckDigit.luhn(cardNumber);
+	}
+
+	/**
+	 * Returns the part of the card number that precedes the counter.
+	 *
+	 * @param cardType       The card type, credit or debit
+	 * @param documentNumber The document number of the customer
+	 * @return The card type, bank code and document number
+	 * @throws IllegalArgumentException if the card type is unknown or the document
+	 *                                  number is not numeric
+	 */
+	private String getPrefix(String cardType, String documentNumber) {
+		if (!Constants.CREDIT_TYPE.equals(cardType) && !Constants.DEBIT_TYPE.equals(cardType)) {
+			throw new IllegalArgumentException("Invalid card type");
+		}
+		if (documentNumber == null || !documentNumber.matches("\\d+")) {
+			throw new IllegalArgumentException("The document number must only contain digits");
+		}
+		return cardType + Constants.BANK_CODE + documentNumber;
+	}
+}
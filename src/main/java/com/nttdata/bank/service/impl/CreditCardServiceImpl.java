@@ -3,6 +3,13 @@ package com.nttdata.bank.service.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import com.nttdata.bank.entity.Consumption;
 import com.nttdata.bank.entity.CreditCardEntity;
@@ -17,13 +24,15 @@ import com.nttdata.bank.request.CreditCardRequest;
 import com.nttdata.bank.response.ConsumptionResponse;
 import com.nttdata.bank.response.CreditCardDebtResponse;
 import com.nttdata.bank.response.CreditCardResponse;
+import com.nttdata.bank.service.CardNumberService;
 import com.nttdata.bank.service.CreditCardService;
 import com.nttdata.bank.util.Constants;
 import com.nttdata.bank.util.Utility;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import javax.validation.Valid;
@@ -33,7 +42,8 @@ import javax.validation.Valid;
  * interface. This class provides the actual logic for handling credit
  * card-related operations such as requesting a credit card, checking credit
  * card debt, finding all credit cards, updating a credit card, and deleting a
- * credit card.
+ * credit card. Consumptions reserve the credit with a guarded atomic decrement
+ * of the available credit, so concurrent charges cannot overspend the card.
  */
 
 @Service
@@ -53,6 +63,12 @@ public class CreditCardServiceImpl implements CreditCardService {
 	@Autowired
 	private CreditCardScheduleRepository creditCardScheduleRepository;
 
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Autowired
+	private CardNumberService cardNumberService;
+
 	/**
 	 * Requests a new credit card.
 	 *
@@ -64,12 +80,10 @@ public class CreditCardServiceImpl implements CreditCardService {
 		logger.debug("Requesting credit card: {}", creditCardRequest);
 		validateCreditCard(creditCardRequest);
 		CreditCardEntity creditCardEntity = CreditCardMapper.mapperToEntity(creditCardRequest);
-		creditCardEntity.setCreditCardNumber(
-				generateUniqueCreditCardNumber(creditCardRequest.getDocumentNumber()));
 		creditCardEntity.setCreateDate(LocalDateTime.now());
 		creditCardEntity.setIsActive(true);
 		creditCardEntity.setAllowConsumption(true);
-		CreditCardEntity savedCard = creditCardRepository.save(creditCardEntity).block();
+		CreditCardEntity savedCard = saveWithCreditCardNumber(creditCardEntity).block();
 		CreditCardResponse response = CreditCardMapper.mapperToResponse(savedCard);
 		logger.info("Credit card created successfully: {}", response);
 		return response;
@@ -145,17 +159,36 @@ public class CreditCardServiceImpl implements CreditCardService {
 	}
 
 	/**
-	 * Finds all credit cards.
+	 * Finds one page of active credit cards, ordered by id. The page is read
+	 * through the _id index starting after the given id.
 	 *
+	 * @param afterId The id of the last credit card read, or null for the first
+	 *                page
+	 * @param size    The page size, or null for the default of 100
 	 * @return A list of credit card responses
 	 */
 	@Override
-	public List<CreditCardResponse> findAllCreditCards() {
-		logger.info("All credit cards retrieved successfully");
-		return creditCardRepository.findByIsActiveTrue().map(CreditCardMapper::mapperToResponse)
+	public List<CreditCardResponse> findAllCreditCards(String afterId, Integer size) {
+		Pageable page = Utility.getListPage(size);
+		logger.info("Credit cards page retrieved successfully after id: {}", afterId);
+		return (afterId == null ? creditCardRepository.findActivePage(page)
+				: creditCardRepository.findActivePageAfter(afterId, page))
+				.map(CreditCardMapper::mapperToResponse)
 				.collectList().block();
 	}
 
+	/**
+	 * Streams all active credit cards. The credit cards are read from the cursor
+	 * as the subscriber requests them, so they are never held in memory together.
+	 *
+	 * @return A Flux emitting the credit card responses
+	 */
+	@Override
+	public Flux<CreditCardResponse> streamAllCreditCards() {
+		logger.debug("Streaming all credit cards");
+		return creditCardRepository.findByIsActiveTrue().map(CreditCardMapper::mapperToResponse);
+	}
+
 	/**
 	 * Updates a credit card.
 	 *
@@ -221,7 +254,11 @@ public class CreditCardServiceImpl implements CreditCardService {
 	}
 
 	/**
-	 * Charges a consumption to the credit card.
+	 * Charges a consumption to the credit card. The credit is reserved first with
+	 * an atomic decrement guarded on the card allowing consumptions and having
+	 * enough available credit; the consumption is then pushed into the schedule of
+	 * its payment date, which is created if it does not exist. If the push fails,
+	 * the reservation is released.
 	 *
 	 * @param consumptionRequest The request containing details about the
 	 *                           consumption to be charged
@@ -229,95 +266,145 @@ public class CreditCardServiceImpl implements CreditCardService {
 	 */
 	@Override
 	public ConsumptionResponse chargeConsumption(@Valid ConsumptionRequest consumptionRequest) {
-		CreditCardEntity creditCardEntity = creditCardRepository
-				.findByCreditCardNumberAndIsActiveTrue(consumptionRequest.getCreditCardNumber())
-				.block();
+		Consumption consumption = Optional.ofNullable(consumptionRequest).map(request -> {
+			Consumption newConsumption = new Consumption();
+			newConsumption.setAmount(request.getAmount());
+			newConsumption.setNumberOfInstallments(request.getNumberOfInstallments());
+			newConsumption.setProductOrServiceName(request.getProductOrServiceName());
+			newConsumption.setConsumptionDate(LocalDate.now());
+			return newConsumption;
+		}).orElseThrow(() -> new IllegalArgumentException("Consumption request cannot be null"));
+		String creditCardNumber = consumptionRequest.getCreditCardNumber();
+		Double amount = consumptionRequest.getAmount();
+
+		return reserveCredit(creditCardNumber, amount)
+				.flatMap(creditCardEntity -> {
+					LocalDate billingDate = getBillingDate(consumption.getConsumptionDate());
+					LocalDate paymentDate = getPaymentDate(billingDate, creditCardEntity.getPaymentDay());
+
+					return mongoTemplate.upsert(
+							Query.query(Criteria.where("creditCardNumber").is(creditCardNumber)
+									.and("paymentDate").is(paymentDate)),
+							new Update().push("consumptionQuota", consumption).setOnInsert("paid", false),
+							CreditCardScheduleEntity.class)
+							.onErrorResume(error -> releaseCredit(creditCardNumber, amount)
+									.then(Mono.error(error)))
+							.map(result -> {
+								ConsumptionResponse consumptionResponse = new ConsumptionResponse();
+								consumptionResponse.setBillingDate(billingDate);
+								consumptionResponse.setPaymentDate(paymentDate);
+								return consumptionResponse;
+							});
+				}).block();
+	}
 
-		if (!creditCardEntity.getAllowConsumption()) {
-			throw new RuntimeException("Consumption is not allowed.");
-		}
-		if (consumptionRequest.getAmount() > creditCardEntity.getAvailableCredit()) {
-			throw new RuntimeException("Amount exceeds available credit.");
-		}
+	/**
+	 * Reserves credit on an active credit card that allows consumptions, with a
+	 * single atomic decrement guarded on the available credit.
+	 *
+	 * @param creditCardNumber The number of the credit card
+	 * @param amount           The amount to reserve
+	 * @return A Mono emitting the credit card after the reservation
+	 * @throws RuntimeException if the card does not allow consumptions or the
+	 *                          amount exceeds its available credit
+	 */
+	private Mono<CreditCardEntity> reserveCredit(String creditCardNumber, Double amount) {
+		return mongoTemplate.findAndModify(
+				Query.query(Criteria.where("creditCardNumber").is(creditCardNumber).and("isActive").is(true)
+						.and("allowConsumption").is(true).and("availableCredit").gte(amount)),
+				new Update().inc("availableCredit", -amount).set("updateDate", LocalDateTime.now()),
+				FindAndModifyOptions.options().returnNew(true), CreditCardEntity.class)
+				.switchIfEmpty(Mono.defer(() -> creditCardRepository
+						.findByCreditCardNumberAndIsActiveTrue(creditCardNumber)
+						.switchIfEmpty(Mono.error(new IllegalArgumentException("Credit card number not found.")))
+						.flatMap(creditCardEntity -> Mono.<CreditCardEntity>error(
+								Boolean.TRUE.equals(creditCardEntity.getAllowConsumption())
+										? new RuntimeException("Amount exceeds available credit.")
+										: new RuntimeException("Consumption is not allowed.")))));
+	}
 
-		LocalDate consumptionDate = LocalDate.now();
-		LocalDate billingDate = consumptionDate.withDayOfMonth(21);
-		int paymentDay = creditCardEntity.getPaymentDay();
-		LocalDate paymentDate;
+	/**
+	 * Releases credit reserved for a consumption that could not be recorded.
+	 *
+	 * @param creditCardNumber The number of the credit card
+	 * @param amount           The amount to release
+	 * @return A Mono that completes once the credit is released
+	 */
+	private Mono<Void> releaseCredit(String creditCardNumber, Double amount) {
+		return mongoTemplate.updateFirst(Query.query(Criteria.where("creditCardNumber").is(creditCardNumber)),
+				new Update().inc("availableCredit", amount).set("updateDate", LocalDateTime.now()),
+				CreditCardEntity.class)
+				.doOnError(error -> logger.error("Unable to release {} on credit card {}: {}", amount,
+						creditCardNumber, error.getMessage()))
+				.onErrorResume(error -> Mono.empty())
+				.then();
+	}
 
+	/**
+	 * Returns the billing date of a consumption: the 21st of its month, or of the
+	 * next month from the 21st on.
+	 *
+	 * @param consumptionDate The date of the consumption
+	 * @return The billing date
+	 */
+	private LocalDate getBillingDate(LocalDate consumptionDate) {
+		LocalDate billingDate = consumptionDate.withDayOfMonth(21);
 		if (consumptionDate.getDayOfMonth() >= 21) {
 			billingDate = billingDate.plusMonths(1);
 		}
+		return billingDate;
+	}
+
+	/**
+	 * Returns the payment date of a billing date for the payment day of a card.
+	 *
+	 * @param billingDate The billing date
+	 * @param paymentDay  The payment day of the credit card
+	 * @return The payment date
+	 */
+	private LocalDate getPaymentDate(LocalDate billingDate, int paymentDay) {
 		if (paymentDay <= 21) {
-			paymentDate = billingDate.withDayOfMonth(paymentDay);
-		} else {
-			paymentDate = billingDate.plusMonths(2).withDayOfMonth(paymentDay);
+			return billingDate.withDayOfMonth(paymentDay);
 		}
-
-		CreditCardScheduleEntity schedule = creditCardScheduleRepository
-				.findByCreditCardNumberAndPaymentDate(creditCardEntity.getCreditCardNumber(),
-						paymentDate)
-				.switchIfEmpty(Mono.defer(() -> {
-					CreditCardScheduleEntity newSchedule = new CreditCardScheduleEntity();
-					newSchedule.setCreditCardNumber(creditCardEntity.getCreditCardNumber());
-					newSchedule.setPaymentDate(paymentDate);
-					newSchedule.setPaid(false);
-					newSchedule.setConsumptionQuota(new ArrayList<>());
-					return creditCardScheduleRepository.save(newSchedule);
-				})).block();
-
-		schedule.getConsumptionQuota().add(Optional.ofNullable(consumptionRequest).map(request -> {
-			Consumption newConsumption = new Consumption();
-			newConsumption.setAmount(request.getAmount());
-			newConsumption.setNumberOfInstallments(request.getNumberOfInstallments());
-			newConsumption.setProductOrServiceName(request.getProductOrServiceName());
-			return newConsumption;
-		}).orElseThrow(() -> new IllegalArgumentException("Consumption request cannot be null")));
-		creditCardScheduleRepository.save(schedule);
-
-		Optional.ofNullable(creditCardEntity).ifPresent(entity -> {
-			entity.setAvailableCredit(entity.getAvailableCredit() - consumptionRequest.getAmount());
-			entity.setUpdateDate(LocalDateTime.now());
-			creditCardRepository.save(entity);
-		});
-
-		ConsumptionResponse consumptionResponse = new ConsumptionResponse();
-		consumptionResponse.setBillingDate(billingDate);
-		consumptionResponse.setPaymentDate(paymentDate);
-		return consumptionResponse;
+		return billingDate.plusMonths(2).withDayOfMonth(paymentDay);
 	}
 
 	/**
-	 * Generates a unique document number.
+	 * Saves a new credit card with the next card number of its customer. The
+	 * unique index on the card number rejects a number already held by a card
+	 * issued with a random suffix, in which case the next number is issued.
 	 *
-	 * @param documentNumber The document Number
-	 * @return The generated unique account number
+	 * @param creditCardEntity The credit card to save
+	 * @return A Mono emitting the saved credit card
 	 */
-	private String generateUniqueCreditCardNumber(String documentNumber) {
-		String creditCardNumber;
-		boolean exists;
-		do {
-			creditCardNumber = Constants.CREDIT_TYPE + Constants.BANK_CODE + documentNumber
-					+ Utility.generateRandomNumber();
-
-			exists = creditCardRepository.existsByCreditCardNumber(creditCardNumber).toFuture()
-					.join();
-		} while (exists);
-		return creditCardNumber;
+	private Mono<CreditCardEntity> saveWithCreditCardNumber(CreditCardEntity creditCardEntity) {
+		return Mono.defer(() -> cardNumberService
+				.nextCardNumber(Constants.CREDIT_TYPE, creditCardEntity.getDocumentNumber())
+				.flatMap(creditCardNumber -> {
+					creditCardEntity.setCreditCardNumber(creditCardNumber);
+					return creditCardRepository.save(creditCardEntity);
+				}))
+				.retryWhen(Retry.max(Constants.CARD_NUMBER_ATTEMPTS - 1)
+						.filter(DuplicateKeyException.class::isInstance));
 	}
 
+	/**
+	 * Returns an amount to the available credit of an active credit card.
+	 *
+	 * @param creditCardNumber the number of the credit card
+	 * @param balanceReturned  the amount to add to the available credit
+	 * @return a Mono emitting the updated credit card
+	 * @throws IllegalArgumentException if the credit card does not exist
+	 */
 	@Override
-	public CreditCardEntity updateBalance(String creditCardNumber, Double balanceReturned) {
-	    CreditCardEntity entity = creditCardRepository
-	            .findByCreditCardNumberAndIsActiveTrue(creditCardNumber)
-	            .toFuture().join();
-
-	    if (entity == null) {
-	        throw new IllegalArgumentException("Credit card number not found.");
-	    }
-
-	    entity.setAvailableCredit(entity.getAvailableCredit() + balanceReturned);
-	    return creditCardRepository.save(entity).block();
+	public Mono<CreditCardEntity> updateBalance(String creditCardNumber, Double balanceReturned) {
+		return creditCardRepository.findByCreditCardNumberAndIsActiveTrue(creditCardNumber)
+				.switchIfEmpty(
+						Mono.error(new IllegalArgumentException("Credit card number not found.")))
+				.flatMap(entity -> {
+					entity.setAvailableCredit(entity.getAvailableCredit() + balanceReturned);
+					return creditCardRepository.save(entity);
+				});
 	}
 
 }
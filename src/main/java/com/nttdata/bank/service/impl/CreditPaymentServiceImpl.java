@@ -0,0 +1,385 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.entity.CreditCardScheduleEntity;
+import com.nttdata.bank.entity.CreditScheduleEntity;
+import com.nttdata.bank.service.CreditPaymentService;
+import com.nttdata.bank.util.CardPaymentWaterfall;
+import com.nttdata.bank.util.PaymentWaterfall;
+import reactor.core.publisher.Mono;
+
+/**
+ * CreditPaymentServiceImpl is the implementation class for the
+ * CreditPaymentService interface. Every schedule reached by a payment is
+ * updated by id in one unordered bulk write, guarded on the schedule being
+ * unpaid. The amounts paid are decremented, so a late amount accrued since the
+ * schedule was read is kept, and a schedule is only marked paid while its
+ * current debt is still the one the payment covers. The prepaid installments
+ * of a card are decremented by their position in the quota, so installments
+ * pushed by a concurrent billing are not overwritten, and the credit released
+ * is added to the card with a single increment. A payment tags every document
+ * it updates with its operation number; when fewer documents match than the
+ * payment reaches, the tagged ones are restored and the payment fails.
+ */
+@Service
+public class CreditPaymentServiceImpl implements CreditPaymentService {
+
+	private static final String APPLIED_PAYMENTS = "appliedPayments";
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	/**
+	 * Applies the changes of a payment to the credit schedules with a single bulk
+	 * write. If a schedule was paid or its debt grew since it was read, the
+	 * schedules already updated by the payment are restored and the payment
+	 * fails.
+	 *
+	 * @param paymentId the operation number of the payment
+	 * @param deltas    the changes of the schedules the payment reaches
+	 * @return a Mono emitting the number of schedules updated
+	 * @throws IllegalStateException if a schedule changed since it was read,
+	 *                               signalled through the Mono
+	 */
+	@Override
+	public Mono<Long> applyPayment(String paymentId, List<PaymentWaterfall.Delta> deltas) {
+		if (deltas.isEmpty()) {
+			return Mono.just(0L);
+		}
+
+		List<UpdateOneModel<Document>> updates = deltas.stream()
+				.map(delta -> tagged(paymentId, paymentUpdate(delta)))
+				.collect(Collectors.toList());
+
+		return writeUnordered(CreditScheduleEntity.class, updates)
+				.flatMap(matched -> matched == deltas.size() ? Mono.just(matched)
+						: Mono.<Long>error(new IllegalStateException(
+								"The credit schedules changed during the payment, please try again")))
+				.onErrorResume(error -> reversePayment(paymentId, deltas).then(Mono.error(error)));
+	}
+
+	/**
+	 * Restores the credit schedules updated by a payment. Only the schedules
+	 * tagged with the payment are restored, so a reversal can be repeated.
+	 *
+	 * @param paymentId the operation number of the payment
+	 * @param deltas    the changes of the schedules the payment reaches
+	 * @return a Mono that completes when the schedules are restored
+	 */
+	@Override
+	public Mono<Void> reversePayment(String paymentId, List<PaymentWaterfall.Delta> deltas) {
+		if (deltas.isEmpty()) {
+			return Mono.empty();
+		}
+
+		List<UpdateOneModel<Document>> updates = deltas.stream()
+				.map(delta -> reversalUpdate(paymentId, delta))
+				.collect(Collectors.toList());
+
+		return writeUnordered(CreditScheduleEntity.class, updates).then();
+	}
+
+	/**
+	 * Applies the allocation of a credit card payment to the card schedules with a
+	 * single bulk write, then returns the credit released to the available credit
+	 * of the card. If a schedule or installment changed since it was read, or the
+	 * card cannot be found, the schedules already updated by the payment are
+	 * restored and the payment fails.
+	 *
+	 * @param paymentId        the operation number of the payment
+	 * @param creditCardNumber the number of the credit card
+	 * @param allocation       the allocation of the payment
+	 * @return a Mono emitting the credit released
+	 * @throws IllegalArgumentException if the credit card does not exist
+	 * @throws IllegalStateException    if a schedule changed since it was read,
+	 *                                  signalled through the Mono
+	 */
+	@Override
+	public Mono<Double> applyCardPayment(String paymentId, String creditCardNumber,
+			CardPaymentWaterfall.Allocation allocation) {
+		List<UpdateOneModel<Document>> updates = new ArrayList<>();
+		allocation.getScheduleDeltas().forEach(delta -> updates.add(tagged(paymentId, paymentUpdate(delta))));
+		installmentUpdates(allocation.getInstallmentDeltas())
+				.forEach(update -> updates.add(tagged(paymentId, update)));
+
+		Mono<Long> written = updates.isEmpty() ? Mono.just(0L)
+				: writeUnordered(CreditCardScheduleEntity.class, updates);
+
+		return written
+				.flatMap(matched -> matched == updates.size()
+						? releaseCredit(paymentId, creditCardNumber, allocation.getCreditReleased())
+						: Mono.<Double>error(new IllegalStateException(
+								"The credit card schedules changed during the payment, please try again")))
+				.onErrorResume(error -> reverseCardSchedules(paymentId, allocation).then(Mono.error(error)));
+	}
+
+	/**
+	 * Restores the card schedules and the available credit updated by a credit
+	 * card payment. Only the documents tagged with the payment are restored, so a
+	 * reversal can be repeated.
+	 *
+	 * @param paymentId        the operation number of the payment
+	 * @param creditCardNumber the number of the credit card
+	 * @param allocation       the allocation of the payment
+	 * @return a Mono that completes when the card and its schedules are restored
+	 */
+	@Override
+	public Mono<Void> reverseCardPayment(String paymentId, String creditCardNumber,
+			CardPaymentWaterfall.Allocation allocation) {
+		Mono<Void> credit = allocation.getCreditReleased() <= 0 ? Mono.empty()
+				: mongoTemplate.updateFirst(Query.query(Criteria.where("creditCardNumber").is(creditCardNumber)
+						.and(APPLIED_PAYMENTS).is(paymentId)),
+						new Update().inc("availableCredit", -allocation.getCreditReleased())
+								.pull(APPLIED_PAYMENTS, paymentId).set("updateDate", LocalDateTime.now()),
+						CreditCardEntity.class).then();
+
+		return credit.then(reverseCardSchedules(paymentId, allocation));
+	}
+
+	/**
+	 * Forgets a completed credit card payment on its card. The card only holds the
+	 * payment while it may still be reversed; a failure is ignored, since the tag
+	 * of a completed payment only takes space.
+	 *
+	 * @param paymentId        the operation number of the payment
+	 * @param creditCardNumber the number of the credit card
+	 * @return a Mono that completes when the payment is forgotten
+	 */
+	@Override
+	public Mono<Void> completeCardPayment(String paymentId, String creditCardNumber) {
+		return mongoTemplate.updateFirst(Query.query(Criteria.where("creditCardNumber").is(creditCardNumber)
+				.and(APPLIED_PAYMENTS).is(paymentId)), new Update().pull(APPLIED_PAYMENTS, paymentId),
+				CreditCardEntity.class).then()
+				.onErrorResume(error -> Mono.empty());
+	}
+
+	/**
+	 * Adds the credit released by a payment to the available credit of the card,
+	 * tagged with the payment.
+	 *
+	 * @param paymentId        the operation number of the payment
+	 * @param creditCardNumber the number of the credit card
+	 * @param creditReleased   the credit released
+	 * @return a Mono emitting the credit released
+	 * @throws IllegalArgumentException if the credit card does not exist,
+	 *                                  signalled through the Mono
+	 */
+	private Mono<Double> releaseCredit(String paymentId, String creditCardNumber, double creditReleased) {
+		if (creditReleased <= 0) {
+			return Mono.just(0.0);
+		}
+
+		Update update = new Update().inc("availableCredit", creditReleased).set("updateDate", LocalDateTime.now())
+				.push(APPLIED_PAYMENTS, paymentId);
+
+		return mongoTemplate.updateFirst(Query.query(Criteria.where("creditCardNumber").is(creditCardNumber)
+				.and("isActive").is(true).and(APPLIED_PAYMENTS).ne(paymentId)), update, CreditCardEntity.class)
+				.flatMap(result -> result.getMatchedCount() == 0
+						? Mono.<Double>error(new IllegalArgumentException("Credit card number not found."))
+						: Mono.just(creditReleased));
+	}
+
+	/**
+	 * Restores the card schedules and installments tagged with a payment.
+	 *
+	 * @param paymentId  the operation number of the payment
+	 * @param allocation the allocation of the payment
+	 * @return a Mono that completes when the schedules are restored
+	 */
+	private Mono<Void> reverseCardSchedules(String paymentId, CardPaymentWaterfall.Allocation allocation) {
+		List<UpdateOneModel<Document>> updates = new ArrayList<>();
+		allocation.getScheduleDeltas().forEach(delta -> updates.add(reversalUpdate(paymentId, delta)));
+		updates.addAll(installmentReversals(paymentId, allocation.getInstallmentDeltas()));
+
+		return updates.isEmpty() ? Mono.empty()
+				: writeUnordered(CreditCardScheduleEntity.class, updates).then();
+	}
+
+	/**
+	 * Builds the update of a schedule reached by a payment. A fully paid schedule
+	 * is only marked paid while its current debt is not above the debt paid.
+	 *
+	 * @param delta the change of the schedule
+	 * @return the update model of the schedule
+	 */
+	private UpdateOneModel<Document> paymentUpdate(PaymentWaterfall.Delta delta) {
+		Document filter = scheduleFilter(delta.getScheduleId());
+		Document update = new Document("$inc", amountsPaid(delta, -1));
+
+		if (delta.isPaid()) {
+			filter.append("currentDebt", new Document("$lte", delta.getDebtPaid() + PaymentWaterfall.EPSILON));
+			update.append("$set", new Document("paid", true));
+		}
+
+		return new UpdateOneModel<>(filter, update);
+	}
+
+	/**
+	 * Builds the update restoring a schedule reached by a payment, if the
+	 * schedule is tagged with the payment.
+	 *
+	 * @param paymentId the operation number of the payment
+	 * @param delta     the change of the schedule
+	 * @return the update model of the schedule
+	 */
+	private UpdateOneModel<Document> reversalUpdate(String paymentId, PaymentWaterfall.Delta delta) {
+		Document update = new Document("$inc", amountsPaid(delta, 1))
+				.append("$pull", new Document(APPLIED_PAYMENTS, paymentId));
+		if (delta.isPaid()) {
+			update.append("$set", new Document("paid", false));
+		}
+
+		return new UpdateOneModel<>(new Document("_id", scheduleId(delta.getScheduleId()))
+				.append(APPLIED_PAYMENTS, paymentId), update);
+	}
+
+	/**
+	 * Adds the tag of a payment to a schedule update, so the update is applied at
+	 * most once and can be found to be reversed.
+	 *
+	 * @param paymentId the operation number of the payment
+	 * @param update    the update of the schedule
+	 * @return the tagged update model
+	 */
+	private UpdateOneModel<Document> tagged(String paymentId, UpdateOneModel<Document> update) {
+		return new UpdateOneModel<>(((Document) update.getFilter())
+				.append(APPLIED_PAYMENTS, new Document("$ne", paymentId)),
+				((Document) update.getUpdate()).append("$push", new Document(APPLIED_PAYMENTS, paymentId)));
+	}
+
+	/**
+	 * Builds the increments of the amounts paid to a schedule.
+	 *
+	 * @param delta the change of the schedule
+	 * @param sign  -1 to pay the amounts, 1 to restore them
+	 * @return the increments keyed by field
+	 */
+	private Document amountsPaid(PaymentWaterfall.Delta delta, int sign) {
+		return new Document("principalAmount", sign * delta.getPrincipalPaid())
+				.append("interestAmount", sign * delta.getInterestPaid())
+				.append("lateAmount", sign * delta.getLatePaid())
+				.append("currentDebt", sign * delta.getDebtPaid());
+	}
+
+	/**
+	 * Builds one update per upcoming schedule with prepaid installments. The
+	 * prepaid amounts are decremented, and the schedule is only matched while
+	 * every installment still owes at least the amount paid, and a fully prepaid
+	 * one no more than that.
+	 *
+	 * @param deltas the prepaid installments
+	 * @return the update models of the upcoming schedules
+	 */
+	private List<UpdateOneModel<Document>> installmentUpdates(List<CardPaymentWaterfall.InstallmentDelta> deltas) {
+		List<UpdateOneModel<Document>> updates = new ArrayList<>();
+
+		bySchedule(deltas).forEach((id, installments) -> {
+			Document filter = scheduleFilter(id);
+			Document increments = new Document();
+			for (CardPaymentWaterfall.InstallmentDelta delta : installments) {
+				String path = installmentPath(delta);
+				Document bounds = new Document("$gte", delta.getAmountPaid() - PaymentWaterfall.EPSILON);
+				if (delta.isPaid()) {
+					bounds.append("$lte", delta.getAmountPaid() + PaymentWaterfall.EPSILON);
+				}
+				increments.append(path, -delta.getAmountPaid());
+				filter.append(path, bounds);
+			}
+			updates.add(new UpdateOneModel<>(filter, new Document("$inc", increments)));
+		});
+		return updates;
+	}
+
+	/**
+	 * Builds one update per upcoming schedule restoring the installments prepaid
+	 * by a payment, if the schedule is tagged with the payment.
+	 *
+	 * @param paymentId the operation number of the payment
+	 * @param deltas    the prepaid installments
+	 * @return the update models of the upcoming schedules
+	 */
+	private List<UpdateOneModel<Document>> installmentReversals(String paymentId,
+			List<CardPaymentWaterfall.InstallmentDelta> deltas) {
+		List<UpdateOneModel<Document>> updates = new ArrayList<>();
+
+		bySchedule(deltas).forEach((id, installments) -> {
+			Document increments = new Document();
+			installments.forEach(delta -> increments.append(installmentPath(delta), delta.getAmountPaid()));
+			updates.add(new UpdateOneModel<>(new Document("_id", scheduleId(id)).append(APPLIED_PAYMENTS, paymentId),
+					new Document("$inc", increments).append("$pull", new Document(APPLIED_PAYMENTS, paymentId))));
+		});
+		return updates;
+	}
+
+	/**
+	 * Groups prepaid installments by their schedule, keeping their order.
+	 *
+	 * @param deltas the prepaid installments
+	 * @return the prepaid installments keyed by schedule id
+	 */
+	private Map<String, List<CardPaymentWaterfall.InstallmentDelta>> bySchedule(
+			List<CardPaymentWaterfall.InstallmentDelta> deltas) {
+		return deltas.stream().collect(Collectors.groupingBy(CardPaymentWaterfall.InstallmentDelta::getScheduleId,
+				LinkedHashMap::new, Collectors.toList()));
+	}
+
+	/**
+	 * Builds the path of the amount of a prepaid installment.
+	 *
+	 * @param delta the prepaid installment
+	 * @return the field path of the amount in the quota
+	 */
+	private String installmentPath(CardPaymentWaterfall.InstallmentDelta delta) {
+		return "consumptionQuota." + delta.getIndex() + ".amount";
+	}
+
+	/**
+	 * Builds the filter of an unpaid schedule.
+	 *
+	 * @param id the id of the schedule
+	 * @return the filter on the id of the schedule and its unpaid status
+	 */
+	private Document scheduleFilter(String id) {
+		return new Document("_id", scheduleId(id)).append("paid", false);
+	}
+
+	/**
+	 * Converts the id of a schedule to the value stored in its _id.
+	 *
+	 * @param id the id of the schedule
+	 * @return the ObjectId of the schedule, or the id itself if it is not one
+	 */
+	private Object scheduleId(String id) {
+		return ObjectId.isValid(id) ? new ObjectId(id) : id;
+	}
+
+	/**
+	 * Writes a list of schedule updates as one unordered bulk write.
+	 *
+	 * @param entityClass the schedule class whose collection is written
+	 * @param updates     the updates to write
+	 * @return a Mono emitting the number of schedules matched
+	 */
+	private Mono<Long> writeUnordered(Class<?> entityClass, List<UpdateOneModel<Document>> updates) {
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass))
+				.flatMap(collection -> Mono.from(collection.bulkWrite(updates,
+						new BulkWriteOptions().ordered(false))))
+				.map(result -> (long) result.getMatchedCount());
+	}
+}
@@ -8,6 +8,7 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import com.nttdata.bank.entity.CreditCardScheduleEntity;
 import com.nttdata.bank.entity.CreditEntity;
@@ -19,13 +20,13 @@ import com.nttdata.bank.repository.CreditRepository;
 import com.nttdata.bank.repository.CreditScheduleRepository;
 import com.nttdata.bank.request.CreditRequest;
 import com.nttdata.bank.request.DepositRequest;
-import com.nttdata.bank.request.UpdateAccountRequest;
 import com.nttdata.bank.response.CreditResponse;
 import com.nttdata.bank.response.CreditDebtResponse;
-import com.nttdata.bank.service.AccountsService;
 import com.nttdata.bank.service.CreditService;
 import com.nttdata.bank.service.OperationService;
 import com.nttdata.bank.util.Utility;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * CreditServiceImpl is the implementation class for the CreditService
@@ -50,9 +51,6 @@ public class CreditServiceImpl implements CreditService {
 	@Autowired
 	private CreditCardScheduleRepository creditCardScheduleRepository;
 
-	@Autowired
-	private AccountsService accountService;
-
 	@Autowired
 	private OperationService operationService;
 
@@ -77,11 +75,8 @@ public class CreditServiceImpl implements CreditService {
 		DepositRequest depositRequest = new DepositRequest();
 		depositRequest.setAccountNumber(creditRequest.getAccountNumber());
 		depositRequest.setAmount(creditRequest.getAmount());
-		operationService.makeDeposit(depositRequest);
-		UpdateAccountRequest updateAccountRequest = new UpdateAccountRequest();
-		updateAccountRequest.setAccountNumber(creditRequest.getAccountNumber());
-		updateAccountRequest.setAmount(creditEntity.getAmount());
-		accountService.updateAccount(updateAccountRequest);
+		depositRequest.setDocumentNumber(creditRequest.getDocumentNumber());
+		operationService.makeDeposit(depositRequest).toFuture().join();
 		creditScheduleRepository.saveAll(generatePaymentSchedule(creditEntity));
 		CreditResponse response = CreditMapper.mapperToResponse(creditEntity);
 		logger.info("Credit granted successfully: {}", response);
@@ -199,33 +194,53 @@ public class CreditServiceImpl implements CreditService {
 	}
 
 	/**
-	 * Retrieves all active credits. Finds all credits that are active, maps them to
-	 * credit response objects, and returns the list of credit responses.
+	 * Retrieves one page of active credits, ordered by id. The page is read through
+	 * the _id index starting after the given id, maps the credits to credit
+	 * response objects, and returns the list of credit responses.
 	 *
-	 * @return List of CreditResponse containing details of all active credits
+	 * @param afterId The id of the last credit read, or null for the first page
+	 * @param size    The page size, or null for the default of 100
+	 * @return List of CreditResponse containing details of the active credits
 	 */
 	@Override
-	public List<CreditResponse> findAllCredits() {
-		logger.debug("Finding all credits");
-		return creditRepository.findByIsActiveTrue().map(CreditMapper::mapperToResponse)
+	public List<CreditResponse> findAllCredits(String afterId, Integer size) {
+		logger.debug("Finding credits after id: {}", afterId);
+		Pageable page = Utility.getListPage(size);
+		return (afterId == null ? creditRepository.findActivePage(page)
+				: creditRepository.findActivePageAfter(afterId, page))
+				.map(CreditMapper::mapperToResponse)
 				.collectList().block();
 	}
 
+	/**
+	 * Streams all active credits. The credits are read from the cursor as the
+	 * subscriber requests them, so they are never held in memory together.
+	 *
+	 * @return A Flux emitting the credit responses
+	 */
+	@Override
+	public Flux<CreditResponse> streamAllCredits() {
+		logger.debug("Streaming all credits");
+		return creditRepository.findByIsActiveTrue().map(CreditMapper::mapperToResponse);
+	}
+
 	/**
 	 * Deactivates a credit based on the provided credit ID. Finds the credit by ID,
 	 * marks it as inactive, and saves the updated credit entity to the repository.
 	 *
 	 * @param creditId the credit ID of the credit to be deactivated
+	 * @return a Mono that completes once the credit has been saved as inactive
 	 */
 	@Override
-	public void desactivateCredit(String creditId) {
-		Optional.ofNullable(creditRepository.findByIdAndIsActiveTrue(creditId).block())
-				.ifPresentOrElse(entity -> {
+	public Mono<Void> desactivateCredit(String creditId) {
+		return creditRepository.findByIdAndIsActiveTrue(creditId)
+				.switchIfEmpty(Mono.error(
+						new IllegalArgumentException("CreditEntity with credit does not exist.")))
+				.flatMap(entity -> {
 					entity.setDeleteDate(LocalDateTime.now());
 					entity.setIsActive(false);
-					creditRepository.save(entity);
-				}, () -> {
-					throw new IllegalArgumentException("CreditEntity with credit does not exist.");
-				});
+					return creditRepository.save(entity);
+				})
+				.then();
 	}
 }
@@ -0,0 +1,191 @@
+package com.nttdata.bank.service.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.entity.CustomerEntity;
+import com.nttdata.bank.repository.CustomerRepository;
+import com.nttdata.bank.response.NameCacheStatsResponse;
+import com.nttdata.bank.service.CustomerNameService;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Mono;
+
+/**
+ * CustomerNameServiceImpl is the implementation class for the
+ * CustomerNameService interface. The display names are kept in a read-through
+ * LRU cache bounded by size, whose entries expire after a fixed time. A miss
+ * reads only the name fields of the customer. The entries are invalidated when
+ * a customer is updated or deleted; a miss that was reading while a customer
+ * was invalidated returns its name without caching it.
+ */
+@Service
+public class CustomerNameServiceImpl implements CustomerNameService {
+
+	private static final Logger logger = LoggerFactory.getLogger(CustomerNameServiceImpl.class);
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Value("${bank.customer-name-cache.max-size:10000}")
+	private int maxSize = 10000;
+
+	@Value("${bank.customer-name-cache.ttl-seconds:300}")
+	private long ttlSeconds = 300;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	private final Map<String, CachedName> names = new LinkedHashMap<>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedName> eldest) {
+			boolean evict = size() > maxSize;
+			if (evict) {
+				evictions.incrementAndGet();
+			}
+			return evict;
+		}
+	};
+
+	/**
+	 * Retrieves the display name of an active customer from the cache, reading it
+	 * from the database on a miss.
+	 *
+	 * @param documentNumber the document number of the customer
+	 * @return a Mono emitting the display name of the customer
+	 * @throws IllegalArgumentException if the customer does not exist
+	 */
+	@Override
+	public Mono<String> getName(String documentNumber) {
+		return Mono.defer(() -> {
+			String cached = getCached(documentNumber);
+			if (cached != null) {
+				hits.incrementAndGet();
+				return Mono.just(cached);
+			}
+			misses.incrementAndGet();
+			long generation = invalidations.get();
+			return customerRepository.findNameByDocumentNumber(documentNumber)
+					.map(this::getDisplayName)
+					.doOnNext(name -> putCached(documentNumber, name, generation))
+					.switchIfEmpty(Mono.error(new IllegalArgumentException("customer does not exist")));
+		});
+	}
+
+	/**
+	 * Removes the cached name of a customer.
+	 *
+	 * @param documentNumber the document number of the customer
+	 */
+	@Override
+	public void invalidate(String documentNumber) {
+		invalidations.incrementAndGet();
+		synchronized (names) {
+			names.remove(documentNumber);
+		}
+		logger.debug("Customer name invalidated for document number: {}", documentNumber);
+	}
+
+	/**
+	 * Retrieves the statistics of the name cache.
+	 *
+	 * @return the hits, misses, evictions and hit ratio of the cache
+	 */
+	@Override
+	public NameCacheStatsResponse getStats() {
+		long hitCount = hits.get();
+		long missCount = misses.get();
+		long requests = hitCount + missCount;
+
+		NameCacheStatsResponse stats = new NameCacheStatsResponse();
+		stats.setHits(hitCount);
+		stats.setMisses(missCount);
+		stats.setEvictions(evictions.get());
+		stats.setInvalidations(invalidations.get());
+		synchronized (names) {
+			stats.setSize(names.size());
+		}
+		stats.setHitRatio(requests == 0 ? 0.0 : (double) hitCount / requests);
+		return stats;
+	}
+
+	/**
+	 * Returns the name shown on transactions for a customer.
+	 *
+	 * @param customer the customer
+	 * @return the full name of the customer if the person type is personal, or the
+	 *         company name otherwise
+	 */
+	private String getDisplayName(CustomerEntity customer) {
+		if (customer.getPersonType().equalsIgnoreCase(Constants.PERSON_TYPE_PERSONAL)) {
+			return customer.getFullName();
+		} else {
+			return customer.getCompanyName();
+		}
+	}
+
+	/**
+	 * Returns the cached name of a customer, removing it if it expired.
+	 *
+	 * @param documentNumber the document number of the customer
+	 * @return the cached name, or null if it is not cached or expired
+	 */
+	private String getCached(String documentNumber) {
+		synchronized (names) {
+			CachedName cached = names.get(documentNumber);
+			if (cached == null) {
+				return null;
+			}
+			if (System.nanoTime() - cached.expiresAt >= 0) {
+				names.remove(documentNumber);
+				evictions.incrementAndGet();
+				return null;
+			}
+			return cached.name;
+		}
+	}
+
+	/**
+	 * Caches the name of a customer, unless a customer was invalidated since the
+	 * name started being read.
+	 *
+	 * @param documentNumber the document number of the customer
+	 * @param name           the display name of the customer
+	 * @param generation     the number of invalidations when the read started
+	 */
+	private void putCached(String documentNumber, String name, long generation) {
+		synchronized (names) {
+			if (invalidations.get() == generation) {
+				names.put(documentNumber, new CachedName(name,
+						System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+			}
+		}
+	}
+
+	/**
+	 * A cached display name and the time it expires at, in System.nanoTime units.
+	 */
+	private static final class CachedName {
+
+		private final String name;
+		private final long expiresAt;
+
+		private CachedName(String name, long expiresAt) {
+			this.name = name;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -3,6 +3,7 @@ package com.nttdata.bank.service.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import com.nttdata.bank.auth.service.impl.AuthenticationServiceImpl;
@@ -12,7 +13,10 @@ import com.nttdata.bank.repository.CustomerRepository;
 import com.nttdata.bank.request.ContactDataRequest;
 import com.nttdata.bank.request.CustomerRequest;
 import com.nttdata.bank.response.CustomerResponse;
+import com.nttdata.bank.service.CustomerNameService;
 import com.nttdata.bank.service.CustomerService;
+import com.nttdata.bank.util.Utility;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -29,6 +33,9 @@ public class CustomerServiceImpl implements CustomerService {
 	@Autowired
 	private AuthenticationServiceImpl authenticationService;
 
+	@Autowired
+	private CustomerNameService customerNameService;
+
 	public String createTokenForUser(String username) {
 		return authenticationService.generateJwt(username);
 	}
@@ -109,18 +116,37 @@ public class CustomerServiceImpl implements CustomerService {
 	}
 
 	/**
-	 * Retrieves all customers.
+	 * Retrieves one page of active customers, ordered by id. The page is read
+	 * through the _id index starting after the given id, so its cost does not grow
+	 * with its position in the collection.
 	 *
+	 * @param afterId The id of the last customer read, or null for the first page
+	 * @param size    The page size, or null for the default of 100
 	 * @return A list of customer responses
 	 */
 	@Override
-	public List<CustomerResponse> findAllCustomers() {
-		logger.info("All customers retrieved successfully");
-		return customerRepository.findByIsActiveTrue().map(CustomerMapper::mapperToResponse)
+	public List<CustomerResponse> findAllCustomers(String afterId, Integer size) {
+		Pageable page = Utility.getListPage(size);
+		logger.info("Customers page retrieved successfully after id: {}", afterId);
+		return (afterId == null ? customerRepository.findActivePage(page)
+				: customerRepository.findActivePageAfter(afterId, page))
+				.map(CustomerMapper::mapperToResponse)
 				.collectList().toFuture()
 				.join();
 	}
 
+	/**
+	 * Streams all active customers. The customers are read from the cursor as the
+	 * subscriber requests them, so they are never held in memory together.
+	 *
+	 * @return A Flux emitting the customer responses
+	 */
+	@Override
+	public Flux<CustomerResponse> streamAllCustomers() {
+		logger.debug("Streaming all customers");
+		return customerRepository.findByIsActiveTrue().map(CustomerMapper::mapperToResponse);
+	}
+
 	/**
 	 * Updates a customer.
 	 *
@@ -142,7 +168,9 @@ public class CustomerServiceImpl implements CustomerService {
 					customerEntity.setEmail(contactDataRequest.getEmail());
 					customerEntity.setUpdateDate(LocalDateTime.now());
 					return customerEntity;
-				}).flatMap(customerRepository::save).map(CustomerMapper::mapperToResponse)
+				}).flatMap(customerRepository::save)
+				.doOnNext(customerEntity -> customerNameService.invalidate(documentNumber))
+				.map(CustomerMapper::mapperToResponse)
 				.doOnSuccess(response -> logger.info("Customer updated successfully: {}", response))
 				.block();
 	}
@@ -161,7 +189,9 @@ public class CustomerServiceImpl implements CustomerService {
 					customerEntity.setIsActive(false);
 					customerEntity.setDeleteDate(LocalDateTime.now());
 					return customerEntity;
-				}).flatMap(customerRepository::save).doOnSuccess(customerEntity -> logger
+				}).flatMap(customerRepository::save)
+				.doOnNext(customerEntity -> customerNameService.invalidate(documentNumber))
+				.doOnSuccess(customerEntity -> logger
 						.info("Customer deleted successfully with document number: {}",
 								documentNumber))
 				.block();
@@ -8,6 +8,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import com.nttdata.bank.entity.DebitCardEntity;
 import com.nttdata.bank.mapper.DebitCardMapper;
@@ -16,9 +18,13 @@ import com.nttdata.bank.repository.DebitCardRepository;
 import com.nttdata.bank.request.AssociateAccountRequest;
 import com.nttdata.bank.request.DebitCardRequest;
 import com.nttdata.bank.response.DebitCardResponse;
+import com.nttdata.bank.service.CardNumberService;
 import com.nttdata.bank.service.DebitCardService;
 import com.nttdata.bank.util.Constants;
 import com.nttdata.bank.util.Utility;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 /**
  * Implementation of the DebitCardService interface. This class provides methods
@@ -34,6 +40,9 @@ public class DebitCardServiceImpl implements DebitCardService {
 	@Autowired
 	private AccountRepository accountRepository;
 
+	@Autowired
+	private CardNumberService cardNumberService;
+
 	/**
 	 * Creates a new debit card based on the provided request.
 	 *
@@ -52,13 +61,12 @@ public class DebitCardServiceImpl implements DebitCardService {
 
 		DebitCardEntity debitCardEntity = Optional.of(debitCardRequest).map(DebitCardMapper::mapperToEntity)
 				.map(entity -> {
-					entity.setDebitCardNumber(generateUniqueDebitCardNumber(debitCardRequest.getDocumentNumber()));
 					entity.setAssociatedAccounts(associatedAccounts);
 					entity.setCreateDate(LocalDateTime.now());
 					entity.setIsBlocked(false);
 					entity.setIsActive(true);
 					return entity;
-				}).map(debitCardRepository::save).map(future -> future.block()).orElseThrow();
+				}).map(this::saveWithDebitCardNumber).map(future -> future.block()).orElseThrow();
 
 		return Optional.of(debitCardEntity).map(DebitCardMapper::mapperToResponse).orElseThrow();
 	}
@@ -83,31 +91,50 @@ public class DebitCardServiceImpl implements DebitCardService {
 	}
 
 	/**
-	 * Generates a unique document number.
+	 * Saves a new debit card with the next card number of its customer. The unique
+	 * index on the card number rejects a number already held by a card issued with
+	 * a random suffix, in which case the next number is issued.
+	 *
+	 * @param debitCardEntity The debit card to save
+	 * @return A Mono emitting the saved debit card
+	 */
+	private Mono<DebitCardEntity> saveWithDebitCardNumber(DebitCardEntity debitCardEntity) {
+		return Mono.defer(() -> cardNumberService
+				.nextCardNumber(Constants.DEBIT_TYPE, debitCardEntity.getDocumentNumber())
+				.flatMap(debitCardNumber -> {
+					debitCardEntity.setDebitCardNumber(debitCardNumber);
+					return debitCardRepository.save(debitCardEntity);
+				}))
+				.retryWhen(Retry.max(Constants.CARD_NUMBER_ATTEMPTS - 1)
+						.filter(DuplicateKeyException.class::isInstance));
+	}
+
+	/**
+	 * Retrieves one page of active debit cards, ordered by id. The page is read
+	 * through the _id index starting after the given id.
 	 *
-	 * @param documentNumber The document Number
-	 * @return The generated unique account number
+	 * @param afterId The id of the last debit card read, or null for the first
+	 *                page
+	 * @param size    The page size, or null for the default of 100
+	 * @return List of DebitCardResponse containing details of the debit cards
 	 */
-	private String generateUniqueDebitCardNumber(String documentNumber) {
-		String debitCardNumber;
-		boolean exists;
-		do {
-			debitCardNumber = Constants.DEBIT_TYPE + Constants.BANK_CODE + documentNumber
-					+ Utility.generateRandomNumber();
-
-			exists = debitCardRepository.existsByDebitCardNumber(debitCardNumber).block();
-		} while (exists);
-		return debitCardNumber;
+	@Override
+	public List<DebitCardResponse> findAllDebitCard(String afterId, Integer size) {
+		Pageable page = Utility.getListPage(size);
+		return (afterId == null ? debitCardRepository.findActivePage(page)
+				: debitCardRepository.findActivePageAfter(afterId, page))
+				.map(DebitCardMapper::mapperToResponse).collectList().block();
 	}
 
 	/**
-	 * Retrieves all debit cards.
+	 * Streams all active debit cards. The debit cards are read from the cursor as
+	 * the subscriber requests them, so they are never held in memory together.
 	 *
-	 * @return List of DebitCardResponse containing details of all debit cards
+	 * @return A Flux emitting the debit card responses
 	 */
 	@Override
-	public List<DebitCardResponse> findAllDebitCard() {
-		return debitCardRepository.findByIsActiveTrue().map(DebitCardMapper::mapperToResponse).collectList().block();
+	public Flux<DebitCardResponse> streamAllDebitCard() {
+		return debitCardRepository.findByIsActiveTrue().map(DebitCardMapper::mapperToResponse);
 	}
 
 	/**
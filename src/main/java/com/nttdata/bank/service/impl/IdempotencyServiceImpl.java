@@ -0,0 +1,336 @@
+package com.nttdata.bank.service.impl;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.bank.entity.IdempotencyRecordEntity;
+import com.nttdata.bank.repository.IdempotencyRecordRepository;
+import com.nttdata.bank.response.TransactionResponse;
+import com.nttdata.bank.service.IdempotencyService;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * IdempotencyServiceImpl is the implementation class for the IdempotencyService
+ * interface. A key is scoped to the operation and to the authenticated
+ * principal, and is bound to the SHA-256 hash of the request it was first sent
+ * with; a request that reuses it with another body is rejected with 422. The
+ * responses of the latest completed keys are kept in a bounded LRU cache until
+ * their record expires, and replayed without touching the database. A key that is running
+ * on this instance is shared by every request that repeats it, and the
+ * operation is run detached from them, so a request cancelled by its time
+ * limiter does not cancel the operation its retry is waiting for. Across
+ * instances the key is claimed by inserting its record; an instance that loses
+ * the claim polls the record until the response is stored.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+	private static final Logger logger = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+
+	@Autowired
+	private IdempotencyRecordRepository idempotencyRecordRepository;
+
+	@Value("${bank.idempotency.cache-size:10000}")
+	private int cacheSize = 10000;
+
+	@Value("${bank.idempotency.poll-interval:100}")
+	private long pollInterval = 100;
+
+	@Value("${bank.idempotency.max-polls:100}")
+	private int maxPolls = 100;
+
+	@Value("${bank.idempotency.cache-ttl:86400}")
+	private long cacheTtl = 86400;
+
+	private final Map<String, Tuple2<String, Mono<TransactionResponse>>> inFlight = new ConcurrentHashMap<>();
+
+	private final Map<String, CompletedResponse> completed = new LinkedHashMap<>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CompletedResponse> eldest) {
+			return size() > cacheSize;
+		}
+	};
+
+	/**
+	 * Executes an operation under an idempotency key, replaying the cached
+	 * response or joining the running operation when there is one.
+	 *
+	 * @param operation      the name of the operation the key is scoped to
+	 * @param principal      the name of the authenticated principal the key is
+	 *                       scoped to
+	 * @param idempotencyKey the idempotency key sent by the client, may be null
+	 * @param request        the request body the key is bound to
+	 * @param action         the operation to run
+	 * @return a Mono emitting the response of the operation
+	 * @throws ResponseStatusException with 422 if the key was sent before with
+	 *                                 another request body, signalled through the
+	 *                                 Mono
+	 */
+	@Override
+	public Mono<TransactionResponse> execute(String operation, String principal, String idempotencyKey,
+			Object request, Supplier<Mono<TransactionResponse>> action) {
+		if (idempotencyKey == null || idempotencyKey.isBlank()) {
+			return Mono.defer(action);
+		}
+		String id = operation + ":" + URLEncoder.encode(Objects.toString(principal, ""), StandardCharsets.UTF_8)
+				+ ":" + idempotencyKey;
+
+		return Mono.defer(() -> {
+			String requestHash = hash(request);
+			CompletedResponse cached = getCompleted(id);
+			if (cached != null) {
+				logger.debug("Replaying cached response for idempotency key: {}", id);
+				return matching(id, requestHash, cached.requestHash).thenReturn(cached.response);
+			}
+
+			Sinks.One<TransactionResponse> result = Sinks.one();
+			Tuple2<String, Mono<TransactionResponse>> running = Tuples.of(requestHash, result.asMono());
+			Tuple2<String, Mono<TransactionResponse>> existing = inFlight.putIfAbsent(id, running);
+			if (existing != null) {
+				logger.debug("Waiting on running operation for idempotency key: {}", id);
+				return matching(id, requestHash, existing.getT1()).then(existing.getT2());
+			}
+
+			LocalDateTime createDate = LocalDateTime.now();
+			claim(id, requestHash, createDate, action, 0)
+					.doOnNext(response -> putCompleted(id, new CompletedResponse(requestHash, response,
+							createDate.plusSeconds(cacheTtl))))
+					.doFinally(signal -> inFlight.remove(id, running))
+					.subscribe(result::tryEmitValue, result::tryEmitError, result::tryEmitEmpty);
+			return running.getT2();
+		});
+	}
+
+	/**
+	 * Claims the key by inserting its record and runs the operation, or waits for
+	 * the instance that holds the claim.
+	 *
+	 * @param id          the scoped idempotency key
+	 * @param requestHash the hash of the request body
+	 * @param createDate  the date the key is claimed
+	 * @param action      the operation to run
+	 * @param polls       the number of times the record was already polled
+	 * @return a Mono emitting the response of the operation
+	 */
+	private Mono<TransactionResponse> claim(String id, String requestHash, LocalDateTime createDate,
+			Supplier<Mono<TransactionResponse>> action, int polls) {
+		IdempotencyRecordEntity record = new IdempotencyRecordEntity();
+		record.setId(id);
+		record.setStatus(Constants.IDEMPOTENCY_STATUS_PENDING);
+		record.setRequestHash(requestHash);
+		record.setCreateDate(createDate);
+
+		return idempotencyRecordRepository.insert(record)
+				.map(saved -> true)
+				.onErrorResume(DuplicateKeyException.class, error -> Mono.just(false))
+				.flatMap(claimed -> claimed ? run(record, action)
+						: awaitCompleted(id, requestHash, createDate, action, polls));
+	}
+
+	/**
+	 * Runs the operation of a claimed key and stores its response. If the
+	 * operation fails or returns nothing, the claim is released so that the client
+	 * can retry it.
+	 *
+	 * @param record the claimed record
+	 * @param action the operation to run
+	 * @return a Mono emitting the response of the operation
+	 */
+	private Mono<TransactionResponse> run(IdempotencyRecordEntity record,
+			Supplier<Mono<TransactionResponse>> action) {
+		return Mono.defer(action)
+				.flatMap(response -> complete(record, response))
+				.switchIfEmpty(Mono.defer(() -> release(record.getId()).then(Mono.<TransactionResponse>empty())))
+				.onErrorResume(error -> release(record.getId())
+						.then(Mono.<TransactionResponse>error(error)));
+	}
+
+	/**
+	 * Stores the response of a completed operation. The operation already took
+	 * effect, so a failure to store it is logged and the response is returned
+	 * anyway; the pending record then expires with its TTL.
+	 *
+	 * @param record   the claimed record
+	 * @param response the response of the operation
+	 * @return a Mono emitting the response
+	 */
+	private Mono<TransactionResponse> complete(IdempotencyRecordEntity record,
+			TransactionResponse response) {
+		record.setStatus(Constants.IDEMPOTENCY_STATUS_COMPLETED);
+		record.setResponse(response);
+		record.setCompleteDate(LocalDateTime.now());
+
+		return idempotencyRecordRepository.save(record)
+				.thenReturn(response)
+				.onErrorResume(error -> {
+					logger.error("Unable to store the response for idempotency key {}: {}",
+							record.getId(), error.getMessage());
+					return Mono.just(response);
+				});
+	}
+
+	/**
+	 * Releases the claim of a key whose operation did not complete.
+	 *
+	 * @param id the scoped idempotency key
+	 * @return a Mono that completes once the record is deleted
+	 */
+	private Mono<Void> release(String id) {
+		return idempotencyRecordRepository.deleteById(id)
+				.onErrorResume(error -> {
+					logger.error("Unable to release idempotency key {}: {}", id, error.getMessage());
+					return Mono.empty();
+				});
+	}
+
+	/**
+	 * Polls the record of a key claimed by another instance until its response is
+	 * stored. If the record disappears, the other instance released the claim and
+	 * the key is claimed again. A record stored before the request hash was kept
+	 * matches any body.
+	 *
+	 * @param id          the scoped idempotency key
+	 * @param requestHash the hash of the request body
+	 * @param createDate  the date the key is claimed
+	 * @param action      the operation to run if the claim was released
+	 * @param polls       the number of times the record was already polled
+	 * @return a Mono emitting the stored response
+	 */
+	private Mono<TransactionResponse> awaitCompleted(String id, String requestHash, LocalDateTime createDate,
+			Supplier<Mono<TransactionResponse>> action, int polls) {
+		if (polls >= maxPolls) {
+			return Mono.error(new IllegalStateException(
+					"The operation with idempotency key " + id + " is still in progress"));
+		}
+		return idempotencyRecordRepository.findById(id)
+				.map(Optional::of)
+				.defaultIfEmpty(Optional.empty())
+				.flatMap(stored -> {
+					if (stored.isEmpty()) {
+						return claim(id, requestHash, createDate, action, polls + 1);
+					}
+					IdempotencyRecordEntity record = stored.get();
+					Mono<Void> matched = record.getRequestHash() == null ? Mono.empty()
+							: matching(id, requestHash, record.getRequestHash());
+					if (Constants.IDEMPOTENCY_STATUS_COMPLETED.equals(record.getStatus())) {
+						return matched.thenReturn(record.getResponse());
+					}
+					return matched.then(Mono.delay(Duration.ofMillis(pollInterval)))
+							.then(Mono.defer(() -> claim(id, requestHash, createDate, action, polls + 1)));
+				});
+	}
+
+	/**
+	 * Checks that a request repeating a key has the body the key was first sent
+	 * with.
+	 *
+	 * @param id           the scoped idempotency key
+	 * @param requestHash  the hash of the request body
+	 * @param expectedHash the hash of the body the key was first sent with
+	 * @return a Mono that completes when the bodies match
+	 * @throws ResponseStatusException with 422 if they do not, signalled through
+	 *                                 the Mono
+	 */
+	private Mono<Void> matching(String id, String requestHash, String expectedHash) {
+		if (requestHash.equals(expectedHash)) {
+			return Mono.empty();
+		}
+		logger.warn("Idempotency key {} reused with another request body", id);
+		return Mono.error(new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+				"The idempotency key was already used with another request"));
+	}
+
+	/**
+	 * Returns the cached response of a key, marking it as recently used. An
+	 * expired response is evicted.
+	 *
+	 * @param id the scoped idempotency key
+	 * @return the cached response, or null if the key is not cached
+	 */
+	private CompletedResponse getCompleted(String id) {
+		synchronized (completed) {
+			CompletedResponse cached = completed.get(id);
+			if (cached != null && cached.expiresAt.isBefore(LocalDateTime.now())) {
+				completed.remove(id);
+				return null;
+			}
+			return cached;
+		}
+	}
+
+	/**
+	 * Caches the response of a key, evicting the least recently used key when the
+	 * cache is full.
+	 *
+	 * @param id       the scoped idempotency key
+	 * @param response the response of the operation
+	 */
+	private void putCompleted(String id, CompletedResponse response) {
+		synchronized (completed) {
+			completed.put(id, response);
+		}
+	}
+
+	/**
+	 * Returns the SHA-256 hash of the JSON of a request body.
+	 *
+	 * @param request the request body
+	 * @return the Base64 encoded hash of the body
+	 */
+	private static String hash(Object request) {
+		try {
+			return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256")
+					.digest(MAPPER.writeValueAsBytes(request)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("The request cannot be serialized", e);
+		}
+	}
+
+	/**
+	 * The response of a completed key, the hash of the request body it was run
+	 * with and the time it expires at, together with the record of the key.
+	 */
+	private static final class CompletedResponse {
+
+		private final String requestHash;
+		private final TransactionResponse response;
+		private final LocalDateTime expiresAt;
+
+		private CompletedResponse(String requestHash, TransactionResponse response, LocalDateTime expiresAt) {
+			this.requestHash = requestHash;
+			this.response = response;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.entity.CreditCardScheduleEntity;
+import com.nttdata.bank.entity.CreditEntity;
+import com.nttdata.bank.entity.CreditScheduleEntity;
+import com.nttdata.bank.repository.CreditCardRepository;
+import com.nttdata.bank.repository.CreditCardScheduleRepository;
+import com.nttdata.bank.repository.CreditRepository;
+import com.nttdata.bank.repository.CreditScheduleRepository;
+import com.nttdata.bank.service.LateInterestService;
+import com.nttdata.bank.util.Constants;
+import com.nttdata.bank.util.Utility;
+import reactor.core.publisher.Mono;
+
+/**
+ * LateInterestServiceImpl is the implementation class for the
+ * LateInterestService interface. The schedules are streamed once, ordered by
+ * product, and grouped per product as they arrive. The late interest rates of a
+ * chunk of products are read with a single query, the late interest accrued is
+ * computed in memory and written back as unordered bulk updates of the
+ * configured size. Each update increments the late amount and current debt of
+ * a schedule that is still unpaid, so payments posted while the accrual runs
+ * are kept.
+ */
+@Service
+public class LateInterestServiceImpl implements LateInterestService {
+
+	@Autowired
+	private CreditScheduleRepository creditScheduleRepository;
+
+	@Autowired
+	private CreditCardScheduleRepository creditCardScheduleRepository;
+
+	@Autowired
+	private CreditRepository creditRepository;
+
+	@Autowired
+	private CreditCardRepository creditCardRepository;
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Value("${bank.schedule.bulk-size:1000}")
+	private int bulkSize = 1000;
+
+	/**
+	 * Accrues one day of late interest on every overdue credit schedule. The late
+	 * amount of each overdue schedule is the remaining debt of its credit times
+	 * the monthly late interest rate, and the remaining debt drops by the
+	 * principal of every overdue schedule in payment date order.
+	 *
+	 * @param now the date and time the accrual runs at
+	 * @return a Mono emitting the number of schedules updated
+	 */
+	@Override
+	public Mono<Long> accrueCreditSchedules(LocalDateTime now) {
+		LocalDate today = now.toLocalDate();
+
+		return creditScheduleRepository.findUnpaidOrderByCreditIdAndPaymentDate()
+				.bufferUntilChanged(CreditScheduleEntity::getCreditId)
+				.filter(schedules -> !schedules.get(0).getPaymentDate().isAfter(today))
+				.buffer(bulkSize)
+				.concatMap(credits -> creditRepository
+						.findByIdInAndIsActiveTrue(credits.stream()
+								.map(schedules -> schedules.get(0).getCreditId())
+								.collect(Collectors.toList()))
+						.collectMap(CreditEntity::getId, CreditEntity::getAnnualLateInterestRate)
+						.flatMapIterable(rates -> credits.stream()
+								.filter(schedules -> rates.containsKey(schedules.get(0).getCreditId()))
+								.flatMap(schedules -> accrueCredit(schedules,
+										rates.get(schedules.get(0).getCreditId()), today).stream())
+								.collect(Collectors.toList())))
+				.buffer(bulkSize)
+				.flatMap(updates -> writeUnordered(CreditScheduleEntity.class, updates),
+						Constants.BULK_WRITE_CONCURRENCY)
+				.reduce(0L, Long::sum);
+	}
+
+	/**
+	 * Accrues one day of late interest on every overdue credit card schedule. The
+	 * late amount of each overdue schedule is the overdue debt of its card times
+	 * the monthly late interest rate, and the overdue debt drops by the principal
+	 * of every schedule in payment date order.
+	 *
+	 * @param now the date and time the accrual runs at
+	 * @return a Mono emitting the number of schedules updated
+	 */
+	@Override
+	public Mono<Long> accrueCreditCardSchedules(LocalDateTime now) {
+		return creditCardScheduleRepository.findOverdueOrderByCreditCardNumberAndPaymentDate(now)
+				.bufferUntilChanged(CreditCardScheduleEntity::getCreditCardNumber)
+				.buffer(bulkSize)
+				.concatMap(cards -> creditCardRepository
+						.findByCreditCardNumberInAndIsActiveTrue(cards.stream()
+								.map(schedules -> schedules.get(0).getCreditCardNumber())
+								.collect(Collectors.toList()))
+						.collectMap(CreditCardEntity::getCreditCardNumber,
+								CreditCardEntity::getAnnualLateInterestRate)
+						.flatMapIterable(rates -> cards.stream()
+								.filter(schedules -> rates
+										.containsKey(schedules.get(0).getCreditCardNumber()))
+								.flatMap(schedules -> accrueCreditCard(schedules,
+										rates.get(schedules.get(0).getCreditCardNumber())).stream())
+								.collect(Collectors.toList())))
+				.buffer(bulkSize)
+				.flatMap(updates -> writeUnordered(CreditCardScheduleEntity.class, updates),
+						Constants.BULK_WRITE_CONCURRENCY)
+				.reduce(0L, Long::sum);
+	}
+
+	/**
+	 * Accrues the late interest of the unpaid schedules of one credit.
+	 *
+	 * @param schedules              the unpaid schedules of the credit ordered by
+	 *                               payment date
+	 * @param annualLateInterestRate the annual late interest rate of the credit
+	 * @param today                  the date the accrual runs at
+	 * @return the updates of the overdue schedules
+	 */
+	private List<UpdateOneModel<Document>> accrueCredit(List<CreditScheduleEntity> schedules,
+			Double annualLateInterestRate, LocalDate today) {
+		Double monthlyLateInterestRate = Utility.getMonthlyInterestRate(annualLateInterestRate);
+		double totalDebt = schedules.stream().mapToDouble(CreditScheduleEntity::getCurrentDebt).sum();
+		List<UpdateOneModel<Document>> updates = new ArrayList<>();
+
+		for (CreditScheduleEntity schedule : schedules) {
+			if (schedule.getPaymentDate().isAfter(today)) {
+				break;
+			}
+
+			updates.add(lateAmountUpdate(schedule.getId(), totalDebt * monthlyLateInterestRate));
+			totalDebt = totalDebt - schedule.getPrincipalAmount();
+		}
+		return updates;
+	}
+
+	/**
+	 * Accrues the late interest of the overdue schedules of one credit card.
+	 *
+	 * @param schedules              the overdue schedules of the card ordered by
+	 *                               payment date
+	 * @param annualLateInterestRate the annual late interest rate of the card
+	 * @return the updates of the schedules
+	 */
+	private List<UpdateOneModel<Document>> accrueCreditCard(List<CreditCardScheduleEntity> schedules,
+			Double annualLateInterestRate) {
+		Double monthlyLateInterestRate = Utility.getMonthlyInterestRate(annualLateInterestRate);
+		double share = schedules.stream().mapToDouble(CreditCardScheduleEntity::getCurrentDebt).sum();
+		List<UpdateOneModel<Document>> updates = new ArrayList<>();
+
+		for (CreditCardScheduleEntity schedule : schedules) {
+			updates.add(lateAmountUpdate(schedule.getId(), share * monthlyLateInterestRate));
+			share = share - schedule.getPrincipalAmount();
+		}
+		return updates;
+	}
+
+	/**
+	 * Builds the update adding the late interest accrued to the late amount and
+	 * current debt of a schedule, if it is still unpaid.
+	 *
+	 * @param id      the id of the schedule
+	 * @param accrued the late interest accrued
+	 * @return the update model of the schedule
+	 */
+	private UpdateOneModel<Document> lateAmountUpdate(String id, double accrued) {
+		Object documentId = ObjectId.isValid(id) ? new ObjectId(id) : id;
+		return new UpdateOneModel<>(new Document("_id", documentId).append("paid", false),
+				new Document("$inc", new Document("lateAmount", accrued).append("currentDebt", accrued)));
+	}
+
+	/**
+	 * Writes a chunk of schedule updates as one unordered bulk write.
+	 *
+	 * @param entityClass the schedule class whose collection is written
+	 * @param updates     the updates to write
+	 * @return a Mono emitting the number of schedules modified
+	 */
+	private Mono<Long> writeUnordered(Class<?> entityClass, List<UpdateOneModel<Document>> updates) {
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass))
+				.flatMap(collection -> Mono.from(collection.bulkWrite(updates,
+						new BulkWriteOptions().ordered(false))))
+				.map(result -> (long) result.getModifiedCount());
+	}
+}
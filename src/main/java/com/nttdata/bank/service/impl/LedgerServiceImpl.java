@@ -0,0 +1,434 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.entity.JournalEntryEntity;
+import com.nttdata.bank.entity.JournalLeg;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.repository.JournalEntryRepository;
+import com.nttdata.bank.repository.TransactionRepository;
+import com.nttdata.bank.service.AccountsService;
+import com.nttdata.bank.service.LedgerService;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * LedgerServiceImpl is the implementation class for the LedgerService
+ * interface. Every balance change of a journal entry is applied with the
+ * account's guarded $inc and tagged with the entry id, which the account keeps
+ * in its applied journal, so retries after a failure never apply an entry
+ * twice. The tags stay on the accounts for as long as the entry is pending, and
+ * are only pulled once it is closed and the grace period has passed. Debits are applied while the operation is posted, since they can be
+ * rejected for lack of balance; credits cannot fail that way and are applied
+ * in batches, one $inc per account for all of its pending credits. A credit
+ * that still fails on the last attempt refunds the whole entry, so the money
+ * never stays debited from the sender without reaching the receiver.
+ */
+@Service
+public class LedgerServiceImpl implements LedgerService {
+
+	private static final Logger logger = LoggerFactory.getLogger(LedgerServiceImpl.class);
+
+	@Autowired
+	private JournalEntryRepository journalEntryRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Value("${bank.ledger.batch-size:500}")
+	private int batchSize = 500;
+
+	/**
+	 * Posts an operation. If a debit is rejected or the transaction cannot be
+	 * recorded, the debits already applied are reversed and the entry is
+	 * rejected.
+	 *
+	 * @param operationNumber the operation number of the entry
+	 * @param legs            the debit and credit legs of the operation
+	 * @param transaction     the recording of the operation's transaction
+	 * @return a Mono emitting the recorded transaction
+	 */
+	@Override
+	public Mono<TransactionEntity> post(String operationNumber, List<JournalLeg> legs,
+			Mono<TransactionEntity> transaction) {
+		JournalEntryEntity journalEntry = new JournalEntryEntity();
+		journalEntry.setOperationNumber(operationNumber);
+		journalEntry.setLegs(legs);
+		journalEntry.setStatus(Constants.JOURNAL_STATUS_PENDING);
+		journalEntry.setDebitsApplied(false);
+		journalEntry.setAttempts(0);
+		journalEntry.setCreateDate(LocalDateTime.now());
+		journalEntry.setTagsReleased(false);
+
+		return journalEntryRepository.save(journalEntry)
+				.flatMap(savedEntry -> applyDebits(savedEntry, transaction)
+						.flatMap(transactionEntity -> markDebitsApplied(savedEntry)
+								.thenReturn(transactionEntity)));
+	}
+
+	/**
+	 * Applies the credit legs of a batch of pending entries. The credits of each
+	 * account are summed into a single change; if that change fails, the entries
+	 * are applied to the account one by one so a single bad entry does not hold
+	 * back the others. Entries with a failed credit are retried on later runs,
+	 * and refunded once they run out of attempts.
+	 *
+	 * @return a Mono emitting the number of entries applied
+	 */
+	@Override
+	public Mono<Long> applyPendingEntries() {
+		return journalEntryRepository
+				.findApplicableEntries(Constants.JOURNAL_STATUS_PENDING, Constants.JOURNAL_MAX_ATTEMPTS,
+						PageRequest.of(0, batchSize))
+				.collectList()
+				.filter(entries -> !entries.isEmpty())
+				.flatMap(entries -> Flux.fromIterable(creditsByAccount(entries).entrySet())
+						.flatMap(credits -> applyCredits(credits.getKey(), credits.getValue()),
+								Constants.BULK_WRITE_CONCURRENCY)
+						.collect(Collectors.toSet())
+						.flatMap(failedIds -> completeEntries(entries, failedIds)))
+				.defaultIfEmpty(0L);
+	}
+
+	/**
+	 * Resolves the entries whose posting stopped before their debit legs were
+	 * marked as applied. An entry is only completed when its debits reached every
+	 * account and its transaction was recorded; otherwise the money would have
+	 * moved without a transaction, so its applied debits are reversed and it is
+	 * rejected.
+	 *
+	 * @param createdBefore the date before which an unfinished posting is stale
+	 * @return a Mono emitting the number of entries resolved
+	 */
+	@Override
+	public Mono<Long> recoverStaleEntries(LocalDateTime createdBefore) {
+		return journalEntryRepository
+				.findByStatusAndDebitsAppliedFalseAndCreateDateBefore(Constants.JOURNAL_STATUS_PENDING,
+						createdBefore)
+				.concatMap(journalEntry -> Flux.fromIterable(debits(journalEntry))
+						.filterWhen(debit -> isApplied(debit.getAccountNumber(), journalEntry.getId()))
+						.collectList()
+						.flatMap(appliedDebits -> resolveStaleEntry(journalEntry, appliedDebits)))
+				.count();
+	}
+
+	/**
+	 * Pulls the tags of a batch of closed entries from all of their accounts with
+	 * a single multi-document update, then marks the entries as released.
+	 *
+	 * @param closedBefore the date before which a closed entry can be released
+	 * @return a Mono emitting the number of entries released
+	 */
+	@Override
+	public Mono<Long> releaseClosedEntries(LocalDateTime closedBefore) {
+		return journalEntryRepository.findUnreleasedEntries(closedBefore, PageRequest.of(0, batchSize))
+				.collectList()
+				.filter(entries -> !entries.isEmpty())
+				.flatMap(entries -> {
+					Set<String> accountNumbers = entries.stream().flatMap(journalEntry -> journalEntry.getLegs().stream())
+							.map(JournalLeg::getAccountNumber)
+							.collect(Collectors.toSet());
+					List<String> entryIds = entries.stream().map(JournalEntryEntity::getId)
+							.collect(Collectors.toList());
+					List<String> tags = entryIds.stream()
+							.flatMap(id -> Stream.of(id, id + Constants.JOURNAL_REVERSAL_SUFFIX))
+							.collect(Collectors.toList());
+
+					return accountsService.releaseJournalEntries(accountNumbers, tags)
+							.then(mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(entryIds)),
+									new Update().set("tagsReleased", true), JournalEntryEntity.class))
+							.map(result -> result.getModifiedCount());
+				})
+				.defaultIfEmpty(0L);
+	}
+
+	/**
+	 * Completes a stale entry whose debits reached every account and whose
+	 * transaction was recorded, or reverses its applied debits and rejects it.
+	 *
+	 * @param journalEntry  the stale entry
+	 * @param appliedDebits the debits of the entry found in their accounts
+	 * @return a Mono completing once the entry is resolved
+	 */
+	private Mono<Void> resolveStaleEntry(JournalEntryEntity journalEntry, List<JournalLeg> appliedDebits) {
+		Mono<Boolean> recorded = appliedDebits.size() == debits(journalEntry).size()
+				? transactionRepository.existsByOperationNumber(journalEntry.getOperationNumber())
+				: Mono.just(false);
+
+		return recorded.flatMap(isRecorded -> {
+			if (Boolean.TRUE.equals(isRecorded)) {
+				logger.warn("Completing journal entry {} whose posting was interrupted",
+						journalEntry.getOperationNumber());
+				return markDebitsApplied(journalEntry);
+			}
+			logger.warn("Rejecting journal entry {} whose posting was interrupted",
+					journalEntry.getOperationNumber());
+			return reverse(journalEntry, appliedDebits).then(reject(journalEntry));
+		});
+	}
+
+	/**
+	 * Applies the debit legs of an entry and records its transaction, reversing
+	 * the applied debits and rejecting the entry if either step fails.
+	 *
+	 * @param journalEntry the entry
+	 * @param transaction  the recording of the entry's transaction
+	 * @return a Mono emitting the recorded transaction
+	 */
+	private Mono<TransactionEntity> applyDebits(JournalEntryEntity journalEntry,
+			Mono<TransactionEntity> transaction) {
+		return Mono.defer(() -> {
+			List<JournalLeg> appliedDebits = new ArrayList<>();
+
+			return Flux.fromIterable(debits(journalEntry))
+					.concatMap(debit -> accountsService
+							.applyJournalEntries(debit.getAccountNumber(), debit.getAmount(),
+									Collections.singletonList(journalEntry.getId()))
+							.doOnNext(balance -> appliedDebits.add(debit)))
+					.then(transaction)
+					.onErrorResume(error -> reverse(journalEntry, appliedDebits)
+							.then(reject(journalEntry))
+							.then(Mono.<TransactionEntity>error(error)));
+		});
+	}
+
+	/**
+	 * Applies the credits of a batch to one account.
+	 *
+	 * @param accountNumber the account number
+	 * @param credits       the credited amount of each entry
+	 * @return a Flux emitting the ids of the entries that could not be applied
+	 */
+	private Flux<String> applyCredits(String accountNumber, Map<String, Double> credits) {
+		double amount = credits.values().stream().mapToDouble(Double::doubleValue).sum();
+
+		return accountsService.applyJournalEntries(accountNumber, amount, new ArrayList<>(credits.keySet()))
+				.thenMany(Flux.<String>empty())
+				.onErrorResume(batchError -> Flux.fromIterable(credits.entrySet())
+						.concatMap(credit -> accountsService
+								.applyJournalEntries(accountNumber, credit.getValue(),
+										Collections.singletonList(credit.getKey()))
+								.then(Mono.<String>empty())
+								.onErrorResume(error -> {
+									logger.error("Unable to credit journal entry {} to account {}: {}",
+											credit.getKey(), accountNumber, error.getMessage());
+									return Mono.just(credit.getKey());
+								})));
+	}
+
+	/**
+	 * Marks the entries of a batch that are still pending as applied, except those
+	 * with a failed credit, whose attempts are counted instead. The failed entries
+	 * that have used their last attempt are refunded.
+	 *
+	 * @param entries   the entries of the batch
+	 * @param failedIds the ids of the entries with a failed credit
+	 * @return a Mono emitting the number of entries applied
+	 */
+	private Mono<Long> completeEntries(List<JournalEntryEntity> entries, Set<String> failedIds) {
+		List<String> appliedIds = entries.stream().map(JournalEntryEntity::getId)
+				.filter(id -> !failedIds.contains(id))
+				.collect(Collectors.toList());
+		List<JournalEntryEntity> exhausted = entries.stream()
+				.filter(journalEntry -> failedIds.contains(journalEntry.getId())
+						&& journalEntry.getAttempts() + 1 >= Constants.JOURNAL_MAX_ATTEMPTS)
+				.collect(Collectors.toList());
+
+		Mono<Void> countFailures = failedIds.isEmpty() ? Mono.empty()
+				: mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(failedIds)),
+						new Update().inc("attempts", 1), JournalEntryEntity.class)
+						.thenMany(Flux.fromIterable(exhausted))
+						.concatMap(this::refund)
+						.then();
+
+		if (appliedIds.isEmpty()) {
+			return countFailures.thenReturn(0L);
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		return countFailures.then(mongoTemplate.updateMulti(
+				Query.query(Criteria.where("_id").in(appliedIds).and("status").is(Constants.JOURNAL_STATUS_PENDING)),
+				new Update().set("status", Constants.JOURNAL_STATUS_APPLIED).set("appliedDate", now)
+						.set("closeDate", now),
+				JournalEntryEntity.class))
+				.map(result -> result.getModifiedCount());
+	}
+
+	/**
+	 * Refunds an entry whose credit failed on its last attempt. Its debits and the
+	 * credits that did reach their accounts are reversed and the entry is
+	 * rejected. If the refund itself fails, the entry is left pending without
+	 * attempts for manual review.
+	 *
+	 * @param journalEntry the entry
+	 * @return a Mono completing once the entry is refunded
+	 */
+	private Mono<Void> refund(JournalEntryEntity journalEntry) {
+		return Flux.fromIterable(credits(journalEntry))
+				.filterWhen(credit -> isApplied(credit.getAccountNumber(), journalEntry.getId()))
+				.collectList()
+				.flatMap(appliedCredits -> {
+					List<JournalLeg> appliedLegs = new ArrayList<>(debits(journalEntry));
+					appliedLegs.addAll(appliedCredits);
+					logger.warn("Refunding journal entry {} whose credit could not be applied",
+							journalEntry.getOperationNumber());
+					return reverse(journalEntry, appliedLegs);
+				})
+				.then(reject(journalEntry))
+				.onErrorResume(error -> {
+					logger.error("Unable to refund journal entry {}: {}", journalEntry.getOperationNumber(),
+							error.getMessage());
+					return Mono.empty();
+				});
+	}
+
+	/**
+	 * Reverses the given legs of an entry. The reversal is itself tagged, so it is
+	 * applied at most once.
+	 *
+	 * @param journalEntry the entry
+	 * @param appliedLegs  the applied legs to reverse
+	 * @return a Mono completing once every leg is reversed
+	 */
+	private Mono<Void> reverse(JournalEntryEntity journalEntry, List<JournalLeg> appliedLegs) {
+		return Flux.fromIterable(appliedLegs)
+				.concatMap(leg -> accountsService.applyJournalEntries(leg.getAccountNumber(),
+						-leg.getAmount(),
+						Collections.singletonList(journalEntry.getId() + Constants.JOURNAL_REVERSAL_SUFFIX)))
+				.then();
+	}
+
+	/**
+	 * Marks the debit legs of a pending entry as applied, handing its credit legs
+	 * over to the applier.
+	 *
+	 * @param journalEntry the entry
+	 * @return a Mono completing once the entry is updated
+	 */
+	private Mono<Void> markDebitsApplied(JournalEntryEntity journalEntry) {
+		return mongoTemplate.updateFirst(pending(journalEntry), new Update().set("debitsApplied", true),
+				JournalEntryEntity.class).then();
+	}
+
+	/**
+	 * Rejects a pending entry.
+	 *
+	 * @param journalEntry the entry
+	 * @return a Mono completing once the entry is updated
+	 */
+	private Mono<Void> reject(JournalEntryEntity journalEntry) {
+		return mongoTemplate.updateFirst(pending(journalEntry),
+				new Update().set("status", Constants.JOURNAL_STATUS_REJECTED).set("closeDate", LocalDateTime.now()),
+				JournalEntryEntity.class).then();
+	}
+
+	/**
+	 * Builds the query of an entry that is still pending.
+	 *
+	 * @param journalEntry the entry
+	 * @return the query of the entry
+	 */
+	private Query pending(JournalEntryEntity journalEntry) {
+		return Query.query(Criteria.where("_id").is(journalEntry.getId()).and("status")
+				.is(Constants.JOURNAL_STATUS_PENDING));
+	}
+
+	/**
+	 * Checks whether an entry was applied to an account.
+	 *
+	 * @param accountNumber the account number
+	 * @param entryId       the id of the entry
+	 * @return a Mono emitting true if the account's applied journal holds the entry
+	 */
+	private Mono<Boolean> isApplied(String accountNumber, String entryId) {
+		return accountRepository.findByAccountNumberAndIsActiveTrue(accountNumber)
+				.map(accountEntity -> accountEntity.getAppliedJournal() != null
+						&& accountEntity.getAppliedJournal().contains(entryId))
+				.defaultIfEmpty(false);
+	}
+
+	/**
+	 * Sums the debit legs of an entry per account.
+	 *
+	 * @param journalEntry the entry
+	 * @return one debit leg per debited account
+	 */
+	private List<JournalLeg> debits(JournalEntryEntity journalEntry) {
+		return sumPerAccount(journalEntry, true);
+	}
+
+	/**
+	 * Sums the credit legs of an entry per account.
+	 *
+	 * @param journalEntry the entry
+	 * @return one credit leg per credited account
+	 */
+	private List<JournalLeg> credits(JournalEntryEntity journalEntry) {
+		return sumPerAccount(journalEntry, false);
+	}
+
+	/**
+	 * Sums either the debit or the credit legs of an entry per account.
+	 *
+	 * @param journalEntry the entry
+	 * @param debits       true to sum the debit legs, false for the credit legs
+	 * @return one leg per account
+	 */
+	private List<JournalLeg> sumPerAccount(JournalEntryEntity journalEntry, boolean debits) {
+		return journalEntry.getLegs().stream()
+				.filter(leg -> (leg.getAmount() < 0) == debits)
+				.collect(Collectors.groupingBy(JournalLeg::getAccountNumber, LinkedHashMap::new,
+						Collectors.summingDouble(JournalLeg::getAmount)))
+				.entrySet().stream()
+				.map(debit -> new JournalLeg(debit.getKey(), debit.getValue()))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Groups the credit legs of a batch of entries by account and entry.
+	 *
+	 * @param entries the entries
+	 * @return the credited amount of each entry, per credited account
+	 */
+	private Map<String, Map<String, Double>> creditsByAccount(List<JournalEntryEntity> entries) {
+		Map<String, Map<String, Double>> credits = new LinkedHashMap<>();
+
+		for (JournalEntryEntity journalEntry : entries) {
+			for (JournalLeg leg : journalEntry.getLegs()) {
+				if (leg.getAmount() >= 0) {
+					credits.computeIfAbsent(leg.getAccountNumber(), accountNumber -> new LinkedHashMap<>())
+							.merge(journalEntry.getId(), leg.getAmount(), Double::sum);
+				}
+			}
+		}
+		return credits;
+	}
+}
@@ -0,0 +1,252 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.entity.MovementCounterEntity;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.repository.TransactionRepository;
+import com.nttdata.bank.service.MovementCounterService;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * MovementCounterServiceImpl is the implementation class for the
+ * MovementCounterService interface. Counters are incremented with an atomic
+ * upsert on a document keyed by account and month.
+ */
+@Service
+public class MovementCounterServiceImpl implements MovementCounterService {
+
+	private static final Logger logger = LoggerFactory.getLogger(MovementCounterServiceImpl.class);
+
+	private static final DateTimeFormatter PERIOD_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+	private static final String DEPOSITS = "deposits";
+	private static final String WITHDRAWALS = "withdrawals";
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	/**
+	 * Registers a written transaction in the counter of its account and month.
+	 *
+	 * @param transactionEntity The transaction that has been written
+	 * @return A Mono that completes when the counter has been incremented
+	 */
+	@Override
+	public Mono<Void> registerMovement(TransactionEntity transactionEntity) {
+		String accountNumber = getMovementAccount(transactionEntity);
+
+		if (accountNumber == null) {
+			return Mono.empty();
+		}
+
+		LocalDateTime createDate = Optional.ofNullable(transactionEntity.getCreateDate())
+				.orElseGet(LocalDateTime::now);
+		String period = YearMonth.from(createDate).format(PERIOD_FORMAT);
+		Query query = Query.query(Criteria.where("id").is(getCounterId(accountNumber, period)));
+		Update update = new Update()
+				.inc(getCounterField(transactionEntity.getTransactionType()), 1)
+				.setOnInsert("accountNumber", accountNumber)
+				.setOnInsert("period", period)
+				.set("updateDate", LocalDateTime.now());
+
+		return mongoTemplate.upsert(query, update, MovementCounterEntity.class)
+				.onErrorResume(DuplicateKeyException.class,
+						e -> mongoTemplate.upsert(query, update, MovementCounterEntity.class))
+				.then();
+	}
+
+	/**
+	 * Counts the deposits and withdrawals of an account in the given month.
+	 *
+	 * @param accountNumber The account number
+	 * @param period        The month to count
+	 * @return A Mono emitting the number of movements, zero when there are none
+	 */
+	@Override
+	public Mono<Long> countMovements(String accountNumber, YearMonth period) {
+		return mongoTemplate
+				.findById(getCounterId(accountNumber, period.format(PERIOD_FORMAT)),
+						MovementCounterEntity.class)
+				.map(counter -> valueOf(counter.getDeposits()) + valueOf(counter.getWithdrawals()))
+				.defaultIfEmpty(0L);
+	}
+
+	/**
+	 * Counts the deposits and withdrawals of several accounts in the given month,
+	 * reading all of their counters with one $in query on the counter id.
+	 *
+	 * @param accountNumbers The account numbers
+	 * @param period         The month to count
+	 * @return A Mono emitting the number of movements keyed by account number
+	 */
+	@Override
+	public Mono<Map<String, Long>> countMovementsByAccount(Collection<String> accountNumbers,
+			YearMonth period) {
+		String formattedPeriod = period.format(PERIOD_FORMAT);
+		Query query = Query.query(Criteria.where("id").in(accountNumbers.stream()
+				.map(accountNumber -> getCounterId(accountNumber, formattedPeriod))
+				.collect(Collectors.toList())));
+
+		return mongoTemplate.find(query, MovementCounterEntity.class)
+				.collectMap(MovementCounterEntity::getAccountNumber,
+						counter -> valueOf(counter.getDeposits()) + valueOf(counter.getWithdrawals()));
+	}
+
+	/**
+	 * Recomputes every counter from the transactions collection. The deposits and
+	 * withdrawals are streamed once and folded into one pair of counts per account
+	 * and month, the counters are overwritten with the result and counters that
+	 * were not touched by the rebuild are removed. It is only run offline by the
+	 * MovementCounterRebuildCommand, while no deposits or withdrawals are being
+	 * posted.
+	 *
+	 * @return A Mono emitting the number of counters written
+	 */
+	@Override
+	public Mono<Long> rebuildCounters() {
+		LocalDateTime startedAt = LocalDateTime.now();
+		logger.info("Rebuilding movement counters");
+
+		return transactionRepository
+				.findByTransactionTypeInAndIsActiveTrue(Arrays.asList(
+						Constants.TRANSACTION_TYPE_DEPOSIT, Constants.TRANSACTION_TYPE_WITHDRAWAL))
+				.collect(HashMap<String, long[]>::new, this::accumulate)
+				.flatMapMany(counters -> Flux.fromIterable(counters.entrySet()))
+				.flatMap(this::overwriteCounter, 16)
+				.count()
+				.flatMap(written -> mongoTemplate
+						.remove(Query.query(Criteria.where("updateDate").lt(startedAt)),
+								MovementCounterEntity.class)
+						.map(removed -> {
+							logger.info("Movement counters rebuilt: {} written, {} removed", written,
+									removed.getDeletedCount());
+							return written;
+						}));
+	}
+
+	/**
+	 * Adds a transaction to the in-memory counts used by the rebuild.
+	 *
+	 * @param counters          The counts keyed by counter id, holding deposits
+	 *                          and withdrawals
+	 * @param transactionEntity The transaction to add
+	 */
+	private void accumulate(Map<String, long[]> counters, TransactionEntity transactionEntity) {
+		String accountNumber = getMovementAccount(transactionEntity);
+
+		if (accountNumber == null || transactionEntity.getCreateDate() == null) {
+			return;
+		}
+
+		long[] counts = counters.computeIfAbsent(getCounterId(accountNumber,
+				YearMonth.from(transactionEntity.getCreateDate()).format(PERIOD_FORMAT)),
+				id -> new long[2]);
+
+		if (DEPOSITS.equals(getCounterField(transactionEntity.getTransactionType()))) {
+			counts[0]++;
+		} else {
+			counts[1]++;
+		}
+	}
+
+	/**
+	 * Overwrites a counter with the counts computed by the rebuild.
+	 *
+	 * @param counter The counter id and its deposits and withdrawals
+	 * @return A Mono that completes when the counter has been written
+	 */
+	private Mono<Void> overwriteCounter(Map.Entry<String, long[]> counter) {
+		String id = counter.getKey();
+		int separator = id.lastIndexOf(':');
+		Update update = new Update()
+				.set("accountNumber", id.substring(0, separator))
+				.set("period", id.substring(separator + 1))
+				.set(DEPOSITS, counter.getValue()[0])
+				.set(WITHDRAWALS, counter.getValue()[1])
+				.set("updateDate", LocalDateTime.now());
+
+		return mongoTemplate
+				.upsert(Query.query(Criteria.where("id").is(id)), update,
+						MovementCounterEntity.class)
+				.then();
+	}
+
+	/**
+	 * Returns the account whose counter is affected by the transaction: the
+	 * receiving account of a deposit or the withdrawing account of a withdrawal.
+	 *
+	 * @param transactionEntity The transaction
+	 * @return The account number, or null when the transaction is not counted
+	 */
+	private String getMovementAccount(TransactionEntity transactionEntity) {
+		String field = getCounterField(transactionEntity.getTransactionType());
+
+		if (DEPOSITS.equals(field)) {
+			return transactionEntity.getAccountNumberReceive();
+		} else if (WITHDRAWALS.equals(field)) {
+			return transactionEntity.getAccountNumberWithdraws();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the counter field incremented by the given transaction type.
+	 *
+	 * @param transactionType The transaction type
+	 * @return The counter field, or null when the type is not counted
+	 */
+	private String getCounterField(String transactionType) {
+		if (Constants.TRANSACTION_TYPE_DEPOSIT.equalsIgnoreCase(transactionType)) {
+			return DEPOSITS;
+		} else if (Constants.TRANSACTION_TYPE_WITHDRAWAL.equalsIgnoreCase(transactionType)) {
+			return WITHDRAWALS;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Builds the id of the counter of an account and month.
+	 *
+	 * @param accountNumber The account number
+	 * @param period        The month formatted as yyyy-MM
+	 * @return The counter id
+	 */
+	private String getCounterId(String accountNumber, String period) {
+		return accountNumber + ":" + period;
+	}
+
+	/**
+	 * Returns the value of a counter, treating a missing field as zero.
+	 *
+	 * @param value The stored value
+	 * @return The value or zero
+	 */
+	private long valueOf(Long value) {
+		return value != null ? value : 0L;
+	}
+
+}
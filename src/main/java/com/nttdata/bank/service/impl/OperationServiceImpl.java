@@ -2,19 +2,18 @@ package com.nttdata.bank.service.impl;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.util.ArrayList;
+import java.time.YearMonth;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import com.nttdata.bank.entity.Consumption;
+import com.nttdata.bank.entity.AccountEntity;
 import com.nttdata.bank.entity.CreditCardScheduleEntity;
-import com.nttdata.bank.entity.CreditScheduleEntity;
-import com.nttdata.bank.entity.CustomerEntity;
 import com.nttdata.bank.entity.DebitCardEntity;
+import com.nttdata.bank.entity.JournalLeg;
 import com.nttdata.bank.entity.TransactionEntity;
 import com.nttdata.bank.entity.YankiEntity;
 import com.nttdata.bank.mapper.TransactionMapper;
@@ -23,31 +22,38 @@ import com.nttdata.bank.repository.CreditCardRepository;
 import com.nttdata.bank.repository.CreditCardScheduleRepository;
 import com.nttdata.bank.repository.CreditRepository;
 import com.nttdata.bank.repository.CreditScheduleRepository;
-import com.nttdata.bank.repository.CustomerRepository;
 import com.nttdata.bank.repository.DebitCardRepository;
 import com.nttdata.bank.repository.TransactionRepository;
-import com.nttdata.bank.repository.YankiRepository;
 import com.nttdata.bank.request.AccountTransferRequest;
 import com.nttdata.bank.request.DepositRequest;
 import com.nttdata.bank.request.MobileTransferRequest;
 import com.nttdata.bank.request.PayCreditCardRequest;
 import com.nttdata.bank.request.PayCreditRequest;
-import com.nttdata.bank.request.UpdateAccountRequest;
 import com.nttdata.bank.request.WithdrawalRequest;
-import com.nttdata.bank.response.ProductResponse;
 import com.nttdata.bank.response.TransactionResponse;
 import com.nttdata.bank.service.AccountsService;
-import com.nttdata.bank.service.CreditCardService;
+import com.nttdata.bank.service.CreditPaymentService;
 import com.nttdata.bank.service.CreditService;
+import com.nttdata.bank.service.CustomerNameService;
+import com.nttdata.bank.service.LedgerService;
+import com.nttdata.bank.service.MovementCounterService;
 import com.nttdata.bank.service.OperationService;
+import com.nttdata.bank.service.SequenceService;
+import com.nttdata.bank.service.WithdrawalFundingService;
+import com.nttdata.bank.service.YankiDirectoryService;
+import com.nttdata.bank.util.CardPaymentWaterfall;
 import com.nttdata.bank.util.Constants;
+import com.nttdata.bank.util.PaymentWaterfall;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
  * TransactionServiceImpl is the implementation class for the TransactionService
  * interface. This class provides the actual logic for handling
  * transaction-related operations such as making deposits, making withdrawals,
- * paying installments, checking transactions, and charging consumption.
+ * paying installments, checking transactions, and charging consumption. Every
+ * operation is a non-blocking reactive chain, so it is safe to run on the
+ * WebFlux event loop.
  */
 @Service
 public class OperationServiceImpl implements OperationService {
@@ -65,10 +71,10 @@ public class OperationServiceImpl implements OperationService {
 	private AccountsService accountService;
 
 	@Autowired
-	private CustomerRepository customerRepository;
+	private CustomerNameService customerNameService;
 
 	@Autowired
-	private YankiRepository yankiRepository;
+	private YankiDirectoryService yankiDirectoryService;
 
 	@Autowired
 	private CreditRepository creditRepository;
@@ -76,45 +82,88 @@ public class OperationServiceImpl implements OperationService {
 	@Autowired
 	private CreditService creditService;
 
-	@Autowired
-	private CreditCardService creditCardService;
-
 	@Autowired
 	private CreditCardRepository creditCardRepository;
 
 	@Autowired
 	private CreditScheduleRepository creditScheduleRepository;
 
+	@Autowired
+	private CreditPaymentService creditPaymentService;
+
 	@Autowired
 	private CreditCardScheduleRepository creditCardScheduleRepository;
 
+	@Autowired
+	private SequenceService sequenceService;
+
+	@Autowired
+	private MovementCounterService movementCounterService;
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private WithdrawalFundingService withdrawalFundingService;
+
 	/**
-	 * Makes a deposit based on the provided deposit request.
+	 * Makes a deposit based on the provided deposit request. The deposit, net of
+	 * its commission, is credited to the receiving account before the transaction
+	 * is recorded and counted as a movement; if the transaction cannot be
+	 * recorded, the credit is reversed.
 	 *
 	 * @param depositRequest the deposit request containing the details for making a
 	 *                       deposit
 	 * @return TransactionResponse containing the details of the completed deposit
+	 * @throws IllegalArgumentException if the amount does not exceed the
+	 *                                  commission of the deposit
 	 */
 	@Override
 	public Mono<TransactionResponse> makeDeposit(DepositRequest depositRequest) {
 		LocalDateTime transactionDate = LocalDateTime.now();
-		String accountReceive = getPrimaryAccount(depositRequest);
 		String transactionType = Constants.TRANSACTION_TYPE_DEPOSIT;
-		Double commission = -getCommission(accountReceive);
-
-		TransactionEntity transactionEntity = transactionRepository
-				.save(TransactionMapper.mapperToEntity(transactionDate, commission, transactionType,
-						depositRequest.getAmount() + commission, accountReceive,
-						generateUniqueOperationNumber(), null,
-						null, null, null, getName(depositRequest.getDocumentNumber())))
-				.toFuture().join();
+		Double amount = depositRequest.getAmount();
+
+		return getPrimaryAccount(depositRequest)
+				.flatMap(accountReceive -> Mono.zip(getCommission(accountReceive),
+						generateUniqueOperationNumber(), getName(depositRequest.getDocumentNumber()))
+						.flatMap(tuple -> {
+							Double commission = tuple.getT1();
+							if (amount <= commission) {
+								return Mono.error(new IllegalArgumentException(
+										"The deposit amount must exceed the commission of "
+												+ commission));
+							}
+
+							return creditDeposit(TransactionMapper.mapperToEntity(transactionDate,
+									-commission, transactionType, amount - commission, accountReceive,
+									tuple.getT2(), null, null, null, null, tuple.getT3()));
+						}))
+				.map(TransactionMapper::mapperToResponse);
+	}
 
-		updateAccount(transactionEntity.getAccountNumberReceive(), transactionEntity.getAmount());
-		return Mono.just(TransactionMapper.mapperToResponse(transactionEntity));
+	/**
+	 * Credits a deposit to its receiving account, then records its transaction.
+	 * If the transaction cannot be recorded, the credit is reversed.
+	 *
+	 * @param transactionEntity the transaction of the deposit
+	 * @return a Mono emitting the recorded transaction
+	 */
+	private Mono<TransactionEntity> creditDeposit(TransactionEntity transactionEntity) {
+		String accountReceive = transactionEntity.getAccountNumberReceive();
+		Double amount = transactionEntity.getAmount();
+
+		return accountService.updateBalance(accountReceive, amount)
+				.then(Mono.defer(() -> saveTransaction(transactionEntity))
+						.onErrorResume(error -> accountService.updateBalance(accountReceive, -amount)
+								.then(Mono.<TransactionEntity>error(error))));
 	}
 
 	/**
-	 * Makes a withdrawal based on the provided withdrawal request.
+	 * Makes a withdrawal based on the provided withdrawal request. The withdrawal
+	 * and its commission are debited from the first funded account of the debit
+	 * card before the transaction is recorded; if the transaction cannot be
+	 * recorded, the debit is reversed.
 	 *
 	 * @param withdrawalRequest the withdrawal request containing the details for
 	 *                          making a withdrawal
@@ -123,57 +172,33 @@ public class OperationServiceImpl implements OperationService {
 	 */
 	@Override
 	public Mono<TransactionResponse> makeWithdrawal(WithdrawalRequest withdrawalRequest) {
-		DebitCardEntity debitCardEntity = Optional
-				.ofNullable(debitCardRepository
-						.findByDebitCardNumberAndIsActiveTrue(
-								withdrawalRequest.getDebitCardNumber())
-						.toFuture().join())
-				.orElseThrow(() -> new IllegalArgumentException("card does not exist"));
-
 		String transactionType = Constants.TRANSACTION_TYPE_WITHDRAWAL;
-		Double commission = 0.00;
-		Double balance = 0.00;
-		String accountWithdraws = debitCardEntity.getPrimaryAccount();
-		Double amount = -withdrawalRequest.getAmount();
-		Boolean hasBalance = false;
-		int i = 0;
-
-		do {
-			if (i > 0) {
-				accountWithdraws = debitCardEntity.getAssociatedAccounts().get(i);
-			}
-
-			commission = -getCommission(accountWithdraws);
-			balance = -(amount + commission);
-
-			hasBalance = accountRepository
-					.existsByAccountNumberAndAmountGreaterThanEqual(accountWithdraws, balance)
-					.toFuture().join();
-
-			i++;
-		} while (!hasBalance && debitCardEntity.getAssociatedAccounts().size() > i);
-
-		if (!hasBalance) {
-			throw new IllegalArgumentException(
-					"None of the associated accounts have enough balance to make the withdrawal.");
-		}
-
-		String operationNumber = generateUniqueOperationNumber();
-
-		TransactionEntity transactionEntity = transactionRepository
-				.save(TransactionMapper.mapperToEntity(LocalDateTime.now(), commission,
-						transactionType, amount, null,
-						operationNumber, null, accountWithdraws, null,
-						getName(withdrawalRequest.getDocumentNumber()),
-						null))
-				.toFuture().join();
 
-		updateAccount(transactionEntity.getAccountNumberWithdraws(), transactionEntity.getAmount());
-		return Mono.just(TransactionMapper.mapperToResponse(transactionEntity));
+		return debitCardRepository
+				.findByDebitCardNumberAndIsActiveTrue(withdrawalRequest.getDebitCardNumber())
+				.switchIfEmpty(Mono.error(new IllegalArgumentException("card does not exist")))
+				.flatMap(debitCardEntity -> withdrawalFundingService
+						.debitFundingAccount(debitCardEntity, withdrawalRequest.getAmount()))
+				.flatMap(funding -> {
+					Double amount = -(withdrawalRequest.getAmount() + funding.getT2());
+					return Mono.zip(generateUniqueOperationNumber(),
+							getName(withdrawalRequest.getDocumentNumber()))
+							.flatMap(tuple -> saveTransaction(TransactionMapper.mapperToEntity(
+									LocalDateTime.now(), -funding.getT2(), transactionType, amount,
+									null, tuple.getT1(), null, funding.getT1(), null, tuple.getT2(),
+									null)))
+							.onErrorResume(error -> accountService
+									.updateBalance(funding.getT1(), -amount)
+									.then(Mono.<TransactionEntity>error(error)));
+				})
+				.map(TransactionMapper::mapperToResponse);
 	}
 
 	/**
 	 * Makes an account transfer based on the provided account transfer request.
+	 * Both legs of the transfer are posted as one journal entry: the debit is
+	 * applied right away and the credit is applied by the ledger applier. The
+	 * receiving account must be active before anything is debited.
 	 *
 	 * @param accountTransferRequest the account transfer request containing the
 	 *                               details for making an account transfer
@@ -190,30 +215,26 @@ public class OperationServiceImpl implements OperationService {
 		String accountNumberWithdraws = accountTransferRequest.getAccountNumberWithdraws();
 		String accountNumberReceive = accountTransferRequest.getAccountNumberReceive();
 
-		if (accountRepository
-				.existsByAccountNumberAndAmountGreaterThanEqual(accountNumberWithdraws, amount)
-				.toFuture().join()) {
-			throw new IllegalArgumentException(
-					"The account does not have sufficient balance for the transfer.");
-		}
-
-		TransactionEntity transactionEntity = transactionRepository
-				.save(TransactionMapper.mapperToEntity(transactionDate, commission, transactionType,
-						amount,
-						accountNumberReceive, generateUniqueOperationNumber(), null,
-						accountNumberWithdraws, null,
-						getName(accountTransferRequest.getDocumentNumberWithdraws()),
-						getName(accountTransferRequest.getDocumentNumberReceive())))
-				.toFuture().join();
-
-		updateAccount(transactionEntity.getAccountNumberWithdraws(),
-				-transactionEntity.getAmount());
-		updateAccount(transactionEntity.getAccountNumberReceive(), transactionEntity.getAmount());
-		return Mono.just(TransactionMapper.mapperToResponse(transactionEntity));
+		return accountRepository.findByAccountNumberAndIsActiveTrue(accountNumberReceive)
+				.switchIfEmpty(Mono.error(new IllegalArgumentException(
+						"The receiving account does not exist or is not active")))
+				.then(Mono.zip(getName(accountTransferRequest.getDocumentNumberWithdraws()),
+						getName(accountTransferRequest.getDocumentNumberReceive()),
+						generateUniqueOperationNumber()))
+				.flatMap(tuple -> ledgerService.post(tuple.getT3(),
+						Arrays.asList(new JournalLeg(accountNumberWithdraws, -amount),
+								new JournalLeg(accountNumberReceive, amount)),
+						Mono.defer(() -> saveTransaction(TransactionMapper.mapperToEntity(
+								transactionDate, commission, transactionType, amount,
+								accountNumberReceive, tuple.getT3(), null, accountNumberWithdraws,
+								null, tuple.getT1(), tuple.getT2())))))
+				.map(TransactionMapper::mapperToResponse);
 	}
 
 	/**
-	 * Makes a mobile transfer based on the provided mobile transfer request.
+	 * Makes a mobile transfer based on the provided mobile transfer request. The
+	 * wallets are resolved through the Yanki directory, which picks up the wallets
+	 * changed by other instances within its sync interval.
 	 *
 	 * @param mobileTransferRequest the mobile transfer request containing the
 	 *                              details for making a mobile transfer
@@ -223,32 +244,35 @@ public class OperationServiceImpl implements OperationService {
 	@Override
 	public Mono<TransactionResponse> makeMobileTransfer(
 			MobileTransferRequest mobileTransferRequest) {
-		YankiEntity yankiWithdraws = Optional.ofNullable(yankiRepository
-				.findByPhoneNumberAndIsActiveTrue(mobileTransferRequest.getMobileNumberWithdraws())
-				.toFuture().join())
-				.orElseThrow(() -> new IllegalArgumentException("yanki Withdraws does not exist"));
-
-		YankiEntity yankiReceive = Optional
-				.ofNullable(
-						yankiRepository
-								.findByPhoneNumberAndIsActiveTrue(
-										mobileTransferRequest.getMobileNumberReceive())
-								.toFuture().join())
-				.orElseThrow(() -> new IllegalArgumentException("yanki Receive does not exist"));
-
-		AccountTransferRequest accountTransferRequest = new AccountTransferRequest();
-		accountTransferRequest.setAccountNumberWithdraws(yankiWithdraws.getAccountNumber());
-		accountTransferRequest.setAccountNumberReceive(yankiReceive.getAccountNumber());
-		accountTransferRequest
-				.setDocumentNumberWithdraws(mobileTransferRequest.getDocumentNumberWithdraws());
-		accountTransferRequest
-				.setDocumentNumberReceive(mobileTransferRequest.getDocumentNumberReceive());
-		accountTransferRequest.setAmount(mobileTransferRequest.getAmount());
-		return makeAccountTransfer(accountTransferRequest);
+		Mono<YankiEntity> yankiWithdraws = yankiDirectoryService
+				.findByPhoneNumber(mobileTransferRequest.getMobileNumberWithdraws())
+				.switchIfEmpty(Mono.error(
+						new IllegalArgumentException("yanki Withdraws does not exist")));
+
+		Mono<YankiEntity> yankiReceive = yankiDirectoryService
+				.findByPhoneNumber(mobileTransferRequest.getMobileNumberReceive())
+				.switchIfEmpty(Mono.error(
+						new IllegalArgumentException("yanki Receive does not exist")));
+
+		return Mono.zip(yankiWithdraws, yankiReceive).flatMap(tuple -> {
+			AccountTransferRequest accountTransferRequest = new AccountTransferRequest();
+			accountTransferRequest.setAccountNumberWithdraws(tuple.getT1().getAccountNumber());
+			accountTransferRequest.setAccountNumberReceive(tuple.getT2().getAccountNumber());
+			accountTransferRequest
+					.setDocumentNumberWithdraws(mobileTransferRequest.getDocumentNumberWithdraws());
+			accountTransferRequest
+					.setDocumentNumberReceive(mobileTransferRequest.getDocumentNumberReceive());
+			accountTransferRequest.setAmount(mobileTransferRequest.getAmount());
+			return makeAccountTransfer(accountTransferRequest);
+		});
 	}
 
 	/**
-	 * Pays a credit based on the provided pay credit request.
+	 * Pays a credit based on the provided pay credit request. The payment is
+	 * allocated in memory across the unpaid schedules of the credit, oldest first,
+	 * and the schedules it reaches are updated with a single bulk write. If the
+	 * schedules cannot be updated or the transaction cannot be recorded, the
+	 * schedules are restored and the debit is reversed.
 	 *
 	 * @param payCreditRequest the pay credit request containing the details for
 	 *                         paying the credit
@@ -258,128 +282,98 @@ public class OperationServiceImpl implements OperationService {
 	@Override
 	public Mono<TransactionResponse> payCredit(PayCreditRequest payCreditRequest) {
 		LocalDateTime transactionDate = LocalDateTime.now();
-
-		if (creditRepository.existsByIdAndIsActiveTrue(payCreditRequest.getCreditId()).toFuture()
-				.join()) {
-			throw new IllegalArgumentException("credit does not exist or does not active");
-		}
-
-		if (accountRepository
-				.existsByAccountNumberAndAmountGreaterThanEqual(payCreditRequest.getAccountNumber(),
-						payCreditRequest.getAmount())
-				.toFuture().join()) {
-			throw new IllegalArgumentException("The account has no balance for this transaction");
-		}
-
-		updateAccount(payCreditRequest.getAccountNumber(), -payCreditRequest.getAmount());
-
-		List<CreditScheduleEntity> overduePaymentSchedule = creditScheduleRepository
-				.findByCreditIdAndPaidFalseAndPaymentDateLessThanEqual(
-						payCreditRequest.getCreditId(), transactionDate)
-				.collectList().toFuture().join().stream()
-				.sorted(Comparator.comparing(CreditScheduleEntity::getPaymentDate))
-				.collect(Collectors.toList());
-
-		Double share = overduePaymentSchedule.stream()
-				.mapToDouble(CreditScheduleEntity::getCurrentDebt).sum();
-
-		List<CreditScheduleEntity> upcomingPaymentSchedule = creditScheduleRepository
-				.findByCreditIdAndPaidFalseAndPaymentDateAfter(payCreditRequest.getCreditId(),
-						transactionDate)
-				.collectList().toFuture().join().stream()
-				.sorted(Comparator.comparing(CreditScheduleEntity::getPaymentDate))
-				.collect(Collectors.toList());
-
-		Double totalDebt = upcomingPaymentSchedule.stream()
-				.mapToDouble(CreditScheduleEntity::getCurrentDebt).sum()
-				+ share;
-
-		TransactionEntity transactionEntity = TransactionMapper.mapperToEntity(transactionDate,
-				0.00,
-				Constants.TRANSACTION_TYPE_PAY_CREDIT, payCreditRequest.getAmount(), null,
-				generateUniqueOperationNumber(), payCreditRequest.getCreditId(),
-				payCreditRequest.getAccountNumber(),
-				null, getName(payCreditRequest.getDocumentNumber()), null);
-
-		transactionEntity = transactionRepository.save(transactionEntity).toFuture().join();
-		payCreditDebt(payCreditRequest.getAmount(), overduePaymentSchedule, share,
-				upcomingPaymentSchedule, totalDebt);
-
-		if (!creditScheduleRepository.existsByIdAndPaidFalse(payCreditRequest.getCreditId())
-				.toFuture().join()) {
-			creditService.desactivateCredit(payCreditRequest.getCreditId());
-		}
-
-		return Mono.just(TransactionMapper.mapperToResponse(transactionEntity));
-	}
-
-	/**
-	 * Retrieves a list of products associated with the given document number.
-	 *
-	 * @param documentNumber the document number to search for products.
-	 * @return a list of ProductResponse objects, representing the products found.
-	 * @throws IllegalArgumentException if the document number is null or empty.
-	 */
-	@Override
-	public List<ProductResponse> getProducts(String documentNumber) {
-		List<ProductResponse> products = new ArrayList<>();
-
-		Optional.ofNullable(
-				creditRepository.findAllByDocumentNumberAndIsActiveTrue(documentNumber)
-						.collectList().block())
-				.ifPresent(credits -> credits.forEach(creditEntity -> {
-					ProductResponse product = new ProductResponse();
-					product.setCreditId(creditEntity.getId());
-					product.setProductType(Constants.PRODUCT_CREDIT);
-					products.add(product);
-				}));
-
-		Optional.ofNullable(
-				creditCardRepository.findAllByDocumentNumberAndIsActiveTrue(documentNumber)
-						.collectList().block())
-				.ifPresent(creditCards -> creditCards.forEach(creditCardEntity -> {
-					ProductResponse product = new ProductResponse();
-					product.setCreditCardNumber(creditCardEntity.getCreditCardNumber());
-					product.setProductType(Constants.PRODUCT_CREDIT_CARD);
-					products.add(product);
-				}));
-
-		Optional.ofNullable(
-				accountRepository.findByHolderDocContainingAndIsActiveTrue(documentNumber)
-						.collectList().block())
-				.ifPresent(accounts -> accounts.forEach(accountEntity -> {
-					ProductResponse product = new ProductResponse();
-					product.setAccountNumber(accountEntity.getAccountNumber());
-					product.setProductType(accountEntity.getAccountType());
-					products.add(product);
-				}));
-
-		return products;
+		String creditId = payCreditRequest.getCreditId();
+		Double amount = payCreditRequest.getAmount();
+
+		return creditRepository.existsByIdAndIsActiveTrue(creditId)
+				.filter(Boolean::booleanValue)
+				.switchIfEmpty(Mono.error(
+						new IllegalArgumentException("credit does not exist or does not active")))
+				.then(Mono.zip(
+						creditScheduleRepository
+								.findByCreditIdAndPaidFalseOrderByPaymentDateAsc(creditId)
+								.collectList(),
+						getName(payCreditRequest.getDocumentNumber()),
+						generateUniqueOperationNumber()))
+				.flatMap(tuple -> {
+					List<PaymentWaterfall.Delta> deltas = PaymentWaterfall.allocate(tuple.getT1(),
+							amount);
+
+					TransactionEntity transactionEntity = TransactionMapper.mapperToEntity(
+							transactionDate, 0.00, Constants.TRANSACTION_TYPE_PAY_CREDIT, amount,
+							null, tuple.getT3(), creditId, payCreditRequest.getAccountNumber(),
+							null, tuple.getT2(), null);
+
+					String accountNumber = payCreditRequest.getAccountNumber();
+					return accountService.updateBalance(accountNumber, -amount)
+							.then(creditPaymentService.applyPayment(tuple.getT3(), deltas)
+									.then(Mono.defer(() -> saveTransaction(transactionEntity))
+											.onErrorResume(error -> creditPaymentService
+													.reversePayment(tuple.getT3(), deltas)
+													.then(Mono.error(error))))
+									.onErrorResume(error -> accountService
+											.updateBalance(accountNumber, amount)
+											.then(Mono.<TransactionEntity>error(error))));
+				})
+				.flatMap(transactionEntity -> creditScheduleRepository
+						.existsByCreditIdAndPaidFalse(creditId)
+						.flatMap(hasPendingSchedules -> hasPendingSchedules ? Mono.<Void>empty()
+								: creditService.desactivateCredit(creditId))
+						.thenReturn(transactionEntity))
+				.map(TransactionMapper::mapperToResponse);
 	}
 
 	/**
-	 * Check and retrieve a list of recent transactions for a given document number.
+	 * Check and retrieve the recent transactions for a given document number. The
+	 * newest transactions of all the customer's accounts are read through the
+	 * account/createDate indexes, newest first, one page at a time. The next page
+	 * starts after the (transaction date, transaction id) keyset of the last
+	 * transaction of the previous page.
 	 *
 	 * @param documentNumber the document number to search for transactions
-	 * @return a list of TransactionResponse objects, representing the recent
+	 * @param beforeDate     the transaction date of the last transaction read, or
+	 *                       null for the first page
+	 * @param beforeId       the transaction id of the last transaction read, or
+	 *                       null for the first page
+	 * @param size           the page size, or null for the default of 10
+	 * @return a Flux of TransactionResponse objects, representing the recent
 	 *         transactions associated with the provided document number
+	 * @throws IllegalArgumentException if only half of the keyset is provided or
+	 *                                  the page size is not positive
 	 */
 	@Override
-	public List<TransactionResponse> checkTransactions(String documentNumber) {
+	public Flux<TransactionResponse> checkTransactions(String documentNumber,
+			LocalDateTime beforeDate, String beforeId, Integer size) {
+		if ((beforeDate == null) != (beforeId == null)) {
+			return Flux.error(new IllegalArgumentException(
+					"beforeDate and beforeId must be provided together"));
+		}
+
+		if (size != null && size <= 0) {
+			return Flux.error(new IllegalArgumentException("The page size must be positive"));
+		}
+
+		Pageable page = PageRequest.of(0, size == null ? Constants.RECENT_TRANSACTIONS_PAGE_SIZE
+				: Math.min(size, Constants.RECENT_TRANSACTIONS_MAX_PAGE_SIZE));
+
 		return accountRepository.findByHolderDocContainingAndIsActiveTrue(documentNumber)
-				.collectList().block().stream()
-				.flatMap(account -> transactionRepository.findAllByIsActiveTrue().collectList()
-						.block().stream()
-						.filter(transaction -> transaction.getAccountNumberReceive()
-								.equalsIgnoreCase(account.getAccountNumber())
-								|| transaction.getAccountNumberWithdraws()
-										.equalsIgnoreCase(account.getAccountNumber())))
-				.sorted(Comparator.comparing(TransactionEntity::getCreateDate).reversed()).limit(10)
-				.map(TransactionMapper::mapperToResponse).collect(Collectors.toList());
+				.map(AccountEntity::getAccountNumber).collectList()
+				.filter(accountNumbers -> !accountNumbers.isEmpty())
+				.flatMapMany(accountNumbers -> beforeDate == null
+						? transactionRepository.findRecentByAccountNumbers(accountNumbers, page)
+						: transactionRepository.findRecentByAccountNumbersBefore(accountNumbers,
+								beforeDate, beforeId, page))
+				.map(TransactionMapper::mapperToResponse);
 	}
 
 	/**
-	 * Pays a credit card based on the provided pay credit card request.
+	 * Pays a credit card based on the provided pay credit card request. The
+	 * payment is allocated in one pass across the billed schedules and the
+	 * upcoming installments of the card, and the schedules it reaches and the
+	 * credit it releases are written without reading them back. The payment is
+	 * tagged with its operation number; if a schedule changed since it was read or
+	 * the transaction cannot be recorded, the card and the paying account are
+	 * restored.
 	 *
 	 * @param payCreditCardRequest the pay credit card request containing the
 	 *                             details for paying the credit card
@@ -388,567 +382,167 @@ public class OperationServiceImpl implements OperationService {
 	 */
 	@Override
 	public Mono<TransactionResponse> payCreditCard(PayCreditCardRequest payCreditCardRequest) {
-		TransactionResponse transactionResponse = new TransactionResponse();
-		LocalDateTime transactionDate = LocalDateTime.now();
-
-		if (creditCardRepository
-				.existsByCreditCardNumberAndIsActiveTrue(payCreditCardRequest.getCreditCardNumber())
-				.toFuture().join()) {
-			throw new IllegalArgumentException("credit card does not exist or does not active");
-		}
-
-		if (accountRepository.existsByAccountNumberAndAmountGreaterThanEqual(
-				payCreditCardRequest.getAccountNumber(),
-				payCreditCardRequest.getAmount()).toFuture().join()) {
-			throw new IllegalArgumentException("The account has no balance for this transaction");
-		}
-
-		List<CreditCardScheduleEntity> overduePaymentSchedule = creditCardScheduleRepository
-				.findByCreditCardNumberAndPaidFalseAndPaymentDateLessThanEqual(
-						payCreditCardRequest.getCreditCardNumber(), LocalDate.now())
-				.collectList().toFuture().join();
-
-		Double share = overduePaymentSchedule.stream()
-				.mapToDouble(CreditCardScheduleEntity::getCurrentDebt).sum();
-
-		List<CreditCardScheduleEntity> upcomingPaymentSchedule = creditCardScheduleRepository
-				.findByCreditCardNumberAndPaidFalseAndPaymentDateAfter(
-						payCreditCardRequest.getCreditCardNumber(),
-						LocalDateTime.now())
-				.collectList().toFuture().join();
-
-		Double totalDebt = upcomingPaymentSchedule.stream()
-				.mapToDouble(CreditCardScheduleEntity::getCurrentDebt).sum()
-				+ share;
-
-		if (payCreditCardRequest.getAccountNumber() != null) {
-			if (payCreditCardRequest.getDocumentNumber() == null) {
-				throw new IllegalArgumentException("The document number is null");
-			}
-
-			updateAccount(payCreditCardRequest.getAccountNumber(),
-					-payCreditCardRequest.getAmount());
-
-			TransactionEntity transactionEntity = TransactionMapper.mapperToEntity(transactionDate,
-					0.00,
-					Constants.TRANSACTION_TYPE_PAY_CREDIT_CARD, payCreditCardRequest.getAmount(),
-					null,
-					generateUniqueOperationNumber(), null, payCreditCardRequest.getAccountNumber(),
-					payCreditCardRequest.getCreditCardNumber(),
-					getName(payCreditCardRequest.getDocumentNumber()),
-					null);
-
-			transactionEntity = transactionRepository.save(transactionEntity).toFuture().join();
-			transactionResponse = TransactionMapper.mapperToResponse(transactionEntity);
-		}
-
-		Double balanceReturned = payCreditCardDebt(payCreditCardRequest.getAmount(),
-				overduePaymentSchedule, share,
-				upcomingPaymentSchedule, totalDebt);
-
-		creditCardService.updateBalance(payCreditCardRequest.getCreditCardNumber(),
-				balanceReturned);
-		return Mono.just(transactionResponse);
-	}
-
-	/**
-	 * Generates a unique operation number for a transaction.
-	 *
-	 * @return a unique operation number in the format of a 12-digit string
-	 */
-	private String generateUniqueOperationNumber() {
-		return transactionRepository.findFirstByOrderByOperationNumberDesc().map(transaction -> {
-			int newOperationNumber = Integer.parseInt(transaction.getOperationNumber()) + 1;
-			return String.format("%012d", newOperationNumber);
-		}).defaultIfEmpty(String.format("%012d", 1)).toFuture().join();
-	}
-
-	/**
-	 * Retrieves the name of a customer based on the provided document number.
-	 *
-	 * @param documentNumber the document number to search for the customer
-	 * @return the full name of the customer if the person type is personal, or the
-	 *         company name otherwise
-	 * @throws IllegalArgumentException if the customer does not exist
-	 */
-	private String getName(String documentNumber) {
-		CustomerEntity customer = customerRepository
-				.findByDocumentNumberAndIsActiveTrue(documentNumber).toFuture()
-				.join();
-
-		if (customer != null) {
-			if (customer.getPersonType().equalsIgnoreCase(Constants.PERSON_TYPE_PERSONAL)) {
-				return customer.getFullName();
-			} else {
-				return customer.getCompanyName();
-			}
-		} else {
-			throw new IllegalArgumentException("customer does not exist");
-		}
-	}
-
-	/**
-	 * Calculates the commission for a given account and transaction type.
-	 *
-	 * @param accountNumber the account number to check for transactions
-	 * @return the commission amount, 1.99 if the number of transactions of the
-	 *         given type in the current month exceeds 10, otherwise 0.00
-	 */
-	private Double getCommission(String accountNumber) {
-	    Double commission = 0.00;
-	    LocalDateTime now = LocalDateTime.now();
-	    LocalDateTime startOfMonth = now.withDayOfMonth(1).with(LocalTime.MIN);
-	    LocalDateTime endOfMonth = now
-	            .withDayOfMonth(now.getMonth().length(now.toLocalDate().isLeapYear()))
-	            .with(LocalTime.MAX);
-
-	    List<TransactionEntity> transactions = transactionRepository.findAllByIsActiveTrue()
-	            .toStream()
-	            .filter(transaction -> (transaction.getTransactionType()
-	                    .equalsIgnoreCase(Constants.TRANSACTION_TYPE_WITHDRAWAL)
-	                    || transaction.getTransactionType()
-	                            .equals(Constants.TRANSACTION_TYPE_DEPOSIT))
-	                    && !transaction.getCreateDate().isBefore(startOfMonth)
-	                    && !transaction.getCreateDate().isAfter(endOfMonth)
-	                    && (accountNumber.equalsIgnoreCase(transaction.getAccountNumberReceive())
-	                            || accountNumber
-	                                    .equalsIgnoreCase(transaction.getAccountNumberWithdraws())))
-	            .collect(Collectors.toList());
-
-	    if (transactions != null) {
-	        boolean isExceeded = transactions.size() > 10;
-
-	        if (isExceeded) {
-	            commission = Constants.COMMISSION_ADD;
-	        }
-	    }
-
-	    return commission;
-	}
-
-
-	/**
-	 * Retrieves the primary account associated with the given deposit request.
-	 *
-	 * @param depositRequest the deposit request containing the debit card number
-	 * @return the primary account number if the debit card number is valid and
-	 *         active, otherwise null
-	 * @throws IllegalArgumentException if the debit card does not exist
-	 */
-	private String getPrimaryAccount(DepositRequest depositRequest) {
-		String accountNumber = depositRequest.getAccountNumber();
-
-		if (accountNumber != null) {
-			return accountNumber;
-		}
-
-		return Optional.ofNullable(depositRequest.getDebitCardNumber()).map(debitCardNumber -> {
-			DebitCardEntity debitCardEntity = Optional
-					.ofNullable(debitCardRepository
-							.findByDebitCardNumberAndIsActiveTrue(debitCardNumber).toFuture()
-							.join())
-					.orElseThrow(() -> new IllegalArgumentException("Card does not exist"));
-			return debitCardEntity.getPrimaryAccount();
-		}).orElse(null);
-	}
-
-	/**
-	 * Processes the payment of debt based on the provided pay credit request and
-	 * schedules.
-	 *
-	 * @param amount                  amount paid
-	 * @param overduePaymentSchedule  the current list of credit schedules to be
-	 *                                paid
-	 * @param share                   the share amount for current installments
-	 * @param upcomingPaymentSchedule the list of credit schedules for the total
-	 *                                debt payment
-	 * @param totalDebt               the total amount of debt to be paid
-	 * @throws IllegalArgumentException if the payment amount exceeds the total debt
-	 */
-	private void payCreditDebt(Double amount, List<CreditScheduleEntity> overduePaymentSchedule,
-			Double share,
-			List<CreditScheduleEntity> upcomingPaymentSchedule, Double totalDebt) {
-		List<CreditScheduleEntity> combinedSchedule = new ArrayList<>();
-		combinedSchedule.addAll(overduePaymentSchedule);
-		combinedSchedule.addAll(upcomingPaymentSchedule);
-
-		if (totalDebt.compareTo(amount) < 0) {
-			throw new IllegalArgumentException("the amount exceeds the total debt");
-		} else if (totalDebt.compareTo(amount) == 0) {
-			payCreditCurrentInstallments(combinedSchedule, totalDebt);
-		} else if (totalDebt.compareTo(amount) > 0) {
-			if (share < amount.doubleValue()) {
-				payCreditCurrentInstallments(combinedSchedule, amount);
-			} else if (share >= amount.doubleValue()) {
-				payCreditCurrentInstallments(overduePaymentSchedule, amount);
-			}
-		}
-	}
+		String creditCardNumber = payCreditCardRequest.getCreditCardNumber();
+		Double amount = payCreditCardRequest.getAmount();
 
-	/**
-	 * Processes the payment of debt based on the provided pay credit card request
-	 * and schedules.
-	 *
-	 * @param amount                  amount paid
-	 * @param overduePaymentSchedule  the current list of credit schedules to be
-	 *                                paid
-	 * @param share                   the share amount for current installments
-	 * @param upcomingPaymentSchedule the list of credit schedules for the total
-	 *                                payment
-	 * @param totalDebt               the total amount of debt to be paid
-	 * @return balance returned.
-	 * @throws IllegalArgumentException if the payment amount exceeds the total debt
-	 */
-	private Double payCreditCardDebt(Double amount,
-			List<CreditCardScheduleEntity> overduePaymentSchedule, Double share,
-			List<CreditCardScheduleEntity> upcomingPaymentSchedule, Double totalDebt) {
-		Double balanceReturned = 0.00;
-
-		if (totalDebt.compareTo(amount) < 0) {
-			throw new IllegalArgumentException("the amount exceeds the total debt");
-		} else if (totalDebt.compareTo(amount) == 0) {
-			balanceReturned += payCreditCardCurrentInstallments(overduePaymentSchedule, share);
-			balanceReturned += totalDebt - share;
-			payConsumptionCreditCard(upcomingPaymentSchedule, totalDebt - share);
-		} else if (totalDebt.compareTo(amount) > 0) {
-			if (share.compareTo(amount) < 0) {
-				balanceReturned += payCreditCardCurrentInstallments(overduePaymentSchedule, amount);
-				balanceReturned += totalDebt - amount;
-				payConsumptionCreditCard(upcomingPaymentSchedule, totalDebt - amount);
-			} else if (share.compareTo(amount) <= 0) {
-				balanceReturned += payCreditCardCurrentInstallments(overduePaymentSchedule, amount);
-			}
+		if (payCreditCardRequest.getAccountNumber() != null
+				&& payCreditCardRequest.getDocumentNumber() == null) {
+			return Mono.error(new IllegalArgumentException("The document number is null"));
 		}
 
-		return balanceReturned;
-	}
-
-	/**
-	 * Method to pay off credit card consumption installments using an available
-	 * amount. The method sorts consumptions by the number of installments in
-	 * descending order and reduces the available amount from the consumptions,
-	 * starting with those that have the highest number of installments, until the
-	 * amount is exhausted.
-	 *
-	 * @param upcomingPaymentSchedule List of pending payment schedules for the
-	 *                                credit card.
-	 * @param amount                  Available amount to pay the consumptions.
-	 */
-	private void payConsumptionCreditCard(List<CreditCardScheduleEntity> upcomingPaymentSchedule,
-			Double amount) {
-		for (CreditCardScheduleEntity creditCardScheduleEntity : upcomingPaymentSchedule) {
-			List<Consumption> consumptions = creditCardScheduleEntity.getConsumptionQuota();
-			consumptions
-					.sort(Comparator.comparing(Consumption::getNumberOfInstallments).reversed());
-
-			for (Consumption consumption : consumptions) {
-				if (amount <= 0) {
-					break;
-				}
-
-				double remainingAmount = consumption.getAmount();
-
-				if (remainingAmount <= amount) {
-					amount -= remainingAmount;
-					consumption.setAmount(0.0);
-				} else {
-					consumption.setAmount(remainingAmount - amount);
-					amount = 0.0;
-				}
-			}
-		}
-	}
-
-	/**
-	 * Processes the payment of current installments based on the provided amount.
-	 *
-	 * @param listSchedule the list of credit schedules to be paid
-	 * @param amount       the amount available for payment
-	 */
-	private void payCreditCurrentInstallments(List<CreditScheduleEntity> listSchedule,
-			Double amount) {
-		for (CreditScheduleEntity creditScheduleEntity : listSchedule) {
-			if (creditScheduleEntity.getCurrentDebt().compareTo(amount) > 0) {
-				processCreditPayment(creditScheduleEntity, amount);
-				continue;
-			} else if (creditScheduleEntity.getCurrentDebt().compareTo(amount) < 0) {
-				paidCreditDebt(creditScheduleEntity, 0.00, 0.00, 0.00, true);
-			} else if (creditScheduleEntity.getCurrentDebt().compareTo(amount) == 0) {
-				paidCreditDebt(creditScheduleEntity, 0.00, 0.00, 0.00, true);
-				continue;
-			}
-
-			amount -= creditScheduleEntity.getCurrentDebt();
-		}
+		return creditCardRepository.existsByCreditCardNumberAndIsActiveTrue(creditCardNumber)
+				.filter(Boolean::booleanValue)
+				.switchIfEmpty(Mono.error(new IllegalArgumentException(
+						"credit card does not exist or does not active")))
+				.then(Mono.zip(
+						creditCardScheduleRepository
+								.findByCreditCardNumberAndPaidFalseAndPaymentDateLessThanEqual(
+										creditCardNumber, LocalDate.now())
+								.sort(Comparator.comparing(CreditCardScheduleEntity::getPaymentDate))
+								.collectList(),
+						creditCardScheduleRepository
+								.findByCreditCardNumberAndPaidFalseAndPaymentDateAfter(
+										creditCardNumber, LocalDateTime.now())
+								.sort(Comparator.comparing(CreditCardScheduleEntity::getPaymentDate))
+								.collectList()))
+				.flatMap(tuple -> {
+					CardPaymentWaterfall.Allocation allocation = CardPaymentWaterfall
+							.allocate(tuple.getT1(), tuple.getT2(), amount);
+
+					return generateUniqueOperationNumber()
+							.flatMap(operationNumber -> chargeCreditCardPayment(payCreditCardRequest,
+									operationNumber, allocation));
+				});
 	}
 
 	/**
-	 * Processes the payment of current installments based on the provided amount.
+	 * Applies a credit card payment to the card, debiting it from the paying
+	 * account and recording its transaction. Payments without an account produce
+	 * an empty response. When the payment cannot be applied or recorded, the
+	 * debit is reversed, and so is the payment if it was applied. A payment that
+	 * completes is forgotten on its card.
 	 *
-	 * @param listSchedule the list of credit card schedules to be paid
-	 * @param amount       the amount available for payment
-	 * @return balance returned.
+	 * @param payCreditCardRequest the pay credit card request
+	 * @param operationNumber      the operation number of the payment
+	 * @param allocation           the allocation of the payment
+	 * @return a Mono emitting the response of the recorded transaction
 	 */
-	private Double payCreditCardCurrentInstallments(List<CreditCardScheduleEntity> listSchedule,
-			Double amount) {
-		Double balanceReturned = 0.00;
-
-		for (CreditCardScheduleEntity creditCardScheduleEntity : listSchedule) {
-			if (creditCardScheduleEntity.getCurrentDebt().compareTo(amount) > 0) {
-				balanceReturned += processCreditCardPayment(creditCardScheduleEntity, amount);
-				continue;
-			} else if (creditCardScheduleEntity.getCurrentDebt().compareTo(amount) < 0) {
-				balanceReturned += paidCreditCardDebt(creditCardScheduleEntity, 0.00, 0.00, 0.00,
-						true);
-			} else if (creditCardScheduleEntity.getCurrentDebt().compareTo(amount) == 0) {
-				balanceReturned += paidCreditCardDebt(creditCardScheduleEntity, 0.00, 0.00, 0.00,
-						true);
-				continue;
-			}
-
-			amount -= creditCardScheduleEntity.getCurrentDebt();
+	private Mono<TransactionResponse> chargeCreditCardPayment(PayCreditCardRequest payCreditCardRequest,
+			String operationNumber, CardPaymentWaterfall.Allocation allocation) {
+		String creditCardNumber = payCreditCardRequest.getCreditCardNumber();
+		String accountNumber = payCreditCardRequest.getAccountNumber();
+		Double amount = payCreditCardRequest.getAmount();
+
+		if (accountNumber == null) {
+			return creditPaymentService.applyCardPayment(operationNumber, creditCardNumber, allocation)
+					.then(creditPaymentService.completeCardPayment(operationNumber, creditCardNumber))
+					.thenReturn(new TransactionResponse());
 		}
 
-		return balanceReturned;
+		return getName(payCreditCardRequest.getDocumentNumber())
+				.flatMap(name -> {
+					TransactionEntity transactionEntity = TransactionMapper.mapperToEntity(
+							LocalDateTime.now(), 0.00, Constants.TRANSACTION_TYPE_PAY_CREDIT_CARD, amount,
+							null, operationNumber, null, accountNumber, creditCardNumber, name, null);
+
+					Mono<TransactionEntity> recorded = Mono.defer(() -> saveTransaction(transactionEntity))
+							.onErrorResume(error -> creditPaymentService
+									.reverseCardPayment(operationNumber, creditCardNumber, allocation)
+									.then(Mono.error(error)));
+
+					return accountService.updateBalance(accountNumber, -amount)
+							.then(creditPaymentService
+									.applyCardPayment(operationNumber, creditCardNumber, allocation)
+									.then(recorded)
+									.onErrorResume(error -> accountService
+											.updateBalance(accountNumber, amount)
+											.then(Mono.<TransactionEntity>error(error))))
+							.flatMap(savedEntity -> creditPaymentService
+									.completeCardPayment(operationNumber, creditCardNumber)
+									.thenReturn(savedEntity));
+				})
+				.map(TransactionMapper::mapperToResponse);
 	}
 
 	/**
-	 * Processes the payment for a given credit schedule entity based on the
-	 * provided amount.
+	 * Generates a unique operation number for a transaction. Numbers come from
+	 * the operation number sequence, which is seeded from the highest operation
+	 * number already stored the first time it is used.
 	 *
-	 * @param creditScheduleEntity the credit schedule entity to process the payment
-	 *                             for
-	 * @param amount               the amount available for payment
+	 * @return a Mono emitting a unique operation number in the format of a
+	 *         12-digit string
 	 */
-	private void processCreditPayment(CreditScheduleEntity creditScheduleEntity, Double amount) {
-		while (true) {
-			if (creditScheduleEntity.getPrincipalAmount().compareTo(amount) > 0) {
-				paidCreditDebt(creditScheduleEntity,
-						creditScheduleEntity.getPrincipalAmount() - amount, null, null, null);
-				continue;
-			} else if (creditScheduleEntity.getPrincipalAmount().compareTo(amount) < 0) {
-				amount -= creditScheduleEntity.getPrincipalAmount();
-				processCreditInterestAndLateAmount(creditScheduleEntity, amount);
-			} else if (creditScheduleEntity.getPrincipalAmount().compareTo(amount) == 0) {
-				paidCreditDebt(creditScheduleEntity, 0.00, null, null, null);
-				continue;
-			}
-		}
+	private Mono<String> generateUniqueOperationNumber() {
+		return sequenceService.nextValue(Constants.SEQUENCE_OPERATION_NUMBER,
+				transactionRepository.findFirstByOrderByOperationNumberDesc()
+						.map(transaction -> Long.parseLong(transaction.getOperationNumber())))
+				.map(operationNumber -> String.format("%012d", operationNumber));
 	}
 
 	/**
-	 * Processes the payment for a given credit card schedule entity based on the
-	 * provided amount.
+	 * Retrieves the name of a customer based on the provided document number,
+	 * through the customer name cache.
 	 *
-	 * @param creditCardScheduleEntity the credit card schedule entity to process
-	 *                                 the payment for
-	 * @param amount                   the amount available for payment
-	 * @return balance returned.
+	 * @param documentNumber the document number to search for the customer
+	 * @return a Mono emitting the full name of the customer if the person type is
+	 *         personal, or the company name otherwise
+	 * @throws IllegalArgumentException if the customer does not exist
 	 */
-	private Double processCreditCardPayment(CreditCardScheduleEntity creditCardScheduleEntity,
-			Double amount) {
-		Double balanceReturned = 0.00;
-
-		if (creditCardScheduleEntity.getPrincipalAmount().compareTo(amount) > 0) {
-			balanceReturned += paidCreditCardDebt(creditCardScheduleEntity, amount, null,
-					null, null);
-		} else if (creditCardScheduleEntity.getPrincipalAmount().compareTo(amount) < 0) {
-			amount -= creditCardScheduleEntity.getPrincipalAmount();
-
-			balanceReturned += processCreditCardInterestAndLateAmount(creditCardScheduleEntity,
-					amount);
-		} else if (creditCardScheduleEntity.getPrincipalAmount().compareTo(amount) == 0) {
-			balanceReturned += paidCreditCardDebt(creditCardScheduleEntity, 0.00, null, null, null);
-		}
-
-		return balanceReturned;
+	private Mono<String> getName(String documentNumber) {
+		return customerNameService.getName(documentNumber);
 	}
 
 	/**
-	 * Processes the interest and late amount for a given credit schedule entity
-	 * based on the provided amount.
+	 * Calculates the commission for a given account based on its deposits and
+	 * withdrawals in the current month.
 	 *
-	 * @param creditScheduleEntity the credit schedule entity to process the
-	 *                             interest and late amount for
-	 * @param amount               the amount available for payment
+	 * @param accountNumber the account number to check for transactions
+	 * @return a Mono emitting the commission amount, 1.99 if the number of deposits
+	 *         and withdrawals in the current month exceeds 10, otherwise 0.00
 	 */
-	private void processCreditInterestAndLateAmount(CreditScheduleEntity creditScheduleEntity,
-			Double amount) {
-		amount -= creditScheduleEntity.getPrincipalAmount();
-
-		if (creditScheduleEntity.getInterestAmount().compareTo(amount) > 0) {
-			paidCreditDebt(creditScheduleEntity, 0.00,
-					creditScheduleEntity.getInterestAmount() - amount, null, null);
-		} else if (creditScheduleEntity.getInterestAmount().compareTo(amount) < 0) {
-			amount -= creditScheduleEntity.getInterestAmount();
-			processCreditLateAmount(creditScheduleEntity, amount);
-		} else if (creditScheduleEntity.getInterestAmount().compareTo(amount) == 0) {
-			processCreditLateAmount(creditScheduleEntity, amount);
-		}
+	private Mono<Double> getCommission(String accountNumber) {
+		return movementCounterService.countMovements(accountNumber, YearMonth.now())
+				.map(movements -> movements > Constants.TRANSACTIONAL_LIMIT
+						? Constants.COMMISSION_ADD
+						: 0.00);
 	}
 
 	/**
-	 * Processes the interest and late amount for a given credit card schedule
-	 * entity based on the provided amount.
+	 * Saves a transaction and registers it in the monthly movement counter of its
+	 * account.
 	 *
-	 * @param creditCardScheduleEntity the credit card schedule entity to process
-	 *                                 the interest and late amount for
-	 * @param amount                   the amount available for payment
-	 * @return balance returned.
+	 * @param transactionEntity the transaction to save
+	 * @return a Mono emitting the saved transaction
 	 */
-	private Double processCreditCardInterestAndLateAmount(
-			CreditCardScheduleEntity creditCardScheduleEntity,
-			Double amount) {
-		Double balanceReturned = 0.00;
-
-		amount -= creditCardScheduleEntity.getPrincipalAmount();
-
-		if (creditCardScheduleEntity.getInterestAmount().compareTo(amount) > 0) {
-			balanceReturned += paidCreditCardDebt(creditCardScheduleEntity, 0.00, amount,
-					null, null);
-		} else if (creditCardScheduleEntity.getInterestAmount().compareTo(amount) < 0) {
-			amount -= creditCardScheduleEntity.getInterestAmount();
-			balanceReturned += processCrediCardLateAmount(creditCardScheduleEntity, amount);
-		} else if (creditCardScheduleEntity.getInterestAmount().compareTo(amount) == 0) {
-			balanceReturned += processCrediCardLateAmount(creditCardScheduleEntity, amount);
-		}
-
-		return balanceReturned;
+	private Mono<TransactionEntity> saveTransaction(TransactionEntity transactionEntity) {
+		return transactionRepository.save(transactionEntity)
+				.flatMap(savedEntity -> movementCounterService.registerMovement(savedEntity)
+						.thenReturn(savedEntity));
 	}
 
 	/**
-	 * Processes the late amount for a given credit schedule entity based on the
-	 * provided amount.
+	 * Retrieves the primary account associated with the given deposit request.
 	 *
-	 * @param creditScheduleEntity the credit schedule entity to process the late
-	 *                             amount for
-	 * @param amount               the amount available for payment
+	 * @param depositRequest the deposit request containing the account number or
+	 *                       the debit card number
+	 * @return a Mono emitting the account number of the request, or the primary
+	 *         account of its debit card
+	 * @throws IllegalArgumentException if the debit card does not exist
 	 */
-	private void processCreditLateAmount(CreditScheduleEntity creditScheduleEntity, double amount) {
-		if (creditScheduleEntity.getLateAmount() > 0) {
-			if (creditScheduleEntity.getLateAmount().compareTo(amount) > 0) {
-				paidCreditDebt(creditScheduleEntity, 0.00, 0.00,
-						creditScheduleEntity.getLateAmount() - amount, null);
-			} else if (creditScheduleEntity.getLateAmount().compareTo(amount) < 0) {
-				paidCreditDebt(creditScheduleEntity, 0.00, 0.00, 0.00, true);
-			} else if (creditScheduleEntity.getLateAmount().compareTo(amount) == 0) {
-				paidCreditDebt(creditScheduleEntity, 0.00, 0.00, 0.00, true);
-			}
-		} else {
-			paidCreditDebt(creditScheduleEntity, 0.00, 0.00, 0.00, null);
+	private Mono<String> getPrimaryAccount(DepositRequest depositRequest) {
+		if (depositRequest.getAccountNumber() != null) {
+			return Mono.just(depositRequest.getAccountNumber());
 		}
-	}
 
-	/**
-	 * Processes the late amount for a given credit card schedule entity based on
-	 * the provided amount.
-	 *
-	 * @param creditCardScheduleEntity the credit card schedule entity to process
-	 *                                 the late amount for
-	 * @param amount                   the amount available for payment
-	 * @return balance returned.
-	 */
-	private Double processCrediCardLateAmount(CreditCardScheduleEntity creditCardScheduleEntity,
-			Double amount) {
-		Double balanceReturned = 0.00;
-
-		if (creditCardScheduleEntity.getLateAmount() > 0) {
-			if (creditCardScheduleEntity.getLateAmount().compareTo(amount) > 0) {
-				balanceReturned += paidCreditCardDebt(creditCardScheduleEntity, 0.00, 0.00,
-						amount, null);
-			} else if (creditCardScheduleEntity.getLateAmount().compareTo(amount) < 0) {
-				balanceReturned += paidCreditCardDebt(creditCardScheduleEntity, 0.00, 0.00, 0.00,
-						true);
-			} else if (creditCardScheduleEntity.getLateAmount().compareTo(amount) == 0) {
-				balanceReturned += paidCreditCardDebt(creditCardScheduleEntity, 0.00, 0.00, 0.00,
-						true);
-			}
-		} else {
-			balanceReturned += paidCreditCardDebt(creditCardScheduleEntity, 0.00, 0.00, 0.00, null);
+		if (depositRequest.getDebitCardNumber() == null) {
+			return Mono.error(new IllegalArgumentException(
+					"Account number or debit card number is required"));
 		}
 
-		return balanceReturned;
-	}
-
-	/**
-	 * Updates the credit schedule entity with the provided amounts and payment
-	 * status.
-	 *
-	 * @param creditScheduleEntity the credit schedule entity to be updated
-	 * @param principalAmount      the new principal amount, or the current
-	 *                             principal amount if null
-	 * @param interestAmount       the new interest amount, or the current interest
-	 *                             amount if null
-	 * @param lateAmount           the new late amount, or the current late amount
-	 *                             if null
-	 * @param paid                 the new payment status, or the current payment
-	 *                             status if null
-	 */
-	private void paidCreditDebt(CreditScheduleEntity creditScheduleEntity, Double principalAmount,
-			Double interestAmount, Double lateAmount, Boolean paid) {
-		creditScheduleEntity.setPaid(paid != null ? paid : creditScheduleEntity.getPaid());
-		creditScheduleEntity.setLateAmount(
-				lateAmount != null ? lateAmount : creditScheduleEntity.getLateAmount());
-
-		creditScheduleEntity
-				.setInterestAmount(interestAmount != null ? interestAmount
-						: creditScheduleEntity.getInterestAmount());
-
-		creditScheduleEntity.setPrincipalAmount(
-				principalAmount != null ? principalAmount
-						: creditScheduleEntity.getPrincipalAmount());
-
-		creditScheduleRepository.save(creditScheduleEntity);
-	}
-
-	/**
-	 * Updates the credit card schedule entity with the provided amounts and payment
-	 * status.
-	 *
-	 * @param creditCardScheduleEntity the credit card schedule entity to be updated
-	 * @param principalAmount          the new principal amount, or the current
-	 *                                 principal amount if null
-	 * @param interestAmount           the new interest amount, or the current
-	 *                                 interest amount if null
-	 * @param lateAmount               the new late amount, or the current late
-	 *                                 amount if null
-	 * @param paid                     the new payment status, or the current
-	 *                                 payment status if null
-	 * @return balance returned.
-	 */
-	private Double paidCreditCardDebt(CreditCardScheduleEntity creditCardScheduleEntity,
-			Double principalAmount,
-			Double interestAmount, Double lateAmount, Boolean paid) {
-		Double balanceReturned = creditCardScheduleEntity.getPrincipalAmount();
-		creditCardScheduleEntity.setPaid(paid != null ? paid : creditCardScheduleEntity.getPaid());
-
-		creditCardScheduleEntity
-				.setLateAmount(
-						lateAmount != null ? lateAmount : creditCardScheduleEntity.getLateAmount());
-
-		creditCardScheduleEntity.setInterestAmount(
-				interestAmount != null ? interestAmount
-						: creditCardScheduleEntity.getInterestAmount());
-
-		creditCardScheduleEntity.setPrincipalAmount(
-				principalAmount != null ? principalAmount
-						: creditCardScheduleEntity.getPrincipalAmount());
-
-		creditCardScheduleRepository.save(creditCardScheduleEntity);
-		return balanceReturned;
-	}
-
-	/**
-	 * Updates the account with the specified account number and amount.
-	 *
-	 * @param accountNumber the account number to be updated
-	 * @param amount        the amount to be updated in the account
-	 */
-	private void updateAccount(String accountNumber, Double amount) {
-		UpdateAccountRequest updateAccountRequest = new UpdateAccountRequest();
-		updateAccountRequest.setAccountNumber(accountNumber);
-		updateAccountRequest.setAmount(amount);
-		accountService.updateAccount(updateAccountRequest);
+		return debitCardRepository
+				.findByDebitCardNumberAndIsActiveTrue(depositRequest.getDebitCardNumber())
+				.map(DebitCardEntity::getPrimaryAccount)
+				.switchIfEmpty(Mono.error(new IllegalArgumentException("Card does not exist")));
 	}
 
 }
@@ -0,0 +1,90 @@
+package com.nttdata.bank.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.entity.CreditEntity;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.repository.CreditCardRepository;
+import com.nttdata.bank.repository.CreditRepository;
+import com.nttdata.bank.response.ProductResponse;
+import com.nttdata.bank.service.ProductService;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+
+/**
+ * ProductServiceImpl is the implementation class for the ProductService
+ * interface. It subscribes to the credit, credit card and account lookups at
+ * the same time and merges their results, so the latency of a request is close
+ * to the slowest lookup instead of the sum of the three. Each lookup uses a
+ * projection that reads only the fields shown in a ProductResponse.
+ */
+@Service
+public class ProductServiceImpl implements ProductService {
+
+	@Autowired
+	private CreditRepository creditRepository;
+
+	@Autowired
+	private CreditCardRepository creditCardRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	/**
+	 * Retrieves the products associated with the given document number.
+	 *
+	 * @param documentNumber the document number to search for products.
+	 * @return a Flux of ProductResponse objects, representing the products found.
+	 */
+	@Override
+	public Flux<ProductResponse> getProducts(String documentNumber) {
+		return Flux.merge(
+				creditRepository.findProductsByDocumentNumber(documentNumber)
+						.map(this::mapCredit),
+				creditCardRepository.findProductsByDocumentNumber(documentNumber)
+						.map(this::mapCreditCard),
+				accountRepository.findProductsByHolderDoc(documentNumber)
+						.map(this::mapAccount));
+	}
+
+	/**
+	 * Maps a projected credit to a product.
+	 *
+	 * @param creditEntity the credit with its id
+	 * @return the credit product
+	 */
+	private ProductResponse mapCredit(CreditEntity creditEntity) {
+		ProductResponse product = new ProductResponse();
+		product.setCreditId(creditEntity.getId());
+		product.setProductType(Constants.PRODUCT_CREDIT);
+		return product;
+	}
+
+	/**
+	 * Maps a projected credit card to a product.
+	 *
+	 * @param creditCardEntity the credit card with its number
+	 * @return the credit card product
+	 */
+	private ProductResponse mapCreditCard(CreditCardEntity creditCardEntity) {
+		ProductResponse product = new ProductResponse();
+		product.setCreditCardNumber(creditCardEntity.getCreditCardNumber());
+		product.setProductType(Constants.PRODUCT_CREDIT_CARD);
+		return product;
+	}
+
+	/**
+	 * Maps a projected account to a product.
+	 *
+	 * @param accountEntity the account with its number and type
+	 * @return the account product
+	 */
+	private ProductResponse mapAccount(AccountEntity accountEntity) {
+		ProductResponse product = new ProductResponse();
+		product.setAccountNumber(accountEntity.getAccountNumber());
+		product.setProductType(accountEntity.getAccountType());
+		return product;
+	}
+}
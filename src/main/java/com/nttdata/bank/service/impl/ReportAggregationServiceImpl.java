@@ -0,0 +1,218 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.entity.CreditEntity;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.job.bean.ProductAccumulator;
+import com.nttdata.bank.job.bean.ProductBalance;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.repository.CreditCardRepository;
+import com.nttdata.bank.repository.CreditRepository;
+import com.nttdata.bank.repository.TransactionRepository;
+import com.nttdata.bank.service.BalanceSnapshotService;
+import com.nttdata.bank.service.ReportAggregationService;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+
+/**
+ * ReportAggregationServiceImpl is the implementation class for the
+ * ReportAggregationService interface. It streams the transactions of the
+ * period once, through the createDate index, and folds them into one
+ * ProductAccumulator per account, credit and credit card. The products are then
+ * streamed and joined with their accumulators, so memory is bounded by the
+ * number of products instead of the number of transactions. The average balance
+ * of an account is its daily average balance, read in batches from the balance
+ * snapshots.
+ */
+@Service
+public class ReportAggregationServiceImpl implements ReportAggregationService {
+
+	private static final ProductAccumulator NO_MOVEMENTS = new ProductAccumulator();
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private CreditRepository creditRepository;
+
+	@Autowired
+	private CreditCardRepository creditCardRepository;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private BalanceSnapshotService balanceSnapshotService;
+
+	/**
+	 * Summarizes every active credit, credit card and account over the
+	 * transactions created in the half-open range [from, to). The average balance
+	 * of an account is its daily average balance in the month of from.
+	 *
+	 * @param from the first instant of the period, inclusive
+	 * @param to   the end of the period, exclusive
+	 * @return a Flux of ProductBalance for the credits, then the credit cards,
+	 *         then the accounts
+	 */
+	@Override
+	public Flux<ProductBalance> summarizeProducts(LocalDateTime from, LocalDateTime to) {
+		return transactionRepository.findActiveByCreateDateRange(from, to)
+				.collect(PeriodTotals::new, PeriodTotals::add)
+				.flatMapMany(totals -> Flux.concat(
+						creditRepository.findByIsActiveTrue()
+								.map(creditEntity -> summarizeCredit(creditEntity,
+										totals.get(totals.credits, creditEntity.getId()))),
+						creditCardRepository.findByIsActiveTrue()
+								.map(creditCardEntity -> summarizeCreditCard(creditCardEntity,
+										totals.get(totals.creditCards,
+												creditCardEntity.getCreditCardNumber()))),
+						accountRepository.findAllByIsActiveTrue()
+								.buffer(Constants.AVERAGE_BALANCE_BATCH_SIZE)
+								.concatMap(accounts -> summarizeAccounts(accounts, totals,
+										YearMonth.from(from)))));
+	}
+
+	/**
+	 * Builds the summaries of a batch of accounts, reading their daily average
+	 * balances with one lookup.
+	 *
+	 * @param accounts the accounts
+	 * @param totals   the accumulators of the period
+	 * @param period   the month of the daily average balances
+	 * @return a Flux of ProductBalance, one per account, in the order of the
+	 *         batch
+	 */
+	private Flux<ProductBalance> summarizeAccounts(List<AccountEntity> accounts, PeriodTotals totals,
+			YearMonth period) {
+		return balanceSnapshotService
+				.averageDailyBalances(accounts.stream().map(AccountEntity::getAccountNumber)
+						.collect(Collectors.toList()), period)
+				.flatMapIterable(averages -> accounts.stream()
+						.map(accountEntity -> summarizeAccount(accountEntity,
+								totals.get(totals.accounts, accountEntity.getAccountNumber()),
+								averages.get(accountEntity.getAccountNumber())))
+						.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Builds the summary of a credit from the payments made to it.
+	 *
+	 * @param creditEntity the credit
+	 * @param accumulator  the totals of the credit payments
+	 * @return the ProductBalance of the credit
+	 */
+	private ProductBalance summarizeCredit(CreditEntity creditEntity,
+			ProductAccumulator accumulator) {
+		ProductBalance product = new ProductBalance();
+		product.setCreditId(creditEntity.getId());
+		product.setProductType(Constants.PRODUCT_CREDIT);
+		product.setCreditAmount(creditEntity.getAmount());
+		product.setAverageBalance(accumulator.getAveragePaymentAmount());
+		product.setAverageCommission(accumulator.getAveragePaymentCommission());
+		return product;
+	}
+
+	/**
+	 * Builds the summary of a credit card from the payments made to it.
+	 *
+	 * @param creditCardEntity the credit card
+	 * @param accumulator      the totals of the credit card payments
+	 * @return the ProductBalance of the credit card
+	 */
+	private ProductBalance summarizeCreditCard(CreditCardEntity creditCardEntity,
+			ProductAccumulator accumulator) {
+		ProductBalance product = new ProductBalance();
+		product.setCreditCardNumber(creditCardEntity.getCreditCardNumber());
+		product.setProductType(Constants.PRODUCT_CREDIT_CARD);
+		product.setCreditCardAmount(creditCardEntity.getAvailableCredit());
+		product.setAverageBalance(accumulator.getAveragePaymentAmount());
+		product.setAverageCommission(accumulator.getAveragePaymentCommission());
+		return product;
+	}
+
+	/**
+	 * Builds the summary of an account from its daily average balance and the
+	 * commissions of the movements that credited and debited it.
+	 *
+	 * @param accountEntity  the account
+	 * @param accumulator    the totals of the account movements
+	 * @param averageBalance the daily average balance of the account, or null
+	 *                       when it is unknown
+	 * @return the ProductBalance of the account
+	 */
+	private ProductBalance summarizeAccount(AccountEntity accountEntity,
+			ProductAccumulator accumulator, Double averageBalance) {
+		ProductBalance product = new ProductBalance();
+		product.setAccountNumber(accountEntity.getAccountNumber());
+		product.setProductType(accountEntity.getAccountType());
+		product.setAmountBalance(accountEntity.getAmount());
+		product.setAverageBalance(averageBalance);
+		product.setAverageCommission(accumulator.getNetCommission());
+		return product;
+	}
+
+	/**
+	 * The accumulators of one period, keyed by credit id, credit card number and
+	 * account number.
+	 */
+	private static final class PeriodTotals {
+
+		private final Map<String, ProductAccumulator> credits = new HashMap<>();
+		private final Map<String, ProductAccumulator> creditCards = new HashMap<>();
+		private final Map<String, ProductAccumulator> accounts = new HashMap<>();
+
+		/**
+		 * Folds a transaction into the accumulators of the products it touches.
+		 *
+		 * @param transaction the transaction
+		 */
+		private void add(TransactionEntity transaction) {
+			Double amount = transaction.getAmount();
+			Double commission = transaction.getCommission();
+
+			if (Constants.TRANSACTION_TYPE_PAY_CREDIT.equalsIgnoreCase(transaction.getTransactionType())
+					&& transaction.getCreditId() != null) {
+				credits.computeIfAbsent(transaction.getCreditId(), key -> new ProductAccumulator())
+						.addPayment(amount, commission);
+			}
+
+			if (Constants.TRANSACTION_TYPE_PAY_CREDIT_CARD
+					.equalsIgnoreCase(transaction.getTransactionType())
+					&& transaction.getCreditCardNumber() != null) {
+				creditCards.computeIfAbsent(transaction.getCreditCardNumber(),
+						key -> new ProductAccumulator()).addPayment(amount, commission);
+			}
+
+			if (transaction.getAccountNumberReceive() != null) {
+				accounts.computeIfAbsent(transaction.getAccountNumberReceive(),
+						key -> new ProductAccumulator()).addReceived(commission);
+			}
+
+			if (transaction.getAccountNumberWithdraws() != null) {
+				accounts.computeIfAbsent(transaction.getAccountNumberWithdraws(),
+						key -> new ProductAccumulator()).addWithdrawn(commission);
+			}
+		}
+
+		/**
+		 * Returns the accumulator of a product, or an empty one when the product
+		 * had no transactions in the period.
+		 *
+		 * @param accumulators the accumulators of the product kind
+		 * @param key          the key of the product
+		 * @return the accumulator of the product
+		 */
+		private ProductAccumulator get(Map<String, ProductAccumulator> accumulators, String key) {
+			return key == null ? NO_MOVEMENTS : accumulators.getOrDefault(key, NO_MOVEMENTS);
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.nttdata.bank.service.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import com.nttdata.bank.job.bean.ProductBalance;
+import com.nttdata.bank.service.ReportWriterService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * ReportWriterServiceImpl is the implementation class for the
+ * ReportWriterService interface. Reports are written to a temporary file in the
+ * report directory with an immediately flushing layout, so finished pages leave
+ * the heap as soon as they are complete and the output stream is flushed every
+ * few products. The temporary file is atomically renamed to the report name
+ * when the product stream completes, and deleted when it fails.
+ */
+@Service
+public class ReportWriterServiceImpl implements ReportWriterService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReportWriterServiceImpl.class);
+
+	private static final String SEPARATOR = "----------------------------------------";
+
+	@Value("${bank.report.directory:${java.io.tmpdir}/bank/reports}")
+	private String reportDirectory;
+
+	@Value("${bank.report.flush-interval:1000}")
+	private int flushInterval = 1000;
+
+	/**
+	 * Writes a report with one block of lines per product. The PDF is written on
+	 * the bounded elastic scheduler because it is blocking file I/O.
+	 *
+	 * @param fileName      the name of the report file inside the report directory
+	 * @param title         the title printed at the top of the report
+	 * @param products      the products to write
+	 * @param lineFormatter the function that renders the lines of a product
+	 * @return a Mono emitting the path of the written report
+	 */
+	@Override
+	public Mono<Path> writeReport(String fileName, String title, Flux<ProductBalance> products,
+			Function<ProductBalance, List<String>> lineFormatter) {
+		return Mono.using(
+				() -> new ReportFile(Paths.get(reportDirectory), fileName, title),
+				reportFile -> products
+						.publishOn(Schedulers.boundedElastic())
+						.doOnNext(product -> reportFile.append(lineFormatter.apply(product)))
+						.then(Mono.fromCallable(reportFile::commit)),
+				ReportFile::discard)
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+	 * A report being written to a temporary file next to its final location.
+	 */
+	private final class ReportFile {
+
+		private final Path target;
+		private final Path temporary;
+		private final OutputStream outputStream;
+		private final Document document;
+		private long written;
+		private boolean committed;
+
+		/**
+		 * Creates the report directory if needed and opens a temporary file in it
+		 * with the report title.
+		 *
+		 * @param directory the report directory
+		 * @param fileName  the name of the report file
+		 * @param title     the title of the report
+		 * @throws IOException if the directory or the temporary file cannot be
+		 *                     created
+		 */
+		private ReportFile(Path directory, String fileName, String title) throws IOException {
+			Files.createDirectories(directory);
+			this.target = directory.resolve(fileName);
+			this.temporary = Files.createTempFile(directory, fileName, ".tmp");
+			this.outputStream = Files.newOutputStream(temporary);
+			this.document = new Document(new PdfDocument(new PdfWriter(outputStream)),
+					PageSize.A4, true);
+			this.document.add(new Paragraph(title));
+		}
+
+		/**
+		 * Appends the lines of a product followed by a separator, flushing the
+		 * output every flush interval products.
+		 *
+		 * @param lines the lines of the product
+		 */
+		private void append(List<String> lines) {
+			lines.forEach(line -> document.add(new Paragraph(line)));
+			document.add(new Paragraph(SEPARATOR));
+
+			if (++written % flushInterval == 0) {
+				document.flush();
+				try {
+					outputStream.flush();
+				} catch (IOException e) {
+					throw new IllegalStateException("Unable to flush report " + target, e);
+				}
+			}
+		}
+
+		/**
+		 * Closes the PDF and moves the temporary file to the report name.
+		 *
+		 * @return the path of the report
+		 * @throws IOException if the report cannot be moved into place
+		 */
+		private Path commit() throws IOException {
+			document.close();
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+			committed = true;
+			logger.info("Report {} written with {} products", target, written);
+			return target;
+		}
+
+		/**
+		 * Releases the report. A report that was not committed is closed and its
+		 * temporary file deleted.
+		 */
+		private void discard() {
+			if (committed) {
+				return;
+			}
+
+			try {
+				document.close();
+			} catch (RuntimeException e) {
+				logger.debug("Discarded report {} could not be closed: {}", target, e.getMessage());
+			}
+
+			try {
+				Files.deleteIfExists(temporary);
+			} catch (IOException e) {
+				logger.warn("Unable to delete temporary report {}: {}", temporary, e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.entity.SequenceEntity;
+import com.nttdata.bank.service.SequenceService;
+import reactor.core.publisher.Mono;
+
+/**
+ * SequenceServiceImpl is the implementation class for the SequenceService
+ * interface. Each node leases blocks of numbers with a single atomic
+ * find-and-modify on the counter document and hands them out from memory, so
+ * only one database round trip is needed per block.
+ */
+@Service
+public class SequenceServiceImpl implements SequenceService {
+
+	private static final Logger logger = LoggerFactory.getLogger(SequenceServiceImpl.class);
+
+	@Autowired
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Value("${bank.sequence.block-size:1000}")
+	private long blockSize;
+
+	private final Map<String, SequenceBlock> blocks = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the next value of the sequence from the leased block, leasing a new
+	 * block when the current one is exhausted.
+	 *
+	 * @param sequenceName The name of the sequence
+	 * @param initialValue The value to seed the counter with when it does not
+	 *                     exist yet
+	 * @return A Mono emitting the next value of the sequence
+	 */
+	@Override
+	public Mono<Long> nextValue(String sequenceName, Mono<Long> initialValue) {
+		return Mono.defer(() -> {
+			SequenceBlock block = blocks.get(sequenceName);
+			long value = block != null ? block.next() : SequenceBlock.EXHAUSTED;
+
+			if (value != SequenceBlock.EXHAUSTED) {
+				return Mono.just(value);
+			}
+
+			return increment(sequenceName, blockSize, initialValue).map(last -> {
+				SequenceBlock leased = new SequenceBlock(last - blockSize + 1, last);
+				logger.debug("Leased block [{}, {}] for sequence {}", last - blockSize + 1, last,
+						sequenceName);
+				long first = leased.next();
+				blocks.put(sequenceName, leased);
+				return first;
+			});
+		});
+	}
+
+	/**
+	 * Atomically increments the counter of the sequence and returns the new
+	 * value, creating the counter from the initial value when it does not exist.
+	 *
+	 * @param sequenceName The name of the sequence
+	 * @param delta        The amount to add to the counter
+	 * @param initialValue The value to seed the counter with when it does not
+	 *                     exist yet
+	 * @return A Mono emitting the value of the counter after the increment
+	 */
+	@Override
+	public Mono<Long> increment(String sequenceName, long delta, Mono<Long> initialValue) {
+		Query query = Query.query(Criteria.where("id").is(sequenceName));
+		FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+
+		return Mono.defer(() -> mongoTemplate
+				.findAndModify(query, incrementUpdate(delta), options, SequenceEntity.class)
+				.switchIfEmpty(Mono.defer(() -> initialize(sequenceName, initialValue)
+						.then(mongoTemplate.findAndModify(query, incrementUpdate(delta), options,
+								SequenceEntity.class))))
+				.map(SequenceEntity::getValue));
+	}
+
+	/**
+	 * Builds the update that adds the given amount to the counter.
+	 *
+	 * @param delta The amount to add to the counter
+	 * @return The update definition
+	 */
+	private Update incrementUpdate(long delta) {
+		return new Update().inc("value", delta).set("updateDate", LocalDateTime.now());
+	}
+
+	/**
+	 * Creates the counter document seeded with the initial value. When another
+	 * node creates it first the duplicate key error is ignored.
+	 *
+	 * @param sequenceName The name of the sequence
+	 * @param initialValue The value to seed the counter with
+	 * @return A Mono that completes when the counter exists
+	 */
+	private Mono<SequenceEntity> initialize(String sequenceName, Mono<Long> initialValue) {
+		return initialValue.defaultIfEmpty(0L).flatMap(value -> {
+			SequenceEntity sequenceEntity = new SequenceEntity();
+			sequenceEntity.setId(sequenceName);
+			sequenceEntity.setValue(value);
+			sequenceEntity.setCreateDate(LocalDateTime.now());
+			logger.info("Initializing sequence {} at {}", sequenceName, value);
+			return mongoTemplate.insert(sequenceEntity);
+		}).onErrorResume(DuplicateKeyException.class, e -> Mono.empty());
+	}
+
+	/**
+	 * A block of numbers leased from the counter document, handed out lock-free.
+	 */
+	private static final class SequenceBlock {
+
+		private static final long EXHAUSTED = -1L;
+
+		private final AtomicLong next;
+		private final long last;
+
+		/**
+		 * Creates a block covering the closed range [first, last].
+		 *
+		 * @param first The first number of the block
+		 * @param last  The last number of the block
+		 */
+		SequenceBlock(long first, long last) {
+			this.next = new AtomicLong(first);
+			this.last = last;
+		}
+
+		/**
+		 * Takes the next number of the block.
+		 *
+		 * @return The next number, or EXHAUSTED when the block has been used up
+		 */
+		long next() {
+			long value = next.getAndIncrement();
+			return value <= last ? value : EXHAUSTED;
+		}
+	}
+
+}
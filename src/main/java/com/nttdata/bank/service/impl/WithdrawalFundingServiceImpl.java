@@ -0,0 +1,131 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.DebitCardEntity;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.service.AccountsService;
+import com.nttdata.bank.service.MovementCounterService;
+import com.nttdata.bank.service.WithdrawalFundingService;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * WithdrawalFundingServiceImpl is the implementation class for the
+ * WithdrawalFundingService interface. The balances and the monthly movement
+ * counts of every account of the card are read with one $in query each, and
+ * the accounts that cover the withdrawal are picked in card order in memory.
+ * Each candidate is then debited with the balance-guarded update of the
+ * accounts service; if another request drained it since it was read, the
+ * update is rejected and the next candidate is tried.
+ */
+@Service
+public class WithdrawalFundingServiceImpl implements WithdrawalFundingService {
+
+	private static final Logger logger = LoggerFactory.getLogger(WithdrawalFundingServiceImpl.class);
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private AccountsService accountsService;
+
+	@Autowired
+	private MovementCounterService movementCounterService;
+
+	/**
+	 * Debits the withdrawal and its commission from the first funded account of
+	 * the debit card.
+	 *
+	 * @param debitCardEntity the debit card used for the withdrawal
+	 * @param amount          the amount to withdraw
+	 * @return a Mono emitting the debited account number and its commission
+	 * @throws IllegalArgumentException if none of the accounts has enough balance
+	 */
+	@Override
+	public Mono<Tuple2<String, Double>> debitFundingAccount(DebitCardEntity debitCardEntity,
+			Double amount) {
+		Set<String> accounts = new LinkedHashSet<>();
+		accounts.add(debitCardEntity.getPrimaryAccount());
+
+		if (debitCardEntity.getAssociatedAccounts() != null) {
+			accounts.addAll(debitCardEntity.getAssociatedAccounts());
+		}
+
+		List<String> accountNumbers = new ArrayList<>(accounts);
+
+		return Mono.zip(
+				accountRepository.findBalancesByAccountNumbers(accountNumbers)
+						.collectMap(AccountEntity::getAccountNumber, AccountEntity::getAmount),
+				movementCounterService.countMovementsByAccount(accountNumbers, YearMonth.now()))
+				.flatMapMany(tuple -> Flux.fromIterable(
+						getCandidates(accountNumbers, tuple.getT1(), tuple.getT2(), amount)))
+				.concatMap(candidate -> debit(candidate, amount))
+				.next()
+				.switchIfEmpty(Mono.error(new IllegalArgumentException(
+						"None of the associated accounts have enough balance to make the withdrawal.")));
+	}
+
+	/**
+	 * Returns the accounts whose balance covers the withdrawal plus their
+	 * commission, in card order.
+	 *
+	 * @param accountNumbers the accounts of the card in card order
+	 * @param balances       the balances of the active accounts
+	 * @param movements      the movements of the current month per account
+	 * @param amount         the amount to withdraw
+	 * @return the funded account numbers with their commission
+	 */
+	private List<Tuple2<String, Double>> getCandidates(List<String> accountNumbers,
+			Map<String, Double> balances, Map<String, Long> movements, Double amount) {
+		return accountNumbers.stream()
+				.filter(accountNumber -> balances.get(accountNumber) != null)
+				.map(accountNumber -> Tuples.of(accountNumber,
+						getCommission(movements.getOrDefault(accountNumber, 0L))))
+				.filter(candidate -> balances.get(candidate.getT1()) >= amount + candidate.getT2())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Debits the withdrawal and its commission from a candidate account. A
+	 * rejection for lack of balance means the account was drained since it was
+	 * read, and completes empty so that the next candidate is tried.
+	 *
+	 * @param candidate the account number and its commission
+	 * @param amount    the amount to withdraw
+	 * @return a Mono emitting the candidate once it is debited
+	 */
+	private Mono<Tuple2<String, Double>> debit(Tuple2<String, Double> candidate, Double amount) {
+		return accountsService.updateBalance(candidate.getT1(), -(amount + candidate.getT2()))
+				.thenReturn(candidate)
+				.onErrorResume(IllegalArgumentException.class, error -> {
+					logger.debug("Account {} no longer funds the withdrawal: {}", candidate.getT1(),
+							error.getMessage());
+					return Mono.empty();
+				});
+	}
+
+	/**
+	 * Calculates the commission of a movement from the movements of its account in
+	 * the current month.
+	 *
+	 * @param movements the deposits and withdrawals of the account this month
+	 * @return 1.99 if the number of movements exceeds 10, otherwise 0.00
+	 */
+	private Double getCommission(Long movements) {
+		return movements > Constants.TRANSACTIONAL_LIMIT ? Constants.COMMISSION_ADD : 0.00;
+	}
+}
@@ -0,0 +1,501 @@
+package com.nttdata.bank.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.nttdata.bank.entity.YankiEntity;
+import com.nttdata.bank.repository.YankiRepository;
+import com.nttdata.bank.service.YankiDirectoryService;
+import reactor.core.publisher.Mono;
+
+/**
+ * YankiDirectoryServiceImpl is the implementation class for the
+ * YankiDirectoryService interface. The directory is an open-addressing hash
+ * table with linear probing over parallel arrays: phone numbers and account
+ * numbers are packed as longs holding their digits and their length, so
+ * leading zeros survive, and only the document numbers are kept as strings.
+ * Lookups are lock-free optimistic reads of a StampedLock that fall back to a
+ * read lock when a write overlaps them; writes take the write lock. Wallets
+ * whose phone or account number is not numeric are not kept and are always
+ * looked up in the database. Every wallet write sets its update date, and the
+ * wallets changed by any instance are applied by a periodic sync that re-reads
+ * them through the update date index since the last sync, minus an overlap that
+ * covers clock skew and writes committed late. Entries are therefore stale for
+ * at most the sync interval, and lookups never query the database for a wallet
+ * the directory holds.
+ */
+@Service
+public class YankiDirectoryServiceImpl implements YankiDirectoryService {
+
+	private static final Logger logger = LoggerFactory.getLogger(YankiDirectoryServiceImpl.class);
+
+	private static final int LENGTH_SHIFT = 57;
+	private static final int MAX_DIGITS = 17;
+	private static final int LOAD_BATCH = 1000;
+
+	@Autowired
+	private YankiRepository yankiRepository;
+
+	@Value("${bank.yanki.directory.initial-capacity:1024}")
+	private int initialCapacity = 1024;
+
+	@Value("${bank.yanki.directory.sync-overlap-seconds:5}")
+	private long syncOverlapSeconds = 5;
+
+	private final StampedLock lock = new StampedLock();
+
+	private Table table = new Table(16);
+
+	private Table building;
+
+	private Set<Long> touched;
+
+	private LocalDateTime syncedUntil = LocalDateTime.now();
+
+	/**
+	 * Finds the active wallet of a phone number in the directory, or in the
+	 * database when the directory misses it.
+	 *
+	 * @param phoneNumber the phone number of the wallet
+	 * @return a Mono emitting the wallet, or empty if there is none
+	 */
+	@Override
+	public Mono<YankiEntity> findByPhoneNumber(String phoneNumber) {
+		return Mono.defer(() -> {
+			YankiEntity entry = lookup(phoneNumber);
+			if (entry != null) {
+				return Mono.just(entry);
+			}
+			return yankiRepository.findByPhoneNumberAndIsActiveTrue(phoneNumber)
+					.doOnNext(this::put);
+		});
+	}
+
+	/**
+	 * Applies the wallets changed since the last sync, in the order they were
+	 * changed: active wallets are put and inactive ones removed. The changes are
+	 * read from the last sync minus the overlap, so a change is applied again
+	 * harmlessly rather than missed.
+	 *
+	 * @return a Mono emitting the number of changed wallets applied
+	 */
+	@Override
+	public Mono<Long> sync() {
+		return Mono.defer(() -> {
+			LocalDateTime started = LocalDateTime.now();
+
+			return yankiRepository.findDirectoryChanges(syncedSince())
+					.doOnNext(wallet -> {
+						if (Boolean.TRUE.equals(wallet.getIsActive())) {
+							put(wallet);
+						} else {
+							remove(wallet.getPhoneNumber());
+						}
+					})
+					.count()
+					.doOnNext(count -> markSynced(started));
+		});
+	}
+
+	/**
+	 * Adds or replaces the entry of an active wallet. A wallet that cannot be
+	 * packed removes any previous entry of its phone number.
+	 *
+	 * @param yankiEntity the wallet
+	 */
+	@Override
+	public void put(YankiEntity yankiEntity) {
+		long phone = pack(yankiEntity.getPhoneNumber());
+		long account = pack(yankiEntity.getAccountNumber());
+
+		if (phone == 0) {
+			return;
+		}
+		if (account == 0) {
+			remove(yankiEntity.getPhoneNumber());
+			return;
+		}
+
+		long stamp = lock.writeLock();
+		try {
+			table = table.withEntry(phone, account, yankiEntity.getDocumentNumber());
+			if (building != null) {
+				building = building.withEntry(phone, account, yankiEntity.getDocumentNumber());
+				touched.add(phone);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Removes the entry of a phone number.
+	 *
+	 * @param phoneNumber the phone number of the wallet
+	 */
+	@Override
+	public void remove(String phoneNumber) {
+		long phone = pack(phoneNumber);
+
+		if (phone == 0) {
+			return;
+		}
+
+		long stamp = lock.writeLock();
+		try {
+			table.remove(phone);
+			if (building != null) {
+				building.remove(phone);
+				touched.add(phone);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Rebuilds the directory by streaming the active wallets into a new table.
+	 * Wallets put or removed while the rebuild runs are applied to both tables,
+	 * and their streamed version is skipped since it may be older.
+	 *
+	 * @return a Mono emitting the number of entries in the new directory
+	 */
+	@Override
+	public Mono<Long> rebuild() {
+		return Mono.defer(() -> {
+			LocalDateTime started = LocalDateTime.now();
+			long stamp = lock.writeLock();
+			try {
+				if (building != null) {
+					return Mono.error(new IllegalStateException("The Yanki directory is already being rebuilt"));
+				}
+				building = new Table(initialCapacity);
+				touched = new HashSet<>();
+			} finally {
+				lock.unlockWrite(stamp);
+			}
+
+			return yankiRepository.findDirectoryEntries()
+					.buffer(LOAD_BATCH)
+					.doOnNext(this::load)
+					.then(Mono.fromCallable(() -> swap(started)))
+					.doOnError(error -> abort())
+					.doOnCancel(this::abort);
+		});
+	}
+
+	/**
+	 * Looks a phone number up in the directory.
+	 *
+	 * @param phoneNumber the phone number of the wallet
+	 * @return the wallet, or null if the directory does not hold it
+	 */
+	private YankiEntity lookup(String phoneNumber) {
+		long phone = pack(phoneNumber);
+
+		if (phone == 0) {
+			return null;
+		}
+
+		long stamp = lock.tryOptimisticRead();
+		Table current = table;
+		int index = current.indexOf(phone);
+		long account = index < 0 ? 0 : current.accounts[index];
+		String documentNumber = index < 0 ? null : current.documents[index];
+
+		if (!lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				current = table;
+				index = current.indexOf(phone);
+				account = index < 0 ? 0 : current.accounts[index];
+				documentNumber = index < 0 ? null : current.documents[index];
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+
+		if (index < 0) {
+			return null;
+		}
+
+		YankiEntity entry = new YankiEntity();
+		entry.setPhoneNumber(phoneNumber);
+		entry.setAccountNumber(unpack(account));
+		entry.setDocumentNumber(documentNumber);
+		entry.setIsActive(true);
+		return entry;
+	}
+
+	/**
+	 * Loads a batch of streamed wallets into the table being built, skipping the
+	 * wallets changed since the rebuild started.
+	 *
+	 * @param wallets the streamed wallets
+	 */
+	private void load(List<YankiEntity> wallets) {
+		long stamp = lock.writeLock();
+		try {
+			for (YankiEntity wallet : wallets) {
+				long phone = pack(wallet.getPhoneNumber());
+				long account = pack(wallet.getAccountNumber());
+				if (phone != 0 && account != 0 && !touched.contains(phone)) {
+					building = building.withEntry(phone, account, wallet.getDocumentNumber());
+				}
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Returns the date from which the next sync reads the changed wallets.
+	 *
+	 * @return the date of the last sync minus the overlap
+	 */
+	private LocalDateTime syncedSince() {
+		long stamp = lock.readLock();
+		try {
+			return syncedUntil.minusSeconds(syncOverlapSeconds);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Records that the wallets changed before the given date have been applied.
+	 *
+	 * @param synced the date the sync or rebuild started
+	 */
+	private void markSynced(LocalDateTime synced) {
+		long stamp = lock.writeLock();
+		try {
+			syncedUntil = synced;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Replaces the directory with the table that has been built. The next sync
+	 * reads the changes since the rebuild started, unless it already reads from
+	 * an earlier date.
+	 *
+	 * @param started the date the rebuild started
+	 * @return the number of entries in the new directory
+	 */
+	private Long swap(LocalDateTime started) {
+		long stamp = lock.writeLock();
+		try {
+			table = building;
+			building = null;
+			touched = null;
+			if (started.isBefore(syncedUntil)) {
+				syncedUntil = started;
+			}
+			logger.info("Yanki directory rebuilt with {} wallets", table.size);
+			return (long) table.size;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Discards the table of a failed rebuild.
+	 */
+	private void abort() {
+		long stamp = lock.writeLock();
+		try {
+			building = null;
+			touched = null;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Packs a number of up to 17 digits into a long, holding the digits in the low
+	 * 57 bits and the number of digits above them.
+	 *
+	 * @param digits the number
+	 * @return the packed number, or 0 if it is empty, too long or not numeric
+	 */
+	static long pack(String digits) {
+		if (digits == null || digits.isEmpty() || digits.length() > MAX_DIGITS) {
+			return 0;
+		}
+
+		long value = 0;
+		for (int i = 0; i < digits.length(); i++) {
+			char digit = digits.charAt(i);
+			if (digit < '0' || digit > '9') {
+				return 0;
+			}
+			value = value * 10 + (digit - '0');
+		}
+
+		return ((long) digits.length() << LENGTH_SHIFT) | value;
+	}
+
+	/**
+	 * Unpacks a number packed by {@link #pack(String)}, restoring its leading
+	 * zeros.
+	 *
+	 * @param packed the packed number
+	 * @return the number
+	 */
+	static String unpack(long packed) {
+		int length = (int) (packed >>> LENGTH_SHIFT);
+		long value = packed & ((1L << LENGTH_SHIFT) - 1);
+		char[] digits = new char[length];
+
+		for (int i = length - 1; i >= 0; i--) {
+			digits[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+
+		return new String(digits);
+	}
+
+	/**
+	 * An open-addressing hash table from packed phone numbers to packed account
+	 * numbers and document numbers. A zero key marks an empty slot, and the table
+	 * is kept at most half full so that probes stay short.
+	 */
+	private static final class Table {
+
+		private final long[] keys;
+		private final long[] accounts;
+		private final String[] documents;
+		private int size;
+
+		private Table(int expectedSize) {
+			int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+			keys = new long[capacity];
+			accounts = new long[capacity];
+			documents = new String[capacity];
+		}
+
+		/**
+		 * Returns the slot of a key.
+		 *
+		 * @param key the packed phone number
+		 * @return the slot of the key, or -1 if the table does not hold it
+		 */
+		private int indexOf(long key) {
+			int mask = keys.length - 1;
+			int index = slot(key, mask);
+
+			for (int probes = 0; probes < keys.length; probes++) {
+				long current = keys[index];
+				if (current == key) {
+					return index;
+				}
+				if (current == 0) {
+					return -1;
+				}
+				index = (index + 1) & mask;
+			}
+
+			return -1;
+		}
+
+		/**
+		 * Adds or replaces an entry, growing the table first when it would be more
+		 * than half full.
+		 *
+		 * @param key      the packed phone number
+		 * @param account  the packed account number
+		 * @param document the document number
+		 * @return this table, or the grown table holding the entry
+		 */
+		private Table withEntry(long key, long account, String document) {
+			Table target = (size + 1) * 2 > keys.length ? grow() : this;
+			int mask = target.keys.length - 1;
+			int index = slot(key, mask);
+
+			while (target.keys[index] != 0 && target.keys[index] != key) {
+				index = (index + 1) & mask;
+			}
+			if (target.keys[index] == 0) {
+				target.size++;
+			}
+
+			target.keys[index] = key;
+			target.accounts[index] = account;
+			target.documents[index] = document;
+			return target;
+		}
+
+		/**
+		 * Removes an entry, shifting back the entries of its probe run so that no
+		 * tombstone is left behind.
+		 *
+		 * @param key the packed phone number
+		 */
+		private void remove(long key) {
+			int index = indexOf(key);
+
+			if (index < 0) {
+				return;
+			}
+
+			int mask = keys.length - 1;
+			int next = index;
+			while (true) {
+				next = (next + 1) & mask;
+				if (keys[next] == 0) {
+					break;
+				}
+				int home = slot(keys[next], mask);
+				boolean inRun = index <= next ? index < home && home <= next : index < home || home <= next;
+				if (!inRun) {
+					keys[index] = keys[next];
+					accounts[index] = accounts[next];
+					documents[index] = documents[next];
+					index = next;
+				}
+			}
+
+			keys[index] = 0;
+			accounts[index] = 0;
+			documents[index] = null;
+			size--;
+		}
+
+		/**
+		 * Copies the entries into a table of twice the capacity.
+		 *
+		 * @return the grown table
+		 */
+		private Table grow() {
+			Table grown = new Table(keys.length);
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != 0) {
+					grown.withEntry(keys[i], accounts[i], documents[i]);
+				}
+			}
+			return grown;
+		}
+
+		/**
+		 * Returns the home slot of a key, spreading the digits with a multiplicative
+		 * hash so that consecutive phone numbers do not share probe runs.
+		 *
+		 * @param key  the packed phone number
+		 * @param mask the capacity of the table minus one
+		 * @return the home slot of the key
+		 */
+		private static int slot(long key, int mask) {
+			long hash = key * 0x9E3779B97F4A7C15L;
+			return (int) (hash ^ (hash >>> 32)) & mask;
+		}
+	}
+}
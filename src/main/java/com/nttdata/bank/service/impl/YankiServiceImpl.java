@@ -4,10 +4,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import com.nttdata.bank.entity.AccountEntity;
 import com.nttdata.bank.entity.CustomerEntity;
@@ -24,8 +24,11 @@ import com.nttdata.bank.response.AccountResponse;
 import com.nttdata.bank.response.YankiResponse;
 import com.nttdata.bank.service.AccountsService;
 import com.nttdata.bank.service.CustomerService;
+import com.nttdata.bank.service.YankiDirectoryService;
 import com.nttdata.bank.service.YankiService;
 import com.nttdata.bank.util.Constants;
+import com.nttdata.bank.util.Utility;
+import reactor.core.publisher.Flux;
 
 /**
  * YankiServiceImpl is an implementation class for YankiService interface that
@@ -51,6 +54,9 @@ public class YankiServiceImpl implements YankiService {
 	@Autowired
 	private YankiRepository yankiRepository;
 
+	@Autowired
+	private YankiDirectoryService yankiDirectoryService;
+
 	/**
 	 * Creates a new Yanki account.
 	 *
@@ -70,6 +76,7 @@ public class YankiServiceImpl implements YankiService {
 
 		YankiEntity yankiEntity = YankiMapper.mapperToEntity(yankiRequest);
 		yankiEntity.setCreateDate(LocalDateTime.now());
+		yankiEntity.setUpdateDate(yankiEntity.getCreateDate());
 		yankiEntity.setIsActive(true);
 
 		CompletableFuture<YankiEntity> yankiFuture = CompletableFuture.supplyAsync(() -> {
@@ -100,8 +107,9 @@ public class YankiServiceImpl implements YankiService {
 
 		logger.debug("Registering yanki sucessfully: {}", yankiRequest);
 
-		return YankiMapper.mapperToResponse(
-				yankiFuture.thenApply(entity -> yankiRepository.save(entity).block()).join());
+		YankiEntity savedEntity = yankiFuture.thenApply(entity -> yankiRepository.save(entity).block()).join();
+		yankiDirectoryService.put(savedEntity);
+		return YankiMapper.mapperToResponse(savedEntity);
 	}
 
 	/**
@@ -147,26 +155,41 @@ public class YankiServiceImpl implements YankiService {
 	}
 
 	/**
-	 * Retrieves all active Yanki accounts.
+	 * Retrieves one page of active Yanki accounts, ordered by id. The page is read
+	 * through the _id index starting after the given id.
 	 *
+	 * @param afterId the id of the last Yanki account read, or null for the first
+	 *                page
+	 * @param size    the page size, or null for the default of 100
 	 * @return a list of Yanki response objects containing Yanki account information
 	 */
 	@Override
-	public List<YankiResponse> findAllYanki() {
-		logger.debug("Finding all accounts");
-
-		List<YankiEntity> yankis = yankiRepository.findAllByIsActiveTrue().collectList().block();
-		List<YankiResponse> response = yankis.stream().map(entity -> {
-			YankiResponse yankiResponse = new YankiResponse();
-			yankiResponse.setName(entity.getName());
-			yankiResponse.setPhoneNumber(entity.getPhoneNumber());
-			return yankiResponse;
-		}).collect(Collectors.toList());
-
-		logger.info("All accounts retrieved successfully");
+	public List<YankiResponse> findAllYanki(String afterId, Integer size) {
+		logger.debug("Finding accounts after id: {}", afterId);
+
+		Pageable page = Utility.getListPage(size);
+		List<YankiResponse> response = (afterId == null ? yankiRepository.findActivePage(page)
+				: yankiRepository.findActivePageAfter(afterId, page))
+				.map(YankiMapper::mapperToResponse)
+				.collectList().block();
+
+		logger.info("Accounts page retrieved successfully");
 		return response;
 	}
 
+	/**
+	 * Streams all active Yanki accounts. The accounts are read from the cursor as
+	 * the subscriber requests them, so they are never held in memory together.
+	 *
+	 * @return a Flux emitting Yanki response objects containing Yanki account
+	 *         information
+	 */
+	@Override
+	public Flux<YankiResponse> streamAllYanki() {
+		logger.debug("Streaming all accounts");
+		return yankiRepository.findAllByIsActiveTrue().map(YankiMapper::mapperToResponse);
+	}
+
 	/**
 	 * Updates an existing Yanki account with new information.
 	 *
@@ -194,6 +217,7 @@ public class YankiServiceImpl implements YankiService {
 				});
 
 		YankiEntity savedEntity = yankiRepository.save(yankiEntity).block();
+		yankiDirectoryService.put(savedEntity);
 		YankiResponse yankiResponse = new YankiResponse();
 		yankiResponse.setName(savedEntity.getName());
 		yankiResponse.setPhoneNumber(savedEntity.getPhoneNumber());
@@ -212,8 +236,10 @@ public class YankiServiceImpl implements YankiService {
 		Optional.ofNullable(yankiRepository.findByPhoneNumberAndIsActiveTrue(phoneNumber).block())
 				.ifPresentOrElse(entity -> {
 					entity.setDeleteDate(LocalDateTime.now());
+					entity.setUpdateDate(entity.getDeleteDate());
 					entity.setIsActive(false);
-					yankiRepository.save(entity);
+					yankiRepository.save(entity).block();
+					yankiDirectoryService.remove(phoneNumber);
 				}, () -> {
 					throw new IllegalArgumentException(
 							"YankiEntity with phone number " + phoneNumber + " does not exist.");
@@ -0,0 +1,190 @@
+package com.nttdata.bank.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nttdata.bank.request.BulkTransferItemRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * BulkTransferParser reads the rows of a bulk transfer file as its lines
+ * arrive. A file is either newline-delimited JSON, one object with the
+ * accountNumberReceive and amount fields per line, other fields being ignored,
+ * or CSV with the receiving account and the amount on each line and an
+ * optional header line. Blank lines are skipped, and the first invalid row
+ * fails the whole file, so no transfer of a malformed file is ever started.
+ * The lines are read from the request body as they are requested, and a line
+ * longer than the limit fails the file, so a file is never held in memory.
+ */
+public final class BulkTransferParser {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private BulkTransferParser() {
+	}
+
+	/**
+	 * Reads the lines of a request body as they are requested, on the bounded
+	 * elastic scheduler since the reads block. The body is closed when the lines
+	 * end, fail or are cancelled.
+	 *
+	 * @param body the request body
+	 * @return a Flux emitting the lines of the body without their line breaks
+	 * @throws IllegalArgumentException if a line exceeds the limit, signalled
+	 *                                  through the Flux
+	 */
+	public static Flux<String> lines(InputStream body) {
+		return Flux.using(() -> new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)),
+				reader -> Flux.<String>generate(sink -> {
+					try {
+						String line = readLine(reader);
+						if (line == null) {
+							sink.complete();
+						} else {
+							sink.next(line);
+						}
+					} catch (IOException e) {
+						sink.error(new UncheckedIOException(e));
+					}
+				}), BulkTransferParser::close)
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Parses the lines of a bulk transfer file into its rows.
+	 *
+	 * @param lines the lines of the file
+	 * @param csv   true if the file is CSV, false if it is newline-delimited JSON
+	 * @return a Flux emitting the rows of the file
+	 * @throws IllegalArgumentException if a row is malformed or invalid, signalled
+	 *                                  through the Flux
+	 */
+	public static Flux<BulkTransferItemRequest> parse(Flux<String> lines, boolean csv) {
+		return lines.index()
+				.filter(line -> !line.getT2().isBlank())
+				.filter(line -> !(csv && line.getT1() == 0 && isCsvHeader(line.getT2())))
+				.map(line -> parseRow(line.getT1() + 1, line.getT2().trim(), csv));
+	}
+
+	/**
+	 * Parses and validates one row of the file.
+	 *
+	 * @param lineNumber the number of the line in the file
+	 * @param line       the line, without surrounding whitespace
+	 * @param csv        true if the file is CSV
+	 * @return the row
+	 * @throws IllegalArgumentException if the row is malformed or invalid
+	 */
+	private static BulkTransferItemRequest parseRow(long lineNumber, String line, boolean csv) {
+		BulkTransferItemRequest row = csv ? parseCsv(lineNumber, line) : parseJson(lineNumber, line);
+
+		if (row.getAccountNumberReceive() == null || !row.getAccountNumberReceive().matches("\\d{14}")) {
+			throw new IllegalArgumentException("Invalid line " + lineNumber
+					+ ": the receiving account number must be exactly 14 digits");
+		}
+		if (row.getAmount() == null || !Double.isFinite(row.getAmount()) || row.getAmount() <= 0) {
+			throw new IllegalArgumentException("Invalid line " + lineNumber + ": the amount must be greater than zero");
+		}
+		return row;
+	}
+
+	/**
+	 * Parses a CSV line with the receiving account and the amount.
+	 *
+	 * @param lineNumber the number of the line in the file
+	 * @param line       the line
+	 * @return the row, not yet validated
+	 * @throws IllegalArgumentException if the line does not have two fields or the
+	 *                                  amount is not a number
+	 */
+	private static BulkTransferItemRequest parseCsv(long lineNumber, String line) {
+		String[] fields = line.split(",", -1);
+		if (fields.length != 2) {
+			throw new IllegalArgumentException("Invalid line " + lineNumber
+					+ ": expected the receiving account number and the amount");
+		}
+
+		try {
+			return new BulkTransferItemRequest(fields[0].trim(), Double.valueOf(fields[1].trim()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid line " + lineNumber + ": the amount is not a number");
+		}
+	}
+
+	/**
+	 * Parses a JSON line with the accountNumberReceive and amount fields.
+	 *
+	 * @param lineNumber the number of the line in the file
+	 * @param line       the line
+	 * @return the row, not yet validated
+	 * @throws IllegalArgumentException if the line is not a valid JSON row
+	 */
+	private static BulkTransferItemRequest parseJson(long lineNumber, String line) {
+		try {
+			return MAPPER.readValue(line, BulkTransferItemRequest.class);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Invalid line " + lineNumber + ": " + e.getOriginalMessage());
+		}
+	}
+
+	/**
+	 * Tells whether the first line of a CSV file is a header, which is the case
+	 * when it does not start with an account number.
+	 *
+	 * @param line the first line of the file
+	 * @return true if the line is a header
+	 */
+	private static boolean isCsvHeader(String line) {
+		String trimmed = line.trim();
+		return !trimmed.isEmpty() && !Character.isDigit(trimmed.charAt(0));
+	}
+
+	/**
+	 * Reads one line, without its line break.
+	 *
+	 * @param reader the reader of the body
+	 * @return the line, or null at the end of the body
+	 * @throws IOException              if the body cannot be read
+	 * @throws IllegalArgumentException if the line exceeds the limit
+	 */
+	private static String readLine(BufferedReader reader) throws IOException {
+		StringBuilder line = new StringBuilder();
+		int next = reader.read();
+
+		if (next == -1) {
+			return null;
+		}
+		while (next != -1 && next != '\n') {
+			if (line.length() >= Constants.BULK_TRANSFER_MAX_LINE_LENGTH) {
+				throw new IllegalArgumentException(
+						"A line of the file exceeds " + Constants.BULK_TRANSFER_MAX_LINE_LENGTH + " characters");
+			}
+			line.append((char) next);
+			next = reader.read();
+		}
+
+		int length = line.length();
+		return length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1) : line.toString();
+	}
+
+	/**
+	 * Closes the reader of a body, ignoring a failure to close it.
+	 *
+	 * @param reader the reader of the body
+	 */
+	private static void close(BufferedReader reader) {
+		try {
+			reader.close();
+		} catch (IOException e) {
+			// the body is discarded with the request
+		}
+	}
+}
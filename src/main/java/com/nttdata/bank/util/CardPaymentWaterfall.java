@@ -0,0 +1,163 @@
+package com.nttdata.bank.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import com.nttdata.bank.entity.Consumption;
+import com.nttdata.bank.entity.CreditCardScheduleEntity;
+import lombok.Value;
+
+/**
+ * CardPaymentWaterfall allocates a credit card payment in a single pass. The
+ * billed schedules, overdue and current, are paid first in payment date order
+ * as {@link PaymentWaterfall} pays credit schedules. What is left prepays the
+ * installments of the upcoming schedules, in payment date order and, within a
+ * schedule, starting with the consumptions in the most installments. The credit
+ * released to the card is the principal repaid: the principal paid on the
+ * billed schedules plus the prepaid installments.
+ */
+public final class CardPaymentWaterfall {
+
+	private CardPaymentWaterfall() {
+	}
+
+	/**
+	 * Allocates a payment across the unpaid schedules of a credit card.
+	 *
+	 * @param billedSchedules   the unpaid schedules due up to today ordered by
+	 *                          payment date
+	 * @param upcomingSchedules the unpaid schedules due after today ordered by
+	 *                          payment date
+	 * @param amount            the amount paid
+	 * @return the allocation of the payment
+	 * @throws IllegalArgumentException if the amount exceeds the total debt
+	 */
+	public static Allocation allocate(List<CreditCardScheduleEntity> billedSchedules,
+			List<CreditCardScheduleEntity> upcomingSchedules, double amount) {
+		double totalDebt = 0;
+		for (CreditCardScheduleEntity schedule : billedSchedules) {
+			totalDebt += PaymentWaterfall.valueOf(schedule.getCurrentDebt());
+		}
+		for (CreditCardScheduleEntity schedule : upcomingSchedules) {
+			if (schedule.getConsumptionQuota() != null) {
+				for (Consumption consumption : schedule.getConsumptionQuota()) {
+					totalDebt += PaymentWaterfall.valueOf(consumption.getAmount());
+				}
+			}
+		}
+		if (PaymentWaterfall.exceeds(amount, totalDebt)) {
+			throw new IllegalArgumentException("the amount exceeds the total debt");
+		}
+
+		List<PaymentWaterfall.Delta> scheduleDeltas = new ArrayList<>();
+		List<InstallmentDelta> installmentDeltas = new ArrayList<>();
+		double remaining = amount;
+		double creditReleased = 0;
+
+		for (CreditCardScheduleEntity schedule : billedSchedules) {
+			if (PaymentWaterfall.isExhausted(remaining)) {
+				break;
+			}
+
+			PaymentWaterfall.Delta delta = PaymentWaterfall.pay(schedule.getId(),
+					PaymentWaterfall.valueOf(schedule.getPrincipalAmount()),
+					PaymentWaterfall.valueOf(schedule.getInterestAmount()),
+					PaymentWaterfall.valueOf(schedule.getLateAmount()),
+					PaymentWaterfall.valueOf(schedule.getCurrentDebt()), remaining);
+			scheduleDeltas.add(delta);
+			remaining -= delta.getDebtPaid();
+			creditReleased += delta.getPrincipalPaid();
+		}
+
+		for (CreditCardScheduleEntity schedule : upcomingSchedules) {
+			if (PaymentWaterfall.isExhausted(remaining)) {
+				break;
+			}
+
+			List<Consumption> quota = schedule.getConsumptionQuota();
+			if (quota == null || quota.isEmpty()) {
+				continue;
+			}
+
+			for (int index : byInstallmentsDescending(quota)) {
+				if (PaymentWaterfall.isExhausted(remaining)) {
+					break;
+				}
+
+				double installment = PaymentWaterfall.valueOf(quota.get(index).getAmount());
+				if (installment <= 0) {
+					continue;
+				}
+
+				boolean paid = !PaymentWaterfall.exceeds(installment, remaining);
+				double amountPaid = paid ? installment : remaining;
+				installmentDeltas.add(new InstallmentDelta(schedule.getId(), index, amountPaid, paid));
+				remaining -= amountPaid;
+				creditReleased += amountPaid;
+			}
+		}
+
+		return new Allocation(scheduleDeltas, installmentDeltas, creditReleased);
+	}
+
+	/**
+	 * Returns the positions of the consumptions of a schedule, starting with the
+	 * consumptions in the most installments. The consumptions themselves are left
+	 * in place, since they are updated by position.
+	 *
+	 * @param quota the consumptions of the schedule
+	 * @return the positions of the consumptions in allocation order
+	 */
+	private static int[] byInstallmentsDescending(List<Consumption> quota) {
+		Integer[] order = new Integer[quota.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingInt(
+				(Integer index) -> installmentsOf(quota.get(index))).reversed());
+
+		int[] indexes = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			indexes[i] = order[i];
+		}
+		return indexes;
+	}
+
+	/**
+	 * Returns the number of installments of a consumption.
+	 *
+	 * @param consumption the consumption
+	 * @return the number of installments, or 1 if it is not set
+	 */
+	private static int installmentsOf(Consumption consumption) {
+		return consumption.getNumberOfInstallments() == null ? 1 : consumption.getNumberOfInstallments();
+	}
+
+	/**
+	 * The allocation of a credit card payment: the changes of the billed
+	 * schedules, the prepaid installments of the upcoming schedules and the credit
+	 * released to the card.
+	 */
+	@Value
+	public static class Allocation {
+
+		List<PaymentWaterfall.Delta> scheduleDeltas;
+		List<InstallmentDelta> installmentDeltas;
+		double creditReleased;
+	}
+
+	/**
+	 * The prepayment of one installment of an upcoming schedule: the schedule, the
+	 * position of the consumption in its quota, the amount prepaid and whether the
+	 * installment is fully prepaid.
+	 */
+	@Value
+	public static class InstallmentDelta {
+
+		String scheduleId;
+		int index;
+		double amountPaid;
+		boolean paid;
+	}
+}
@@ -0,0 +1,74 @@
+package com.nttdata.bank.util;
+
+/**
+ * CheckDigit computes and validates Luhn (mod 10) check digits. The Luhn digit
+ * catches every single-digit error and most transpositions of adjacent digits.
+ */
+public final class CheckDigit {
+
+	private CheckDigit() {
+	}
+
+	/**
+	 * Computes the Luhn check digit to append to a number.
+	 *
+	 * @param digits the number without its check digit
+	 * @return the check digit
+	 * @throws IllegalArgumentException if the number is empty or not numeric
+	 */
+	public static char luhn(String digits) {
+		return (char) ('0' + (10 - sum(digits, true) % 10) % 10);
+	}
+
+	/**
+	 * Tells whether a number ends with a valid Luhn check digit.
+	 *
+	 * @param digits the number including its check digit
+	 * @return true if the check digit is valid
+	 */
+	public static boolean isValid(String digits) {
+		if (digits == null || digits.length() < 2) {
+			return false;
+		}
+		try {
+			return sum(digits, false) % 10 == 0;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the Luhn sum of a number, doubling every second digit from the
+	 * right.
+	 *
+	 * @param digits          the number
+	 * @param doubleLastDigit whether the rightmost digit is doubled, which is the
+	 *                        case when the check digit is not yet appended
+	 * @return the Luhn sum
+	 * @throws IllegalArgumentException if the number is empty or not numeric
+	 */
+	private static int sum(String digits, boolean doubleLastDigit) {
+		if (digits == null || digits.isEmpty()) {
+			throw new IllegalArgumentException("The number must not be empty");
+		}
+
+		int sum = 0;
+		boolean doubled = doubleLastDigit;
+		for (int i = digits.length() - 1; i >= 0; i--) {
+			char digit = digits.charAt(i);
+			if (digit < '0' || digit > '9') {
+				throw new IllegalArgumentException("The number must only contain digits");
+			}
+			int value = digit - '0';
+			if (doubled) {
+				value *= 2;
+				if (value > 9) {
+					value -= 9;
+				}
+			}
+			sum += value;
+			doubled = !doubled;
+		}
+		return sum;
+	}
+}
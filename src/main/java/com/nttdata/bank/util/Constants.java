@@ -50,6 +50,42 @@ public class Constants {
 	public static final String PRODUCT_CREDIT_CARD = "Tarjeta de credito";
 
 	public static final Integer TRANSACTIONAL_LIMIT = 10;
+	public static final Integer RECENT_TRANSACTIONS_PAGE_SIZE = 10;
+	public static final Integer RECENT_TRANSACTIONS_MAX_PAGE_SIZE = 100;
+	public static final Integer LIST_PAGE_SIZE = 100;
+	public static final Integer LIST_MAX_PAGE_SIZE = 1000;
+	public static final Integer BACKFILL_CONCURRENCY = 8;
+	public static final Integer BULK_WRITE_CONCURRENCY = 4;
+	public static final Integer JOURNAL_MAX_ATTEMPTS = 5;
+	public static final Integer BILLING_MAX_ATTEMPTS = 3;
+	public static final String JOURNAL_STATUS_PENDING = "PENDING";
+	public static final String JOURNAL_STATUS_APPLIED = "APPLIED";
+	public static final String JOURNAL_STATUS_REJECTED = "REJECTED";
+	public static final String JOURNAL_REVERSAL_SUFFIX = ":reversal";
+	public static final String IDEMPOTENCY_STATUS_PENDING = "PENDING";
+	public static final String IDEMPOTENCY_STATUS_COMPLETED = "COMPLETED";
+	public static final String IDEMPOTENCY_OPERATION_DEPOSIT = "deposit";
+	public static final String IDEMPOTENCY_OPERATION_WITHDRAWAL = "withdrawal";
+	public static final String IDEMPOTENCY_OPERATION_ACCOUNT_TRANSFER = "account-transfer";
+	public static final String IDEMPOTENCY_OPERATION_PAY_CREDIT = "pay-credit";
 	public static final Double COMMISSION_ADD = 1.99;
 
+	public static final String SEQUENCE_OPERATION_NUMBER = "operationNumber";
+	public static final String SEQUENCE_ACCOUNT_NUMBER_PREFIX = "accountNumber:";
+	public static final Integer ACCOUNT_NUMBER_ATTEMPTS = 3;
+	public static final String SEQUENCE_CARD_NUMBER_PREFIX = "cardNumber:";
+	public static final Integer CARD_NUMBER_ATTEMPTS = 3;
+
+	public static final String MEDIA_TYPE_CSV = "text/csv";
+	public static final String BULK_TRANSFER_STATUS_RECEIVING = "RECEIVING";
+	public static final String BULK_TRANSFER_STATUS_RUNNING = "RUNNING";
+	public static final String BULK_TRANSFER_STATUS_COMPLETED = "COMPLETED";
+	public static final String BULK_TRANSFER_STATUS_FAILED = "FAILED";
+	public static final Integer BULK_TRANSFER_MAX_ERRORS = 100;
+	public static final Integer BULK_TRANSFER_MAX_LINE_LENGTH = 1024;
+	public static final Integer BULK_TRANSFER_CREDIT_ATTEMPTS = 3;
+
+	public static final Integer AVERAGE_BALANCE_BATCH_SIZE = 500;
+	public static final Double VIP_MINIMUM_AVERAGE_BALANCE = 1.00;
+
 }
@@ -0,0 +1,131 @@
+package com.nttdata.bank.util;
+
+/**
+ * NumberPermutation is a keyed, reversible permutation of the range [0,
+ * capacity). It is a balanced Feistel network over the smallest even number of
+ * bits that holds the range, and values that fall outside the range are
+ * encrypted again (cycle walking) until they land inside it. Sequential values
+ * are therefore mapped to values that look random but never collide, and the
+ * original value can always be recovered. The key must not change once values
+ * have been issued, or new values could repeat old ones.
+ */
+public final class NumberPermutation {
+
+	private static final int ROUNDS = 4;
+
+	private final long capacity;
+	private final int halfBits;
+	private final long halfMask;
+	private final long key;
+
+	/**
+	 * Creates a permutation of the range [0, capacity).
+	 *
+	 * @param capacity the size of the range, at least 2 and at most 2^62
+	 * @param key      the key of the permutation
+	 * @throws IllegalArgumentException if the capacity is out of bounds
+	 */
+	public NumberPermutation(long capacity, long key) {
+		if (capacity < 2 || capacity > (1L << 62)) {
+			throw new IllegalArgumentException("The capacity must be between 2 and 2^62");
+		}
+		int bits = 64 - Long.numberOfLeadingZeros(capacity - 1);
+		this.capacity = capacity;
+		this.halfBits = (bits + 1) / 2;
+		this.halfMask = (1L << halfBits) - 1;
+		this.key = key;
+	}
+
+	/**
+	 * Maps a value of the range to its permuted value.
+	 *
+	 * @param value the value, in [0, capacity)
+	 * @return the permuted value, in [0, capacity)
+	 * @throws IllegalArgumentException if the value is out of the range
+	 */
+	public long permute(long value) {
+		checkRange(value);
+		long result = value;
+		do {
+			result = encrypt(result);
+		} while (result >= capacity);
+		return result;
+	}
+
+	/**
+	 * Recovers the value that was permuted into the given one.
+	 *
+	 * @param permuted the permuted value, in [0, capacity)
+	 * @return the original value, in [0, capacity)
+	 * @throws IllegalArgumentException if the value is out of the range
+	 */
+	public long unpermute(long permuted) {
+		checkRange(permuted);
+		long result = permuted;
+		do {
+			result = decrypt(result);
+		} while (result >= capacity);
+		return result;
+	}
+
+	/**
+	 * Checks that a value belongs to the range.
+	 *
+	 * @param value the value
+	 * @throws IllegalArgumentException if the value is out of the range
+	 */
+	private void checkRange(long value) {
+		if (value < 0 || value >= capacity) {
+			throw new IllegalArgumentException("The value is out of the range of the permutation");
+		}
+	}
+
+	/**
+	 * Runs the Feistel rounds forward over the full bit width.
+	 *
+	 * @param value the value
+	 * @return the encrypted value
+	 */
+	private long encrypt(long value) {
+		long left = (value >>> halfBits) & halfMask;
+		long right = value & halfMask;
+		for (int round = 0; round < ROUNDS; round++) {
+			long next = left ^ mix(right, round);
+			left = right;
+			right = next;
+		}
+		return (left << halfBits) | right;
+	}
+
+	/**
+	 * Runs the Feistel rounds backward over the full bit width.
+	 *
+	 * @param value the encrypted value
+	 * @return the value
+	 */
+	private long decrypt(long value) {
+		long left = (value >>> halfBits) & halfMask;
+		long right = value & halfMask;
+		for (int round = ROUNDS - 1; round >= 0; round--) {
+			long previous = right ^ mix(left, round);
+			right = left;
+			left = previous;
+		}
+		return (left << halfBits) | right;
+	}
+
+	/**
+	 * The round function: a keyed 64-bit mix of one half, truncated to a half.
+	 *
+	 * @param half  the half of the value
+	 * @param round the number of the round
+	 * @return the mixed half
+	 */
+	private long mix(long half, int round) {
+		long hash = (half + 1) * 0x9E3779B97F4A7C15L ^ (key + round * 0xBF58476D1CE4E5B9L);
+		hash ^= hash >>> 31;
+		hash *= 0x94D049BB133111EBL;
+		hash ^= hash >>> 29;
+		return hash & halfMask;
+	}
+}
@@ -0,0 +1,134 @@
+package com.nttdata.bank.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.nttdata.bank.entity.CreditScheduleEntity;
+import lombok.Value;
+
+/**
+ * PaymentWaterfall allocates a credit payment across the unpaid schedules of the
+ * credit. The schedules are paid in payment date order, each one up to its
+ * current debt, and the amount paid to a schedule goes to its principal first,
+ * then to its interest and then to its late amount. The allocation only reads
+ * the schedules and returns the changes to apply to them.
+ */
+public final class PaymentWaterfall {
+
+	/**
+	 * The tolerance below which a remaining amount is considered zero, so that
+	 * rounding errors of the double amounts do not leave a schedule open.
+	 */
+	public static final double EPSILON = 1e-6;
+
+	private PaymentWaterfall() {
+	}
+
+	/**
+	 * Allocates a payment across the unpaid schedules of a credit.
+	 *
+	 * @param schedules the unpaid schedules of the credit ordered by payment date
+	 * @param amount    the amount paid
+	 * @return the changes of the schedules the payment reaches, in payment date
+	 *         order
+	 * @throws IllegalArgumentException if the amount exceeds the total debt
+	 */
+	public static List<Delta> allocate(List<CreditScheduleEntity> schedules, double amount) {
+		double totalDebt = 0;
+		for (CreditScheduleEntity schedule : schedules) {
+			totalDebt += valueOf(schedule.getCurrentDebt());
+		}
+		if (exceeds(amount, totalDebt)) {
+			throw new IllegalArgumentException("the amount exceeds the total debt");
+		}
+
+		List<Delta> deltas = new ArrayList<>();
+		double remaining = amount;
+
+		for (CreditScheduleEntity schedule : schedules) {
+			if (isExhausted(remaining)) {
+				break;
+			}
+
+			Delta delta = pay(schedule.getId(), valueOf(schedule.getPrincipalAmount()),
+					valueOf(schedule.getInterestAmount()), valueOf(schedule.getLateAmount()),
+					valueOf(schedule.getCurrentDebt()), remaining);
+			deltas.add(delta);
+			remaining -= delta.getDebtPaid();
+		}
+
+		return deltas;
+	}
+
+	/**
+	 * Pays one schedule up to its current debt, principal first, then interest and
+	 * then late amount.
+	 *
+	 * @param scheduleId  the id of the schedule
+	 * @param principal   the principal amount of the schedule
+	 * @param interest    the interest amount of the schedule
+	 * @param late        the late amount of the schedule
+	 * @param currentDebt the current debt of the schedule
+	 * @param available   the amount still to allocate
+	 * @return the change of the schedule
+	 */
+	public static Delta pay(String scheduleId, double principal, double interest, double late,
+			double currentDebt, double available) {
+		if (available + EPSILON >= currentDebt) {
+			return new Delta(scheduleId, principal, interest, late, currentDebt, true);
+		}
+
+		double principalPaid = Math.min(principal, available);
+		double interestPaid = Math.min(interest, available - principalPaid);
+		double latePaid = Math.min(late, available - principalPaid - interestPaid);
+		return new Delta(scheduleId, principalPaid, interestPaid, latePaid, available, false);
+	}
+
+	/**
+	 * Tells whether an amount still to allocate is exhausted, allowing for the
+	 * rounding errors of the double amounts.
+	 *
+	 * @param remaining the amount still to allocate
+	 * @return true if nothing is left to allocate
+	 */
+	public static boolean isExhausted(double remaining) {
+		return remaining <= EPSILON;
+	}
+
+	/**
+	 * Tells whether an amount exceeds a debt, allowing for the rounding errors of
+	 * the double amounts.
+	 *
+	 * @param amount the amount paid
+	 * @param debt   the debt
+	 * @return true if the amount is greater than the debt
+	 */
+	public static boolean exceeds(double amount, double debt) {
+		return amount > debt + EPSILON;
+	}
+
+	/**
+	 * Returns the value of a nullable amount.
+	 *
+	 * @param amount the amount
+	 * @return the amount, or 0 if it is null
+	 */
+	public static double valueOf(Double amount) {
+		return amount == null ? 0 : amount;
+	}
+
+	/**
+	 * The change a payment makes to one schedule: the amounts paid towards its
+	 * principal, interest and late amount, the amount its current debt drops by,
+	 * and whether the schedule is fully paid.
+	 */
+	@Value
+	public static class Delta {
+
+		String scheduleId;
+		double principalPaid;
+		double interestPaid;
+		double latePaid;
+		double debtPaid;
+		boolean paid;
+	}
+}
@@ -1,10 +1,14 @@
 package com.nttdata.bank.util;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
 /**
  * Utility is a utility class that provides various methods for financial
  * calculations. These methods include calculating the fixed installment amount
  * for a loan, converting an annual interest rate to a monthly interest rate,
- * and converting an annual interest rate to a daily interest rate.
+ * and converting an annual interest rate to a daily interest rate. It also
+ * builds the page requests of the list endpoints.
  */
 
 public class Utility {
@@ -30,12 +34,17 @@ public class Utility {
 	}
 
 	/**
-	 * Generates a random number to append to the credit card number.
-	 * 
-	 * @return A random number as a string.
+	 * Returns the page request of a list endpoint, capping the page size.
+	 *
+	 * @param size The requested page size, or null for the default of 100
+	 * @return The page request of the first page of the given size
+	 * @throws IllegalArgumentException if the page size is not positive
 	 */
-	public static String generateRandomNumber() {
-		int randomNumber = (int) (Math.random() * 10000);
-		return String.format("%04d", randomNumber);
+	public static Pageable getListPage(Integer size) {
+		if (size != null && size <= 0) {
+			throw new IllegalArgumentException("The page size must be positive");
+		}
+		return PageRequest.of(0, size == null ? Constants.LIST_PAGE_SIZE
+				: Math.min(size, Constants.LIST_MAX_PAGE_SIZE));
 	}
 }
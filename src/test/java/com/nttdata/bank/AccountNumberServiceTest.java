@@ -0,0 +1,166 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.nttdata.bank.service.SequenceService;
+import com.nttdata.bank.service.impl.AccountNumberServiceImpl;
+import com.nttdata.bank.util.CheckDigit;
+import com.nttdata.bank.util.Constants;
+import com.nttdata.bank.util.NumberPermutation;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class AccountNumberServiceTest {
+
+	private static final int RUNS = 100000;
+
+	@Mock
+	private SequenceService sequenceService;
+
+	@InjectMocks
+	private AccountNumberServiceImpl accountNumberService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(accountNumberService, "permutationKey", 7046029254386353131L);
+		accountNumberService.initPermutation();
+	}
+
+	@Test
+	public void nextAccountNumber_formatsBankTypeBodyAndCheckDigit() {
+		nextValue(Mono.just(1L));
+
+		String accountNumber = accountNumberService.nextAccountNumber(Constants.ACCOUNT_TYPE_SAVINGS).block();
+
+		assertEquals(14, accountNumber.length());
+		assertTrue(accountNumber.startsWith(Constants.BANK_CODE + Constants.ACCOUNT_TYPE_CODE_SAVINGS));
+		assertTrue(CheckDigit.isValid(accountNumber));
+	}
+
+	@Test
+	public void nextAccountNumber_withoutPermutationKeepsSequenceValue() {
+		ReflectionTestUtils.setField(accountNumberService, "permute", false);
+		accountNumberService.initPermutation();
+		nextValue(Mono.just(42L));
+
+		String accountNumber = accountNumberService.nextAccountNumber(Constants.ACCOUNT_TYPE_CHECKING).block();
+
+		assertEquals("0022000000042" + CheckDigit.luhn("0022000000042"), accountNumber);
+	}
+
+	@Test
+	public void nextAccountNumber_consecutiveValuesAreUnique() {
+		AtomicLong sequence = new AtomicLong();
+		when(sequenceService.nextValue(eq(Constants.SEQUENCE_ACCOUNT_NUMBER_PREFIX
+				+ Constants.ACCOUNT_TYPE_CODE_VIP), any()))
+				.thenAnswer(invocation -> Mono.just(sequence.incrementAndGet()));
+
+		Set<String> accountNumbers = new HashSet<>();
+		for (int i = 0; i < RUNS; i++) {
+			String accountNumber = accountNumberService.nextAccountNumber(Constants.ACCOUNT_TYPE_VIP).block();
+			assertTrue(CheckDigit.isValid(accountNumber));
+			assertTrue(accountNumbers.add(accountNumber));
+		}
+	}
+
+	@Test
+	public void initPermutation_failsWhenEnabledWithoutKey() {
+		ReflectionTestUtils.setField(accountNumberService, "permutationKey", null);
+		ReflectionTestUtils.setField(accountNumberService, "permute", true);
+
+		assertThrows(IllegalStateException.class, () -> accountNumberService.initPermutation());
+
+		ReflectionTestUtils.setField(accountNumberService, "permute", false);
+		accountNumberService.initPermutation();
+	}
+
+	@Test
+	public void nextAccountNumber_withoutKeyKeepsSequenceValue() {
+		ReflectionTestUtils.setField(accountNumberService, "permutationKey", null);
+		accountNumberService.initPermutation();
+		nextValue(Mono.just(42L));
+
+		String accountNumber = accountNumberService.nextAccountNumber(Constants.ACCOUNT_TYPE_CHECKING).block();
+
+		assertEquals("0022000000042" + CheckDigit.luhn("0022000000042"), accountNumber);
+	}
+
+	@Test
+	public void nextAccountNumber_unknownTypeFails() {
+		assertThrows(IllegalArgumentException.class,
+				() -> accountNumberService.nextAccountNumber("Unknown").block());
+	}
+
+	@Test
+	public void nextAccountNumber_exhaustedSequenceFails() {
+		nextValue(Mono.just(1_000_000_000L));
+
+		assertThrows(IllegalStateException.class,
+				() -> accountNumberService.nextAccountNumber(Constants.ACCOUNT_TYPE_PYME).block());
+	}
+
+	@Test
+	public void permutation_isBijectiveOverSmallRange() {
+		NumberPermutation permutation = new NumberPermutation(1000, 12345L);
+
+		Set<Long> permuted = new HashSet<>();
+		for (long value = 0; value < 1000; value++) {
+			long result = permutation.permute(value);
+			assertTrue(result >= 0 && result < 1000);
+			assertTrue(permuted.add(result));
+			assertEquals(value, permutation.unpermute(result));
+		}
+	}
+
+	@Test
+	public void permutation_roundTripsRandomValues() {
+		NumberPermutation permutation = new NumberPermutation(1_000_000_000L, 7046029254386353131L);
+		Random random = new Random(22);
+
+		for (int i = 0; i < RUNS; i++) {
+			long value = (long) (random.nextDouble() * 1_000_000_000L);
+			assertEquals(value, permutation.unpermute(permutation.permute(value)));
+		}
+	}
+
+	@Test
+	public void permutation_rejectsValuesOutOfRange() {
+		NumberPermutation permutation = new NumberPermutation(1000, 1L);
+
+		assertThrows(IllegalArgumentException.class, () -> permutation.permute(1000));
+		assertThrows(IllegalArgumentException.class, () -> permutation.unpermute(-1));
+		assertThrows(IllegalArgumentException.class, () -> new NumberPermutation(1, 1L));
+	}
+
+	@Test
+	public void checkDigit_matchesKnownLuhnValues() {
+		assertEquals('3', CheckDigit.luhn("7992739871"));
+		assertTrue(CheckDigit.isValid("79927398713"));
+		assertTrue(CheckDigit.isValid("4111111111111111"));
+		assertFalse(CheckDigit.isValid("79927398710"));
+		assertFalse(CheckDigit.isValid("79927398731"));
+		assertFalse(CheckDigit.isValid("7992a398713"));
+		assertThrows(IllegalArgumentException.class, () -> CheckDigit.luhn(""));
+	}
+
+	private void nextValue(Mono<Long> value) {
+		when(sequenceService.nextValue(any(String.class), any())).thenReturn(value);
+	}
+}
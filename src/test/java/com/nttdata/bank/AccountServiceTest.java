@@ -1,10 +1,16 @@
 package com.nttdata.bank;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -12,31 +18,48 @@ import java.util.List;
 import javax.validation.Validation;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import com.mongodb.client.result.UpdateResult;
 import com.nttdata.bank.entity.AccountEntity;
 import com.nttdata.bank.entity.CustomerEntity;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.job.bean.BalanceChange;
+import com.nttdata.bank.job.bean.InactivitySweepResult;
 import com.nttdata.bank.repository.AccountRepository;
 import com.nttdata.bank.repository.CreditCardRepository;
 import com.nttdata.bank.repository.CreditRepository;
 import com.nttdata.bank.repository.CustomerRepository;
 import com.nttdata.bank.repository.DebitCardRepository;
+import com.nttdata.bank.repository.TransactionRepository;
 import com.nttdata.bank.repository.YankiRepository;
 import com.nttdata.bank.request.AccountRequest;
 import com.nttdata.bank.request.DepositRequest;
 import com.nttdata.bank.request.UpdateAccountRequest;
 import com.nttdata.bank.response.TransactionResponse;
+import com.nttdata.bank.service.AccountNumberService;
+import com.nttdata.bank.service.BalanceSnapshotService;
 import com.nttdata.bank.service.OperationService;
 import com.nttdata.bank.service.impl.AccountsServiceImpl;
 import com.nttdata.bank.util.Constants;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @SpringBootTest
 public class AccountServiceTest {
@@ -65,6 +88,18 @@ public class AccountServiceTest {
 	@Mock
 	private YankiRepository yankiRepository;
 
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Mock
+	private AccountNumberService accountNumberService;
+
+	@Mock
+	private BalanceSnapshotService balanceSnapshotService;
+
 	@InjectMocks
 	private AccountsServiceImpl accountsService;
 
@@ -73,6 +108,8 @@ public class AccountServiceTest {
 		ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
 		validator = factory.getValidator();
 		MockitoAnnotations.openMocks(this);
+		when(balanceSnapshotService.recordBalanceChanges(anyList())).thenReturn(Mono.empty());
+		when(balanceSnapshotService.openSnapshot(any(), any(), any())).thenReturn(Mono.empty());
 	}
 
 	@Test
@@ -433,7 +470,7 @@ public class AccountServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("36548214", Constants.DOCUMENT_TYPE_RUC,
 				Constants.PERSON_TYPE_BUSINESS)));
 
-		existsAccountNumber();
+		nextAccountNumber();
 		saveAccount();
 		makeDeposit();
 		accountsService.registerAccount(accountRequest);
@@ -455,7 +492,7 @@ public class AccountServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("36548214", Constants.DOCUMENT_TYPE_RUC,
 				Constants.PERSON_TYPE_BUSINESS)));
 
-		existsAccountNumber();
+		nextAccountNumber();
 		saveAccount();
 		makeDeposit();
 		accountsService.registerAccount(accountRequest);
@@ -476,7 +513,7 @@ public class AccountServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("36548214", Constants.DOCUMENT_TYPE_DNI,
 				Constants.PERSON_TYPE_PERSONAL)));
 
-		existsAccountNumber();
+		nextAccountNumber();
 		saveAccount();
 		makeDeposit();
 		accountsService.registerAccount(accountRequest);
@@ -497,7 +534,7 @@ public class AccountServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("36548214", Constants.DOCUMENT_TYPE_DNI,
 				Constants.PERSON_TYPE_PERSONAL)));
 
-		existsAccountNumber();
+		nextAccountNumber();
 		saveAccount();
 		makeDeposit();
 		accountsService.registerAccount(accountRequest);
@@ -518,7 +555,7 @@ public class AccountServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("36548214", Constants.DOCUMENT_TYPE_DNI,
 				Constants.PERSON_TYPE_PERSONAL)));
 
-		existsAccountNumber();
+		nextAccountNumber();
 		saveAccount();
 		makeDeposit();
 		accountsService.registerAccount(accountRequest);
@@ -541,12 +578,56 @@ public class AccountServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("36548214", Constants.DOCUMENT_TYPE_DNI,
 				Constants.PERSON_TYPE_PERSONAL)));
 
-		existsAccountNumber();
+		nextAccountNumber();
 		saveAccount();
 		makeDeposit();
 		accountsService.registerAccount(accountRequest);
 	}
 
+	@Test
+	public void createAccount_RetriesDuplicateAccountNumber() {
+		AccountRequest accountRequest = getAccountRequest(Arrays.asList("72900327", "08352364"),
+				Arrays.asList(),
+				Constants.ACCOUNT_TYPE_CHECKING);
+
+		findByHolder(Flux.fromIterable(Arrays
+				.asList(getAccountEntity("07474589", Arrays.asList("12345678"), null,
+						Constants.ACCOUNT_TYPE_CHECKING))));
+		getCustomer(Mono.just(getCustomerEntity("36548214", Constants.DOCUMENT_TYPE_RUC,
+				Constants.PERSON_TYPE_BUSINESS)));
+
+		when(accountNumberService.nextAccountNumber(Constants.ACCOUNT_TYPE_CHECKING))
+				.thenReturn(Mono.just("00220000000015"), Mono.just("00220000000023"));
+		when(accountRepository.save(any(AccountEntity.class))).thenAnswer(invocation -> {
+			AccountEntity entity = invocation.getArgument(0);
+			return "00220000000015".equals(entity.getAccountNumber())
+					? Mono.error(new DuplicateKeyException("duplicate account number"))
+					: Mono.just(entity);
+		});
+		makeDeposit();
+
+		assertEquals("00220000000023", accountsService.registerAccount(accountRequest).getAccountNumber());
+	}
+
+	@Test
+	public void createAccount_DuplicateAccountNumberExhaustsAttempts() {
+		AccountRequest accountRequest = getAccountRequest(Arrays.asList("72900327", "08352364"),
+				Arrays.asList(),
+				Constants.ACCOUNT_TYPE_CHECKING);
+
+		findByHolder(Flux.fromIterable(Arrays
+				.asList(getAccountEntity("07474589", Arrays.asList("12345678"), null,
+						Constants.ACCOUNT_TYPE_CHECKING))));
+		getCustomer(Mono.just(getCustomerEntity("36548214", Constants.DOCUMENT_TYPE_RUC,
+				Constants.PERSON_TYPE_BUSINESS)));
+		nextAccountNumber();
+		when(accountRepository.save(any(AccountEntity.class)))
+				.thenReturn(Mono.error(new DuplicateKeyException("duplicate account number")));
+
+		assertThrows(Exception.class, () -> accountsService.registerAccount(accountRequest));
+		verify(accountRepository, times(Constants.ACCOUNT_NUMBER_ATTEMPTS)).save(any(AccountEntity.class));
+	}
+
 	@Test
 	public void checkBalance_NotFound() {
 		getAccountRepo(Mono.empty());
@@ -579,6 +660,7 @@ public class AccountServiceTest {
 		updateAccountRequest.setAccountNumber("12345678914785");
 		updateAccountRequest.setAmount(100.00);
 		assertTrue(validator.validate(updateAccountRequest).isEmpty());
+		findAndModify(Mono.empty());
 		getAccountRepo(Mono.empty());
 
 		assertThrows(Exception.class, () -> {
@@ -593,11 +675,58 @@ public class AccountServiceTest {
 		updateAccountRequest.setAmount(100.00);
 		assertTrue(validator.validate(updateAccountRequest).isEmpty());
 
-		getAccountRepo(Mono.just(getAccountEntity("123", Arrays.asList("123"), null,
-				Constants.ACCOUNT_TYPE_CHECKING)));
+		atomicBalance(getAccountEntity("123", Arrays.asList("123"), null,
+				Constants.ACCOUNT_TYPE_CHECKING));
 
-		saveAccount();
-		accountsService.updateAccount(updateAccountRequest);
+		assertEquals(200.00, accountsService.updateAccount(updateAccountRequest).getAmount(),
+				0.00);
+	}
+
+	@Test
+	public void updateBalance_parallelDepositsAreNotLost() {
+		AccountEntity accountEntity = getAccountEntity("123", Arrays.asList("123"), null,
+				Constants.ACCOUNT_TYPE_CHECKING);
+		accountEntity.setAmount(0.00);
+		atomicBalance(accountEntity);
+		int deposits = 5000;
+
+		Flux.range(0, deposits).parallel().runOn(Schedulers.parallel())
+				.flatMap(i -> accountsService.updateBalance(accountEntity.getAccountNumber(), 1.00))
+				.sequential().blockLast();
+
+		assertEquals(deposits, accountEntity.getAmount(), 0.00);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void updateBalance_recordsDailyBalance() {
+		atomicBalance(getAccountEntity("123", Arrays.asList("123"), null,
+				Constants.ACCOUNT_TYPE_CHECKING));
+		ArgumentCaptor<List<BalanceChange>> changes = ArgumentCaptor.forClass(List.class);
+
+		accountsService.updateBalance("123", 50.00).block();
+
+		verify(balanceSnapshotService).recordBalanceChanges(changes.capture());
+		BalanceChange change = changes.getValue().get(0);
+		assertEquals("123", change.getAccountNumber());
+		assertEquals(50.00, change.getAmount(), 0.00);
+		assertEquals(150.00, change.getBalance(), 0.00);
+	}
+
+	@Test
+	public void updateBalance_parallelDebitsNeverOverdraw() {
+		AccountEntity accountEntity = getAccountEntity("123", Arrays.asList("123"), null,
+				Constants.ACCOUNT_TYPE_CHECKING);
+		atomicBalance(accountEntity);
+		getAccountRepo(Mono.just(accountEntity));
+
+		Long applied = Flux.range(0, 1000).parallel().runOn(Schedulers.parallel())
+				.flatMap(i -> accountsService.updateBalance(accountEntity.getAccountNumber(), -1.00)
+						.onErrorResume(IllegalArgumentException.class, e -> Mono.empty()))
+				.sequential().count().block();
+
+		assertEquals(100L, applied);
+		assertEquals(0.00, accountEntity.getAmount(), 0.00);
 	}
 
 	@Test
@@ -646,6 +775,47 @@ public class AccountServiceTest {
 		accountsService.deleteAccount("123");
 	}
 
+	@Test
+	public void deactivateInactiveAccounts_success() {
+		LocalDateTime lastMovementDate = LocalDateTime.now().minusMonths(8);
+		TransactionEntity transactionEntity = new TransactionEntity();
+		transactionEntity.setCreateDate(lastMovementDate);
+
+		when(accountRepository.findActiveWithoutLastMovementDate()).thenReturn(Flux.just(
+				getAccountEntity("123", Arrays.asList("123"), null, Constants.ACCOUNT_TYPE_SAVINGS)));
+		when(transactionRepository.findRecentByAccountNumbers(any(), any(Pageable.class)))
+				.thenReturn(Flux.just(transactionEntity));
+		when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class),
+				eq(AccountEntity.class))).thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+		when(accountRepository.countByIsActiveTrue()).thenReturn(Mono.just(5L));
+		when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class),
+				eq(AccountEntity.class))).thenReturn(Mono.just(UpdateResult.acknowledged(2, 2L, null)));
+
+		InactivitySweepResult result = accountsService
+				.deactivateInactiveAccounts(LocalDateTime.now().minusMonths(6)).block();
+
+		assertEquals(5L, result.getScanned());
+		assertEquals(2L, result.getDeactivated());
+		verify(mongoTemplate).updateFirst(any(Query.class),
+				eq(new Update().set("lastMovementDate", lastMovementDate)), eq(AccountEntity.class));
+	}
+
+	@Test
+	public void deactivateInactiveAccounts_nothingToBackfill() {
+		when(accountRepository.findActiveWithoutLastMovementDate()).thenReturn(Flux.empty());
+		when(accountRepository.countByIsActiveTrue()).thenReturn(Mono.just(3L));
+		when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class),
+				eq(AccountEntity.class))).thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+
+		InactivitySweepResult result = accountsService
+				.deactivateInactiveAccounts(LocalDateTime.now().minusMonths(6)).block();
+
+		assertEquals(3L, result.getScanned());
+		assertEquals(0L, result.getDeactivated());
+		verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class),
+				eq(AccountEntity.class));
+	}
+
 	private void validVipOrPyme(Boolean existsCreditCard, Boolean existsCredit) {
 		existsCreditCard(Mono.just(existsCreditCard));
 		existsCredit(Mono.just(existsCredit));
@@ -658,6 +828,39 @@ public class AccountServiceTest {
 		});
 	}
 
+	private void findAndModify(Mono<AccountEntity> accountEntity) {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(AccountEntity.class)))
+				.thenReturn(accountEntity);
+	}
+
+	private void atomicBalance(AccountEntity storedEntity) {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(AccountEntity.class)))
+				.thenAnswer(invocation -> Mono.fromSupplier(() -> applyAtomically(storedEntity,
+						invocation.getArgument(0), invocation.getArgument(1))));
+	}
+
+	private AccountEntity applyAtomically(AccountEntity storedEntity, Query query,
+			UpdateDefinition update) {
+		synchronized (storedEntity) {
+			Document guard = query.getQueryObject().get("amount", Document.class);
+
+			if (guard != null
+					&& storedEntity.getAmount() < ((Number) guard.get("$gte")).doubleValue()) {
+				return null;
+			}
+
+			Number increment = (Number) update.getUpdateObject().get("$inc", Document.class)
+					.get("amount");
+			storedEntity.setAmount(storedEntity.getAmount() + increment.doubleValue());
+			AccountEntity updatedEntity = getAccountEntity(storedEntity.getId(),
+					storedEntity.getHolderDoc(), null, storedEntity.getAccountType());
+			updatedEntity.setAmount(storedEntity.getAmount());
+			return updatedEntity;
+		}
+	}
+
 	private void getCustomer(Mono<CustomerEntity> customerEntity) {
 		when(customerRepository.findByDocumentNumberAndIsActiveTrue(any(String.class)))
 				.thenReturn(customerEntity);
@@ -683,9 +886,9 @@ public class AccountServiceTest {
 				.thenReturn(exists);
 	}
 
-	private void existsAccountNumber() {
-		when(accountRepository.existsByAccountNumber(any(String.class)))
-				.thenReturn(Mono.just(false));
+	private void nextAccountNumber() {
+		when(accountNumberService.nextAccountNumber(any(String.class)))
+				.thenReturn(Mono.just("00220000000015"));
 	}
 
 	private void existsCredit(Mono<Boolean> exists) {
@@ -0,0 +1,139 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import com.nttdata.bank.auth.JwtAuthenticationFilter;
+import com.nttdata.bank.auth.service.impl.AuthenticationServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+@SpringBootTest
+public class AuthenticationServiceTest {
+
+	private AuthenticationServiceImpl authenticationService;
+
+	@BeforeEach
+	public void setUp() {
+		authenticationService = new AuthenticationServiceImpl();
+		SecurityContextHolder.clearContext();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void verify_returnsClaimsOfGeneratedToken() {
+		String token = authenticationService.generateJwt("user");
+
+		Claims claims = authenticationService.verifyJwt(token);
+
+		assertEquals("user", claims.getSubject());
+		assertTrue(authenticationService.validateJwt(token));
+	}
+
+	@Test
+	public void verify_servesRepeatedTokenFromCache() {
+		String token = authenticationService.generateJwt("user");
+
+		Claims first = authenticationService.verifyJwt(token);
+		Claims second = authenticationService.verifyJwt(token);
+
+		assertNotSame(first, second);
+		assertEquals(first, second);
+	}
+
+	@Test
+	public void verify_doesNotShareCachedClaims() {
+		String token = authenticationService.generateJwt("user");
+
+		authenticationService.verifyJwt(token).setSubject("admin");
+
+		assertEquals("user", authenticationService.verifyJwt(token).getSubject());
+	}
+
+	@Test
+	public void verify_rejectsTamperedToken() {
+		String token = authenticationService.generateJwt("user");
+		authenticationService.verifyJwt(token);
+		String tampered = token.substring(0, token.length() - 2)
+				+ (token.endsWith("AA") ? "BB" : "AA");
+
+		assertThrows(JwtException.class, () -> authenticationService.verifyJwt(tampered));
+		assertFalse(authenticationService.validateJwt(tampered));
+	}
+
+	@Test
+	public void verify_rejectsTokenSignedWithAnotherKey() {
+		String token = Jwts.builder().setSubject("user")
+				.setExpiration(new Date(System.currentTimeMillis() + 60000))
+				.signWith(SignatureAlgorithm.HS512, "anotherKey").compact();
+
+		assertThrows(JwtException.class, () -> authenticationService.verifyJwt(token));
+	}
+
+	@Test
+	public void verify_expiresCachedClaimsWithToken() throws InterruptedException {
+		String token = Jwts.builder().setSubject("user")
+				.setExpiration(new Date(System.currentTimeMillis() + 1000))
+				.signWith(SignatureAlgorithm.HS512, "secretKey").compact();
+		authenticationService.verifyJwt(token);
+
+		Thread.sleep(1100);
+
+		assertThrows(ExpiredJwtException.class, () -> authenticationService.verifyJwt(token));
+	}
+
+	@Test
+	public void filter_authenticatesBearerToken() throws Exception {
+		String token = authenticationService.generateJwt("user");
+		AtomicReference<Authentication> authentication = new AtomicReference<>();
+
+		new JwtAuthenticationFilter(authenticationService).doFilter(getRequest("Bearer " + token),
+				new MockHttpServletResponse(),
+				(request, response) -> authentication.set(SecurityContextHolder.getContext().getAuthentication()));
+
+		assertTrue(authentication.get().isAuthenticated());
+		assertEquals("user", ((Claims) authentication.get().getPrincipal()).getSubject());
+	}
+
+	@Test
+	public void filter_leavesInvalidTokenUnauthenticated() throws Exception {
+		AtomicReference<Authentication> authentication = new AtomicReference<>();
+		AtomicReference<Boolean> continued = new AtomicReference<>(false);
+
+		new JwtAuthenticationFilter(authenticationService).doFilter(getRequest("Bearer invalid"),
+				new MockHttpServletResponse(), (request, response) -> {
+					continued.set(true);
+					authentication.set(SecurityContextHolder.getContext().getAuthentication());
+				});
+
+		assertTrue(continued.get());
+		assertNull(authentication.get());
+	}
+
+	private MockHttpServletRequest getRequest(String authorization) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customer/all");
+		request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+		return request;
+	}
+}
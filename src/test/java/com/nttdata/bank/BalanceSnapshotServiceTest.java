@@ -0,0 +1,210 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.BalanceSnapshotEntity;
+import com.nttdata.bank.job.bean.BalanceChange;
+import com.nttdata.bank.service.impl.BalanceSnapshotServiceImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class BalanceSnapshotServiceTest {
+
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Mock
+	private MongoCollection<Document> collection;
+
+	@InjectMocks
+	private BalanceSnapshotServiceImpl balanceSnapshotService;
+
+	private final List<WriteModel<Document>> written = new ArrayList<>();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		written.clear();
+		when(mongoTemplate.getCollectionName(any())).thenReturn("balance_snapshots");
+		when(mongoTemplate.getCollection(anyString())).thenReturn(Mono.just(collection));
+		when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+			List<WriteModel<Document>> updates = invocation.getArgument(0);
+			written.addAll(updates);
+			return Mono.just(BulkWriteResult.acknowledged(0, updates.size(), 0, updates.size(),
+					Collections.emptyList()));
+		});
+		when(mongoTemplate.insert(any(BalanceSnapshotEntity.class)))
+				.thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+		when(mongoTemplate.find(any(Query.class), eq(BalanceSnapshotEntity.class))).thenReturn(Flux.empty());
+		when(mongoTemplate.findOne(any(Query.class), eq(BalanceSnapshotEntity.class))).thenReturn(Mono.empty());
+	}
+
+	@Test
+	public void recordBalanceChanges_opensMonthWithPreviousClosingBalance() {
+		when(mongoTemplate.findOne(any(Query.class), eq(BalanceSnapshotEntity.class)))
+				.thenReturn(Mono.just(getSnapshot("111", YearMonth.of(2026, 2), 300.00)));
+		ArgumentCaptor<BalanceSnapshotEntity> inserted = ArgumentCaptor.forClass(BalanceSnapshotEntity.class);
+
+		balanceSnapshotService.recordBalanceChanges(Collections.singletonList(
+				new BalanceChange("111", 50.00, 350.00, LocalDateTime.of(2026, 3, 10, 12, 0)))).block();
+
+		verify(mongoTemplate).insert(inserted.capture());
+		assertEquals("111:2026-03", inserted.getValue().getId());
+		assertEquals(31, inserted.getValue().getDays());
+		assertEquals(300.00, inserted.getValue().getOpeningBalance(), 0.0001);
+		assertEquals(300.00, inserted.getValue().getBalances()[30], 0.0001);
+
+		assertEquals(1, written.size());
+		UpdateOneModel<Document> update = (UpdateOneModel<Document>) written.get(0);
+		assertEquals("111:2026-03", ((Document) update.getFilter()).getString("_id"));
+		Document increments = ((Document) update.getUpdate()).get("$inc", Document.class);
+		assertEquals(22, increments.size());
+		assertFalse(increments.containsKey("balances.8"));
+		assertEquals(50.00, increments.getDouble("balances.9"), 0.0001);
+		assertEquals(50.00, increments.getDouble("balances.30"), 0.0001);
+	}
+
+	@Test
+	public void recordBalanceChanges_firstMonthOpensWithBalanceBeforeChange() {
+		ArgumentCaptor<BalanceSnapshotEntity> inserted = ArgumentCaptor.forClass(BalanceSnapshotEntity.class);
+
+		balanceSnapshotService.recordBalanceChanges(Collections.singletonList(
+				new BalanceChange("111", -40.00, 60.00, LocalDateTime.of(2026, 2, 1, 9, 0)))).block();
+
+		verify(mongoTemplate).insert(inserted.capture());
+		assertEquals(28, inserted.getValue().getDays());
+		assertEquals(100.00, inserted.getValue().getOpeningBalance(), 0.0001);
+		assertEquals(31, ((Document) ((UpdateOneModel<Document>) written.get(0)).getUpdate())
+				.get("$inc", Document.class).size());
+	}
+
+	@Test
+	public void openSnapshot_createsFirstMonthWithOpeningBalance() {
+		ArgumentCaptor<BalanceSnapshotEntity> inserted = ArgumentCaptor.forClass(BalanceSnapshotEntity.class);
+
+		balanceSnapshotService.openSnapshot("111", 0.00, LocalDateTime.of(2026, 4, 20, 9, 0)).block();
+
+		verify(mongoTemplate).insert(inserted.capture());
+		assertEquals("111:2026-04", inserted.getValue().getId());
+		assertEquals(30, inserted.getValue().getDays());
+		assertEquals(0.00, inserted.getValue().getOpeningBalance(), 0.0001);
+		assertEquals(0.00, inserted.getValue().getBalances()[29], 0.0001);
+		assertTrue(written.isEmpty());
+	}
+
+	@Test
+	public void recordBalanceChanges_lastDayIsCarriedIntoLaterMonths() {
+		when(mongoTemplate.find(any(Query.class), eq(BalanceSnapshotEntity.class)))
+				.thenReturn(Flux.just(getSnapshot("111", YearMonth.of(2026, 2), 100.00)));
+
+		balanceSnapshotService.recordBalanceChanges(Collections.singletonList(
+				new BalanceChange("111", 25.00, 125.00, LocalDateTime.of(2026, 2, 28, 23, 59)))).block();
+
+		verify(mongoTemplate, never()).insert(any(BalanceSnapshotEntity.class));
+		assertEquals(2, written.size());
+		UpdateManyModel<Document> carry = (UpdateManyModel<Document>) written.get(1);
+		Document filter = (Document) carry.getFilter();
+		assertEquals("2026-02", filter.get("period", Document.class).getString("$gt"));
+		Document increments = ((Document) carry.getUpdate()).get("$inc", Document.class);
+		assertEquals(25.00, increments.getDouble("openingBalance"), 0.0001);
+		assertEquals(25.00, increments.getDouble("balances.0"), 0.0001);
+	}
+
+	@Test
+	public void recordBalanceChanges_failureIsNotPropagated() {
+		when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+				.thenReturn(Mono.error(new RuntimeException("Write failed")));
+
+		balanceSnapshotService.recordBalanceChanges(Collections.singletonList(
+				new BalanceChange("111", 25.00, 125.00, LocalDateTime.of(2026, 2, 3, 10, 0)))).block();
+
+		assertTrue(written.isEmpty());
+	}
+
+	@Test
+	public void averageDailyBalances_weighsEveryDayOfTheMonth() {
+		BalanceSnapshotEntity february = getSnapshot("111", YearMonth.of(2026, 2), 100.00);
+		Arrays.fill(february.getBalances(), 14, 31, 200.00);
+		february.getBalances()[30] = 1000000.00;
+		when(mongoTemplate.find(any(Query.class), eq(BalanceSnapshotEntity.class))).thenReturn(Flux.just(february));
+		when(mongoTemplate.findOne(any(Query.class), eq(BalanceSnapshotEntity.class)))
+				.thenReturn(Mono.just(getSnapshot("222", YearMonth.of(2026, 1), 70.00)));
+
+		Map<String, Double> averages = balanceSnapshotService
+				.averageDailyBalances(Arrays.asList("111", "222"), YearMonth.of(2026, 2)).block();
+
+		assertEquals(2, averages.size());
+		assertEquals(150.00, averages.get("111"), 0.0001);
+		assertEquals(70.00, averages.get("222"), 0.0001);
+	}
+
+	@Test
+	public void averageDailyBalances_withoutSnapshotsUsesCurrentBalance() {
+		AccountEntity accountEntity = new AccountEntity();
+		accountEntity.setAccountNumber("111");
+		accountEntity.setAmount(42.00);
+		when(mongoTemplate.findOne(any(Query.class), eq(AccountEntity.class))).thenReturn(Mono.just(accountEntity));
+
+		Map<String, Double> averages = balanceSnapshotService
+				.averageDailyBalances(Collections.singletonList("111"), YearMonth.of(2026, 2)).block();
+
+		assertEquals(42.00, averages.get("111"), 0.0001);
+	}
+
+	@Test
+	public void averageDailyBalances_skipsUnknownAccounts() {
+		when(mongoTemplate.findOne(any(Query.class), eq(AccountEntity.class))).thenReturn(Mono.empty());
+
+		Map<String, Double> averages = balanceSnapshotService
+				.averageDailyBalances(Collections.singletonList("999"), YearMonth.of(2026, 2)).block();
+
+		assertTrue(averages.isEmpty());
+	}
+
+	private BalanceSnapshotEntity getSnapshot(String accountNumber, YearMonth period, double balance) {
+		double[] balances = new double[31];
+		Arrays.fill(balances, balance);
+		BalanceSnapshotEntity snapshot = new BalanceSnapshotEntity();
+		snapshot.setId(accountNumber + ":" + period);
+		snapshot.setAccountNumber(accountNumber);
+		snapshot.setPeriod(period.toString());
+		snapshot.setDays(period.lengthOfMonth());
+		snapshot.setOpeningBalance(balance);
+		snapshot.setBalances(balances);
+		return snapshot;
+	}
+}
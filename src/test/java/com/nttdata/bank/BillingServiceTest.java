@@ -0,0 +1,242 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.nttdata.bank.entity.Consumption;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.entity.CreditCardScheduleEntity;
+import com.nttdata.bank.repository.CreditCardRepository;
+import com.nttdata.bank.repository.CreditCardScheduleRepository;
+import com.nttdata.bank.service.impl.BillingServiceImpl;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class BillingServiceTest {
+
+	@Mock
+	private CreditCardScheduleRepository creditCardScheduleRepository;
+
+	@Mock
+	private CreditCardRepository creditCardRepository;
+
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Mock
+	private MongoCollection<Document> collection;
+
+	@InjectMocks
+	private BillingServiceImpl billingService;
+
+	private final List<WriteModel<Document>> written = Collections.synchronizedList(new ArrayList<>());
+
+	private final List<Document> billedFilters = Collections.synchronizedList(new ArrayList<>());
+
+	private final List<Document> billedUpdates = Collections.synchronizedList(new ArrayList<>());
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE,
+				new MongoMappingContext());
+		converter.afterPropertiesSet();
+		when(mongoTemplate.getConverter()).thenReturn(converter);
+		written.clear();
+		billedFilters.clear();
+		billedUpdates.clear();
+		bulkWrite();
+		updateOne();
+	}
+
+	@Test
+	public void billCreditCardSchedules_spreadsInstallments() {
+		LocalDate paymentDate = LocalDate.now();
+		when(creditCardScheduleRepository.findByPaymentDate(paymentDate)).thenReturn(Flux.just(
+				getSchedule(paymentDate, getConsumption(300.00, 3), getConsumption(50.00, 1))));
+		when(creditCardRepository.findByCreditCardNumberAndIsActiveTrue("4111"))
+				.thenReturn(Mono.just(getCreditCardEntity()));
+		when(creditCardScheduleRepository.findByCreditCardNumberAndPaidFalseAndPaymentDateBefore("4111",
+				paymentDate)).thenReturn(Flux.just(getOverdueSchedule(50.00)));
+
+		Long billed = billingService.billCreditCardSchedules(paymentDate).block();
+
+		assertEquals(1L, billed);
+		assertEquals(1, billedUpdates.size());
+		assertEquals(2, written.size());
+
+		Document billedFilter = billedFilters.get(0);
+		assertEquals(2, billedFilter.get("consumptionQuota", Document.class).getInteger("$size"));
+		assertEquals(3, billedFilter.getInteger("consumptionQuota.0.numberOfInstallments"));
+		assertEquals(50.00, billedFilter.getDouble("consumptionQuota.1.amount"), 0.0001);
+		Document billedSet = billedUpdates.get(0).get("$set", Document.class);
+		assertEquals(100.00, billedSet.getDouble("consumptionQuota.0.amount"), 0.0001);
+		assertEquals(1, billedSet.getInteger("consumptionQuota.0.numberOfInstallments"));
+		assertFalse(billedSet.containsKey("consumptionQuota"));
+		assertFalse(billedSet.containsKey("consumptionQuota.1.amount"));
+		assertEquals(150.00, billedSet.getDouble("principalAmount"), 0.0001);
+		assertEquals(2.00, billedSet.getDouble("interestAmount"), 0.0001);
+		assertEquals(152.00, billedSet.getDouble("currentDebt"), 0.0001);
+
+		for (int index = 0; index < written.size(); index++) {
+			UpdateOneModel<Document> installment = (UpdateOneModel<Document>) written.get(index);
+			assertTrue(installment.getOptions().isUpsert());
+			assertEquals("4111", ((Document) installment.getFilter()).getString("creditCardNumber"));
+			List<Document> pushed = update(index).get("$push", Document.class)
+					.get("consumptionQuota", Document.class).getList("$each", Document.class);
+			assertEquals(1, pushed.size());
+			assertEquals(100.00, pushed.get(0).getDouble("amount"), 0.0001);
+			assertEquals(1, pushed.get(0).getInteger("numberOfInstallments"));
+		}
+	}
+
+	@Test
+	public void billCreditCardSchedules_rebillsScheduleChangedMeanwhile() {
+		LocalDate paymentDate = LocalDate.now();
+		when(creditCardScheduleRepository.findByPaymentDate(paymentDate)).thenReturn(Flux.just(
+				getSchedule(paymentDate, getConsumption(300.00, 3))));
+		when(creditCardRepository.findByCreditCardNumberAndIsActiveTrue("4111"))
+				.thenReturn(Mono.just(getCreditCardEntity()));
+		when(creditCardScheduleRepository.findByCreditCardNumberAndPaidFalseAndPaymentDateBefore("4111",
+				paymentDate)).thenReturn(Flux.empty());
+		when(creditCardScheduleRepository.findById("a1")).thenReturn(Mono.just(
+				getSchedule(paymentDate, getConsumption(300.00, 3), getConsumption(40.00, 1))));
+		when(collection.updateOne(any(Bson.class), any(Bson.class))).thenAnswer(invocation -> {
+			billedFilters.add(invocation.getArgument(0));
+			billedUpdates.add(invocation.getArgument(1));
+			return Mono.just(UpdateResult.acknowledged(billedUpdates.size() - 1, 1L, null));
+		});
+
+		Long billed = billingService.billCreditCardSchedules(paymentDate).block();
+
+		assertEquals(1L, billed);
+		assertEquals(2, billedUpdates.size());
+		assertEquals(140.00, billedUpdates.get(1).get("$set", Document.class).getDouble("principalAmount"), 0.0001);
+		assertEquals(2, written.size());
+	}
+
+	@Test
+	public void billCreditCardSchedules_failsWhenScheduleKeepsChanging() {
+		LocalDate paymentDate = LocalDate.now();
+		CreditCardScheduleEntity schedule = getSchedule(paymentDate, getConsumption(300.00, 3));
+		when(creditCardScheduleRepository.findByPaymentDate(paymentDate)).thenReturn(Flux.just(schedule));
+		when(creditCardRepository.findByCreditCardNumberAndIsActiveTrue("4111"))
+				.thenReturn(Mono.just(getCreditCardEntity()));
+		when(creditCardScheduleRepository.findByCreditCardNumberAndPaidFalseAndPaymentDateBefore("4111",
+				paymentDate)).thenReturn(Flux.empty());
+		when(creditCardScheduleRepository.findById("a1")).thenReturn(Mono.just(schedule));
+		when(collection.updateOne(any(Bson.class), any(Bson.class)))
+				.thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+
+		assertThrows(IllegalStateException.class, () -> billingService.billCreditCardSchedules(paymentDate).block());
+		verify(collection, times(Constants.BILLING_MAX_ATTEMPTS)).updateOne(any(Bson.class), any(Bson.class));
+		verify(collection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+	}
+
+	@Test
+	public void billCreditCardSchedules_inactiveCard() {
+		LocalDate paymentDate = LocalDate.now();
+		when(creditCardScheduleRepository.findByPaymentDate(paymentDate)).thenReturn(Flux.just(
+				getSchedule(paymentDate, getConsumption(300.00, 3))));
+		when(creditCardRepository.findByCreditCardNumberAndIsActiveTrue("4111")).thenReturn(Mono.empty());
+		when(creditCardScheduleRepository.findByCreditCardNumberAndPaidFalseAndPaymentDateBefore("4111",
+				paymentDate)).thenReturn(Flux.empty());
+
+		Long billed = billingService.billCreditCardSchedules(paymentDate).block();
+
+		assertEquals(0L, billed);
+		verify(collection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+	}
+
+	private void updateOne() {
+		when(collection.updateOne(any(Bson.class), any(Bson.class))).thenAnswer(invocation -> {
+			billedFilters.add(invocation.getArgument(0));
+			billedUpdates.add(invocation.getArgument(1));
+			return Mono.just(UpdateResult.acknowledged(1, 1L, null));
+		});
+	}
+
+	private Document update(int index) {
+		return (Document) ((UpdateOneModel<Document>) written.get(index)).getUpdate();
+	}
+
+	private void bulkWrite() {
+		when(mongoTemplate.getCollectionName(eq(CreditCardScheduleEntity.class))).thenReturn("credit_schedules");
+		when(mongoTemplate.getCollection(anyString())).thenReturn(Mono.just(collection));
+		when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+			List<WriteModel<Document>> writes = invocation.getArgument(0);
+			written.addAll(writes);
+			return Mono.just(BulkWriteResult.acknowledged(0, writes.size(), 0, writes.size(),
+					Collections.emptyList()));
+		});
+	}
+
+	private CreditCardScheduleEntity getSchedule(LocalDate paymentDate, Consumption... consumptions) {
+		CreditCardScheduleEntity creditCardScheduleEntity = new CreditCardScheduleEntity();
+		creditCardScheduleEntity.setId("a1");
+		creditCardScheduleEntity.setCreditCardNumber("4111");
+		creditCardScheduleEntity.setPaymentDate(paymentDate);
+		creditCardScheduleEntity.setPaid(false);
+		creditCardScheduleEntity.setConsumptionQuota(new ArrayList<>(Arrays.asList(consumptions)));
+		return creditCardScheduleEntity;
+	}
+
+	private CreditCardScheduleEntity getOverdueSchedule(Double currentDebt) {
+		CreditCardScheduleEntity creditCardScheduleEntity = new CreditCardScheduleEntity();
+		creditCardScheduleEntity.setCreditCardNumber("4111");
+		creditCardScheduleEntity.setCurrentDebt(currentDebt);
+		creditCardScheduleEntity.setPaid(false);
+		return creditCardScheduleEntity;
+	}
+
+	private Consumption getConsumption(Double amount, Integer numberOfInstallments) {
+		Consumption consumption = new Consumption();
+		consumption.setAmount(amount);
+		consumption.setNumberOfInstallments(numberOfInstallments);
+		consumption.setProductOrServiceName("Product");
+		consumption.setConsumptionDate(LocalDate.now());
+		return consumption;
+	}
+
+	private CreditCardEntity getCreditCardEntity() {
+		CreditCardEntity creditCardEntity = new CreditCardEntity();
+		creditCardEntity.setCreditCardNumber("4111");
+		creditCardEntity.setAnnualInterestRate(12.00);
+		return creditCardEntity;
+	}
+
+}
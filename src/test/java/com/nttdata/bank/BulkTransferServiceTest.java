@@ -0,0 +1,464 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.BulkTransferChunkEntity;
+import com.nttdata.bank.entity.BulkTransferJobEntity;
+import com.nttdata.bank.entity.BulkTransferRow;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.job.bean.BalanceChange;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.repository.BulkTransferChunkRepository;
+import com.nttdata.bank.repository.BulkTransferJobRepository;
+import com.nttdata.bank.repository.TransactionRepository;
+import com.nttdata.bank.request.BulkTransferItemRequest;
+import com.nttdata.bank.response.BulkTransferJobResponse;
+import com.nttdata.bank.service.AccountsService;
+import com.nttdata.bank.service.BalanceSnapshotService;
+import com.nttdata.bank.service.CustomerNameService;
+import com.nttdata.bank.service.SequenceService;
+import com.nttdata.bank.service.impl.BulkTransferServiceImpl;
+import com.nttdata.bank.util.BulkTransferParser;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@SpringBootTest
+public class BulkTransferServiceTest {
+
+	private static final String SOURCE = "12345678901234";
+	private static final String DOCUMENT = "12345678";
+
+	@Mock
+	private BulkTransferJobRepository bulkTransferJobRepository;
+
+	@Mock
+	private BulkTransferChunkRepository bulkTransferChunkRepository;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private AccountsService accountsService;
+
+	@Mock
+	private CustomerNameService customerNameService;
+
+	@Mock
+	private SequenceService sequenceService;
+
+	@Mock
+	private BalanceSnapshotService balanceSnapshotService;
+
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Mock
+	private MongoCollection<Document> collection;
+
+	@InjectMocks
+	private BulkTransferServiceImpl bulkTransferService;
+
+	private final List<List<UpdateOneModel<Document>>> bulkWrites = new ArrayList<>();
+
+	private final List<TransactionEntity> inserted = new ArrayList<>();
+
+	private final List<BulkTransferChunkEntity> chunks = new ArrayList<>();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(bulkTransferService, "chunkSize", 2);
+		ReflectionTestUtils.setField(bulkTransferService, "creditScheduler", Schedulers.immediate());
+		bulkWrites.clear();
+		inserted.clear();
+		chunks.clear();
+
+		when(accountRepository.findByAccountNumberAndIsActiveTrue(SOURCE))
+				.thenReturn(Mono.just(sourceAccount(Constants.ACCOUNT_TYPE_PYME)));
+		when(customerNameService.getName(DOCUMENT)).thenReturn(Mono.just("Acme SAC"));
+		when(bulkTransferJobRepository.save(any(BulkTransferJobEntity.class))).thenAnswer(invocation -> {
+			BulkTransferJobEntity job = invocation.getArgument(0);
+			job.setId("job1");
+			return Mono.just(job);
+		});
+		when(bulkTransferChunkRepository.save(any(BulkTransferChunkEntity.class))).thenAnswer(invocation -> {
+			chunks.add(invocation.getArgument(0));
+			return Mono.just(invocation.getArgument(0));
+		});
+		when(bulkTransferChunkRepository.findByJobIdAndIndexGreaterThanEqualOrderByIndexAsc(eq("job1"), any(Integer.class)))
+				.thenAnswer(invocation -> Flux.fromIterable(new ArrayList<>(chunks))
+						.filter(chunk -> chunk.getIndex() >= invocation.<Integer>getArgument(1)));
+		when(accountsService.applyJournalEntries(eq(SOURCE), any(Double.class), anyList())).thenReturn(Mono.just(0.0));
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(BulkTransferJobEntity.class)))
+				.thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(BulkTransferChunkEntity.class)))
+				.thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+		when(mongoTemplate.remove(any(Query.class), eq(BulkTransferChunkEntity.class)))
+				.thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+		when(mongoTemplate.find(any(Query.class), eq(TransactionEntity.class))).thenReturn(Flux.empty());
+		when(mongoTemplate.getCollectionName(any())).thenReturn("accounts");
+		when(mongoTemplate.getCollection(anyString())).thenReturn(Mono.just(collection));
+		when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+			List<UpdateOneModel<Document>> updates = invocation.getArgument(0);
+			bulkWrites.add(updates);
+			return Mono.just(BulkWriteResult.acknowledged(0, updates.size(), 0, updates.size(),
+					Collections.emptyList()));
+		});
+		when(transactionRepository.findFirstByOrderByOperationNumberDesc()).thenReturn(Mono.empty());
+		when(sequenceService.increment(eq(Constants.SEQUENCE_OPERATION_NUMBER), anyLong(), any()))
+				.thenAnswer(invocation -> Mono.just(100L + invocation.<Long>getArgument(1)));
+		when(balanceSnapshotService.recordBalanceChanges(anyList())).thenReturn(Mono.empty());
+		when(mongoTemplate.insert(anyList(), eq(TransactionEntity.class))).thenAnswer(invocation -> {
+			List<TransactionEntity> transactions = invocation.getArgument(0);
+			inserted.addAll(transactions);
+			return Flux.fromIterable(transactions);
+		});
+	}
+
+	@Test
+	public void parse_readsCsvSkippingHeaderAndBlankLines() {
+		List<BulkTransferItemRequest> rows = BulkTransferParser.parse(Flux.just("account,amount",
+				"00000000000001, 150.50", "", "00000000000002,200"), true).collectList().block();
+
+		assertEquals(2, rows.size());
+		assertEquals("00000000000001", rows.get(0).getAccountNumberReceive());
+		assertEquals(150.50, rows.get(0).getAmount(), 0.0001);
+		assertEquals(200.0, rows.get(1).getAmount(), 0.0001);
+	}
+
+	@Test
+	public void parse_readsNdjsonIgnoringUnknownFields() {
+		List<BulkTransferItemRequest> rows = BulkTransferParser.parse(Flux.just(
+				"{\"accountNumberReceive\":\"00000000000001\",\"amount\":10.0,\"employee\":\"A\"}"), false)
+				.collectList().block();
+
+		assertEquals(1, rows.size());
+		assertEquals(10.0, rows.get(0).getAmount(), 0.0001);
+	}
+
+	@Test
+	public void parse_rejectsShortAccountNumber() {
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> BulkTransferParser.parse(Flux.just("0000000000001,10"), true).blockLast());
+
+		assertEquals("Invalid line 1: the receiving account number must be exactly 14 digits", error.getMessage());
+	}
+
+	@Test
+	public void parse_rejectsNonPositiveAmount() {
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> BulkTransferParser.parse(Flux.just("00000000000001,10", "00000000000002,0"), true).blockLast());
+
+		assertEquals("Invalid line 2: the amount must be greater than zero", error.getMessage());
+	}
+
+	@Test
+	public void lines_streamsBodyWithoutLineBreaks() {
+		List<String> lines = BulkTransferParser.lines(new ByteArrayInputStream(
+				"account,amount\r\n00000000000001,10\n\n00000000000002,20".getBytes(StandardCharsets.UTF_8)))
+				.collectList().block();
+
+		assertEquals(Arrays.asList("account,amount", "00000000000001,10", "", "00000000000002,20"), lines);
+	}
+
+	@Test
+	public void lines_rejectsLineOverLimit() {
+		String line = String.join("", Collections.nCopies(Constants.BULK_TRANSFER_MAX_LINE_LENGTH + 1, "1"));
+
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> BulkTransferParser
+				.lines(new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8))).blockLast());
+
+		assertEquals("A line of the file exceeds " + Constants.BULK_TRANSFER_MAX_LINE_LENGTH + " characters",
+				error.getMessage());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void startBulkTransfer_debitsTotalOnceAndCreditsInChunks() {
+		when(mongoTemplate.find(any(Query.class), eq(AccountEntity.class)))
+				.thenReturn(Flux.just(account("00000000000001"), account("00000000000002")))
+				.thenReturn(Flux.just(account("00000000000003")));
+
+		BulkTransferJobResponse response = bulkTransferService.startBulkTransfer(SOURCE, DOCUMENT, Flux.just(
+				new BulkTransferItemRequest("00000000000001", 100.0),
+				new BulkTransferItemRequest("00000000000002", 50.0),
+				new BulkTransferItemRequest("00000000000003", 25.0))).block();
+
+		assertEquals("job1", response.getJobId());
+		assertEquals(Constants.BULK_TRANSFER_STATUS_RUNNING, response.getStatus());
+		assertEquals(175.0, response.getTotalAmount(), 0.0001);
+		assertEquals(2, chunks.size());
+		assertEquals("job1:1", chunks.get(1).getId());
+		assertEquals(25.0, chunks.get(1).getAmount(), 0.0001);
+		verify(accountsService).applyJournalEntries(SOURCE, -175.0, Collections.singletonList("job1"));
+		verify(accountsService, times(1)).applyJournalEntries(eq(SOURCE), any(Double.class), anyList());
+
+		assertEquals(2, bulkWrites.size());
+		assertEquals(2, bulkWrites.get(0).size());
+		Document filter = (Document) bulkWrites.get(0).get(0).getFilter();
+		assertEquals("00000000000001", filter.getString("accountNumber"));
+		assertEquals("job1:0", filter.get("appliedJournal", Document.class).getString("$ne"));
+		Document update = (Document) bulkWrites.get(0).get(0).getUpdate();
+		assertEquals(100.0, update.get("$inc", Document.class).getDouble("amount"), 0.0001);
+
+		assertEquals(3, inserted.size());
+		assertEquals("000000000101", inserted.get(0).getOperationNumber());
+		assertEquals("000000000102", inserted.get(1).getOperationNumber());
+		assertEquals("000000000101", inserted.get(2).getOperationNumber());
+		assertEquals(SOURCE, inserted.get(2).getAccountNumberWithdraws());
+		assertEquals("00000000000003", inserted.get(2).getAccountNumberReceive());
+
+		ArgumentCaptor<List<BalanceChange>> balanceChanges = ArgumentCaptor.forClass(List.class);
+		verify(balanceSnapshotService, times(2)).recordBalanceChanges(balanceChanges.capture());
+		BalanceChange change = balanceChanges.getAllValues().get(1).get(0);
+		assertEquals("00000000000003", change.getAccountNumber());
+		assertEquals(25.0, change.getAmount(), 0.0001);
+		assertEquals(500.0, change.getBalance(), 0.0001);
+	}
+
+	@Test
+	public void startBulkTransfer_refundsRowsOfUnknownAccounts() {
+		when(mongoTemplate.find(any(Query.class), eq(AccountEntity.class)))
+				.thenReturn(Flux.just(account("00000000000001")));
+
+		bulkTransferService.startBulkTransfer(SOURCE, DOCUMENT, Flux.just(
+				new BulkTransferItemRequest("00000000000001", 100.0),
+				new BulkTransferItemRequest("00000000000009", 40.0))).block();
+
+		verify(accountsService).applyJournalEntries(SOURCE, 40.0,
+				Collections.singletonList("job1:0" + Constants.JOURNAL_REVERSAL_SUFFIX));
+		assertEquals(1, inserted.size());
+		assertEquals("00000000000001", inserted.get(0).getAccountNumberReceive());
+	}
+
+	@Test
+	public void startBulkTransfer_rejectsNonPymeAccount() {
+		when(accountRepository.findByAccountNumberAndIsActiveTrue(SOURCE))
+				.thenReturn(Mono.just(sourceAccount(Constants.ACCOUNT_TYPE_VIP)));
+
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> bulkTransferService.startBulkTransfer(SOURCE, DOCUMENT,
+						Flux.just(new BulkTransferItemRequest("00000000000001", 10.0))).block());
+
+		assertEquals("Bulk transfers can only be made from PYME accounts", error.getMessage());
+		verify(bulkTransferJobRepository, never()).save(any(BulkTransferJobEntity.class));
+	}
+
+	@Test
+	public void startBulkTransfer_failsJobWhenTotalCannotBeDebited() {
+		when(accountsService.applyJournalEntries(eq(SOURCE), any(Double.class), anyList()))
+				.thenReturn(Mono.error(new IllegalArgumentException("Insufficient balance")));
+
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> bulkTransferService.startBulkTransfer(SOURCE, DOCUMENT,
+						Flux.just(new BulkTransferItemRequest("00000000000001", 10.0))).block());
+
+		assertEquals("Insufficient balance", error.getMessage());
+		ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updates.capture(),
+				eq(BulkTransferJobEntity.class));
+		assertEquals(Constants.BULK_TRANSFER_STATUS_FAILED,
+				updates.getValue().getUpdateObject().get("$set", Document.class).getString("status"));
+		verify(mongoTemplate, never()).remove(any(Query.class), eq(BulkTransferChunkEntity.class));
+		verify(collection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+	}
+
+	@Test
+	public void startBulkTransfer_settlesFailedChunkAndRefundsTheRest() {
+		AtomicInteger writes = new AtomicInteger();
+		when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+			if (writes.incrementAndGet() > 1) {
+				return Mono.error(new RuntimeException("Write failed"));
+			}
+			return Mono.just(BulkWriteResult.acknowledged(0, 2, 0, 2, Collections.emptyList()));
+		});
+		when(mongoTemplate.find(any(Query.class), eq(AccountEntity.class)))
+				.thenReturn(Flux.just(account("00000000000001"), account("00000000000002")))
+				.thenReturn(Flux.just(account("00000000000003")));
+		BulkTransferJobEntity failing = job(Constants.BULK_TRANSFER_STATUS_RUNNING, 4);
+		failing.setTotalRows(5);
+		failing.setTotalAmount(190.0);
+		failing.setCreditedAmount(175.0);
+		failing.setRefundedAmount(10.0);
+		when(bulkTransferJobRepository.findById("job1")).thenReturn(Mono.just(failing));
+
+		bulkTransferService.startBulkTransfer(SOURCE, DOCUMENT, Flux.just(
+				new BulkTransferItemRequest("00000000000001", 100.0),
+				new BulkTransferItemRequest("00000000000002", 50.0),
+				new BulkTransferItemRequest("00000000000003", 25.0),
+				new BulkTransferItemRequest("00000000000004", 10.0),
+				new BulkTransferItemRequest("00000000000005", 5.0))).block();
+
+		verify(accountsService).applyJournalEntries(SOURCE, 10.0,
+				Collections.singletonList("job1:1" + Constants.JOURNAL_REVERSAL_SUFFIX));
+		verify(accountsService).applyJournalEntries(SOURCE, 5.0,
+				Collections.singletonList("job1" + Constants.JOURNAL_REVERSAL_SUFFIX));
+		assertEquals(3, inserted.size());
+		assertEquals("00000000000003", inserted.get(2).getAccountNumberReceive());
+	}
+
+	@Test
+	public void resumeStaleJobs_continuesRunningJobFromItsProgress() {
+		BulkTransferJobEntity running = job(Constants.BULK_TRANSFER_STATUS_RUNNING, 2);
+		staleJob(running);
+		chunks.add(chunk(0, new BulkTransferRow("00000000000001", 100.0), new BulkTransferRow("00000000000002", 50.0)));
+		BulkTransferChunkEntity pending = chunk(1, new BulkTransferRow("00000000000003", 25.0),
+				new BulkTransferRow("00000000000004", 10.0));
+		pending.setFirstOperationNumber(200L);
+		chunks.add(pending);
+		when(mongoTemplate.find(any(Query.class), eq(AccountEntity.class)))
+				.thenReturn(Flux.just(account("00000000000003"), account("00000000000004")));
+		TransactionEntity recorded = new TransactionEntity();
+		recorded.setOperationNumber("000000000200");
+		when(mongoTemplate.find(any(Query.class), eq(TransactionEntity.class))).thenReturn(Flux.just(recorded));
+
+		Long resumed = bulkTransferService.resumeStaleJobs(LocalDateTime.now()).block();
+
+		assertEquals(1L, resumed);
+		assertEquals(1, bulkWrites.size());
+		assertEquals("job1:1", ((Document) bulkWrites.get(0).get(0).getFilter())
+				.get("appliedJournal", Document.class).getString("$ne"));
+		assertEquals(1, inserted.size());
+		assertEquals("000000000201", inserted.get(0).getOperationNumber());
+		verify(sequenceService, never()).increment(anyString(), anyLong(), any());
+	}
+
+	@Test
+	public void resumeStaleJobs_failsReceivingJobThatWasNotDebited() {
+		staleJob(job(Constants.BULK_TRANSFER_STATUS_RECEIVING, 0));
+
+		Long resumed = bulkTransferService.resumeStaleJobs(LocalDateTime.now()).block();
+
+		assertEquals(1L, resumed);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(BulkTransferJobEntity.class));
+		assertEquals(Constants.BULK_TRANSFER_STATUS_FAILED,
+				update.getValue().getUpdateObject().get("$set", Document.class).getString("status"));
+		verify(accountsService, never()).applyJournalEntries(anyString(), any(Double.class), anyList());
+		assertTrue(bulkWrites.isEmpty());
+	}
+
+	@Test
+	public void releaseFinishedJobs_pullsChunkAndJobTagsThenRemovesChunks() {
+		chunks.add(chunk(0, new BulkTransferRow("00000000000001", 100.0)));
+		when(bulkTransferJobRepository.findByTagsReleasedFalseAndCompleteDateBefore(any(LocalDateTime.class)))
+				.thenReturn(Flux.just(job(Constants.BULK_TRANSFER_STATUS_COMPLETED, 1)));
+		when(accountsService.releaseJournalEntries(anyCollection(), anyCollection())).thenReturn(Mono.empty());
+
+		Long released = bulkTransferService.releaseFinishedJobs(LocalDateTime.now()).block();
+
+		assertEquals(1L, released);
+		verify(accountsService).releaseJournalEntries(
+				new HashSet<>(Arrays.asList("00000000000001", SOURCE)),
+				Arrays.asList("job1:0", "job1:0" + Constants.JOURNAL_REVERSAL_SUFFIX));
+		verify(accountsService).releaseJournalEntries(Collections.singletonList(SOURCE),
+				Arrays.asList("job1", "job1" + Constants.JOURNAL_REVERSAL_SUFFIX));
+		verify(mongoTemplate).remove(any(Query.class), eq(BulkTransferChunkEntity.class));
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(BulkTransferJobEntity.class));
+		assertTrue(update.getValue().getUpdateObject().get("$set", Document.class).getBoolean("tagsReleased"));
+	}
+
+	@Test
+	public void startBulkTransfer_rejectsEmptyFile() {
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> bulkTransferService.startBulkTransfer(SOURCE, DOCUMENT, Flux.empty()).block());
+
+		assertEquals("The bulk transfer has no rows", error.getMessage());
+	}
+
+	@Test
+	public void getBulkTransfer_failsWhenJobDoesNotExist() {
+		when(bulkTransferJobRepository.findById("missing")).thenReturn(Mono.empty());
+
+		assertThrows(IllegalArgumentException.class, () -> bulkTransferService.getBulkTransfer("missing").block());
+	}
+
+	private void staleJob(BulkTransferJobEntity job) {
+		when(bulkTransferJobRepository.findByStatusInAndUpdateDateBefore(anyList(), any(LocalDateTime.class)))
+				.thenReturn(Flux.just(job));
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(BulkTransferJobEntity.class))).thenReturn(Mono.just(job));
+	}
+
+	private BulkTransferJobEntity job(String status, int processedRows) {
+		BulkTransferJobEntity job = new BulkTransferJobEntity();
+		job.setId("job1");
+		job.setAccountNumberWithdraws(SOURCE);
+		job.setNameWithdraws("Acme SAC");
+		job.setStatus(status);
+		job.setChunkSize(2);
+		job.setProcessedRows(processedRows);
+		return job;
+	}
+
+	private BulkTransferChunkEntity chunk(int index, BulkTransferRow... rows) {
+		BulkTransferChunkEntity chunk = new BulkTransferChunkEntity();
+		chunk.setId("job1:" + index);
+		chunk.setJobId("job1");
+		chunk.setIndex(index);
+		chunk.setRows(Arrays.asList(rows));
+		chunk.setAmount(Arrays.stream(rows).mapToDouble(BulkTransferRow::getAmount).sum());
+		return chunk;
+	}
+
+	private AccountEntity sourceAccount(String accountType) {
+		AccountEntity accountEntity = account(SOURCE);
+		accountEntity.setAccountType(accountType);
+		accountEntity.setHolderDoc(Arrays.asList(DOCUMENT));
+		return accountEntity;
+	}
+
+	private AccountEntity account(String accountNumber) {
+		AccountEntity accountEntity = new AccountEntity();
+		accountEntity.setAccountNumber(accountNumber);
+		accountEntity.setAmount(500.0);
+		return accountEntity;
+	}
+}
@@ -0,0 +1,124 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.nttdata.bank.service.SequenceService;
+import com.nttdata.bank.service.impl.CardNumberServiceImpl;
+import com.nttdata.bank.util.CheckDigit;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class CardNumberServiceTest {
+
+	private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+	@Mock
+	private SequenceService sequenceService;
+
+	@InjectMocks
+	private CardNumberServiceImpl cardNumberService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(sequenceService.increment(any(String.class), anyLong(), any())).thenAnswer(invocation -> {
+			String sequenceName = invocation.getArgument(0);
+			long delta = invocation.getArgument(1);
+			return Mono.just(counters.computeIfAbsent(sequenceName, name -> new AtomicLong()).addAndGet(delta));
+		});
+	}
+
+	@Test
+	public void nextCardNumber_keepsSixteenDigitsWithCheckDigit() {
+		String cardNumber = cardNumberService.nextCardNumber(Constants.CREDIT_TYPE, "12345678").block();
+
+		assertEquals("7002123456780017", cardNumber);
+		assertEquals(16, cardNumber.length());
+		assertTrue(CheckDigit.isValid(cardNumber));
+	}
+
+	@Test
+	public void nextCardNumber_countersAreKeptPerTypeAndDocument() {
+		String first = cardNumberService.nextCardNumber(Constants.DEBIT_TYPE, "12345678").block();
+		String second = cardNumberService.nextCardNumber(Constants.DEBIT_TYPE, "12345678").block();
+		String otherType = cardNumberService.nextCardNumber(Constants.CREDIT_TYPE, "12345678").block();
+		String otherDocument = cardNumberService.nextCardNumber(Constants.DEBIT_TYPE, "87654321").block();
+
+		assertEquals("800212345678001", first.substring(0, 15));
+		assertEquals("800212345678002", second.substring(0, 15));
+		assertEquals("700212345678001", otherType.substring(0, 15));
+		assertEquals("800287654321001", otherDocument.substring(0, 15));
+	}
+
+	@Test
+	public void nextCardNumbers_reservesRangeWithOneIncrement() {
+		List<String> cardNumbers = cardNumberService.nextCardNumbers(Constants.DEBIT_TYPE, "12345678", 999)
+				.collectList().block();
+
+		assertEquals(999, new HashSet<>(cardNumbers).size());
+		assertEquals("800212345678001", cardNumbers.get(0).substring(0, 15));
+		assertEquals("800212345678999", cardNumbers.get(998).substring(0, 15));
+		cardNumbers.forEach(cardNumber -> assertTrue(CheckDigit.isValid(cardNumber)));
+		verify(sequenceService, times(1)).increment(eq(Constants.SEQUENCE_CARD_NUMBER_PREFIX + "800212345678"),
+				eq(999L), any());
+	}
+
+	@Test
+	public void nextCardNumbers_exhaustedCounterFails() {
+		cardNumberService.nextCardNumbers(Constants.CREDIT_TYPE, "12345678", 999).blockLast();
+
+		assertThrows(IllegalStateException.class,
+				() -> cardNumberService.nextCardNumber(Constants.CREDIT_TYPE, "12345678").block());
+	}
+
+	@Test
+	public void nextCardNumber_invalidInputFails() {
+		assertThrows(IllegalArgumentException.class,
+				() -> cardNumberService.nextCardNumber("9", "12345678").block());
+		assertThrows(IllegalArgumentException.class,
+				() -> cardNumberService.nextCardNumber(Constants.CREDIT_TYPE, "1234567A").block());
+		assertThrows(IllegalArgumentException.class,
+				() -> cardNumberService.nextCardNumbers(Constants.CREDIT_TYPE, "12345678", 0).blockLast());
+		verify(sequenceService, never()).increment(any(String.class), anyLong(), any());
+	}
+
+	@Test
+	public void issueCardNumbers_incrementsEachDocumentOnce() {
+		List<String> documentNumbers = Arrays.asList("12345678", "87654321", "12345678", "11111111");
+
+		Map<String, List<String>> issued = cardNumberService
+				.issueCardNumbers(Constants.DEBIT_TYPE, documentNumbers).block();
+
+		assertEquals(3, issued.size());
+		assertEquals(2, issued.get("12345678").size());
+		assertEquals(1, issued.get("87654321").size());
+		assertEquals(1, issued.get("11111111").size());
+
+		Set<String> cardNumbers = new HashSet<>();
+		issued.values().forEach(cardNumbers::addAll);
+		assertEquals(documentNumbers.size(), cardNumbers.size());
+		verify(sequenceService, times(3)).increment(any(String.class), anyLong(), any());
+	}
+}
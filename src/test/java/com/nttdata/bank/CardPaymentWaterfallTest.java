@@ -0,0 +1,164 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.nttdata.bank.entity.Consumption;
+import com.nttdata.bank.entity.CreditCardScheduleEntity;
+import com.nttdata.bank.util.CardPaymentWaterfall;
+import com.nttdata.bank.util.PaymentWaterfall;
+
+@SpringBootTest
+public class CardPaymentWaterfallTest {
+
+	private static final int RUNS = 1000;
+
+	private static final double DELTA = 0.0001;
+
+	@Test
+	public void allocate_paysBilledSchedulesBeforeInstallments() {
+		CardPaymentWaterfall.Allocation allocation = CardPaymentWaterfall.allocate(
+				Arrays.asList(getBilledSchedule("b1", 0, 100.00, 10.00)),
+				Arrays.asList(getUpcomingSchedule("u1", 1, getConsumption(1, 30.00), getConsumption(6, 50.00))),
+				160.00);
+
+		assertEquals(1, allocation.getScheduleDeltas().size());
+		assertTrue(allocation.getScheduleDeltas().get(0).isPaid());
+		assertEquals(1, allocation.getInstallmentDeltas().size());
+		assertEquals(1, allocation.getInstallmentDeltas().get(0).getIndex());
+		assertEquals(50.00, allocation.getInstallmentDeltas().get(0).getAmountPaid(), DELTA);
+		assertTrue(allocation.getInstallmentDeltas().get(0).isPaid());
+		assertEquals(150.00, allocation.getCreditReleased(), DELTA);
+	}
+
+	@Test
+	public void allocate_releasesOnlyPrincipalOfBilledSchedules() {
+		CardPaymentWaterfall.Allocation allocation = CardPaymentWaterfall.allocate(
+				Arrays.asList(getBilledSchedule("b1", 0, 100.00, 10.00)), Collections.emptyList(), 110.00);
+
+		assertEquals(100.00, allocation.getCreditReleased(), DELTA);
+		assertTrue(allocation.getInstallmentDeltas().isEmpty());
+	}
+
+	@Test
+	public void allocate_rejectsAmountAboveTotalDebt() {
+		assertThrows(IllegalArgumentException.class, () -> CardPaymentWaterfall.allocate(
+				Arrays.asList(getBilledSchedule("b1", 0, 100.00, 10.00)),
+				Arrays.asList(getUpcomingSchedule("u1", 1, getConsumption(1, 30.00))), 140.01));
+	}
+
+	@Test
+	public void allocate_randomCardsKeepWaterfallInvariants() {
+		Random random = new Random(20240613L);
+
+		for (int run = 0; run < RUNS; run++) {
+			List<CreditCardScheduleEntity> billed = new ArrayList<>();
+			List<CreditCardScheduleEntity> upcoming = new ArrayList<>();
+			int billedCount = random.nextInt(4);
+			int upcomingCount = 1 + random.nextInt(12);
+			for (int i = 0; i < billedCount; i++) {
+				billed.add(getBilledSchedule("b" + i, i, cents(random, 1000), cents(random, 100)));
+			}
+			for (int i = 0; i < upcomingCount; i++) {
+				Consumption[] consumptions = new Consumption[random.nextInt(150)];
+				for (int c = 0; c < consumptions.length; c++) {
+					consumptions[c] = getConsumption(1 + random.nextInt(24), cents(random, 300));
+				}
+				upcoming.add(getUpcomingSchedule("u" + i, billedCount + i, consumptions));
+			}
+
+			double billedDebt = billed.stream().mapToDouble(CreditCardScheduleEntity::getCurrentDebt).sum();
+			double installmentDebt = upcoming.stream().flatMap(schedule -> schedule.getConsumptionQuota().stream())
+					.mapToDouble(Consumption::getAmount).sum();
+			double amount = Math.round(random.nextDouble() * (billedDebt + installmentDebt) * 100) / 100.0;
+
+			CardPaymentWaterfall.Allocation allocation = CardPaymentWaterfall.allocate(billed, upcoming, amount);
+
+			double allocated = 0;
+			double principalPaid = 0;
+			for (PaymentWaterfall.Delta delta : allocation.getScheduleDeltas()) {
+				allocated += delta.getDebtPaid();
+				principalPaid += delta.getPrincipalPaid();
+			}
+			if (!allocation.getInstallmentDeltas().isEmpty()) {
+				assertTrue(allocation.getScheduleDeltas().size() == billed.size()
+						&& allocation.getScheduleDeltas().stream().allMatch(PaymentWaterfall.Delta::isPaid));
+			}
+
+			int lastSchedule = -1;
+			int lastInstallments = Integer.MAX_VALUE;
+			for (int i = 0; i < allocation.getInstallmentDeltas().size(); i++) {
+				CardPaymentWaterfall.InstallmentDelta delta = allocation.getInstallmentDeltas().get(i);
+				int schedule = Integer.parseInt(delta.getScheduleId().substring(1));
+				Consumption consumption = upcoming.get(schedule).getConsumptionQuota().get(delta.getIndex());
+				if (schedule != lastSchedule) {
+					assertTrue(schedule > lastSchedule);
+					lastSchedule = schedule;
+					lastInstallments = Integer.MAX_VALUE;
+				}
+				assertTrue(consumption.getNumberOfInstallments() <= lastInstallments);
+				lastInstallments = consumption.getNumberOfInstallments();
+				assertTrue(delta.getAmountPaid() <= consumption.getAmount() + DELTA);
+				assertTrue(delta.isPaid() || i == allocation.getInstallmentDeltas().size() - 1);
+				allocated += delta.getAmountPaid();
+				principalPaid += delta.getAmountPaid();
+			}
+
+			assertEquals(amount, allocated, DELTA);
+			assertEquals(principalPaid, allocation.getCreditReleased(), DELTA);
+		}
+	}
+
+	@Test
+	public void allocate_leavesConsumptionsInPlace() {
+		CreditCardScheduleEntity upcoming = getUpcomingSchedule("u1", 1, getConsumption(1, 30.00),
+				getConsumption(6, 50.00));
+
+		CardPaymentWaterfall.allocate(Collections.emptyList(), Arrays.asList(upcoming), 80.00);
+
+		assertEquals(1, upcoming.getConsumptionQuota().get(0).getNumberOfInstallments());
+		assertEquals(30.00, upcoming.getConsumptionQuota().get(0).getAmount(), DELTA);
+		assertEquals(50.00, upcoming.getConsumptionQuota().get(1).getAmount(), DELTA);
+	}
+
+	private double cents(Random random, int max) {
+		return random.nextInt(max * 100) / 100.0;
+	}
+
+	private Consumption getConsumption(int numberOfInstallments, double amount) {
+		Consumption consumption = new Consumption();
+		consumption.setNumberOfInstallments(numberOfInstallments);
+		consumption.setAmount(amount);
+		consumption.setProductOrServiceName("product");
+		return consumption;
+	}
+
+	private CreditCardScheduleEntity getBilledSchedule(String id, int month, double principal, double interest) {
+		CreditCardScheduleEntity creditCardScheduleEntity = new CreditCardScheduleEntity();
+		creditCardScheduleEntity.setId(id);
+		creditCardScheduleEntity.setPaymentDate(LocalDate.of(2024, 1, 15).plusMonths(month));
+		creditCardScheduleEntity.setPrincipalAmount(principal);
+		creditCardScheduleEntity.setInterestAmount(interest);
+		creditCardScheduleEntity.setLateAmount(0.00);
+		creditCardScheduleEntity.setCurrentDebt(principal + interest);
+		creditCardScheduleEntity.setPaid(false);
+		return creditCardScheduleEntity;
+	}
+
+	private CreditCardScheduleEntity getUpcomingSchedule(String id, int month, Consumption... consumptions) {
+		CreditCardScheduleEntity creditCardScheduleEntity = new CreditCardScheduleEntity();
+		creditCardScheduleEntity.setId(id);
+		creditCardScheduleEntity.setPaymentDate(LocalDate.of(2024, 1, 15).plusMonths(month));
+		creditCardScheduleEntity.setPaid(false);
+		creditCardScheduleEntity.setConsumptionQuota(new ArrayList<>(Arrays.asList(consumptions)));
+		return creditCardScheduleEntity;
+	}
+}
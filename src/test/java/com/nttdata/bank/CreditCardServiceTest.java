@@ -1,8 +1,12 @@
 package com.nttdata.bank;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertFalse;
 import java.time.LocalDate;
@@ -11,16 +15,33 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.validation.Validation;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
+import org.bson.BsonString;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import com.mongodb.client.result.UpdateResult;
+import com.nttdata.bank.service.CardNumberService;
 import com.nttdata.bank.service.impl.CreditCardServiceImpl;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -35,6 +56,7 @@ import com.nttdata.bank.repository.CreditCardScheduleRepository;
 import com.nttdata.bank.repository.CreditRepository;
 import com.nttdata.bank.repository.CreditScheduleRepository;
 import com.nttdata.bank.request.ConsumptionRequest;
+import com.nttdata.bank.response.ConsumptionResponse;
 
 @SpringBootTest
 public class CreditCardServiceTest {
@@ -54,6 +76,12 @@ public class CreditCardServiceTest {
 	@Mock
 	private CreditCardScheduleRepository creditCardScheduleRepository;
 
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Mock
+	private CardNumberService cardNumberService;
+
 	@InjectMocks
 	private CreditCardServiceImpl creditCardService;
 
@@ -138,8 +166,29 @@ public class CreditCardServiceTest {
 		saveCreditCard();
 		getCredit(Mono.just(getCreditEntity()));
 		getListCreditScheduleLess(Flux.empty());
-		existsCreditCardNumber(Mono.just(false));
-		creditCardService.requestCreditCard(creditCardRequest);
+		nextCardNumber(Mono.just("7002123456780017"));
+
+		assertEquals("7002123456780017",
+				creditCardService.requestCreditCard(creditCardRequest).getCreditCardNumber());
+	}
+
+	@Test
+	public void create_RetriesDuplicateCardNumber() {
+		CreditCardRequest creditCardRequest = getCreditCardRequest();
+		existsCreditCard(Mono.just(false));
+		getCredit(Mono.just(getCreditEntity()));
+		getListCreditScheduleLess(Flux.empty());
+		when(cardNumberService.nextCardNumber(any(String.class), any(String.class)))
+				.thenReturn(Mono.just("7002123456780017"), Mono.just("7002123456780025"));
+		when(creditCardRepository.save(any(CreditCardEntity.class))).thenAnswer(invocation -> {
+			CreditCardEntity entity = invocation.getArgument(0);
+			return "7002123456780017".equals(entity.getCreditCardNumber())
+					? Mono.error(new DuplicateKeyException("duplicate credit card number"))
+					: Mono.just(entity);
+		});
+
+		assertEquals("7002123456780025",
+				creditCardService.requestCreditCard(creditCardRequest).getCreditCardNumber());
 	}
 
 	@Test
@@ -218,59 +267,140 @@ public class CreditCardServiceTest {
 
 	@Test
 	public void listCreditCards_success() {
-		when(creditCardRepository.findByIsActiveTrue())
+		when(creditCardRepository.findActivePage(any(Pageable.class)))
 				.thenReturn(Flux.empty());
 
-		creditCardService.findAllCreditCards();
+		creditCardService.findAllCreditCards(null, null);
 	}
 
 	@Test
 	public void charge_allow() {
 		ConsumptionRequest consumptionRequest = getConsumptionRequest(200.00);
 		assertTrue(validator.validate(consumptionRequest).isEmpty());
+		reserveCredit(Mono.empty());
 		getCreditCard(Mono.just(getCreditCardEntity(false)));
 
-		assertThrows(Exception.class, () -> {
+		RuntimeException exception = assertThrows(RuntimeException.class, () -> {
 			creditCardService.chargeConsumption(consumptionRequest);
 		});
+		assertEquals("Consumption is not allowed.", exception.getMessage());
 	}
 
 	@Test
 	public void charge_amount() {
-		ConsumptionRequest consumptionRequest = getConsumptionRequest(50.00);
+		ConsumptionRequest consumptionRequest = getConsumptionRequest(150.00);
 		assertTrue(validator.validate(consumptionRequest).isEmpty());
+		reserveCredit(Mono.empty());
 		getCreditCard(Mono.just(getCreditCardEntity(true)));
 
-		assertThrows(Exception.class, () -> {
+		RuntimeException exception = assertThrows(RuntimeException.class, () -> {
 			creditCardService.chargeConsumption(consumptionRequest);
 		});
+		assertEquals("Amount exceeds available credit.", exception.getMessage());
+		verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class),
+				eq(CreditCardScheduleEntity.class));
 	}
 
 	@Test
 	public void charge_NewSchedule_Success() {
 		ConsumptionRequest consumptionRequest = getConsumptionRequest(80.00);
 		assertTrue(validator.validate(consumptionRequest).isEmpty());
-		getCreditCard(Mono.just(getCreditCardEntity(true)));
+		reserveCredit(Mono.just(getCreditCardEntity(true)));
+		pushConsumption(Mono.just(UpdateResult.acknowledged(0, 0L, new BsonString("schedule"))));
 
-		when(creditCardScheduleRepository
-				.findByCreditCardNumberAndPaymentDate(any(String.class),
-						any(LocalDate.class)))
-				.thenReturn(Mono.empty());
+		ConsumptionResponse response = creditCardService.chargeConsumption(consumptionRequest);
 
-		saveScheduleCreditCard();
-		saveCreditCard();
-		creditCardService.chargeConsumption(consumptionRequest);
+		assertEquals(5, response.getPaymentDate().getDayOfMonth());
+		assertEquals(21, response.getBillingDate().getDayOfMonth());
 	}
 
 	@Test
 	public void charge_PreSchedule_Success() {
 		ConsumptionRequest consumptionRequest = getConsumptionRequest(50.00);
 		assertTrue(validator.validate(consumptionRequest).isEmpty());
-		getCreditCard(Mono.just(getCreditCardEntity(true)));
-		getScheduleCreditCard(Mono.just(getCreditCardScheduleEntity()));
-		saveScheduleCreditCard();
-		saveCreditCard();
+		reserveCredit(Mono.just(getCreditCardEntity(true)));
+		pushConsumption(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
 		creditCardService.chargeConsumption(consumptionRequest);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).findAndModify(query.capture(), any(Update.class),
+				any(FindAndModifyOptions.class), eq(CreditCardEntity.class));
+		assertEquals(50.00, query.getValue().getQueryObject().get("availableCredit", Document.class)
+				.getDouble("$gte"), 0.0001);
+	}
+
+	@Test
+	public void charge_releasesCreditWhenPushFails() {
+		ConsumptionRequest consumptionRequest = getConsumptionRequest(50.00);
+		reserveCredit(Mono.just(getCreditCardEntity(true)));
+		pushConsumption(Mono.error(new RuntimeException("write failed")));
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(CreditCardEntity.class)))
+				.thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+		assertThrows(RuntimeException.class, () -> {
+			creditCardService.chargeConsumption(consumptionRequest);
+		});
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(CreditCardEntity.class));
+		assertEquals(50.00, update.getValue().getUpdateObject().get("$inc", Document.class)
+				.getDouble("availableCredit"), 0.0001);
+	}
+
+	@Test
+	public void charge_concurrentClientsNeverOverspend() throws Exception {
+		int clients = 500;
+		double amount = 7.00;
+		double[] availableCredit = {1000.00};
+		AtomicInteger pushes = new AtomicInteger();
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(CreditCardEntity.class))).thenAnswer(invocation -> {
+					Query query = invocation.getArgument(0);
+					double reserved = query.getQueryObject().get("availableCredit", Document.class).getDouble("$gte");
+					synchronized (availableCredit) {
+						if (availableCredit[0] < reserved) {
+							return Mono.empty();
+						}
+						availableCredit[0] -= reserved;
+					}
+					return Mono.just(getCreditCardEntity(true));
+				});
+		when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CreditCardScheduleEntity.class)))
+				.thenAnswer(invocation -> {
+					pushes.incrementAndGet();
+					return Mono.just(UpdateResult.acknowledged(1, 1L, null));
+				});
+		getCreditCard(Mono.just(getCreditCardEntity(true)));
+
+		ExecutorService executor = Executors.newFixedThreadPool(64);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> charges = new ArrayList<>();
+		for (int i = 0; i < clients; i++) {
+			charges.add(executor.submit(() -> {
+				start.await();
+				try {
+					creditCardService.chargeConsumption(getConsumptionRequest(amount));
+					return true;
+				} catch (RuntimeException e) {
+					return false;
+				}
+			}));
+		}
+		start.countDown();
+
+		int accepted = 0;
+		for (Future<Boolean> charge : charges) {
+			if (charge.get(30, TimeUnit.SECONDS)) {
+				accepted++;
+			}
+		}
+		executor.shutdown();
+
+		assertEquals(142, accepted);
+		assertEquals(accepted, pushes.get());
+		assertEquals(1000.00 - accepted * amount, availableCredit[0], 0.0001);
+		assertTrue(availableCredit[0] >= 0);
 	}
 
 	@Test
@@ -278,7 +408,7 @@ public class CreditCardServiceTest {
 		getCreditCard(Mono.empty());
 
 		assertThrows(Exception.class, () -> {
-			creditCardService.updateBalance("123", 234.00);
+			creditCardService.updateBalance("123", 234.00).block();
 		});
 	}
 
@@ -286,7 +416,7 @@ public class CreditCardServiceTest {
 	public void update_sucess() {
 		getCreditCard(Mono.just(getCreditCardEntity(true)));
 		saveCreditCard();
-		creditCardService.updateBalance("123", 234.00);
+		creditCardService.updateBalance("123", 234.00).block();
 	}
 
 	private ConsumptionRequest getConsumptionRequest(Double amount) {
@@ -324,13 +454,6 @@ public class CreditCardServiceTest {
 				getCreditCardScheduleEntity())));
 	}
 
-	private void getScheduleCreditCard(Mono<CreditCardScheduleEntity> creditCardScheduleEntity) {
-		when(creditCardScheduleRepository
-				.findByCreditCardNumberAndPaymentDate(any(String.class),
-						any(LocalDate.class)))
-				.thenReturn(creditCardScheduleEntity);
-	}
-
 	private void getScheduleDateAfter(Flux<CreditCardScheduleEntity> creditCardScheduleEntity) {
 		when(creditCardScheduleRepository
 				.findByCreditCardNumberAndPaidFalseAndPaymentDateAfter(any(String.class),
@@ -356,6 +479,16 @@ public class CreditCardServiceTest {
 		return consumption;
 	}
 
+	private void reserveCredit(Mono<CreditCardEntity> creditCardEntity) {
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+				eq(CreditCardEntity.class))).thenReturn(creditCardEntity);
+	}
+
+	private void pushConsumption(Mono<UpdateResult> result) {
+		when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CreditCardScheduleEntity.class)))
+				.thenReturn(result);
+	}
+
 	private void getCreditCard(Mono<CreditCardEntity> creditCardEntity) {
 		when(creditCardRepository.findByCreditCardNumberAndIsActiveTrue(any(String.class)))
 				.thenReturn(creditCardEntity);
@@ -376,14 +509,6 @@ public class CreditCardServiceTest {
 				.thenReturn(creditEntity);
 	}
 
-	private void saveScheduleCreditCard() {
-		when(creditCardScheduleRepository.save(any(CreditCardScheduleEntity.class)))
-				.thenAnswer(invocation -> {
-					CreditCardScheduleEntity entity = invocation.getArgument(0);
-					return Mono.just(entity);
-				});
-	}
-
 	private void saveCreditCard() {
 		when(creditCardRepository.save(any(CreditCardEntity.class))).thenAnswer(invocation -> {
 			CreditCardEntity entity = invocation.getArgument(0);
@@ -391,9 +516,9 @@ public class CreditCardServiceTest {
 		});
 	}
 
-	private void existsCreditCardNumber(Mono<Boolean> exists) {
-		when(creditCardRepository.existsByCreditCardNumber(any(String.class)))
-				.thenReturn(exists);
+	private void nextCardNumber(Mono<String> cardNumber) {
+		when(cardNumberService.nextCardNumber(any(String.class), any(String.class)))
+				.thenReturn(cardNumber);
 	}
 
 	private void getListCreditScheduleLess(Flux<CreditScheduleEntity> creditScheduleEntity) {
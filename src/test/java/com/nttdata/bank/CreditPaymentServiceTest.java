@@ -0,0 +1,186 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.service.impl.CreditPaymentServiceImpl;
+import com.nttdata.bank.util.CardPaymentWaterfall;
+import com.nttdata.bank.util.PaymentWaterfall;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class CreditPaymentServiceTest {
+
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Mock
+	private MongoCollection<Document> collection;
+
+	@InjectMocks
+	private CreditPaymentServiceImpl creditPaymentService;
+
+	private final List<UpdateOneModel<Document>> written = new ArrayList<>();
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		written.clear();
+		when(mongoTemplate.getCollectionName(any())).thenReturn("credit_schedules");
+		when(mongoTemplate.getCollection(anyString())).thenReturn(Mono.just(collection));
+		when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+			List<UpdateOneModel<Document>> updates = invocation.getArgument(0);
+			written.addAll(updates);
+			return Mono.just(BulkWriteResult.acknowledged(0, updates.size(), 0, updates.size(),
+					Collections.emptyList()));
+		});
+	}
+
+	@Test
+	public void applyPayment_writesAllSchedulesInOneBulkWrite() {
+		Long updated = creditPaymentService.applyPayment("000000000124", Arrays.asList(
+				new PaymentWaterfall.Delta("s1", 100.00, 10.00, 5.00, 115.00, true),
+				new PaymentWaterfall.Delta("s2", 40.00, 0.00, 0.00, 40.00, false))).block();
+
+		assertEquals(2L, updated);
+		assertEquals(2, written.size());
+
+		Document paid = (Document) written.get(0).getUpdate();
+		assertEquals(true, paid.get("$set", Document.class).getBoolean("paid"));
+		assertEquals(-5.00, paid.get("$inc", Document.class).getDouble("lateAmount"), 0.0001);
+		assertEquals(-115.00, paid.get("$inc", Document.class).getDouble("currentDebt"), 0.0001);
+		Document paidFilter = (Document) written.get(0).getFilter();
+		assertEquals(false, paidFilter.getBoolean("paid"));
+		assertEquals(115.00, paidFilter.get("currentDebt", Document.class).getDouble("$lte"), 0.0001);
+		assertEquals("000000000124", paidFilter.get("appliedPayments", Document.class).getString("$ne"));
+		assertEquals("000000000124", paid.get("$push", Document.class).getString("appliedPayments"));
+
+		Document partial = (Document) written.get(1).getUpdate();
+		assertNull(partial.get("$set"));
+		assertFalse(((Document) written.get(1).getFilter()).containsKey("currentDebt"));
+		assertEquals(-40.00, partial.get("$inc", Document.class).getDouble("principalAmount"), 0.0001);
+		assertEquals(-40.00, partial.get("$inc", Document.class).getDouble("currentDebt"), 0.0001);
+		assertFalse(partial.get("$inc", Document.class).containsKey("paid"));
+	}
+
+	@Test
+	public void applyPayment_restoresSchedulesWhenOneChanged() {
+		when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+			List<UpdateOneModel<Document>> updates = invocation.getArgument(0);
+			written.addAll(updates);
+			return Mono.just(BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList()));
+		});
+
+		assertThrows(IllegalStateException.class, () -> creditPaymentService.applyPayment("000000000124",
+				Arrays.asList(new PaymentWaterfall.Delta("s1", 100.00, 10.00, 5.00, 115.00, true),
+						new PaymentWaterfall.Delta("s2", 40.00, 0.00, 0.00, 40.00, false))).block());
+
+		assertEquals(4, written.size());
+		Document reversal = (Document) written.get(2).getUpdate();
+		assertEquals("000000000124", ((Document) written.get(2).getFilter()).getString("appliedPayments"));
+		assertEquals(115.00, reversal.get("$inc", Document.class).getDouble("currentDebt"), 0.0001);
+		assertEquals(false, reversal.get("$set", Document.class).getBoolean("paid"));
+		assertEquals("000000000124", reversal.get("$pull", Document.class).getString("appliedPayments"));
+		assertNull(((Document) written.get(3).getUpdate()).get("$set"));
+	}
+
+	@Test
+	public void applyCardPayment_updatesInstallmentsByPositionAndIncrementsCredit() {
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(CreditCardEntity.class)))
+				.thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+		Double released = creditPaymentService.applyCardPayment("000000000124", "1234567890123456",
+				new CardPaymentWaterfall.Allocation(
+						Arrays.asList(new PaymentWaterfall.Delta("s1", 100.00, 10.00, 0.00, 110.00, true)),
+						Arrays.asList(new CardPaymentWaterfall.InstallmentDelta("u1", 2, 50.00, true),
+								new CardPaymentWaterfall.InstallmentDelta("u1", 0, 20.00, false)),
+						170.00)).block();
+
+		assertEquals(170.00, released, 0.0001);
+		assertEquals(2, written.size());
+		Document installments = (Document) written.get(1).getUpdate();
+		assertEquals(-50.00, installments.get("$inc", Document.class).getDouble("consumptionQuota.2.amount"), 0.0001);
+		assertEquals(-20.00, installments.get("$inc", Document.class).getDouble("consumptionQuota.0.amount"), 0.0001);
+		assertEquals("000000000124", installments.get("$push", Document.class).getString("appliedPayments"));
+		Document installmentFilter = (Document) written.get(1).getFilter();
+		assertEquals(50.00, installmentFilter.get("consumptionQuota.2.amount", Document.class).getDouble("$lte"),
+				0.0001);
+		assertFalse(installmentFilter.get("consumptionQuota.0.amount", Document.class).containsKey("$lte"));
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(CreditCardEntity.class));
+		assertEquals(170.00, update.getValue().getUpdateObject().get("$inc", Document.class)
+				.getDouble("availableCredit"), 0.0001);
+	}
+
+	@Test
+	public void applyCardPayment_restoresSchedulesWhenInstallmentChanged() {
+		when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+			List<UpdateOneModel<Document>> updates = invocation.getArgument(0);
+			written.addAll(updates);
+			return Mono.just(BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList()));
+		});
+
+		assertThrows(IllegalStateException.class, () -> creditPaymentService.applyCardPayment("000000000124",
+				"1234567890123456", new CardPaymentWaterfall.Allocation(
+						Arrays.asList(new PaymentWaterfall.Delta("s1", 100.00, 10.00, 0.00, 110.00, true)),
+						Arrays.asList(new CardPaymentWaterfall.InstallmentDelta("u1", 2, 50.00, true)),
+						160.00)).block());
+
+		assertEquals(4, written.size());
+		assertEquals("000000000124", ((Document) written.get(3).getFilter()).getString("appliedPayments"));
+		Document reversal = (Document) written.get(3).getUpdate();
+		assertEquals(50.00, reversal.get("$inc", Document.class).getDouble("consumptionQuota.2.amount"), 0.0001);
+		assertEquals("000000000124", reversal.get("$pull", Document.class).getString("appliedPayments"));
+		verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(CreditCardEntity.class));
+	}
+
+	@Test
+	public void applyCardPayment_failsWhenCardIsMissing() {
+		when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(CreditCardEntity.class)))
+				.thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+
+		assertThrows(IllegalArgumentException.class, () -> creditPaymentService.applyCardPayment("000000000124",
+				"1234567890123456", new CardPaymentWaterfall.Allocation(
+						Arrays.asList(new PaymentWaterfall.Delta("s1", 100.00, 10.00, 0.00, 110.00, true)),
+						Collections.emptyList(), 100.00)).block());
+		assertEquals(2, written.size());
+		assertEquals("000000000124", ((Document) written.get(1).getFilter()).getString("appliedPayments"));
+	}
+
+	@Test
+	public void applyPayment_skipsWriteWithoutChanges() {
+		assertEquals(0L, creditPaymentService.applyPayment("000000000124", Collections.emptyList()).block());
+		verifyNoInteractions(collection);
+	}
+}
@@ -21,7 +21,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import com.nttdata.bank.service.AccountsService;
+import org.springframework.data.domain.Pageable;
 import com.nttdata.bank.service.OperationService;
 import com.nttdata.bank.service.impl.CreditServiceImpl;
 import reactor.core.publisher.Flux;
@@ -37,8 +37,6 @@ import com.nttdata.bank.repository.CreditRepository;
 import com.nttdata.bank.repository.CreditScheduleRepository;
 import com.nttdata.bank.request.CreditRequest;
 import com.nttdata.bank.request.DepositRequest;
-import com.nttdata.bank.request.UpdateAccountRequest;
-import com.nttdata.bank.response.AccountResponse;
 import com.nttdata.bank.response.TransactionResponse;
 
 @SpringBootTest
@@ -59,9 +57,6 @@ public class CreditServiceTest {
 	@Mock
 	private OperationService operationService;
 
-	@Mock
-	private AccountsService accountService;
-
 	@Mock
 	private CreditCardScheduleRepository creditCardScheduleRepository;
 
@@ -134,7 +129,6 @@ public class CreditServiceTest {
 		getCreditCardByDocument(Mono.empty());
 		saveCredit();
 		makeDeposit();
-		updateAccount();
 		saveAllSchedule();
 		creditService.grantCredit(creditRequest);
 	}
@@ -167,18 +161,18 @@ public class CreditServiceTest {
 
 	@Test
 	public void listCredit_success() {
-		when(creditRepository.findByIsActiveTrue())
+		when(creditRepository.findActivePage(any(Pageable.class)))
 				.thenReturn(Flux.empty());
 
-		creditService.findAllCredits();
+		creditService.findAllCredits(null, null);
 	}
 
 	@Test
 	public void delete_CreditExists() {
-		existsCreditId(Mono.just(false));
+		getCreditId(Mono.empty());
 
 		assertThrows(Exception.class, () -> {
-			creditService.desactivateCredit("123");
+			creditService.desactivateCredit("123").block();
 		});
 	}
 
@@ -186,7 +180,7 @@ public class CreditServiceTest {
 	public void delete_success() {
 		getCreditId(Mono.just(new CreditEntity()));
 		saveCredit();
-		creditService.desactivateCredit("123");
+		creditService.desactivateCredit("123").block();
 	}
 
 	private CreditScheduleEntity geCreditScheduleEntity() {
@@ -296,9 +290,4 @@ public class CreditServiceTest {
 				.thenReturn(Mono.just(new TransactionResponse()));
 	}
 
-	private void updateAccount() {
-		when(accountService.updateAccount(any(UpdateAccountRequest.class)))
-				.thenReturn(new AccountResponse());
-	}
-
 }
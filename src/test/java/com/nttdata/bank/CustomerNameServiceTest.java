@@ -0,0 +1,131 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.nttdata.bank.entity.CustomerEntity;
+import com.nttdata.bank.repository.CustomerRepository;
+import com.nttdata.bank.response.NameCacheStatsResponse;
+import com.nttdata.bank.service.impl.CustomerNameServiceImpl;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class CustomerNameServiceTest {
+
+	@Mock
+	private CustomerRepository customerRepository;
+
+	@InjectMocks
+	private CustomerNameServiceImpl customerNameService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@Test
+	public void getName_readsOnceAndCountsHits() {
+		getCustomerName("123", getCustomerEntity(Constants.PERSON_TYPE_PERSONAL));
+
+		assertEquals("maria vasquez", customerNameService.getName("123").block());
+		assertEquals("maria vasquez", customerNameService.getName("123").block());
+		assertEquals("maria vasquez", customerNameService.getName("123").block());
+
+		verify(customerRepository, times(1)).findNameByDocumentNumber("123");
+		NameCacheStatsResponse stats = customerNameService.getStats();
+		assertEquals(2L, stats.getHits());
+		assertEquals(1L, stats.getMisses());
+		assertEquals(2.0 / 3.0, stats.getHitRatio(), 0.0001);
+	}
+
+	@Test
+	public void getName_companyName() {
+		getCustomerName("456", getCustomerEntity(Constants.PERSON_TYPE_BUSINESS));
+
+		assertEquals("vasquez sac", customerNameService.getName("456").block());
+	}
+
+	@Test
+	public void getName_notFound() {
+		when(customerRepository.findNameByDocumentNumber("789")).thenReturn(Mono.empty());
+
+		assertThrows(IllegalArgumentException.class, () -> customerNameService.getName("789").block());
+		assertEquals(0, customerNameService.getStats().getSize());
+	}
+
+	@Test
+	public void invalidate_readsAgain() {
+		getCustomerName("123", getCustomerEntity(Constants.PERSON_TYPE_PERSONAL));
+
+		customerNameService.getName("123").block();
+		customerNameService.invalidate("123");
+		customerNameService.getName("123").block();
+
+		verify(customerRepository, times(2)).findNameByDocumentNumber("123");
+		assertEquals(1L, customerNameService.getStats().getInvalidations());
+	}
+
+	@Test
+	public void invalidate_duringReadIsNotCached() {
+		when(customerRepository.findNameByDocumentNumber("123")).thenReturn(Mono.defer(() -> {
+			customerNameService.invalidate("123");
+			return Mono.just(getCustomerEntity(Constants.PERSON_TYPE_PERSONAL));
+		}));
+
+		customerNameService.getName("123").block();
+
+		assertEquals(0, customerNameService.getStats().getSize());
+	}
+
+	@Test
+	public void getName_evictsLeastRecentlyUsed() {
+		ReflectionTestUtils.setField(customerNameService, "maxSize", 2);
+		getCustomerName("1", getCustomerEntity(Constants.PERSON_TYPE_PERSONAL));
+		getCustomerName("2", getCustomerEntity(Constants.PERSON_TYPE_PERSONAL));
+		getCustomerName("3", getCustomerEntity(Constants.PERSON_TYPE_PERSONAL));
+
+		customerNameService.getName("1").block();
+		customerNameService.getName("2").block();
+		customerNameService.getName("1").block();
+		customerNameService.getName("3").block();
+		customerNameService.getName("1").block();
+
+		verify(customerRepository, times(1)).findNameByDocumentNumber("1");
+		assertEquals(2, customerNameService.getStats().getSize());
+		assertEquals(1L, customerNameService.getStats().getEvictions());
+	}
+
+	@Test
+	public void getName_expiredEntryIsReadAgain() {
+		ReflectionTestUtils.setField(customerNameService, "ttlSeconds", 0L);
+		getCustomerName("123", getCustomerEntity(Constants.PERSON_TYPE_PERSONAL));
+
+		customerNameService.getName("123").block();
+		customerNameService.getName("123").block();
+
+		verify(customerRepository, times(2)).findNameByDocumentNumber("123");
+	}
+
+	private void getCustomerName(String documentNumber, CustomerEntity customerEntity) {
+		when(customerRepository.findNameByDocumentNumber(documentNumber))
+				.thenReturn(Mono.just(customerEntity));
+	}
+
+	private CustomerEntity getCustomerEntity(String personType) {
+		CustomerEntity customerEntity = new CustomerEntity();
+		customerEntity.setFullName("maria vasquez");
+		customerEntity.setCompanyName("vasquez sac");
+		customerEntity.setPersonType(personType);
+		return customerEntity;
+	}
+}
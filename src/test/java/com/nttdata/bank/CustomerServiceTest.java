@@ -1,12 +1,18 @@
 package com.nttdata.bank;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.validation.Validation;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
@@ -17,10 +23,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import com.nttdata.bank.entity.CustomerEntity;
 import com.nttdata.bank.repository.CustomerRepository;
 import com.nttdata.bank.request.ContactDataRequest;
 import com.nttdata.bank.request.CustomerRequest;
+import com.nttdata.bank.response.CustomerResponse;
+import com.nttdata.bank.service.CustomerNameService;
 import com.nttdata.bank.service.impl.CustomerServiceImpl;
 import com.nttdata.bank.util.Constants;
 import reactor.core.publisher.Flux;
@@ -35,6 +45,9 @@ public class CustomerServiceTest {
 	@Mock
 	private CustomerRepository customerRepository;
 
+	@Mock
+	private CustomerNameService customerNameService;
+
 	@InjectMocks
 	private CustomerServiceImpl customerService;
 
@@ -258,6 +271,7 @@ public class CustomerServiceTest {
 		getCustomer(Mono.just(getCustomerEntity(documentNumber)));
 		saveCustomer();
 		customerService.deleteCustomer(documentNumber);
+		verify(customerNameService, times(1)).invalidate(documentNumber);
 	}
 
 	@Test
@@ -289,15 +303,49 @@ public class CustomerServiceTest {
 		getCustomer(Mono.just(getCustomerEntity(documentNumber)));
 		saveCustomer();
 		customerService.updateCustomer(documentNumber, setContactData());
+		verify(customerNameService, times(1)).invalidate(documentNumber);
 	}
 
 	@Test
 	public void listCustomer_success() {
-		when(customerRepository.findByIsActiveTrue())
+		when(customerRepository.findActivePage(any(Pageable.class)))
 				.thenReturn(Flux.fromIterable(
 						Arrays.asList(getCustomerEntity("123"), getCustomerEntity("456"))));
 
-		assertNotNull(customerService.findAllCustomers());
+		assertNotNull(customerService.findAllCustomers(null, null));
+		verify(customerRepository).findActivePage(PageRequest.of(0, Constants.LIST_PAGE_SIZE));
+	}
+
+	@Test
+	public void listCustomer_nextPage() {
+		CustomerEntity customerEntity = getCustomerEntity("456");
+		customerEntity.setId("customer-2");
+		when(customerRepository.findActivePageAfter(eq("customer-1"), any(Pageable.class)))
+				.thenReturn(Flux.just(customerEntity));
+
+		List<CustomerResponse> customers = customerService.findAllCustomers("customer-1", 20);
+
+		assertEquals(1, customers.size());
+		assertEquals("customer-2", customers.get(0).getCustomerId());
+		verify(customerRepository).findActivePageAfter("customer-1", PageRequest.of(0, 20));
+	}
+
+	@Test
+	public void listCustomer_invalidSize() {
+		assertThrows(IllegalArgumentException.class, () -> customerService.findAllCustomers(null, 0));
+	}
+
+	@Test
+	public void streamCustomers_readsLazily() {
+		AtomicInteger emitted = new AtomicInteger();
+		when(customerRepository.findByIsActiveTrue())
+				.thenReturn(Flux.range(0, 10000).map(i -> getCustomerEntity(String.valueOf(i)))
+						.doOnNext(customer -> emitted.incrementAndGet()));
+
+		List<CustomerResponse> customers = customerService.streamAllCustomers().take(3).collectList().block();
+
+		assertEquals(3, customers.size());
+		assertTrue(emitted.get() < 10000);
 	}
 
 	private ContactDataRequest setContactData() {
@@ -16,6 +16,8 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import com.nttdata.bank.service.CardNumberService;
 import com.nttdata.bank.service.impl.DebitCardServiceImpl;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -37,6 +39,9 @@ public class DebitCardServiceTest {
 	@Mock
 	private DebitCardRepository debitCardRepository;
 
+	@Mock
+	private CardNumberService cardNumberService;
+
 	@InjectMocks
 	private DebitCardServiceImpl debitCardService;
 
@@ -90,7 +95,7 @@ public class DebitCardServiceTest {
 		assertTrue(validator.validate(debitCardRequest).isEmpty());
 		existsDebitCard(Mono.just(false));
 		existsHolder(Mono.just(false));
-		existsDebitCardNumber();
+		nextCardNumber();
 		saveDebitCard();
 		debitCardService.createDebitCard(debitCardRequest);
 	}
@@ -122,15 +127,14 @@ public class DebitCardServiceTest {
 		assertTrue(validator.validate(associateAccountRequest).isEmpty());
 		getDebitCard(Mono.just(getDebitCardEntity()));
 		existsHolder(Mono.just(false));
-		existsDebitCardNumber();
 		saveDebitCard();
 		debitCardService.associateAccount("12345678", associateAccountRequest);
 	}
 
 	@Test
 	public void listDebitCards_success() {
-		when(debitCardRepository.findByIsActiveTrue()).thenReturn(Flux.empty());
-		debitCardService.findAllDebitCard();
+		when(debitCardRepository.findActivePage(any(Pageable.class))).thenReturn(Flux.empty());
+		debitCardService.findAllDebitCard(null, null);
 	}
 
 	@Test
@@ -160,9 +164,9 @@ public class DebitCardServiceTest {
 				.thenReturn(exists);
 	}
 
-	private void existsDebitCardNumber() {
-		when(debitCardRepository.existsByDebitCardNumber(any(String.class)))
-				.thenReturn(Mono.just(false));
+	private void nextCardNumber() {
+		when(cardNumberService.nextCardNumber(any(String.class), any(String.class)))
+				.thenReturn(Mono.just("8002123456780015"));
 	}
 
 	private void saveDebitCard() {
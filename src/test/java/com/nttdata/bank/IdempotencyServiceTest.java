@@ -0,0 +1,224 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import com.nttdata.bank.entity.IdempotencyRecordEntity;
+import com.nttdata.bank.repository.IdempotencyRecordRepository;
+import com.nttdata.bank.request.DepositRequest;
+import com.nttdata.bank.response.TransactionResponse;
+import com.nttdata.bank.service.impl.IdempotencyServiceImpl;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+@SpringBootTest
+public class IdempotencyServiceTest {
+
+	private static final String USER = "user-1";
+
+	@Mock
+	private IdempotencyRecordRepository idempotencyRecordRepository;
+
+	@InjectMocks
+	private IdempotencyServiceImpl idempotencyService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+				.thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+		when(idempotencyRecordRepository.save(any(IdempotencyRecordEntity.class)))
+				.thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+		when(idempotencyRecordRepository.deleteById(any(String.class))).thenReturn(Mono.empty());
+	}
+
+	@Test
+	public void execute_withoutKeyRunsEveryTime() {
+		AtomicInteger runs = new AtomicInteger();
+
+		idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, USER, null, getRequest(100.00),
+				() -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet()))).block();
+		idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, USER, null, getRequest(100.00),
+				() -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet()))).block();
+
+		assertEquals(2, runs.get());
+		verifyNoInteractions(idempotencyRecordRepository);
+	}
+
+	@Test
+	public void execute_replaysCompletedResponseWithoutDatabase() {
+		AtomicInteger runs = new AtomicInteger();
+
+		TransactionResponse first = idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, USER,
+				"key-1", getRequest(100.00), () -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet())))
+				.block();
+		TransactionResponse second = idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, USER,
+				"key-1", getRequest(100.00), () -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet())))
+				.block();
+
+		assertEquals(1, runs.get());
+		assertSame(first, second);
+		verify(idempotencyRecordRepository, times(1)).insert(any(IdempotencyRecordEntity.class));
+		verify(idempotencyRecordRepository, times(1)).save(any(IdempotencyRecordEntity.class));
+	}
+
+	@Test
+	public void execute_duplicateWaitsOnRunningOperation() {
+		AtomicInteger runs = new AtomicInteger();
+		Sinks.One<TransactionResponse> operation = Sinks.one();
+
+		Mono<TransactionResponse> first = idempotencyService.execute(
+				Constants.IDEMPOTENCY_OPERATION_WITHDRAWAL, USER, "key-2", getRequest(100.00), () -> {
+					runs.incrementAndGet();
+					return operation.asMono();
+				});
+		Mono<TransactionResponse> second = idempotencyService.execute(
+				Constants.IDEMPOTENCY_OPERATION_WITHDRAWAL, USER, "key-2", getRequest(100.00), () -> {
+					runs.incrementAndGet();
+					return operation.asMono();
+				});
+		first.subscribe().dispose();
+		Mono<TransactionResponse> retried = second.cache();
+		retried.subscribe();
+		operation.tryEmitValue(getResponse(1));
+
+		assertEquals("OP1", retried.block().getOperationNumber());
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	public void execute_replaysResponseStoredByAnotherInstance() {
+		IdempotencyRecordEntity stored = new IdempotencyRecordEntity();
+		stored.setId(Constants.IDEMPOTENCY_OPERATION_PAY_CREDIT + ":" + USER + ":key-3");
+		stored.setRequestHash(hashOf(getRequest(100.00)));
+		stored.setStatus(Constants.IDEMPOTENCY_STATUS_COMPLETED);
+		stored.setResponse(getResponse(7));
+		when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+				.thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+		when(idempotencyRecordRepository.findById(stored.getId())).thenReturn(Mono.just(stored));
+		AtomicInteger runs = new AtomicInteger();
+
+		TransactionResponse response = idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_PAY_CREDIT, USER,
+				"key-3", getRequest(100.00), () -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet())))
+				.block();
+
+		assertEquals("OP7", response.getOperationNumber());
+		assertEquals(0, runs.get());
+		verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecordEntity.class));
+	}
+
+	@Test
+	public void execute_releasesKeyWhenOperationFails() {
+		assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute(
+				Constants.IDEMPOTENCY_OPERATION_ACCOUNT_TRANSFER, USER, "key-4", getRequest(100.00),
+				() -> Mono.error(new IllegalArgumentException("Insufficient balance"))).block());
+
+		verify(idempotencyRecordRepository, times(1))
+				.deleteById(Constants.IDEMPOTENCY_OPERATION_ACCOUNT_TRANSFER + ":" + USER + ":key-4");
+		verify(idempotencyRecordRepository, never()).save(any(IdempotencyRecordEntity.class));
+	}
+
+	@Test
+	public void execute_rejectsKeyReusedWithAnotherBody() {
+		AtomicInteger runs = new AtomicInteger();
+		idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, USER, "key-5", getRequest(100.00),
+				() -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet()))).block();
+
+		ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> idempotencyService
+				.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, USER, "key-5", getRequest(900.00),
+						() -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet()))).block());
+
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, error.getStatus());
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	public void execute_rejectsBodyChangedOnAnotherInstance() {
+		IdempotencyRecordEntity stored = new IdempotencyRecordEntity();
+		stored.setId(Constants.IDEMPOTENCY_OPERATION_PAY_CREDIT + ":" + USER + ":key-6");
+		stored.setStatus(Constants.IDEMPOTENCY_STATUS_COMPLETED);
+		stored.setRequestHash(hashOf(getRequest(100.00)));
+		stored.setResponse(getResponse(7));
+		when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+				.thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+		when(idempotencyRecordRepository.findById(stored.getId())).thenReturn(Mono.just(stored));
+
+		assertThrows(ResponseStatusException.class, () -> idempotencyService.execute(
+				Constants.IDEMPOTENCY_OPERATION_PAY_CREDIT, USER, "key-6", getRequest(50.00),
+				() -> Mono.just(getResponse(8))).block());
+	}
+
+	@Test
+	public void execute_scopesKeyToPrincipal() {
+		AtomicInteger runs = new AtomicInteger();
+
+		idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, USER, "key-7", getRequest(100.00),
+				() -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet()))).block();
+		TransactionResponse other = idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, "user-2",
+				"key-7", getRequest(100.00), () -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet())))
+				.block();
+
+		assertEquals(2, runs.get());
+		assertEquals("OP2", other.getOperationNumber());
+	}
+
+	@Test
+	public void execute_cachedResponseExpires() {
+		ReflectionTestUtils.setField(idempotencyService, "cacheTtl", -1L);
+		AtomicInteger runs = new AtomicInteger();
+		when(idempotencyRecordRepository.insert(any(IdempotencyRecordEntity.class)))
+				.thenAnswer(invocation -> Mono.just(invocation.getArgument(0)))
+				.thenReturn(Mono.error(new DuplicateKeyException("duplicate key")));
+		IdempotencyRecordEntity stored = new IdempotencyRecordEntity();
+		stored.setStatus(Constants.IDEMPOTENCY_STATUS_COMPLETED);
+		stored.setResponse(getResponse(9));
+		when(idempotencyRecordRepository.findById(any(String.class))).thenReturn(Mono.just(stored));
+
+		idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, USER, "key-8", getRequest(100.00),
+				() -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet()))).block();
+		TransactionResponse replayed = idempotencyService.execute(Constants.IDEMPOTENCY_OPERATION_DEPOSIT, USER,
+				"key-8", getRequest(100.00), () -> Mono.fromCallable(() -> getResponse(runs.incrementAndGet())))
+				.block();
+
+		assertEquals(1, runs.get());
+		assertEquals("OP9", replayed.getOperationNumber());
+		verify(idempotencyRecordRepository).findById(any(String.class));
+	}
+
+	private DepositRequest getRequest(Double amount) {
+		DepositRequest request = new DepositRequest();
+		request.setAccountNumber("12345678901234");
+		request.setDocumentNumber("12345678");
+		request.setAmount(amount);
+		return request;
+	}
+
+	private String hashOf(Object request) {
+		return ReflectionTestUtils.invokeMethod(IdempotencyServiceImpl.class, "hash", request);
+	}
+
+	private TransactionResponse getResponse(int operation) {
+		TransactionResponse response = new TransactionResponse();
+		response.setOperationNumber("OP" + operation);
+		response.setAmount(100.00);
+		return response;
+	}
+}
@@ -0,0 +1,197 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.entity.CreditCardScheduleEntity;
+import com.nttdata.bank.entity.CreditEntity;
+import com.nttdata.bank.entity.CreditScheduleEntity;
+import com.nttdata.bank.repository.CreditCardRepository;
+import com.nttdata.bank.repository.CreditCardScheduleRepository;
+import com.nttdata.bank.repository.CreditRepository;
+import com.nttdata.bank.repository.CreditScheduleRepository;
+import com.nttdata.bank.service.impl.LateInterestServiceImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class LateInterestServiceTest {
+
+	@Mock
+	private CreditScheduleRepository creditScheduleRepository;
+
+	@Mock
+	private CreditCardScheduleRepository creditCardScheduleRepository;
+
+	@Mock
+	private CreditRepository creditRepository;
+
+	@Mock
+	private CreditCardRepository creditCardRepository;
+
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Mock
+	private MongoCollection<Document> collection;
+
+	@InjectMocks
+	private LateInterestServiceImpl lateInterestService;
+
+	private final List<UpdateOneModel<Document>> written = Collections.synchronizedList(new ArrayList<>());
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(lateInterestService, "bulkSize", 2);
+		written.clear();
+		bulkWrite();
+	}
+
+	@Test
+	public void accrueCreditSchedules_success() {
+		LocalDate today = LocalDate.now();
+		when(creditScheduleRepository.findUnpaidOrderByCreditIdAndPaymentDate()).thenReturn(Flux.just(
+				getCreditSchedule("a1", "C1", today.minusDays(40)),
+				getCreditSchedule("a2", "C1", today.minusDays(10)),
+				getCreditSchedule("a3", "C1", today.plusDays(20)),
+				getCreditSchedule("b1", "C2", today.plusDays(5)),
+				getCreditSchedule("c1", "C3", today.minusDays(3))));
+		when(creditRepository.findByIdInAndIsActiveTrue(any()))
+				.thenAnswer(invocation -> Flux.fromIterable(invocation.<Collection<String>>getArgument(0))
+						.filter("C1"::equals).map(this::getCreditEntity));
+
+		Long updated = lateInterestService.accrueCreditSchedules(LocalDateTime.now()).block();
+
+		assertEquals(2L, updated);
+		assertEquals(2, written.size());
+		assertEquals(3.30, lateAmount("a1"), 0.0001);
+		assertEquals(3.30, currentDebt("a1"), 0.0001);
+		assertEquals(2.30, lateAmount("a2"), 0.0001);
+		assertEquals(2.30, currentDebt("a2"), 0.0001);
+		assertEquals(false, ((Document) written.get(0).getFilter()).getBoolean("paid"));
+	}
+
+	@Test
+	public void accrueCreditSchedules_nothingOverdue() {
+		when(creditScheduleRepository.findUnpaidOrderByCreditIdAndPaymentDate()).thenReturn(Flux.just(
+				getCreditSchedule("a1", "C1", LocalDate.now().plusDays(1))));
+
+		Long updated = lateInterestService.accrueCreditSchedules(LocalDateTime.now()).block();
+
+		assertEquals(0L, updated);
+		assertEquals(0, written.size());
+	}
+
+	@Test
+	public void accrueCreditCardSchedules_success() {
+		LocalDate today = LocalDate.now();
+		when(creditCardScheduleRepository.findOverdueOrderByCreditCardNumberAndPaymentDate(
+				any(LocalDateTime.class))).thenReturn(Flux.just(
+						getCreditCardSchedule("a1", "4111", today.minusDays(40)),
+						getCreditCardSchedule("a2", "4111", today.minusDays(10)),
+						getCreditCardSchedule("b1", "4222", today.minusDays(10))));
+		when(creditCardRepository.findByCreditCardNumberInAndIsActiveTrue(any()))
+				.thenAnswer(invocation -> Flux.fromIterable(invocation.<Collection<String>>getArgument(0))
+						.map(this::getCreditCardEntity));
+
+		Long updated = lateInterestService.accrueCreditCardSchedules(LocalDateTime.now()).block();
+
+		assertEquals(3L, updated);
+		assertEquals(2.20, lateAmount("a1"), 0.0001);
+		assertEquals(1.20, lateAmount("a2"), 0.0001);
+		assertEquals(1.10, lateAmount("b1"), 0.0001);
+		assertEquals(1.10, currentDebt("b1"), 0.0001);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void bulkWrite() {
+		when(mongoTemplate.getCollectionName(any())).thenReturn("credit_schedules");
+		when(mongoTemplate.getCollection(anyString())).thenReturn(Mono.just(collection));
+		when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+			List<UpdateOneModel<Document>> updates = invocation.getArgument(0);
+			written.addAll(updates);
+			return Mono.just(BulkWriteResult.acknowledged(0, updates.size(), 0, updates.size(),
+					Collections.emptyList()));
+		});
+	}
+
+	private Document incOf(String id) {
+		return written.stream()
+				.filter(update -> id.equals(((Document) update.getFilter()).getString("_id")))
+				.map(update -> ((Document) update.getUpdate()).get("$inc", Document.class))
+				.findFirst().orElseThrow(IllegalStateException::new);
+	}
+
+	private double lateAmount(String id) {
+		return incOf(id).getDouble("lateAmount");
+	}
+
+	private double currentDebt(String id) {
+		return incOf(id).getDouble("currentDebt");
+	}
+
+	private CreditScheduleEntity getCreditSchedule(String id, String creditId, LocalDate paymentDate) {
+		CreditScheduleEntity creditScheduleEntity = new CreditScheduleEntity();
+		creditScheduleEntity.setId(id);
+		creditScheduleEntity.setCreditId(creditId);
+		creditScheduleEntity.setPaymentDate(paymentDate);
+		creditScheduleEntity.setPrincipalAmount(100.00);
+		creditScheduleEntity.setInterestAmount(10.00);
+		creditScheduleEntity.setLateAmount(0.00);
+		creditScheduleEntity.setCurrentDebt(110.00);
+		creditScheduleEntity.setPaid(false);
+		return creditScheduleEntity;
+	}
+
+	private CreditCardScheduleEntity getCreditCardSchedule(String id, String creditCardNumber,
+			LocalDate paymentDate) {
+		CreditCardScheduleEntity creditCardScheduleEntity = new CreditCardScheduleEntity();
+		creditCardScheduleEntity.setId(id);
+		creditCardScheduleEntity.setCreditCardNumber(creditCardNumber);
+		creditCardScheduleEntity.setPaymentDate(paymentDate);
+		creditCardScheduleEntity.setPrincipalAmount(100.00);
+		creditCardScheduleEntity.setInterestAmount(10.00);
+		creditCardScheduleEntity.setLateAmount(0.00);
+		creditCardScheduleEntity.setCurrentDebt(110.00);
+		creditCardScheduleEntity.setPaid(false);
+		return creditCardScheduleEntity;
+	}
+
+	private CreditEntity getCreditEntity(String id) {
+		CreditEntity creditEntity = new CreditEntity();
+		creditEntity.setId(id);
+		creditEntity.setAnnualLateInterestRate(12.00);
+		return creditEntity;
+	}
+
+	private CreditCardEntity getCreditCardEntity(String creditCardNumber) {
+		CreditCardEntity creditCardEntity = new CreditCardEntity();
+		creditCardEntity.setCreditCardNumber(creditCardNumber);
+		creditCardEntity.setAnnualLateInterestRate(12.00);
+		return creditCardEntity;
+	}
+
+}
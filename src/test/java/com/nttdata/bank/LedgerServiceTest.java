@@ -0,0 +1,267 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import com.mongodb.client.result.UpdateResult;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.JournalEntryEntity;
+import com.nttdata.bank.entity.JournalLeg;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.repository.JournalEntryRepository;
+import com.nttdata.bank.repository.TransactionRepository;
+import com.nttdata.bank.service.AccountsService;
+import com.nttdata.bank.service.impl.LedgerServiceImpl;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class LedgerServiceTest {
+
+	@Mock
+	private JournalEntryRepository journalEntryRepository;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private AccountsService accountsService;
+
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@InjectMocks
+	private LedgerServiceImpl ledgerService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(mongoTemplate.updateFirst(any(Query.class), any(UpdateDefinition.class),
+				eq(JournalEntryEntity.class))).thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+	}
+
+	@Test
+	public void post_appliesDebitAndDefersCredit() {
+		saveEntry("j1");
+		when(accountsService.applyJournalEntries("111", -100.00, Collections.singletonList("j1")))
+				.thenReturn(Mono.just(0.00));
+
+		TransactionEntity transactionEntity = ledgerService.post("OP1", getTransferLegs(),
+				Mono.just(new TransactionEntity())).block();
+
+		assertEquals(TransactionEntity.class, transactionEntity.getClass());
+		verify(accountsService, never()).applyJournalEntries(eq("222"), anyDouble(), any());
+		verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(UpdateDefinition.class),
+				eq(JournalEntryEntity.class));
+	}
+
+	@Test
+	public void post_rejectsWhenDebitFails() {
+		saveEntry("j1");
+		when(accountsService.applyJournalEntries("111", -100.00, Collections.singletonList("j1")))
+				.thenReturn(Mono.error(new IllegalArgumentException("insufficient balance")));
+		AtomicBoolean recorded = new AtomicBoolean();
+
+		assertThrows(IllegalArgumentException.class, () -> ledgerService.post("OP1", getTransferLegs(),
+				Mono.fromSupplier(() -> {
+					recorded.set(true);
+					return new TransactionEntity();
+				})).block());
+
+		assertFalse(recorded.get());
+		verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(UpdateDefinition.class),
+				eq(JournalEntryEntity.class));
+	}
+
+	@Test
+	public void applyPendingEntries_groupsCreditsPerAccount() {
+		findApplicable(Flux.just(
+				getEntry("j1", new JournalLeg("111", -100.00), new JournalLeg("222", 100.00)),
+				getEntry("j2", new JournalLeg("222", 50.00), new JournalLeg("333", 10.00))));
+		when(accountsService.applyJournalEntries("222", 150.00, Arrays.asList("j1", "j2")))
+				.thenReturn(Mono.just(150.00));
+		when(accountsService.applyJournalEntries("333", 10.00, Collections.singletonList("j2")))
+				.thenReturn(Mono.just(10.00));
+		updateMulti(2L);
+
+		Long applied = ledgerService.applyPendingEntries().block();
+
+		assertEquals(2L, applied);
+		verify(accountsService, times(2)).applyJournalEntries(any(), anyDouble(), any());
+	}
+
+	@Test
+	public void applyPendingEntries_fallsBackPerEntry() {
+		findApplicable(Flux.just(getEntry("j1", new JournalLeg("222", 100.00)),
+				getEntry("j2", new JournalLeg("222", 50.00))));
+		when(accountsService.applyJournalEntries("222", 150.00, Arrays.asList("j1", "j2")))
+				.thenReturn(Mono.error(new IllegalStateException("partially applied")));
+		when(accountsService.applyJournalEntries("222", 100.00, Collections.singletonList("j1")))
+				.thenReturn(Mono.just(100.00));
+		when(accountsService.applyJournalEntries("222", 50.00, Collections.singletonList("j2")))
+				.thenReturn(Mono.error(new RuntimeException("Account not found")));
+		updateMulti(1L);
+
+		Long applied = ledgerService.applyPendingEntries().block();
+
+		assertEquals(1L, applied);
+		verify(mongoTemplate, times(2)).updateMulti(any(Query.class), any(UpdateDefinition.class),
+				eq(JournalEntryEntity.class));
+	}
+
+	@Test
+	public void applyPendingEntries_empty() {
+		findApplicable(Flux.empty());
+
+		assertEquals(0L, ledgerService.applyPendingEntries().block());
+	}
+
+	@Test
+	public void recoverStaleEntries_completesAppliedAndRejectsOthers() {
+		when(journalEntryRepository.findByStatusAndDebitsAppliedFalseAndCreateDateBefore(
+				eq(Constants.JOURNAL_STATUS_PENDING), any(LocalDateTime.class))).thenReturn(Flux.just(
+						getEntry("j1", new JournalLeg("111", -100.00), new JournalLeg("222", 100.00)),
+						getEntry("j2", new JournalLeg("111", -30.00), new JournalLeg("222", 30.00))));
+		AccountEntity accountEntity = new AccountEntity();
+		accountEntity.setAccountNumber("111");
+		accountEntity.setAppliedJournal(Collections.singletonList("j1"));
+		when(accountRepository.findByAccountNumberAndIsActiveTrue("111")).thenReturn(Mono.just(accountEntity));
+		when(transactionRepository.existsByOperationNumber("OP-j1")).thenReturn(Mono.just(true));
+
+		Long recovered = ledgerService.recoverStaleEntries(LocalDateTime.now()).block();
+
+		assertEquals(2L, recovered);
+		verify(accountsService, never()).applyJournalEntries(any(), anyDouble(), any());
+		verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(UpdateDefinition.class),
+				eq(JournalEntryEntity.class));
+	}
+
+	@Test
+	public void recoverStaleEntries_reversesAppliedEntryWithoutTransaction() {
+		when(journalEntryRepository.findByStatusAndDebitsAppliedFalseAndCreateDateBefore(
+				eq(Constants.JOURNAL_STATUS_PENDING), any(LocalDateTime.class))).thenReturn(Flux.just(
+						getEntry("j1", new JournalLeg("111", -100.00), new JournalLeg("222", 100.00))));
+		AccountEntity accountEntity = new AccountEntity();
+		accountEntity.setAccountNumber("111");
+		accountEntity.setAppliedJournal(Collections.singletonList("j1"));
+		when(accountRepository.findByAccountNumberAndIsActiveTrue("111")).thenReturn(Mono.just(accountEntity));
+		when(transactionRepository.existsByOperationNumber("OP-j1")).thenReturn(Mono.just(false));
+		when(accountsService.applyJournalEntries("111", 100.00,
+				Collections.singletonList("j1" + Constants.JOURNAL_REVERSAL_SUFFIX))).thenReturn(Mono.just(100.00));
+
+		Long recovered = ledgerService.recoverStaleEntries(LocalDateTime.now()).block();
+
+		assertEquals(1L, recovered);
+		verify(accountsService).applyJournalEntries("111", 100.00,
+				Collections.singletonList("j1" + Constants.JOURNAL_REVERSAL_SUFFIX));
+		verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(UpdateDefinition.class),
+				eq(JournalEntryEntity.class));
+	}
+
+	@Test
+	public void applyPendingEntries_refundsEntryOutOfAttempts() {
+		JournalEntryEntity journalEntry = getEntry("j1", new JournalLeg("111", -100.00),
+				new JournalLeg("222", 100.00));
+		journalEntry.setAttempts(Constants.JOURNAL_MAX_ATTEMPTS - 1);
+		findApplicable(Flux.just(journalEntry));
+		when(accountsService.applyJournalEntries("222", 100.00, Collections.singletonList("j1")))
+				.thenReturn(Mono.error(new RuntimeException("Account not found")));
+		when(accountRepository.findByAccountNumberAndIsActiveTrue("222")).thenReturn(Mono.empty());
+		when(accountsService.applyJournalEntries("111", 100.00,
+				Collections.singletonList("j1" + Constants.JOURNAL_REVERSAL_SUFFIX))).thenReturn(Mono.just(100.00));
+		updateMulti(1L);
+
+		Long applied = ledgerService.applyPendingEntries().block();
+
+		assertEquals(0L, applied);
+		verify(accountsService).applyJournalEntries("111", 100.00,
+				Collections.singletonList("j1" + Constants.JOURNAL_REVERSAL_SUFFIX));
+		verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(UpdateDefinition.class),
+				eq(JournalEntryEntity.class));
+	}
+
+	@Test
+	public void releaseClosedEntries_pullsEntryAndReversalTagsFromLegAccounts() {
+		when(journalEntryRepository.findUnreleasedEntries(any(LocalDateTime.class), any(Pageable.class)))
+				.thenReturn(Flux.just(getEntry("j1", new JournalLeg("111", -100.00), new JournalLeg("222", 100.00))));
+		when(accountsService.releaseJournalEntries(anyCollection(), anyCollection())).thenReturn(Mono.empty());
+		updateMulti(1L);
+
+		Long released = ledgerService.releaseClosedEntries(LocalDateTime.now()).block();
+
+		assertEquals(1L, released);
+		verify(accountsService).releaseJournalEntries(new HashSet<>(Arrays.asList("111", "222")),
+				Arrays.asList("j1", "j1" + Constants.JOURNAL_REVERSAL_SUFFIX));
+	}
+
+	@Test
+	public void releaseClosedEntries_empty() {
+		when(journalEntryRepository.findUnreleasedEntries(any(LocalDateTime.class), any(Pageable.class)))
+				.thenReturn(Flux.empty());
+
+		assertEquals(0L, ledgerService.releaseClosedEntries(LocalDateTime.now()).block());
+		verify(accountsService, never()).releaseJournalEntries(anyCollection(), anyCollection());
+	}
+
+	private void saveEntry(String id) {
+		when(journalEntryRepository.save(any(JournalEntryEntity.class))).thenAnswer(invocation -> {
+			JournalEntryEntity journalEntry = invocation.getArgument(0);
+			journalEntry.setId(id);
+			return Mono.just(journalEntry);
+		});
+	}
+
+	private void findApplicable(Flux<JournalEntryEntity> entries) {
+		when(journalEntryRepository.findApplicableEntries(eq(Constants.JOURNAL_STATUS_PENDING),
+				eq(Constants.JOURNAL_MAX_ATTEMPTS), any(Pageable.class))).thenReturn(entries);
+	}
+
+	private void updateMulti(Long modified) {
+		when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class),
+				eq(JournalEntryEntity.class))).thenReturn(Mono.just(UpdateResult.acknowledged(modified, modified, null)));
+	}
+
+	private JournalEntryEntity getEntry(String id, JournalLeg... legs) {
+		JournalEntryEntity journalEntry = new JournalEntryEntity();
+		journalEntry.setId(id);
+		journalEntry.setOperationNumber("OP-" + id);
+		journalEntry.setLegs(Arrays.asList(legs));
+		journalEntry.setStatus(Constants.JOURNAL_STATUS_PENDING);
+		journalEntry.setAttempts(0);
+		return journalEntry;
+	}
+
+	private List<JournalLeg> getTransferLegs() {
+		return Arrays.asList(new JournalLeg("111", -100.00), new JournalLeg("222", 100.00));
+	}
+
+}
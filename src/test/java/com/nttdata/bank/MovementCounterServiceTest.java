@@ -0,0 +1,147 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Map;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.nttdata.bank.entity.MovementCounterEntity;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.repository.TransactionRepository;
+import com.nttdata.bank.service.impl.MovementCounterServiceImpl;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class MovementCounterServiceTest {
+
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@InjectMocks
+	private MovementCounterServiceImpl movementCounterService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@Test
+	public void registerMovement_deposit() {
+		upsert();
+		movementCounterService.registerMovement(getTransactionEntity(
+				Constants.TRANSACTION_TYPE_DEPOSIT, "123", null)).block();
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+		verify(mongoTemplate).upsert(query.capture(), update.capture(),
+				eq(MovementCounterEntity.class));
+		assertEquals("123:" + YearMonth.now(), query.getValue().getQueryObject().get("id"));
+		assertEquals(1, ((Update) update.getValue()).getUpdateObject()
+				.get("$inc", Document.class).get("deposits"));
+	}
+
+	@Test
+	public void registerMovement_ignoresOtherTypes() {
+		movementCounterService.registerMovement(getTransactionEntity(
+				Constants.TRANSACTION_TYPE_BANK_TRANSFER, "123", "456")).block();
+		verify(mongoTemplate, never()).upsert(any(Query.class), any(UpdateDefinition.class),
+				eq(MovementCounterEntity.class));
+	}
+
+	@Test
+	public void countMovements_sumsDepositsAndWithdrawals() {
+		MovementCounterEntity counter = new MovementCounterEntity();
+		counter.setDeposits(7L);
+		counter.setWithdrawals(5L);
+		when(mongoTemplate.findById(any(), eq(MovementCounterEntity.class)))
+				.thenReturn(Mono.just(counter));
+		assertEquals(12L, movementCounterService.countMovements("123", YearMonth.now()).block());
+	}
+
+	@Test
+	public void countMovements_missingCounter() {
+		when(mongoTemplate.findById(any(), eq(MovementCounterEntity.class)))
+				.thenReturn(Mono.empty());
+		assertEquals(0L, movementCounterService.countMovements("123", YearMonth.now()).block());
+	}
+
+	@Test
+	public void countMovementsByAccount_readsAllCountersAtOnce() {
+		MovementCounterEntity counter = new MovementCounterEntity();
+		counter.setAccountNumber("123");
+		counter.setDeposits(3L);
+		counter.setWithdrawals(null);
+		when(mongoTemplate.find(any(Query.class), eq(MovementCounterEntity.class)))
+				.thenReturn(Flux.just(counter));
+
+		Map<String, Long> movements = movementCounterService
+				.countMovementsByAccount(Arrays.asList("123", "456"), YearMonth.now()).block();
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate, times(1)).find(query.capture(), eq(MovementCounterEntity.class));
+		assertEquals(Arrays.asList("123:" + YearMonth.now(), "456:" + YearMonth.now()),
+				query.getValue().getQueryObject().get("id", Document.class).get("$in"));
+		assertEquals(3L, movements.get("123"));
+		assertEquals(1, movements.size());
+	}
+
+	@Test
+	public void rebuildCounters_groupsByAccountAndMonth() {
+		when(transactionRepository.findByTransactionTypeInAndIsActiveTrue(anyList()))
+				.thenReturn(Flux.fromIterable(Arrays.asList(
+						getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT, "123", null),
+						getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL, null, "123"),
+						getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT, "456", null))));
+		upsert();
+		when(mongoTemplate.remove(any(Query.class), eq(MovementCounterEntity.class)))
+				.thenReturn(Mono.just(DeleteResult.acknowledged(0)));
+
+		assertEquals(2L, movementCounterService.rebuildCounters().block());
+		verify(mongoTemplate, times(2)).upsert(any(Query.class), any(UpdateDefinition.class),
+				eq(MovementCounterEntity.class));
+	}
+
+	private void upsert() {
+		when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class),
+				eq(MovementCounterEntity.class)))
+				.thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+	}
+
+	private TransactionEntity getTransactionEntity(String transactionType, String accountReceive,
+			String accountWithdraws) {
+		TransactionEntity transactionEntity = new TransactionEntity();
+		transactionEntity.setTransactionType(transactionType);
+		transactionEntity.setAccountNumberReceive(accountReceive);
+		transactionEntity.setAccountNumberWithdraws(accountWithdraws);
+		transactionEntity.setCreateDate(LocalDateTime.now());
+		transactionEntity.setAmount(100.00);
+		return transactionEntity;
+	}
+
+}
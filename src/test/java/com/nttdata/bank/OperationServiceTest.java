@@ -1,19 +1,27 @@
 package com.nttdata.bank;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
 
 import javax.validation.Validation;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -21,22 +29,35 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import com.nttdata.bank.service.AccountsService;
+import com.nttdata.bank.service.CreditPaymentService;
 import com.nttdata.bank.service.CreditService;
+import com.nttdata.bank.service.CustomerNameService;
+import com.nttdata.bank.service.LedgerService;
+import com.nttdata.bank.service.MovementCounterService;
+import com.nttdata.bank.service.SequenceService;
+import com.nttdata.bank.service.WithdrawalFundingService;
+import com.nttdata.bank.service.YankiDirectoryService;
 import com.nttdata.bank.service.impl.OperationServiceImpl;
+import com.nttdata.bank.util.CardPaymentWaterfall;
 import com.nttdata.bank.util.Constants;
+import reactor.blockhound.BlockHound;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
 import com.nttdata.bank.request.DepositRequest;
 import com.nttdata.bank.request.WithdrawalRequest;
-import com.nttdata.bank.response.AccountResponse;
 import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.Consumption;
 import com.nttdata.bank.entity.CreditCardEntity;
 import com.nttdata.bank.entity.CreditCardScheduleEntity;
-import com.nttdata.bank.entity.CreditEntity;
 import com.nttdata.bank.entity.CreditScheduleEntity;
 import com.nttdata.bank.entity.CustomerEntity;
 import com.nttdata.bank.entity.DebitCardEntity;
+import com.nttdata.bank.entity.JournalLeg;
 import com.nttdata.bank.entity.TransactionEntity;
 import com.nttdata.bank.entity.YankiEntity;
 import com.nttdata.bank.repository.AccountRepository;
@@ -44,14 +65,13 @@ import com.nttdata.bank.repository.CreditCardRepository;
 import com.nttdata.bank.repository.CreditCardScheduleRepository;
 import com.nttdata.bank.repository.CreditRepository;
 import com.nttdata.bank.repository.CreditScheduleRepository;
-import com.nttdata.bank.repository.CustomerRepository;
 import com.nttdata.bank.repository.DebitCardRepository;
 import com.nttdata.bank.repository.TransactionRepository;
-import com.nttdata.bank.repository.YankiRepository;
 import com.nttdata.bank.request.AccountTransferRequest;
 import com.nttdata.bank.request.MobileTransferRequest;
+import com.nttdata.bank.request.PayCreditCardRequest;
 import com.nttdata.bank.request.PayCreditRequest;
-import com.nttdata.bank.request.UpdateAccountRequest;
+import com.nttdata.bank.response.TransactionResponse;
 
 @SpringBootTest
 public class OperationServiceTest {
@@ -72,10 +92,10 @@ public class OperationServiceTest {
 	private AccountsService accountService;
 
 	@Mock
-	private CustomerRepository customerRepository;
+	private CustomerNameService customerNameService;
 
 	@Mock
-	private YankiRepository yankiRepository;
+	private YankiDirectoryService yankiDirectoryService;
 
 	@Mock
 	private CreditRepository creditRepository;
@@ -89,17 +109,38 @@ public class OperationServiceTest {
 	@Mock
 	private CreditScheduleRepository creditScheduleRepository;
 
+	@Mock
+	private CreditPaymentService creditPaymentService;
+
 	@Mock
 	private CreditCardScheduleRepository creditCardScheduleRepository;
 
+	@Mock
+	private SequenceService sequenceService;
+
+	@Mock
+	private MovementCounterService movementCounterService;
+
+	@Mock
+	private LedgerService ledgerService;
+
+	@Mock
+	private WithdrawalFundingService withdrawalFundingService;
+
 	@InjectMocks
 	private OperationServiceImpl operationService;
 
+	@BeforeAll
+	public static void installBlockHound() {
+		BlockHound.install();
+	}
+
 	@BeforeEach
 	public void setUp() {
 		ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
 		validator = factory.getValidator();
 		MockitoAnnotations.openMocks(this);
+		findActiveAccount(Mono.just(new AccountEntity()));
 	}
 
 	@Test
@@ -237,31 +278,7 @@ public class OperationServiceTest {
 
 		assertTrue(validator.validate(depositRequest).isEmpty());
 
-		findAllTransactions(Flux.fromIterable(Arrays.asList(
-				getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL,
-						depositRequest.getAccountNumber(), "12345678901234"),
-				getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
-						depositRequest.getAccountNumber(), "12345678901234"))));
+		countMovements(Mono.just(12L));
 
 		uniqueOperationNumber(Mono.just(getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
 				depositRequest.getAccountNumber(),
@@ -269,15 +286,15 @@ public class OperationServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("123",
 				Constants.PERSON_TYPE_PERSONAL)));
 		saveTransaction();
-		updateAccount();
-		operationService.makeDeposit(depositRequest);
+		updateBalance(Mono.just(100.00));
+		operationService.makeDeposit(depositRequest).block();
 	}
 
 	@Test
 	public void makeDeposit_success2() {
 		DepositRequest depositRequest = getDepositRequest();
 		assertTrue(validator.validate(depositRequest).isEmpty());
-		findAllTransactions(Flux.empty());
+		countMovements(Mono.just(0L));
 		getDebitCard(Mono.just(getDebitCardEntity()));
 
 		uniqueOperationNumber(
@@ -287,19 +304,61 @@ public class OperationServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("123",
 				Constants.PERSON_TYPE_BUSINESS)));
 		saveTransaction();
-		updateAccount();
-		operationService.makeDeposit(depositRequest);
+		updateBalance(Mono.just(100.00));
+		operationService.makeDeposit(depositRequest).block();
+	}
+
+	@Test
+	public void makeDeposit_rejectsAmountBelowCommission() {
+		DepositRequest depositRequest = new DepositRequest();
+		depositRequest.setAmount(1.50);
+		depositRequest.setAccountNumber("12345678963214");
+		depositRequest.setDocumentNumber("12345678");
+		countMovements(Mono.just(12L));
+		uniqueOperationNumber(Mono.empty());
+		getCustomer(Mono.just(getCustomerEntity("123",
+				Constants.PERSON_TYPE_PERSONAL)));
+		saveTransaction();
+		updateBalance(Mono.just(100.00));
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			operationService.makeDeposit(depositRequest).block();
+		});
+		verify(accountService, never()).updateBalance(any(String.class), any(Double.class));
+		verify(transactionRepository, never()).save(any(TransactionEntity.class));
+	}
+
+	@Test
+	public void makeDeposit_reversesCreditWhenTransactionFails() {
+		DepositRequest depositRequest = new DepositRequest();
+		depositRequest.setAmount(100.00);
+		depositRequest.setAccountNumber("12345678963214");
+		depositRequest.setDocumentNumber("12345678");
+		countMovements(Mono.just(12L));
+		uniqueOperationNumber(Mono.empty());
+		getCustomer(Mono.just(getCustomerEntity("123",
+				Constants.PERSON_TYPE_PERSONAL)));
+		updateBalance(Mono.just(100.00));
+		when(transactionRepository.save(any(TransactionEntity.class)))
+				.thenReturn(Mono.error(new RuntimeException("write failed")));
+
+		assertThrows(RuntimeException.class, () -> {
+			operationService.makeDeposit(depositRequest).block();
+		});
+		verify(accountService).updateBalance("12345678963214", 98.01);
+		verify(accountService).updateBalance("12345678963214", -98.01);
+		verify(movementCounterService, never()).registerMovement(any(TransactionEntity.class));
 	}
 
 	@Test
 	public void makeDeposit_notdebitcard() {
 		DepositRequest depositRequest = getDepositRequest();
 		assertTrue(validator.validate(depositRequest).isEmpty());
-		findAllTransactions(Flux.empty());
+		countMovements(Mono.just(0L));
 		getDebitCard(Mono.empty());
 
 		assertThrows(Exception.class, () -> {
-			operationService.makeDeposit(depositRequest);
+			operationService.makeDeposit(depositRequest).block();
 		});
 	}
 
@@ -307,7 +366,8 @@ public class OperationServiceTest {
 	public void makeDeposit_CustomerEmpty() {
 		DepositRequest depositRequest = getDepositRequest();
 		assertTrue(validator.validate(depositRequest).isEmpty());
-		findAllTransactions(Flux.empty());
+		countMovements(Mono.just(0L));
+		getDebitCard(Mono.just(getDebitCardEntity()));
 
 		uniqueOperationNumber(
 				Mono.just(getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
@@ -316,7 +376,7 @@ public class OperationServiceTest {
 		getCustomer(Mono.empty());
 
 		assertThrows(Exception.class, () -> {
-			operationService.makeDeposit(depositRequest);
+			operationService.makeDeposit(depositRequest).block();
 		});
 	}
 
@@ -327,7 +387,7 @@ public class OperationServiceTest {
 		getDebitCard(Mono.empty());
 
 		assertThrows(Exception.class, () -> {
-			operationService.makeWithdrawal(withdrawalRequest);
+			operationService.makeWithdrawal(withdrawalRequest).block();
 		});
 	}
 
@@ -338,7 +398,7 @@ public class OperationServiceTest {
 		getByPhone(Mono.empty());
 
 		assertThrows(Exception.class, () -> {
-			operationService.makeMobileTransfer(mobileTransferRequest);
+			operationService.makeMobileTransfer(mobileTransferRequest).block();
 		});
 	}
 
@@ -356,18 +416,18 @@ public class OperationServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("123",
 				Constants.PERSON_TYPE_PERSONAL)));
 		saveTransaction();
-		updateAccount();
-		operationService.makeMobileTransfer(mobileTransferRequest);
+		postLedger();
+		operationService.makeMobileTransfer(mobileTransferRequest).block();
 	}
 
 	@Test
 	public void makeAccountTransfer_notexist() {
 		AccountTransferRequest accountTransferRequest = getAccountTransfer();
 		assertTrue(validator.validate(accountTransferRequest).isEmpty());
-		existsGreather(Mono.just(true));
+		getCustomer(Mono.empty());
 
 		assertThrows(Exception.class, () -> {
-			operationService.makeAccountTransfer(accountTransferRequest);
+			operationService.makeAccountTransfer(accountTransferRequest).block();
 		});
 	}
 
@@ -375,10 +435,18 @@ public class OperationServiceTest {
 	public void makeAccountTransfer_notbalance() {
 		AccountTransferRequest accountTransferRequest = getAccountTransfer();
 		assertTrue(validator.validate(accountTransferRequest).isEmpty());
-		existsGreather(Mono.just(true));
+
+		uniqueOperationNumber(Mono.just(getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
+				accountTransferRequest.getAccountNumberReceive(),
+				accountTransferRequest.getDocumentNumberWithdraws())));
+
+		getCustomer(Mono.just(getCustomerEntity("123",
+				Constants.PERSON_TYPE_PERSONAL)));
+		when(ledgerService.post(any(String.class), any(), any()))
+				.thenReturn(Mono.error(new IllegalArgumentException("insufficient balance")));
 
 		assertThrows(Exception.class, () -> {
-			operationService.makeAccountTransfer(accountTransferRequest);
+			operationService.makeAccountTransfer(accountTransferRequest).block();
 		});
 	}
 
@@ -395,8 +463,31 @@ public class OperationServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("123",
 				Constants.PERSON_TYPE_PERSONAL)));
 		saveTransaction();
-		updateAccount();
-		operationService.makeAccountTransfer(accountTransferRequest);
+		postLedger();
+		TransactionResponse transactionResponse = operationService
+				.makeAccountTransfer(accountTransferRequest).block();
+
+		assertEquals(accountTransferRequest.getAmount(), transactionResponse.getAmount());
+		verify(ledgerService).post(any(String.class), eq(Arrays.asList(
+				new JournalLeg(accountTransferRequest.getAccountNumberWithdraws(),
+						-accountTransferRequest.getAmount()),
+				new JournalLeg(accountTransferRequest.getAccountNumberReceive(),
+						accountTransferRequest.getAmount()))), any());
+	}
+
+	@Test
+	public void makeAccountTransfer_inactiveReceiver() {
+		AccountTransferRequest accountTransferRequest = getAccountTransfer();
+		findActiveAccount(Mono.empty());
+		uniqueOperationNumber(Mono.empty());
+		getCustomer(Mono.just(getCustomerEntity("123",
+				Constants.PERSON_TYPE_PERSONAL)));
+		postLedger();
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			operationService.makeAccountTransfer(accountTransferRequest).block();
+		});
+		verify(ledgerService, never()).post(any(String.class), any(), any());
 	}
 
 	@Test
@@ -404,8 +495,8 @@ public class OperationServiceTest {
 		WithdrawalRequest withdrawalRequest = getWithdrawalRequest();
 		assertTrue(validator.validate(withdrawalRequest).isEmpty());
 		getDebitCard(Mono.just(getDebitCardEntity()));
-		findAllTransactions(Flux.empty());
-		existsGreather(Mono.just(true));
+		when(withdrawalFundingService.debitFundingAccount(any(DebitCardEntity.class), any(Double.class)))
+				.thenReturn(Mono.just(Tuples.of("12345678996325", 1.99)));
 
 		uniqueOperationNumber(
 				Mono.just(getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL, "123",
@@ -414,8 +505,31 @@ public class OperationServiceTest {
 		getCustomer(Mono.just(getCustomerEntity("123",
 				Constants.PERSON_TYPE_BUSINESS)));
 		saveTransaction();
-		updateAccount();
-		operationService.makeWithdrawal(withdrawalRequest);
+		TransactionResponse response = operationService.makeWithdrawal(withdrawalRequest).block();
+
+		assertEquals("12345678996325", response.getAccountNumberWithdraws());
+		assertEquals(-(withdrawalRequest.getAmount() + 1.99), response.getAmount(), 0.001);
+		verify(accountService, never()).updateBalance(any(String.class), any(Double.class));
+	}
+
+	@Test
+	public void makeWithdrawal_reversesDebitWhenNotRecorded() {
+		WithdrawalRequest withdrawalRequest = getWithdrawalRequest();
+		getDebitCard(Mono.just(getDebitCardEntity()));
+		when(withdrawalFundingService.debitFundingAccount(any(DebitCardEntity.class), any(Double.class)))
+				.thenReturn(Mono.just(Tuples.of("12345678996325", 0.00)));
+		uniqueOperationNumber(Mono.empty());
+		getCustomer(Mono.just(getCustomerEntity("123",
+				Constants.PERSON_TYPE_BUSINESS)));
+		when(transactionRepository.save(any(TransactionEntity.class)))
+				.thenReturn(Mono.error(new RuntimeException("write failed")));
+		updateBalance(Mono.just(100.00));
+
+		assertThrows(Exception.class, () -> {
+			operationService.makeWithdrawal(withdrawalRequest).block();
+		});
+		verify(accountService, times(1)).updateBalance("12345678996325",
+				withdrawalRequest.getAmount());
 	}
 
 	@Test
@@ -423,11 +537,12 @@ public class OperationServiceTest {
 		WithdrawalRequest withdrawalRequest = getWithdrawalRequest();
 		assertTrue(validator.validate(withdrawalRequest).isEmpty());
 		getDebitCard(Mono.just(getDebitCardEntity()));
-		findAllTransactions(Flux.empty());
-		existsGreather(Mono.just(false));
+		when(withdrawalFundingService.debitFundingAccount(any(DebitCardEntity.class), any(Double.class)))
+				.thenReturn(Mono.error(new IllegalArgumentException(
+						"None of the associated accounts have enough balance to make the withdrawal.")));
 
 		assertThrows(Exception.class, () -> {
-			operationService.makeWithdrawal(withdrawalRequest);
+			operationService.makeWithdrawal(withdrawalRequest).block();
 		});
 	}
 
@@ -435,10 +550,10 @@ public class OperationServiceTest {
 	public void payCredit_notCredit() {
 		PayCreditRequest payCreditRequest = getPayCredit(100.00);
 		assertTrue(validator.validate(payCreditRequest).isEmpty());
-		existsCreditId(Mono.just(true));
+		existsCreditId(Mono.just(false));
 
 		assertThrows(Exception.class, () -> {
-			operationService.payCredit(payCreditRequest);
+			operationService.payCredit(payCreditRequest).block();
 		});
 	}
 
@@ -446,11 +561,21 @@ public class OperationServiceTest {
 	public void payCredit_greather() {
 		PayCreditRequest payCreditRequest = getPayCredit(100.00);
 		assertTrue(validator.validate(payCreditRequest).isEmpty());
-		existsCreditId(Mono.just(false));
-		existsGreather(Mono.just(true));
+		existsCreditId(Mono.just(true));
+
+		getUnpaidSchedules(Flux.fromIterable(Arrays
+				.asList(geCreditScheduleEntity(), geCreditScheduleEntity())));
+
+		uniqueOperationNumber(
+				Mono.just(getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL, "123",
+						"12345678901234")));
+
+		getCustomer(Mono.just(getCustomerEntity("123",
+				Constants.PERSON_TYPE_BUSINESS)));
+		updateBalance(Mono.error(new IllegalArgumentException("insufficient balance")));
 
 		assertThrows(Exception.class, () -> {
-			operationService.payCredit(payCreditRequest);
+			operationService.payCredit(payCreditRequest).block();
 		});
 	}
 
@@ -458,15 +583,12 @@ public class OperationServiceTest {
 	public void payCredit_exce() {
 		PayCreditRequest payCreditRequest = getPayCredit(500.00);
 		assertTrue(validator.validate(payCreditRequest).isEmpty());
-		existsCreditId(Mono.just(false));
-		existsGreather(Mono.just(false));
-		updateAccount();
-
-		getListCreditScheduleLess(Flux.fromIterable(Arrays
-				.asList(geCreditScheduleEntity())));
+		existsCreditId(Mono.just(true));
+		updateBalance(Mono.just(100.00));
+		applyPayment();
 
-		getScheduleDateAfter(Flux.fromIterable(Arrays
-				.asList(geCreditScheduleEntity())));
+		getUnpaidSchedules(Flux.fromIterable(Arrays
+				.asList(geCreditScheduleEntity(), geCreditScheduleEntity())));
 
 		uniqueOperationNumber(
 				Mono.just(getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL, "123",
@@ -478,7 +600,7 @@ public class OperationServiceTest {
 		saveTransaction();
 
 		assertThrows(Exception.class, () -> {
-			operationService.payCredit(payCreditRequest);
+			operationService.payCredit(payCreditRequest).block();
 		});
 
 	}
@@ -487,15 +609,12 @@ public class OperationServiceTest {
 	public void payCredit_totaldebt() {
 		PayCreditRequest payCreditRequest = getPayCredit(240.00);
 		assertTrue(validator.validate(payCreditRequest).isEmpty());
-		existsCreditId(Mono.just(false));
-		existsGreather(Mono.just(false));
-		updateAccount();
-
-		getListCreditScheduleLess(Flux.fromIterable(Arrays
-				.asList(geCreditScheduleEntity())));
+		existsCreditId(Mono.just(true));
+		updateBalance(Mono.just(100.00));
+		applyPayment();
 
-		getScheduleDateAfter(Flux.fromIterable(Arrays
-				.asList(geCreditScheduleEntity())));
+		getUnpaidSchedules(Flux.fromIterable(Arrays
+				.asList(geCreditScheduleEntity(), geCreditScheduleEntity())));
 
 		uniqueOperationNumber(
 				Mono.just(getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL, "123",
@@ -506,22 +625,19 @@ public class OperationServiceTest {
 
 		saveTransaction();
 		existsById(Mono.just(true));
-		operationService.payCredit(payCreditRequest);
+		operationService.payCredit(payCreditRequest).block();
 	}
 
 	@Test
 	public void payCredit_share() {
 		PayCreditRequest payCreditRequest = getPayCredit(120.00);
 		assertTrue(validator.validate(payCreditRequest).isEmpty());
-		existsCreditId(Mono.just(false));
-		existsGreather(Mono.just(false));
-		updateAccount();
-
-		getListCreditScheduleLess(Flux.fromIterable(Arrays
-				.asList(geCreditScheduleEntity())));
+		existsCreditId(Mono.just(true));
+		updateBalance(Mono.just(100.00));
+		applyPayment();
 
-		getScheduleDateAfter(Flux.fromIterable(Arrays
-				.asList(geCreditScheduleEntity())));
+		getUnpaidSchedules(Flux.fromIterable(Arrays
+				.asList(geCreditScheduleEntity(), geCreditScheduleEntity())));
 
 		uniqueOperationNumber(
 				Mono.just(getTransactionEntity(Constants.TRANSACTION_TYPE_WITHDRAWAL, "123",
@@ -532,29 +648,227 @@ public class OperationServiceTest {
 
 		saveTransaction();
 		existsById(Mono.just(false));
-		operationService.payCredit(payCreditRequest);
+		desactivateCredit();
+		operationService.payCredit(payCreditRequest).block();
+		verify(creditPaymentService).applyPayment(eq("000000000124"), argThat(deltas -> deltas.size() == 1
+				&& deltas.get(0).isPaid()));
+	}
+
+	@Test
+	public void payCredit_reversesDebitWhenSchedulesChanged() {
+		PayCreditRequest payCreditRequest = getPayCredit(120.00);
+		existsCreditId(Mono.just(true));
+		updateBalance(Mono.just(100.00));
+		when(creditPaymentService.applyPayment(any(String.class), anyList()))
+				.thenReturn(Mono.error(new IllegalStateException("schedules changed")));
+		getUnpaidSchedules(Flux.fromIterable(Arrays
+				.asList(geCreditScheduleEntity(), geCreditScheduleEntity())));
+		uniqueOperationNumber(Mono.empty());
+		getCustomer(Mono.just(getCustomerEntity("123",
+				Constants.PERSON_TYPE_BUSINESS)));
+		saveTransaction();
+
+		assertThrows(IllegalStateException.class, () -> {
+			operationService.payCredit(payCreditRequest).block();
+		});
+		verify(accountService).updateBalance(payCreditRequest.getAccountNumber(), -120.00);
+		verify(accountService).updateBalance(payCreditRequest.getAccountNumber(), 120.00);
+		verify(transactionRepository, never()).save(any(TransactionEntity.class));
+	}
+
+	@Test
+	public void payCredit_restoresSchedulesWhenTransactionFails() {
+		PayCreditRequest payCreditRequest = getPayCredit(120.00);
+		existsCreditId(Mono.just(true));
+		updateBalance(Mono.just(100.00));
+		applyPayment();
+		when(creditPaymentService.reversePayment(any(String.class), anyList())).thenReturn(Mono.empty());
+		getUnpaidSchedules(Flux.fromIterable(Arrays
+				.asList(geCreditScheduleEntity(), geCreditScheduleEntity())));
+		uniqueOperationNumber(Mono.empty());
+		getCustomer(Mono.just(getCustomerEntity("123",
+				Constants.PERSON_TYPE_BUSINESS)));
+		when(transactionRepository.save(any(TransactionEntity.class)))
+				.thenReturn(Mono.error(new RuntimeException("write failed")));
+
+		assertThrows(RuntimeException.class, () -> {
+			operationService.payCredit(payCreditRequest).block();
+		});
+		verify(creditPaymentService).reversePayment(eq("000000000124"), anyList());
+		verify(accountService).updateBalance(payCreditRequest.getAccountNumber(), 120.00);
+	}
+
+	@Test
+	public void payCreditCard_releasesPrincipalAndPrepaidInstallments() {
+		PayCreditCardRequest payCreditCardRequest = new PayCreditCardRequest();
+		payCreditCardRequest.setCreditCardNumber("1234567890123456");
+		payCreditCardRequest.setAmount(150.00);
+		existsByCreditCardNumber(Mono.just(true));
+		findLessThanEqual(Flux.just(getCreditCardSchedule("s1", LocalDate.now(), 100.00, 10.00)));
+		findAfter(Flux.just(getCreditCardSchedule("s2", LocalDate.now().plusMonths(1), 0.00, 0.00)));
+		uniqueOperationNumber(Mono.empty());
+		when(creditPaymentService.applyCardPayment(any(String.class), eq("1234567890123456"),
+				any(CardPaymentWaterfall.Allocation.class))).thenReturn(Mono.just(140.00));
+		when(creditPaymentService.completeCardPayment(any(String.class), any(String.class))).thenReturn(Mono.empty());
+
+		operationService.payCreditCard(payCreditCardRequest).block();
+
+		verify(creditPaymentService).applyCardPayment(eq("000000000124"), eq("1234567890123456"),
+				argThat(allocation -> allocation.getScheduleDeltas().size() == 1
+						&& allocation.getInstallmentDeltas().size() == 1
+						&& Math.abs(allocation.getCreditReleased() - 140.00) < 0.0001));
+		verify(creditPaymentService).completeCardPayment("000000000124", "1234567890123456");
+	}
+
+	@Test
+	public void payCreditCard_reversesDebitWhenSchedulesChanged() {
+		PayCreditCardRequest payCreditCardRequest = new PayCreditCardRequest();
+		payCreditCardRequest.setCreditCardNumber("1234567890123456");
+		payCreditCardRequest.setAccountNumber("1234567890");
+		payCreditCardRequest.setDocumentNumber("12345678");
+		payCreditCardRequest.setAmount(150.00);
+		existsByCreditCardNumber(Mono.just(true));
+		findLessThanEqual(Flux.just(getCreditCardSchedule("s1", LocalDate.now(), 100.00, 10.00)));
+		findAfter(Flux.just(getCreditCardSchedule("s2", LocalDate.now().plusMonths(1), 0.00, 0.00)));
+		uniqueOperationNumber(Mono.empty());
+		getCustomer(Mono.just(getCustomerEntity("123", Constants.PERSON_TYPE_PERSONAL)));
+		updateBalance(Mono.just(100.00));
+		saveTransaction();
+		when(creditPaymentService.applyCardPayment(any(String.class), any(String.class),
+				any(CardPaymentWaterfall.Allocation.class)))
+				.thenReturn(Mono.error(new IllegalStateException("schedules changed")));
+
+		assertThrows(IllegalStateException.class, () -> {
+			operationService.payCreditCard(payCreditCardRequest).block();
+		});
+		verify(accountService).updateBalance("1234567890", -150.00);
+		verify(accountService).updateBalance("1234567890", 150.00);
+		verify(transactionRepository, never()).save(any(TransactionEntity.class));
+	}
+
+	@Test
+	public void payCreditCard_reversesPaymentWhenTransactionFails() {
+		PayCreditCardRequest payCreditCardRequest = new PayCreditCardRequest();
+		payCreditCardRequest.setCreditCardNumber("1234567890123456");
+		payCreditCardRequest.setAccountNumber("1234567890");
+		payCreditCardRequest.setDocumentNumber("12345678");
+		payCreditCardRequest.setAmount(150.00);
+		existsByCreditCardNumber(Mono.just(true));
+		findLessThanEqual(Flux.just(getCreditCardSchedule("s1", LocalDate.now(), 100.00, 10.00)));
+		findAfter(Flux.just(getCreditCardSchedule("s2", LocalDate.now().plusMonths(1), 0.00, 0.00)));
+		uniqueOperationNumber(Mono.empty());
+		getCustomer(Mono.just(getCustomerEntity("123", Constants.PERSON_TYPE_PERSONAL)));
+		updateBalance(Mono.just(100.00));
+		when(creditPaymentService.applyCardPayment(any(String.class), any(String.class),
+				any(CardPaymentWaterfall.Allocation.class))).thenReturn(Mono.just(140.00));
+		when(creditPaymentService.reverseCardPayment(any(String.class), any(String.class),
+				any(CardPaymentWaterfall.Allocation.class))).thenReturn(Mono.empty());
+		when(transactionRepository.save(any(TransactionEntity.class)))
+				.thenReturn(Mono.error(new RuntimeException("write failed")));
+
+		assertThrows(RuntimeException.class, () -> {
+			operationService.payCreditCard(payCreditCardRequest).block();
+		});
+		verify(creditPaymentService).reverseCardPayment(eq("000000000124"), eq("1234567890123456"),
+				any(CardPaymentWaterfall.Allocation.class));
+		verify(accountService).updateBalance("1234567890", 150.00);
 	}
 
-	private void getScheduleDateAfter(Flux<CreditScheduleEntity> creditScheduleEntity) {
+	@Test
+	public void payCreditCard_exceedsTotalDebt() {
+		PayCreditCardRequest payCreditCardRequest = new PayCreditCardRequest();
+		payCreditCardRequest.setCreditCardNumber("1234567890123456");
+		payCreditCardRequest.setAmount(500.00);
+		existsByCreditCardNumber(Mono.just(true));
+		findLessThanEqual(Flux.just(getCreditCardSchedule("s1", LocalDate.now(), 100.00, 10.00)));
+		findAfter(Flux.empty());
+
+		assertThrows(IllegalArgumentException.class, () -> {
+			operationService.payCreditCard(payCreditCardRequest).block();
+		});
+		verify(creditPaymentService, never()).applyCardPayment(any(String.class), any(String.class),
+				any(CardPaymentWaterfall.Allocation.class));
+	}
+
+	private CreditCardScheduleEntity getCreditCardSchedule(String id, LocalDate paymentDate,
+			Double principalAmount, Double interestAmount) {
+		Consumption consumption = new Consumption();
+		consumption.setNumberOfInstallments(1);
+		consumption.setAmount(60.00);
+		CreditCardScheduleEntity creditCardScheduleEntity = new CreditCardScheduleEntity();
+		creditCardScheduleEntity.setId(id);
+		creditCardScheduleEntity.setPaymentDate(paymentDate);
+		creditCardScheduleEntity.setPrincipalAmount(principalAmount);
+		creditCardScheduleEntity.setInterestAmount(interestAmount);
+		creditCardScheduleEntity.setLateAmount(0.00);
+		creditCardScheduleEntity.setCurrentDebt(principalAmount + interestAmount);
+		creditCardScheduleEntity.setPaid(false);
+		creditCardScheduleEntity.setConsumptionQuota(Arrays.asList(consumption));
+		return creditCardScheduleEntity;
+	}
+
+	private void getUnpaidSchedules(Flux<CreditScheduleEntity> creditScheduleEntity) {
 		when(creditScheduleRepository
-				.findByCreditIdAndPaidFalseAndPaymentDateAfter(any(String.class),
-						any(LocalDateTime.class)))
+				.findByCreditIdAndPaidFalseOrderByPaymentDateAsc(any(String.class)))
 				.thenReturn(creditScheduleEntity);
 	}
 
 	@Test
-	public void getProducts_success() {
-		findAllByDocumentNumber(Flux.fromIterable(Arrays
-				.asList(getCreditEntity())));
+	public void checkTransactions_firstPageUsesAccountIndexes() {
+		findByHolder(Flux.fromIterable(Arrays.asList(
+				getAccountEntity("123", Arrays.asList("123"), null, Constants.ACCOUNT_TYPE_CHECKING),
+				getAccountEntity("456", Arrays.asList("123"), null, Constants.ACCOUNT_TYPE_SAVINGS))));
+		when(transactionRepository.findRecentByAccountNumbers(
+				Arrays.asList("123123123", "456456456"), PageRequest.of(0, 10)))
+				.thenReturn(Flux.just(getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
+						"123123123", null)));
+
+		assertEquals(1, operationService.checkTransactions("123", null, null, null)
+				.collectList().block().size());
+	}
+
+	@Test
+	public void checkTransactions_nextPageContinuesAfterKeyset() {
+		LocalDateTime beforeDate = LocalDateTime.now();
+		findByHolder(Flux.just(getAccountEntity("123", Arrays.asList("123"), null,
+				Constants.ACCOUNT_TYPE_CHECKING)));
+		when(transactionRepository.findRecentByAccountNumbersBefore(Arrays.asList("123123123"),
+				beforeDate, "abc", PageRequest.of(0, Constants.RECENT_TRANSACTIONS_MAX_PAGE_SIZE)))
+				.thenReturn(Flux.just(getTransactionEntity(Constants.TRANSACTION_TYPE_DEPOSIT,
+						"123123123", null)));
+
+		assertEquals(1, operationService.checkTransactions("123", beforeDate, "abc", 500)
+				.collectList().block().size());
+		assertThrows(Exception.class, () -> {
+			operationService.checkTransactions("123", beforeDate, null, 10).blockLast();
+		});
+	}
+
+	@Test
+	public void operations_doNotBlockNonBlockingThreads() {
+		DepositRequest depositRequest = new DepositRequest();
+		depositRequest.setAmount(100.00);
+		depositRequest.setAccountNumber("12345678963214");
+		depositRequest.setDocumentNumber("12345678");
+		AccountTransferRequest accountTransferRequest = getAccountTransfer();
+
+		countMovements(Mono.just(0L).publishOn(Schedulers.parallel()));
+		uniqueOperationNumber(Mono.empty());
+		getCustomer(Mono.just(getCustomerEntity("123", Constants.PERSON_TYPE_PERSONAL))
+				.publishOn(Schedulers.parallel()));
+		saveTransaction();
+		updateBalance(Mono.just(100.00).publishOn(Schedulers.parallel()));
+		postLedger();
 
-		findAllByDocumentNumberCard(Flux.fromIterable(Arrays
-				.asList(getCreditCardEntity(true))));
+		operationService.makeDeposit(depositRequest).block();
 
-		findByHolder(Flux.fromIterable(Arrays
-				.asList(getAccountEntity("123", Arrays.asList("123"), null,
-						Constants.ACCOUNT_TYPE_CHECKING))));
+		StepVerifier.create(operationService.makeDeposit(depositRequest)
+				.subscribeOn(Schedulers.parallel()))
+				.expectNextCount(1).verifyComplete();
 
-		operationService.getProducts("123");
+		StepVerifier.create(operationService.makeAccountTransfer(accountTransferRequest)
+				.subscribeOn(Schedulers.parallel()))
+				.expectNextCount(1).verifyComplete();
 	}
 
 	private AccountEntity getAccountEntity(String value, List<String> holders,
@@ -576,22 +890,6 @@ public class OperationServiceTest {
 		return accountEntity;
 	}
 
-	private CreditCardEntity getCreditCardEntity(Boolean allowConsumption) {
-		CreditCardEntity creditCardEntity = new CreditCardEntity();
-		creditCardEntity.setId("123");
-		creditCardEntity.setAllowConsumption(allowConsumption);
-		creditCardEntity.setAvailableCredit(100.00);
-		creditCardEntity.setPaymentDay(5);
-		creditCardEntity.setCreditCardNumber("1234567897412589");
-		return creditCardEntity;
-	}
-
-	private CreditEntity getCreditEntity() {
-		CreditEntity creditEntity = new CreditEntity();
-		creditEntity.setId("123");
-		return creditEntity;
-	}
-
 	private CreditScheduleEntity geCreditScheduleEntity() {
 		CreditScheduleEntity creditScheduleEntity = new CreditScheduleEntity();
 		creditScheduleEntity.setId("123");
@@ -675,8 +973,11 @@ public class OperationServiceTest {
 	}
 
 	private void getCustomer(Mono<CustomerEntity> customerEntity) {
-		when(customerRepository.findByDocumentNumberAndIsActiveTrue(any(String.class)))
-				.thenReturn(customerEntity);
+		when(customerNameService.getName(any(String.class))).thenReturn(customerEntity
+				.map(customer -> customer.getPersonType().equalsIgnoreCase(Constants.PERSON_TYPE_PERSONAL)
+						? customer.getFullName()
+						: customer.getCompanyName())
+				.switchIfEmpty(Mono.error(new IllegalArgumentException("customer does not exist"))));
 	}
 
 	private void saveTransaction() {
@@ -685,6 +986,8 @@ public class OperationServiceTest {
 					TransactionEntity entity = invocation.getArgument(0);
 					return Mono.just(entity);
 				});
+		when(movementCounterService.registerMovement(any(TransactionEntity.class)))
+				.thenReturn(Mono.empty());
 	}
 
 	private DebitCardEntity getDebitCardEntity() {
@@ -706,13 +1009,20 @@ public class OperationServiceTest {
 		return transactionEntity;
 	}
 
-	private void updateAccount() {
-		when(accountService.updateAccount(any(UpdateAccountRequest.class)))
-				.thenReturn(new AccountResponse());
+	@SuppressWarnings("unchecked")
+	private void postLedger() {
+		when(ledgerService.post(any(String.class), any(), any())).thenAnswer(
+				invocation -> ((Mono<TransactionEntity>) invocation.getArgument(2))
+						.publishOn(Schedulers.parallel()));
+	}
+
+	private void updateBalance(Mono<Double> balance) {
+		when(accountService.updateBalance(any(String.class), any(Double.class)))
+				.thenReturn(balance);
 	}
 
 	private void desactivateCredit() {
-		doNothing().when(creditService).desactivateCredit(any(String.class));
+		when(creditService.desactivateCredit(any(String.class))).thenReturn(Mono.empty());
 	}
 
 	private void getDebitCard(Mono<DebitCardEntity> debitCardEntity) {
@@ -720,14 +1030,18 @@ public class OperationServiceTest {
 				.thenReturn(debitCardEntity);
 	}
 
+	private void findActiveAccount(Mono<AccountEntity> accountEntity) {
+		when(accountRepository.findByAccountNumberAndIsActiveTrue(any(String.class))).thenReturn(accountEntity);
+	}
+
 	private void existsGreather(Mono<Boolean> exists) {
 		when(accountRepository.existsByAccountNumberAndAmountGreaterThanEqual(any(
 				String.class), any(Double.class))).thenReturn(exists);
 	}
 
 	private void getByPhone(Mono<YankiEntity> yankiEntity) {
-		when(yankiRepository
-				.findByPhoneNumberAndIsActiveTrue(any(String.class)))
+		when(yankiDirectoryService
+				.findByPhoneNumber(any(String.class)))
 				.thenReturn(yankiEntity);
 	}
 
@@ -736,27 +1050,14 @@ public class OperationServiceTest {
 				.thenReturn(exists);
 	}
 
-	private void getListCreditScheduleLess(Flux<CreditScheduleEntity> creditScheduleEntity) {
-		when(creditScheduleRepository.findByCreditIdAndPaidFalseAndPaymentDateLessThanEqual(
-				any(String.class),
-				any(LocalDateTime.class))).thenReturn(creditScheduleEntity);
-	}
-
 	private void existsById(Mono<Boolean> exists) {
-		when(creditScheduleRepository.existsByIdAndPaidFalse(any(String.class)))
+		when(creditScheduleRepository.existsByCreditIdAndPaidFalse(any(String.class)))
 				.thenReturn(exists);
 	}
 
-	private void findAllByDocumentNumber(Flux<CreditEntity> creditEntity) {
-		when(creditRepository
-				.findAllByDocumentNumberAndIsActiveTrue(any(String.class)))
-				.thenReturn(creditEntity);
-	}
-
-	private void findAllByDocumentNumberCard(Flux<CreditCardEntity> creditCardEntity) {
-		when(creditCardRepository
-				.findAllByDocumentNumberAndIsActiveTrue(any(String.class)))
-				.thenReturn(creditCardEntity);
+	@SuppressWarnings("unchecked")
+	private void applyPayment() {
+		when(creditPaymentService.applyPayment(any(String.class), any(List.class))).thenReturn(Mono.just(1L));
 	}
 
 	private void findByHolder(Flux<AccountEntity> accountEntity) {
@@ -764,9 +1065,9 @@ public class OperationServiceTest {
 				.thenReturn(accountEntity);
 	}
 
-	private void findAllTransactions(Flux<TransactionEntity> transactionEntity) {
-		when(transactionRepository.findAllByIsActiveTrue())
-				.thenReturn(transactionEntity);
+	private void countMovements(Mono<Long> movements) {
+		when(movementCounterService.countMovements(any(String.class), any(YearMonth.class)))
+				.thenReturn(movements);
 	}
 
 	private void existsByCreditCardNumber(Mono<Boolean> exists) {
@@ -777,6 +1078,7 @@ public class OperationServiceTest {
 	private void uniqueOperationNumber(Mono<TransactionEntity> transactionEntity) {
 		when(transactionRepository.findFirstByOrderByOperationNumberDesc())
 				.thenReturn(transactionEntity);
+		when(sequenceService.nextValue(any(String.class), any())).thenReturn(Mono.just(124L));
 	}
 
 	private void findLessThanEqual(Flux<CreditCardScheduleEntity> creditCardScheduleEntity) {
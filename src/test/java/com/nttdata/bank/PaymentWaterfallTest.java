@@ -0,0 +1,134 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.nttdata.bank.entity.CreditScheduleEntity;
+import com.nttdata.bank.util.PaymentWaterfall;
+
+@SpringBootTest
+public class PaymentWaterfallTest {
+
+	private static final int RUNS = 2000;
+
+	private static final double DELTA = 0.0001;
+
+	@Test
+	public void allocate_paysPrincipalThenInterestThenLate() {
+		List<PaymentWaterfall.Delta> deltas = PaymentWaterfall.allocate(
+				Arrays.asList(getSchedule("1", 0, 100.00, 10.00, 5.00)), 105.00);
+
+		assertEquals(1, deltas.size());
+		assertEquals(100.00, deltas.get(0).getPrincipalPaid(), DELTA);
+		assertEquals(5.00, deltas.get(0).getInterestPaid(), DELTA);
+		assertEquals(0.00, deltas.get(0).getLatePaid(), DELTA);
+		assertEquals(105.00, deltas.get(0).getDebtPaid(), DELTA);
+		assertFalse(deltas.get(0).isPaid());
+	}
+
+	@Test
+	public void allocate_paysOldestSchedulesFirst() {
+		List<PaymentWaterfall.Delta> deltas = PaymentWaterfall.allocate(Arrays.asList(
+				getSchedule("1", 0, 100.00, 10.00, 5.00),
+				getSchedule("2", 1, 100.00, 10.00, 0.00),
+				getSchedule("3", 2, 100.00, 10.00, 0.00)), 150.00);
+
+		assertEquals(2, deltas.size());
+		assertEquals("1", deltas.get(0).getScheduleId());
+		assertTrue(deltas.get(0).isPaid());
+		assertEquals("2", deltas.get(1).getScheduleId());
+		assertEquals(35.00, deltas.get(1).getPrincipalPaid(), DELTA);
+		assertFalse(deltas.get(1).isPaid());
+	}
+
+	@Test
+	public void allocate_rejectsAmountAboveTotalDebt() {
+		assertThrows(IllegalArgumentException.class, () -> PaymentWaterfall.allocate(
+				Arrays.asList(getSchedule("1", 0, 100.00, 10.00, 0.00)), 110.01));
+	}
+
+	@Test
+	public void allocate_randomSchedulesKeepWaterfallInvariants() {
+		Random random = new Random(20240611L);
+
+		for (int run = 0; run < RUNS; run++) {
+			List<CreditScheduleEntity> schedules = getRandomSchedules(random, 1 + random.nextInt(60));
+			double totalDebt = schedules.stream().mapToDouble(CreditScheduleEntity::getCurrentDebt).sum();
+			double amount = Math.round(random.nextDouble() * totalDebt * 100) / 100.0;
+
+			List<PaymentWaterfall.Delta> deltas = PaymentWaterfall.allocate(schedules, amount);
+
+			double allocated = 0;
+			for (int i = 0; i < deltas.size(); i++) {
+				PaymentWaterfall.Delta delta = deltas.get(i);
+				CreditScheduleEntity schedule = schedules.get(i);
+				double paidComponents = delta.getPrincipalPaid() + delta.getInterestPaid() + delta.getLatePaid();
+
+				assertEquals(schedule.getId(), delta.getScheduleId());
+				assertTrue(delta.getPrincipalPaid() <= schedule.getPrincipalAmount() + DELTA);
+				assertTrue(delta.getInterestPaid() <= schedule.getInterestAmount() + DELTA);
+				assertTrue(delta.getLatePaid() <= schedule.getLateAmount() + DELTA);
+				assertEquals(delta.getDebtPaid(), paidComponents, DELTA);
+				assertTrue(delta.getInterestPaid() <= DELTA
+						|| delta.getPrincipalPaid() >= schedule.getPrincipalAmount() - DELTA);
+				assertTrue(delta.getLatePaid() <= DELTA
+						|| delta.getInterestPaid() >= schedule.getInterestAmount() - DELTA);
+				assertTrue(delta.isPaid() || i == deltas.size() - 1);
+				if (delta.isPaid()) {
+					assertEquals(schedule.getCurrentDebt(), delta.getDebtPaid(), DELTA);
+				}
+				allocated += delta.getDebtPaid();
+			}
+			assertEquals(amount, allocated, DELTA);
+		}
+	}
+
+	@Test
+	public void allocate_randomFullPaymentsCloseEverySchedule() {
+		Random random = new Random(20240612L);
+
+		for (int run = 0; run < RUNS; run++) {
+			List<CreditScheduleEntity> schedules = getRandomSchedules(random, 1 + random.nextInt(360));
+			double totalDebt = schedules.stream().mapToDouble(CreditScheduleEntity::getCurrentDebt).sum();
+
+			List<PaymentWaterfall.Delta> deltas = PaymentWaterfall.allocate(schedules, totalDebt);
+
+			assertEquals(schedules.size(), deltas.size());
+			assertTrue(deltas.stream().allMatch(PaymentWaterfall.Delta::isPaid));
+		}
+	}
+
+	private List<CreditScheduleEntity> getRandomSchedules(Random random, int size) {
+		List<CreditScheduleEntity> schedules = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			schedules.add(getSchedule(String.valueOf(i), i, cents(random, 2000), cents(random, 200),
+					random.nextBoolean() ? 0.00 : cents(random, 50)));
+		}
+		return schedules;
+	}
+
+	private double cents(Random random, int max) {
+		return random.nextInt(max * 100) / 100.0;
+	}
+
+	private CreditScheduleEntity getSchedule(String id, int month, double principal, double interest,
+			double late) {
+		CreditScheduleEntity creditScheduleEntity = new CreditScheduleEntity();
+		creditScheduleEntity.setId(id);
+		creditScheduleEntity.setPaymentDate(LocalDate.of(2024, 1, 15).plusMonths(month));
+		creditScheduleEntity.setPrincipalAmount(principal);
+		creditScheduleEntity.setInterestAmount(interest);
+		creditScheduleEntity.setLateAmount(late);
+		creditScheduleEntity.setCurrentDebt(principal + interest + late);
+		creditScheduleEntity.setPaid(false);
+		return creditScheduleEntity;
+	}
+}
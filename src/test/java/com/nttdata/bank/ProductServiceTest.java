@@ -0,0 +1,128 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.entity.CreditEntity;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.repository.CreditCardRepository;
+import com.nttdata.bank.repository.CreditRepository;
+import com.nttdata.bank.response.ProductResponse;
+import com.nttdata.bank.service.impl.ProductServiceImpl;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@SpringBootTest
+public class ProductServiceTest {
+
+	@Mock
+	private CreditRepository creditRepository;
+
+	@Mock
+	private CreditCardRepository creditCardRepository;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@InjectMocks
+	private ProductServiceImpl productService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@Test
+	public void getProducts_success() {
+		findCredits(Flux.just(getCreditEntity()));
+		findCreditCards(Flux.just(getCreditCardEntity()));
+		findAccounts(Flux.just(getAccountEntity()));
+
+		List<ProductResponse> products = productService.getProducts("123").collectList().block();
+
+		assertEquals(3, products.size());
+		assertEquals(1, products.stream()
+				.filter(product -> "123".equals(product.getCreditId())
+						&& Constants.PRODUCT_CREDIT.equals(product.getProductType()))
+				.count());
+		assertEquals(1, products.stream()
+				.filter(product -> "1234567897412589".equals(product.getCreditCardNumber())
+						&& Constants.PRODUCT_CREDIT_CARD.equals(product.getProductType()))
+				.count());
+		assertEquals(1, products.stream()
+				.filter(product -> "123123123".equals(product.getAccountNumber())
+						&& Constants.ACCOUNT_TYPE_CHECKING.equals(product.getProductType()))
+				.count());
+	}
+
+	@Test
+	public void getProducts_empty() {
+		findCredits(Flux.empty());
+		findCreditCards(Flux.empty());
+		findAccounts(Flux.empty());
+
+		StepVerifier.create(productService.getProducts("123")).verifyComplete();
+	}
+
+	@Test
+	public void getProducts_lookupsRunConcurrently() {
+		StepVerifier.withVirtualTime(() -> {
+			findCredits(Flux.just(getCreditEntity()).delayElements(Duration.ofSeconds(1)));
+			findCreditCards(Flux.just(getCreditCardEntity()).delayElements(Duration.ofSeconds(1)));
+			findAccounts(Flux.just(getAccountEntity()).delayElements(Duration.ofSeconds(1)));
+			return productService.getProducts("123");
+		})
+				.expectSubscription()
+				.thenAwait(Duration.ofSeconds(1))
+				.expectNextCount(3)
+				.verifyComplete();
+	}
+
+	private CreditEntity getCreditEntity() {
+		CreditEntity creditEntity = new CreditEntity();
+		creditEntity.setId("123");
+		return creditEntity;
+	}
+
+	private CreditCardEntity getCreditCardEntity() {
+		CreditCardEntity creditCardEntity = new CreditCardEntity();
+		creditCardEntity.setId("123");
+		creditCardEntity.setCreditCardNumber("1234567897412589");
+		return creditCardEntity;
+	}
+
+	private AccountEntity getAccountEntity() {
+		AccountEntity accountEntity = new AccountEntity();
+		accountEntity.setId("123");
+		accountEntity.setAccountNumber("123123123");
+		accountEntity.setAccountType(Constants.ACCOUNT_TYPE_CHECKING);
+		return accountEntity;
+	}
+
+	private void findCredits(Flux<CreditEntity> creditEntity) {
+		when(creditRepository.findProductsByDocumentNumber(any(String.class)))
+				.thenReturn(creditEntity);
+	}
+
+	private void findCreditCards(Flux<CreditCardEntity> creditCardEntity) {
+		when(creditCardRepository.findProductsByDocumentNumber(any(String.class)))
+				.thenReturn(creditCardEntity);
+	}
+
+	private void findAccounts(Flux<AccountEntity> accountEntity) {
+		when(accountRepository.findProductsByHolderDoc(any(String.class)))
+				.thenReturn(accountEntity);
+	}
+
+}
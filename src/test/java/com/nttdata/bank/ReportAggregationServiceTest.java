@@ -0,0 +1,174 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.CreditCardEntity;
+import com.nttdata.bank.entity.CreditEntity;
+import com.nttdata.bank.entity.TransactionEntity;
+import com.nttdata.bank.job.bean.ProductBalance;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.repository.CreditCardRepository;
+import com.nttdata.bank.repository.CreditRepository;
+import com.nttdata.bank.repository.TransactionRepository;
+import com.nttdata.bank.service.BalanceSnapshotService;
+import com.nttdata.bank.service.impl.ReportAggregationServiceImpl;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class ReportAggregationServiceTest {
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private CreditRepository creditRepository;
+
+	@Mock
+	private CreditCardRepository creditCardRepository;
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private BalanceSnapshotService balanceSnapshotService;
+
+	@InjectMocks
+	private ReportAggregationServiceImpl reportAggregationService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@Test
+	public void summarizeProducts_readsLedgerOnce() {
+		findTransactions(Flux.just(
+				getTransaction(Constants.TRANSACTION_TYPE_PAY_CREDIT, 100.00, 0.00, null, "111", "C1", null),
+				getTransaction(Constants.TRANSACTION_TYPE_PAY_CREDIT, 300.00, 2.00, null, "111", "C1", null),
+				getTransaction(Constants.TRANSACTION_TYPE_PAY_CREDIT_CARD, 50.00, 0.00, null, "111", null,
+						"4111"),
+				getTransaction(Constants.TRANSACTION_TYPE_DEPOSIT, 500.00, -1.99, "111", null, null, null),
+				getTransaction(Constants.TRANSACTION_TYPE_BANK_TRANSFER, 80.00, 0.00, "222", "111", null,
+						null)));
+		findCredits(Flux.just(getCreditEntity("C1"), getCreditEntity("C2")));
+		findCreditCards(Flux.just(getCreditCardEntity("4111")));
+		findAccounts(Flux.just(getAccountEntity("111"), getAccountEntity("222")));
+		Map<String, Double> averages = new HashMap<>();
+		averages.put("111", 350.00);
+		averages.put("222", 80.00);
+		findAverages(averages);
+
+		List<ProductBalance> products = reportAggregationService
+				.summarizeProducts(LocalDateTime.now().minusMonths(1), LocalDateTime.now())
+				.collectList().block();
+
+		assertEquals(5, products.size());
+		assertEquals(200.00, products.get(0).getAverageBalance(), 0.0001);
+		assertEquals(1.00, products.get(0).getAverageCommission(), 0.0001);
+		assertEquals(0.00, products.get(1).getAverageBalance(), 0.0001);
+		assertEquals(50.00, products.get(2).getAverageBalance(), 0.0001);
+		assertEquals(350.00, products.get(3).getAverageBalance(), 0.0001);
+		assertEquals(-1.99 - 2.00, products.get(3).getAverageCommission(), 0.0001);
+		assertEquals(80.00, products.get(4).getAverageBalance(), 0.0001);
+		verify(transactionRepository, times(1))
+				.findActiveByCreateDateRange(any(LocalDateTime.class), any(LocalDateTime.class));
+		verify(balanceSnapshotService, times(1)).averageDailyBalances(anyCollection(), any(YearMonth.class));
+	}
+
+	@Test
+	public void summarizeProducts_withoutTransactions() {
+		findTransactions(Flux.empty());
+		findCredits(Flux.empty());
+		findCreditCards(Flux.empty());
+		findAccounts(Flux.just(getAccountEntity("111")));
+		findAverages(Collections.singletonMap("111", 100.00));
+
+		List<ProductBalance> products = reportAggregationService
+				.summarizeProducts(LocalDateTime.now().minusMonths(1), LocalDateTime.now())
+				.collectList().block();
+
+		assertEquals(1, products.size());
+		assertEquals(100.00, products.get(0).getAverageBalance(), 0.0001);
+		assertEquals(100.00, products.get(0).getAmountBalance(), 0.0001);
+	}
+
+	private TransactionEntity getTransaction(String transactionType, Double amount,
+			Double commission, String accountReceive, String accountWithdraws, String creditId,
+			String creditCardNumber) {
+		TransactionEntity transactionEntity = new TransactionEntity();
+		transactionEntity.setTransactionType(transactionType);
+		transactionEntity.setAmount(amount);
+		transactionEntity.setCommission(commission);
+		transactionEntity.setAccountNumberReceive(accountReceive);
+		transactionEntity.setAccountNumberWithdraws(accountWithdraws);
+		transactionEntity.setCreditId(creditId);
+		transactionEntity.setCreditCardNumber(creditCardNumber);
+		transactionEntity.setCreateDate(LocalDateTime.now());
+		transactionEntity.setIsActive(true);
+		return transactionEntity;
+	}
+
+	private CreditEntity getCreditEntity(String id) {
+		CreditEntity creditEntity = new CreditEntity();
+		creditEntity.setId(id);
+		creditEntity.setAmount(1000.00);
+		return creditEntity;
+	}
+
+	private CreditCardEntity getCreditCardEntity(String creditCardNumber) {
+		CreditCardEntity creditCardEntity = new CreditCardEntity();
+		creditCardEntity.setCreditCardNumber(creditCardNumber);
+		creditCardEntity.setAvailableCredit(500.00);
+		return creditCardEntity;
+	}
+
+	private AccountEntity getAccountEntity(String accountNumber) {
+		AccountEntity accountEntity = new AccountEntity();
+		accountEntity.setAccountNumber(accountNumber);
+		accountEntity.setAccountType(Constants.ACCOUNT_TYPE_SAVINGS);
+		accountEntity.setAmount(100.00);
+		return accountEntity;
+	}
+
+	private void findTransactions(Flux<TransactionEntity> transactions) {
+		when(transactionRepository.findActiveByCreateDateRange(any(LocalDateTime.class),
+				any(LocalDateTime.class))).thenReturn(transactions);
+	}
+
+	private void findCredits(Flux<CreditEntity> credits) {
+		when(creditRepository.findByIsActiveTrue()).thenReturn(credits);
+	}
+
+	private void findCreditCards(Flux<CreditCardEntity> creditCards) {
+		when(creditCardRepository.findByIsActiveTrue()).thenReturn(creditCards);
+	}
+
+	private void findAccounts(Flux<AccountEntity> accounts) {
+		when(accountRepository.findAllByIsActiveTrue()).thenReturn(accounts);
+	}
+
+	private void findAverages(Map<String, Double> averages) {
+		when(balanceSnapshotService.averageDailyBalances(anyCollection(), any(YearMonth.class)))
+				.thenReturn(Mono.just(averages));
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.nttdata.bank.job.bean.ProductBalance;
+import com.nttdata.bank.service.impl.ReportWriterServiceImpl;
+import com.nttdata.bank.util.Constants;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@SpringBootTest
+public class ReportWriterServiceTest {
+
+	@TempDir
+	Path reportDirectory;
+
+	private ReportWriterServiceImpl reportWriterService;
+
+	@BeforeEach
+	public void setUp() {
+		reportWriterService = new ReportWriterServiceImpl();
+		ReflectionTestUtils.setField(reportWriterService, "reportDirectory", reportDirectory.toString());
+		ReflectionTestUtils.setField(reportWriterService, "flushInterval", 2);
+	}
+
+	@Test
+	public void writeReport_success() throws IOException {
+		Path report = reportWriterService.writeReport("summary.pdf", "Summary",
+				Flux.range(0, 5).map(this::getProductBalance), this::lines).block();
+
+		assertEquals(reportDirectory.resolve("summary.pdf"), report);
+		assertEquals(1, countFiles());
+		try (PdfDocument pdfDocument = new PdfDocument(new PdfReader(report.toFile()))) {
+			assertTrue(pdfDocument.getNumberOfPages() > 0);
+		}
+	}
+
+	@Test
+	public void writeReport_failureLeavesNoFile() throws IOException {
+		Flux<ProductBalance> products = Flux.range(0, 5).map(this::getProductBalance)
+				.concatWith(Flux.error(new IllegalStateException("Ledger unavailable")));
+
+		StepVerifier.create(reportWriterService.writeReport("summary.pdf", "Summary", products, this::lines))
+				.expectError(IllegalStateException.class)
+				.verify();
+
+		assertFalse(Files.exists(reportDirectory.resolve("summary.pdf")));
+		assertEquals(0, countFiles());
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+	public void writeReport_benchmark() {
+		ReflectionTestUtils.setField(reportWriterService, "flushInterval", 1000);
+		List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans();
+
+		for (int rows : Arrays.asList(100_000, 1_000_000, 5_000_000)) {
+			System.gc();
+			heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+			long start = System.nanoTime();
+
+			reportWriterService.writeReport("benchmark_" + rows + ".pdf", "Benchmark",
+					Flux.range(0, rows).map(this::getProductBalance), this::lines).block();
+
+			long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+			long peakHeap = heapPools.stream()
+					.filter(pool -> pool.getType() == MemoryType.HEAP)
+					.mapToLong(pool -> pool.getPeakUsage().getUsed())
+					.sum();
+			System.out.printf("rows=%d wallTimeMs=%d peakHeapMb=%d%n", rows, elapsedMillis,
+					peakHeap / (1024 * 1024));
+		}
+	}
+
+	private long countFiles() throws IOException {
+		try (Stream<Path> files = Files.list(reportDirectory)) {
+			return files.count();
+		}
+	}
+
+	private List<String> lines(ProductBalance product) {
+		return Arrays.asList("Account Number: " + product.getAccountNumber(),
+				"Average Balance: " + product.getAverageBalance());
+	}
+
+	private ProductBalance getProductBalance(int index) {
+		ProductBalance productBalance = new ProductBalance();
+		productBalance.setAccountNumber(String.valueOf(100000000 + index));
+		productBalance.setProductType(Constants.ACCOUNT_TYPE_SAVINGS);
+		productBalance.setAverageBalance(100.00 + index);
+		return productBalance;
+	}
+
+}
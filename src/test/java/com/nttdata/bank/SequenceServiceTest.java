@@ -0,0 +1,122 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.nttdata.bank.entity.SequenceEntity;
+import com.nttdata.bank.service.impl.SequenceServiceImpl;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest
+public class SequenceServiceTest {
+
+	private static final long BLOCK_SIZE = 1000L;
+
+	@Mock
+	private ReactiveMongoTemplate mongoTemplate;
+
+	@InjectMocks
+	private SequenceServiceImpl sequenceService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(sequenceService, "blockSize", BLOCK_SIZE);
+	}
+
+	@Test
+	public void nextValue_servesBlockFromMemory() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(SequenceEntity.class)))
+				.thenReturn(Mono.just(getSequenceEntity(BLOCK_SIZE)));
+
+		for (long expected = 1; expected <= BLOCK_SIZE; expected++) {
+			assertEquals(expected, sequenceService.nextValue("test", Mono.empty()).block());
+		}
+
+		verify(mongoTemplate, times(1)).findAndModify(any(Query.class),
+				any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+				eq(SequenceEntity.class));
+	}
+
+	@Test
+	public void nextValue_leasesNewBlockWhenExhausted() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(SequenceEntity.class)))
+				.thenReturn(Mono.just(getSequenceEntity(BLOCK_SIZE)),
+						Mono.just(getSequenceEntity(5 * BLOCK_SIZE)));
+
+		for (int i = 0; i < BLOCK_SIZE; i++) {
+			sequenceService.nextValue("test", Mono.empty()).block();
+		}
+
+		assertEquals(4 * BLOCK_SIZE + 1,
+				sequenceService.nextValue("test", Mono.empty()).block());
+	}
+
+	@Test
+	public void nextValue_initializesMissingCounter() {
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(SequenceEntity.class)))
+				.thenReturn(Mono.empty(), Mono.just(getSequenceEntity(123 + BLOCK_SIZE)));
+		when(mongoTemplate.insert(any(SequenceEntity.class)))
+				.thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+		assertEquals(124L, sequenceService.nextValue("test", Mono.just(123L)).block());
+		verify(mongoTemplate).insert(any(SequenceEntity.class));
+	}
+
+	@Test
+	public void nextValue_uniqueUnderConcurrency() throws InterruptedException {
+		AtomicLong counter = new AtomicLong();
+		when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+				any(FindAndModifyOptions.class), eq(SequenceEntity.class)))
+				.thenAnswer(invocation -> Mono
+						.fromSupplier(() -> getSequenceEntity(counter.addAndGet(BLOCK_SIZE))));
+
+		int threads = 8;
+		int perThread = 5000;
+		Set<Long> values = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		for (int t = 0; t < threads; t++) {
+			executor.submit(() -> {
+				for (int i = 0; i < perThread; i++) {
+					values.add(sequenceService.nextValue("test", Mono.empty()).block());
+				}
+			});
+		}
+
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+		assertEquals(threads * perThread, values.size());
+	}
+
+	private SequenceEntity getSequenceEntity(long value) {
+		SequenceEntity sequenceEntity = new SequenceEntity();
+		sequenceEntity.setId("test");
+		sequenceEntity.setValue(value);
+		return sequenceEntity;
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.nttdata.bank.entity.AccountEntity;
+import com.nttdata.bank.entity.DebitCardEntity;
+import com.nttdata.bank.repository.AccountRepository;
+import com.nttdata.bank.service.AccountsService;
+import com.nttdata.bank.service.MovementCounterService;
+import com.nttdata.bank.service.impl.WithdrawalFundingServiceImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+@SpringBootTest
+public class WithdrawalFundingServiceTest {
+
+	@Mock
+	private AccountRepository accountRepository;
+
+	@Mock
+	private AccountsService accountsService;
+
+	@Mock
+	private MovementCounterService movementCounterService;
+
+	@InjectMocks
+	private WithdrawalFundingServiceImpl withdrawalFundingService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		countMovements(Collections.emptyMap());
+	}
+
+	@Test
+	public void debitFundingAccount_firstFundedInCardOrder() {
+		getBalances(getAccountEntity("111", 50.00), getAccountEntity("222", 500.00),
+				getAccountEntity("333", 800.00));
+		when(accountsService.updateBalance("222", -100.00)).thenReturn(Mono.just(400.00));
+
+		Tuple2<String, Double> funding = withdrawalFundingService
+				.debitFundingAccount(getDebitCardEntity(), 100.00).block();
+
+		assertEquals("222", funding.getT1());
+		assertEquals(0.00, funding.getT2(), 0.001);
+		verify(accountRepository, times(1)).findBalancesByAccountNumbers(anyCollection());
+		verify(accountsService, never()).updateBalance(eq("111"), anyDouble());
+		verify(accountsService, never()).updateBalance(eq("333"), anyDouble());
+	}
+
+	@Test
+	public void debitFundingAccount_chargesCommissionOverLimit() {
+		Map<String, Long> movements = new HashMap<>();
+		movements.put("111", 11L);
+		countMovements(movements);
+		getBalances(getAccountEntity("111", 101.00), getAccountEntity("222", 500.00));
+		when(accountsService.updateBalance("222", -100.00)).thenReturn(Mono.just(400.00));
+
+		Tuple2<String, Double> funding = withdrawalFundingService
+				.debitFundingAccount(getDebitCardEntity(), 100.00).block();
+
+		assertEquals("222", funding.getT1());
+		verify(accountsService, never()).updateBalance(eq("111"), anyDouble());
+	}
+
+	@Test
+	public void debitFundingAccount_fallsBackWhenDrained() {
+		getBalances(getAccountEntity("111", 500.00), getAccountEntity("222", 500.00));
+		when(accountsService.updateBalance("111", -100.00)).thenReturn(Mono.error(
+				new IllegalArgumentException("The account does not have sufficient balance.")));
+		when(accountsService.updateBalance("222", -100.00)).thenReturn(Mono.just(400.00));
+
+		Tuple2<String, Double> funding = withdrawalFundingService
+				.debitFundingAccount(getDebitCardEntity(), 100.00).block();
+
+		assertEquals("222", funding.getT1());
+		verify(accountsService, times(1)).updateBalance("111", -100.00);
+	}
+
+	@Test
+	public void debitFundingAccount_noneFunded() {
+		getBalances(getAccountEntity("111", 50.00), getAccountEntity("222", 60.00));
+
+		assertThrows(IllegalArgumentException.class, () -> withdrawalFundingService
+				.debitFundingAccount(getDebitCardEntity(), 100.00).block());
+		verify(accountsService, never()).updateBalance(any(String.class), anyDouble());
+	}
+
+	private void getBalances(AccountEntity... accounts) {
+		when(accountRepository.findBalancesByAccountNumbers(anyCollection()))
+				.thenReturn(Flux.just(accounts));
+	}
+
+	private void countMovements(Map<String, Long> movements) {
+		when(movementCounterService.countMovementsByAccount(anyCollection(), any(YearMonth.class)))
+				.thenReturn(Mono.just(movements));
+	}
+
+	private AccountEntity getAccountEntity(String accountNumber, Double amount) {
+		AccountEntity accountEntity = new AccountEntity();
+		accountEntity.setAccountNumber(accountNumber);
+		accountEntity.setAmount(amount);
+		return accountEntity;
+	}
+
+	private DebitCardEntity getDebitCardEntity() {
+		DebitCardEntity debitCardEntity = new DebitCardEntity();
+		debitCardEntity.setPrimaryAccount("111");
+		debitCardEntity.setAssociatedAccounts(Arrays.asList("222", "333"));
+		return debitCardEntity;
+	}
+}
@@ -0,0 +1,158 @@
+package com.nttdata.bank;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.nttdata.bank.entity.YankiEntity;
+import com.nttdata.bank.repository.YankiRepository;
+import com.nttdata.bank.service.impl.YankiDirectoryServiceImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+@SpringBootTest
+public class YankiDirectoryServiceTest {
+
+	@Mock
+	private YankiRepository yankiRepository;
+
+	@InjectMocks
+	private YankiDirectoryServiceImpl yankiDirectoryService;
+
+	@BeforeEach
+	public void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(yankiRepository.findByPhoneNumberAndIsActiveTrue(any(String.class))).thenReturn(Mono.empty());
+	}
+
+	@Test
+	public void findByPhoneNumber_keepsLeadingZeros() {
+		yankiDirectoryService.put(getYankiEntity("012345678", "00012345678914", "12345678"));
+
+		YankiEntity found = yankiDirectoryService.findByPhoneNumber("012345678").block();
+
+		assertEquals("00012345678914", found.getAccountNumber());
+		assertEquals("12345678", found.getDocumentNumber());
+		assertNull(yankiDirectoryService.findByPhoneNumber("12345678").block());
+	}
+
+	@Test
+	public void findByPhoneNumber_holdsManyWalletsAndRemovals() {
+		for (int i = 0; i < 5000; i++) {
+			yankiDirectoryService.put(getYankiEntity(String.valueOf(900000000 + i), "1914" + i, "D" + i));
+		}
+		for (int i = 0; i < 5000; i += 2) {
+			yankiDirectoryService.remove(String.valueOf(900000000 + i));
+		}
+
+		for (int i = 0; i < 5000; i++) {
+			YankiEntity found = yankiDirectoryService.findByPhoneNumber(String.valueOf(900000000 + i)).block();
+			if (i % 2 == 0) {
+				assertNull(found);
+			} else {
+				assertEquals("1914" + i, found.getAccountNumber());
+				assertEquals("D" + i, found.getDocumentNumber());
+			}
+		}
+	}
+
+	@Test
+	public void sync_appliesChangesInOrder() {
+		yankiDirectoryService.put(getYankiEntity("987456321", "12345678914785", "12345678"));
+		yankiDirectoryService.put(getYankiEntity("987456322", "22222222222222", "2"));
+		YankiEntity deleted = getYankiEntity("987456322", "22222222222222", "2");
+		deleted.setIsActive(false);
+		when(yankiRepository.findDirectoryChanges(any(LocalDateTime.class))).thenReturn(Flux.just(
+				getYankiEntity("987456321", "98765432114785", "87654321"), deleted,
+				getYankiEntity("987456323", "33333333333333", "3")));
+
+		assertEquals(3L, yankiDirectoryService.sync().block());
+		assertEquals("98765432114785", yankiDirectoryService.findByPhoneNumber("987456321").block()
+				.getAccountNumber());
+		assertNull(yankiDirectoryService.findByPhoneNumber("987456322").block());
+		assertEquals("33333333333333", yankiDirectoryService.findByPhoneNumber("987456323").block()
+				.getAccountNumber());
+	}
+
+	@Test
+	public void sync_readsFromLastSyncMinusOverlap() {
+		when(yankiRepository.findDirectoryChanges(any(LocalDateTime.class))).thenReturn(Flux.empty());
+		LocalDateTime before = LocalDateTime.now();
+
+		yankiDirectoryService.sync().block();
+		yankiDirectoryService.sync().block();
+
+		ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+		verify(yankiRepository, times(2)).findDirectoryChanges(since.capture());
+		assertFalse(since.getAllValues().get(1).isBefore(before.minusSeconds(5)));
+		assertTrue(since.getAllValues().get(1).isBefore(LocalDateTime.now().minusSeconds(4)));
+	}
+
+	@Test
+	public void findByPhoneNumber_missReadsDatabaseOnce() {
+		YankiEntity stored = getYankiEntity("987456321", "12345678914785", "12345678");
+		when(yankiRepository.findByPhoneNumberAndIsActiveTrue("987456321")).thenReturn(Mono.just(stored));
+
+		yankiDirectoryService.findByPhoneNumber("987456321").block();
+		YankiEntity found = yankiDirectoryService.findByPhoneNumber("987456321").block();
+
+		assertEquals("12345678914785", found.getAccountNumber());
+		verify(yankiRepository, times(1)).findByPhoneNumberAndIsActiveTrue("987456321");
+	}
+
+	@Test
+	public void rebuild_keepsWalletsChangedWhileLoading() {
+		yankiDirectoryService.put(getYankiEntity("987000001", "11111111111111", "1"));
+		Sinks.Many<YankiEntity> entries = Sinks.many().unicast().onBackpressureBuffer();
+		when(yankiRepository.findDirectoryEntries()).thenReturn(entries.asFlux());
+
+		Mono<Long> rebuilt = yankiDirectoryService.rebuild().cache();
+		rebuilt.subscribe();
+		yankiDirectoryService.put(getYankiEntity("987000002", "22222222222222", "2"));
+		yankiDirectoryService.remove("987000003");
+		entries.tryEmitNext(getYankiEntity("987000002", "99999999999999", "2"));
+		entries.tryEmitNext(getYankiEntity("987000003", "33333333333333", "3"));
+		entries.tryEmitNext(getYankiEntity("987000004", "44444444444444", "4"));
+		entries.tryEmitComplete();
+
+		assertEquals(2L, rebuilt.block());
+		assertNull(yankiDirectoryService.findByPhoneNumber("987000001").block());
+		assertEquals("22222222222222", yankiDirectoryService.findByPhoneNumber("987000002").block().getAccountNumber());
+		assertNull(yankiDirectoryService.findByPhoneNumber("987000003").block());
+		assertEquals("44444444444444", yankiDirectoryService.findByPhoneNumber("987000004").block().getAccountNumber());
+	}
+
+	@Test
+	public void rebuild_failureKeepsCurrentDirectory() {
+		yankiDirectoryService.put(getYankiEntity("987000001", "11111111111111", "1"));
+		when(yankiRepository.findDirectoryEntries()).thenReturn(Flux.error(new RuntimeException("timeout")));
+
+		yankiDirectoryService.rebuild().onErrorResume(error -> Mono.empty()).block();
+
+		assertEquals("11111111111111", yankiDirectoryService.findByPhoneNumber("987000001").block().getAccountNumber());
+		verify(yankiRepository, never()).findByPhoneNumberAndIsActiveTrue("987000001");
+	}
+
+	private YankiEntity getYankiEntity(String phoneNumber, String accountNumber, String documentNumber) {
+		YankiEntity yankiEntity = new YankiEntity();
+		yankiEntity.setPhoneNumber(phoneNumber);
+		yankiEntity.setAccountNumber(accountNumber);
+		yankiEntity.setDocumentNumber(documentNumber);
+		yankiEntity.setIsActive(true);
+		return yankiEntity;
+	}
+}
@@ -1,9 +1,13 @@
 package com.nttdata.bank;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertFalse;
 import java.time.LocalDateTime;
@@ -19,8 +23,11 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import com.nttdata.bank.service.AccountsService;
 import com.nttdata.bank.service.CustomerService;
+import com.nttdata.bank.service.YankiDirectoryService;
 import com.nttdata.bank.service.impl.YankiServiceImpl;
 import com.nttdata.bank.util.Constants;
 
@@ -37,6 +44,7 @@ import com.nttdata.bank.request.AccountRequest;
 import com.nttdata.bank.request.YankiRequest;
 import com.nttdata.bank.request.YankiUpdateRequest;
 import com.nttdata.bank.response.AccountResponse;
+import com.nttdata.bank.response.YankiResponse;
 
 @SpringBootTest
 public class YankiServiceTest {
@@ -59,6 +67,9 @@ public class YankiServiceTest {
 	@Mock
 	private YankiRepository yankiRepository;
 
+	@Mock
+	private YankiDirectoryService yankiDirectoryService;
+
 	@InjectMocks
 	private YankiServiceImpl yankiService;
 
@@ -184,16 +195,32 @@ public class YankiServiceTest {
 
 	@Test
 	public void listCustomer_success1() {
-		when(yankiRepository.findAllByIsActiveTrue())
+		when(yankiRepository.findActivePage(any(Pageable.class)))
 				.thenReturn(Flux.empty());
-		assertNotNull(yankiService.findAllYanki());
+		assertNotNull(yankiService.findAllYanki(null, null));
 	}
 
 	@Test
 	public void listCustomer_success2() {
-		when(yankiRepository.findAllByIsActiveTrue())
+		when(yankiRepository.findActivePageAfter(eq("yanki-1"), any(Pageable.class)))
 				.thenReturn(Flux.fromIterable(Arrays.asList(new YankiEntity())));
-		assertNotNull(yankiService.findAllYanki());
+		assertNotNull(yankiService.findAllYanki("yanki-1", 5000));
+
+		verify(yankiRepository).findActivePageAfter("yanki-1", PageRequest.of(0, Constants.LIST_MAX_PAGE_SIZE));
+	}
+
+	@Test
+	public void streamYanki_mapsEachEntity() {
+		YankiEntity yankiEntity = new YankiEntity();
+		yankiEntity.setId("yanki-1");
+		yankiEntity.setPhoneNumber("987654321");
+		when(yankiRepository.findAllByIsActiveTrue()).thenReturn(Flux.just(yankiEntity));
+
+		List<YankiResponse> yankis = yankiService.streamAllYanki().collectList().block();
+
+		assertEquals(1, yankis.size());
+		assertEquals("yanki-1", yankis.get(0).getYankiId());
+		assertEquals("987654321", yankis.get(0).getPhoneNumber());
 	}
 
 	@Test
@@ -234,6 +261,7 @@ public class YankiServiceTest {
 
 		saveYanki();
 		yankiService.updateYanki("987456321", yankiUpdateRequest);
+		verify(yankiDirectoryService).put(any(YankiEntity.class));
 	}
 
 	@Test
@@ -248,7 +276,10 @@ public class YankiServiceTest {
 	@Test
 	public void delete_success() {
 		getByPhone(Mono.just(getYankiEntity()));
+		saveYanki();
 		yankiService.deleteYanki("987456321");
+		verify(yankiRepository).save(argThat(entity -> !entity.getIsActive() && entity.getUpdateDate() != null));
+		verify(yankiDirectoryService).remove("987456321");
 	}
 
 	private YankiRequest getYankiRequest(String document) {